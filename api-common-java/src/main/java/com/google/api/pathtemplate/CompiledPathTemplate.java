@@ -0,0 +1,422 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.pathtemplate;
+
+import com.google.api.pathtemplate.PathTemplate.Segment;
+import com.google.api.pathtemplate.PathTemplate.SegmentKind;
+import com.google.common.base.CharMatcher;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A path template compiled for matching and instantiation by scanning the path, without splitting
+ * it into segment lists or building intermediate maps.
+ *
+ * <p>Only templates made of literals, wildcards, a path wildcard, and variable bindings are
+ * compiled. Paths and values that need unescaping, trimming, or host name handling are left to the
+ * general algorithm in {@link PathTemplate}, which is signalled by {@link #UNSUPPORTED} or a null
+ * instantiation.
+ */
+final class CompiledPathTemplate {
+  // Results of scan().
+  static final int MATCH = 0;
+  static final int NO_MATCH = 1;
+  static final int UNSUPPORTED = 2;
+
+  // URLEncoder leaves these characters unchanged.
+  private static final CharMatcher URL_SAFE_CHARS =
+      CharMatcher.inRange('a', 'z')
+          .or(CharMatcher.inRange('A', 'Z'))
+          .or(CharMatcher.inRange('0', '9'))
+          .or(CharMatcher.anyOf(".-*_"))
+          .precomputed();
+
+  private static final CharMatcher WHITESPACE = CharMatcher.whitespace();
+
+  // The segments which consume a path segment, and the binding each belongs to, or -1.
+  private final SegmentKind[] kinds;
+  private final String[] literals;
+  private final int[] bindingIndexes;
+
+  // The bindings, in template order, and how many path segments each spans.
+  private final String[] bindingNames;
+  private final int[] bindingSegmentCounts;
+  private final boolean[] pathBindings;
+
+  // Index into kinds of the path wildcard, or -1.
+  private final int pathWildcardIndex;
+  private final boolean urlEncoding;
+
+  private CompiledPathTemplate(
+      SegmentKind[] kinds,
+      String[] literals,
+      int[] bindingIndexes,
+      String[] bindingNames,
+      int[] bindingSegmentCounts,
+      boolean[] pathBindings,
+      int pathWildcardIndex,
+      boolean urlEncoding) {
+    this.kinds = kinds;
+    this.literals = literals;
+    this.bindingIndexes = bindingIndexes;
+    this.bindingNames = bindingNames;
+    this.bindingSegmentCounts = bindingSegmentCounts;
+    this.pathBindings = pathBindings;
+    this.pathWildcardIndex = pathWildcardIndex;
+    this.urlEncoding = urlEncoding;
+  }
+
+  /** Compiles the segments, or returns null if the template uses unsupported features. */
+  @Nullable
+  static CompiledPathTemplate compile(List<Segment> segments, boolean urlEncoding) {
+    int consumingCount = 0;
+    int bindingCount = 0;
+    for (Segment seg : segments) {
+      switch (seg.kind()) {
+        case LITERAL:
+        case WILDCARD:
+        case PATH_WILDCARD:
+          if (!seg.complexSeparator().isEmpty()) {
+            return null;
+          }
+          consumingCount++;
+          break;
+        case BINDING:
+          bindingCount++;
+          break;
+        case END_BINDING:
+          break;
+        default:
+          // Custom verbs are matched against the end of the path with a regular expression.
+          return null;
+      }
+    }
+
+    SegmentKind[] kinds = new SegmentKind[consumingCount];
+    String[] literals = new String[consumingCount];
+    int[] bindingIndexes = new int[consumingCount];
+    String[] bindingNames = new String[bindingCount];
+    int[] bindingSegmentCounts = new int[bindingCount];
+    boolean[] pathBindings = new boolean[bindingCount];
+    int pathWildcardIndex = -1;
+    int currentBinding = -1;
+    int consumingIndex = 0;
+    int bindingIndex = 0;
+    for (Segment seg : segments) {
+      switch (seg.kind()) {
+        case BINDING:
+          currentBinding = bindingIndex++;
+          bindingNames[currentBinding] = seg.value();
+          break;
+        case END_BINDING:
+          currentBinding = -1;
+          break;
+        default:
+          kinds[consumingIndex] = seg.kind();
+          literals[consumingIndex] = seg.value();
+          bindingIndexes[consumingIndex] = currentBinding;
+          if (seg.kind() == SegmentKind.PATH_WILDCARD) {
+            pathWildcardIndex = consumingIndex;
+          }
+          if (currentBinding >= 0) {
+            bindingSegmentCounts[currentBinding]++;
+            // Matches PathTemplate.instantiate, which escapes such values segment by segment.
+            pathBindings[currentBinding] |=
+                seg.kind() == SegmentKind.PATH_WILDCARD || bindingSegmentCounts[currentBinding] > 1;
+          }
+          consumingIndex++;
+      }
+    }
+    return new CompiledPathTemplate(
+        kinds,
+        literals,
+        bindingIndexes,
+        bindingNames,
+        bindingSegmentCounts,
+        pathBindings,
+        pathWildcardIndex,
+        urlEncoding);
+  }
+
+  /**
+   * Matches the path and, if captures is not null, records the start and end offsets of each
+   * binding's value in it. Allocates nothing.
+   */
+  int scan(CharSequence path, @Nullable int[] captures) {
+    int length = path.length();
+    if (startsWithHostName(path)) {
+      return UNSUPPORTED;
+    }
+    int pathSegmentCount = 1;
+    for (int i = 0; i < length; i++) {
+      char c = path.charAt(i);
+      if (c == '/') {
+        pathSegmentCount++;
+      } else if ((urlEncoding && (c == '%' || c == '+')) || WHITESPACE.matches(c)) {
+        // Needs unescaping or trimming.
+        return UNSUPPORTED;
+      }
+    }
+
+    int fixedSegmentCount = pathWildcardIndex < 0 ? kinds.length : kinds.length - 1;
+    int available = pathSegmentCount - fixedSegmentCount;
+    if (available < 0 || (pathWildcardIndex < 0 && available > 0)) {
+      return NO_MATCH;
+    }
+    if (captures != null) {
+      Arrays.fill(captures, -1);
+    }
+
+    int pos = 0;
+    for (int i = 0; i < kinds.length; i++) {
+      int start = pos;
+      int end;
+      if (kinds[i] == SegmentKind.PATH_WILDCARD) {
+        if (available == 0) {
+          if (bindingIndexes[i] >= 0 && bindingSegmentCounts[bindingIndexes[i]] > 1) {
+            // The general algorithm joins an empty capture with a leading slash here.
+            return UNSUPPORTED;
+          }
+          // Captures the empty string, without consuming input.
+          if (captures != null && bindingIndexes[i] >= 0) {
+            captures[2 * bindingIndexes[i]] = 0;
+            captures[2 * bindingIndexes[i] + 1] = 0;
+          }
+          continue;
+        }
+        end = start;
+        for (int n = 0; n < available; n++) {
+          end = indexOfSlash(path, n == 0 ? start : end + 1);
+        }
+      } else {
+        end = indexOfSlash(path, start);
+        if (kinds[i] == SegmentKind.LITERAL && !regionEquals(path, start, end, literals[i])) {
+          return NO_MATCH;
+        }
+      }
+      if (captures != null && bindingIndexes[i] >= 0) {
+        int binding = bindingIndexes[i];
+        if (captures[2 * binding] < 0) {
+          captures[2 * binding] = start;
+        }
+        captures[2 * binding + 1] = end;
+      }
+      pos = end + 1;
+    }
+    return MATCH;
+  }
+
+  /** Returns an array for the captures of {@link #scan}. */
+  int[] newCaptures() {
+    return new int[2 * bindingNames.length];
+  }
+
+  /** Returns a view of the bindings' values, given the captures of a successful {@link #scan}. */
+  Map<String, String> matchResult(String path, int[] captures) {
+    return new MatchResult(bindingNames, path, captures);
+  }
+
+  /**
+   * Instantiates the template, or returns null if a binding is missing, or a value needs escaping
+   * or validation by the general algorithm.
+   */
+  @Nullable
+  String instantiate(Map<String, String> values) {
+    if (values.containsKey(PathTemplate.HOSTNAME_VAR)) {
+      return null;
+    }
+    StringBuilder result = new StringBuilder();
+    int currentBinding = -1;
+    for (int i = 0; i < kinds.length; i++) {
+      int binding = bindingIndexes[i];
+      if (binding >= 0 && binding == currentBinding) {
+        // The binding's value has already been appended.
+        continue;
+      }
+      if (i > 0) {
+        result.append('/');
+      }
+      currentBinding = binding;
+      if (binding < 0) {
+        result.append(literals[i]);
+        continue;
+      }
+      String value = values.get(bindingNames[binding]);
+      if (value == null || !isVerbatim(value, pathBindings[binding])) {
+        return null;
+      }
+      result.append(value);
+    }
+    return result.toString();
+  }
+
+  // Whether the value is instantiated as is, without escaping or trimming.
+  private boolean isVerbatim(String value, boolean pathBinding) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '/') {
+        if (!pathBinding) {
+          return false;
+        }
+      } else if (urlEncoding ? !URL_SAFE_CHARS.matches(c) : WHITESPACE.matches(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Mirrors PathTemplate's host name pattern, ^(\w+:)?//.
+  private static boolean startsWithHostName(CharSequence path) {
+    int i = 0;
+    while (i < path.length() && isWordChar(path.charAt(i))) {
+      i++;
+    }
+    if (i > 0) {
+      if (i >= path.length() || path.charAt(i) != ':') {
+        return false;
+      }
+      i++;
+    }
+    return i + 1 < path.length() && path.charAt(i) == '/' && path.charAt(i + 1) == '/';
+  }
+
+  private static boolean isWordChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  private static int indexOfSlash(CharSequence path, int from) {
+    for (int i = from; i < path.length(); i++) {
+      if (path.charAt(i) == '/') {
+        return i;
+      }
+    }
+    return path.length();
+  }
+
+  private static boolean regionEquals(CharSequence path, int start, int end, String literal) {
+    if (end - start != literal.length()) {
+      return false;
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (path.charAt(start + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * An immutable view of the matched values, in template order. Values are cut from the path when
+   * they are first read.
+   */
+  private static final class MatchResult extends AbstractMap<String, String> {
+    private final String[] names;
+    private final String path;
+    private final int[] captures;
+    private final String[] values;
+
+    private MatchResult(String[] names, String path, int[] captures) {
+      this.names = names;
+      this.path = path;
+      this.captures = captures;
+      this.values = new String[names.length];
+    }
+
+    private String value(int i) {
+      if (values[i] == null) {
+        values[i] = path.substring(captures[2 * i], captures[2 * i + 1]);
+      }
+      return values[i];
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public int size() {
+      return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+      int i = indexOf(key);
+      return i < 0 ? null : value(i);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+      return new AbstractSet<Entry<String, String>>() {
+        @Override
+        public int size() {
+          return names.length;
+        }
+
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+          return new Iterator<Entry<String, String>>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+              return next < names.length;
+            }
+
+            @Override
+            public Entry<String, String> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              int i = next++;
+              return new SimpleImmutableEntry<>(names[i], value(i));
+            }
+          };
+        }
+      };
+    }
+  }
+}
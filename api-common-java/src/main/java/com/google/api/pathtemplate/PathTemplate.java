@@ -31,6 +31,7 @@
 package com.google.api.pathtemplate;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -273,6 +274,9 @@ public class PathTemplate {
   // Control use of URL encoding
   private final boolean urlEncoding;
 
+  // The template compiled for fast matching and instantiation, or null if it is not supported.
+  @Nullable private final CompiledPathTemplate compiledTemplate;
+
   private PathTemplate(Iterable<Segment> segments, boolean urlEncoding) {
     this.segments = ImmutableList.copyOf(segments);
     if (this.segments.isEmpty()) {
@@ -289,6 +293,7 @@ public class PathTemplate {
     }
     this.bindings = ImmutableMap.copyOf(bindings);
     this.urlEncoding = urlEncoding;
+    this.compiledTemplate = CompiledPathTemplate.compile(this.segments, urlEncoding);
   }
 
   /** Returns the set of variable names used in the template. */
@@ -466,7 +471,13 @@ public class PathTemplate {
 
   /** Returns true if the template matches the path. */
   public boolean matches(String path) {
-    return match(path) != null;
+    if (compiledTemplate != null) {
+      int result = compiledTemplate.scan(path, null);
+      if (result != CompiledPathTemplate.UNSUPPORTED) {
+        return result == CompiledPathTemplate.MATCH;
+      }
+    }
+    return matchSegments(path, false) != null;
   }
 
   /**
@@ -522,6 +533,22 @@ public class PathTemplate {
 
   // Matches a path.
   private Map<String, String> match(String path, boolean forceHostName) {
+    if (compiledTemplate != null && !forceHostName) {
+      int[] captures = compiledTemplate.newCaptures();
+      int result = compiledTemplate.scan(path, captures);
+      if (result == CompiledPathTemplate.MATCH) {
+        return compiledTemplate.matchResult(path, captures);
+      } else if (result == CompiledPathTemplate.NO_MATCH) {
+        return null;
+      }
+    }
+    return matchSegments(path, forceHostName);
+  }
+
+  // Matches a path by splitting it into segments. Handles host names, escaping, and complex
+  // resource IDs, which the compiled template leaves to this method.
+  @VisibleForTesting
+  Map<String, String> matchSegments(String path, boolean forceHostName) {
     // Quick check for trailing custom verb.
     Segment last = segments.get(segments.size() - 1);
     if (last.kind() == SegmentKind.CUSTOM_VERB) {
@@ -718,6 +745,18 @@ public class PathTemplate {
   }
 
   private String instantiate(Map<String, String> values, boolean allowPartial) {
+    if (compiledTemplate != null && !allowPartial) {
+      String result = compiledTemplate.instantiate(values);
+      if (result != null) {
+        return result;
+      }
+    }
+    return instantiateSegments(values, allowPartial);
+  }
+
+  // Instantiates the template segment by segment, escaping values as needed.
+  @VisibleForTesting
+  String instantiateSegments(Map<String, String> values, boolean allowPartial) {
     StringBuilder result = new StringBuilder();
     if (values.containsKey(HOSTNAME_VAR)) {
       result.append(values.get(HOSTNAME_VAR));
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.pathtemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the compiled matching and instantiation of {@link PathTemplate} with the general,
+ * segment-splitting algorithm, on templates typical of routing headers and REST paths.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Pbenchmark} in the api-common-java module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathTemplateBenchmark {
+  @Param({"resourceName", "httpBinding", "pathWildcard"})
+  private String template;
+
+  private PathTemplate pathTemplate;
+  private String path;
+  private Map<String, String> values;
+
+  @Setup
+  public void setUp() {
+    switch (template) {
+      case "resourceName":
+        pathTemplate = PathTemplate.create("projects/*/locations/*/instances/*");
+        path = "projects/my-project/locations/us-central1/instances/my-instance";
+        break;
+      case "httpBinding":
+        pathTemplate = PathTemplate.create("v1/{name=projects/*/locations/*/instances/*}");
+        path = "v1/projects/my-project/locations/us-central1/instances/my-instance";
+        break;
+      case "pathWildcard":
+        pathTemplate = PathTemplate.create("{database=projects/*/instances/*/databases/*}/**");
+        path = "projects/my-project/instances/my-instance/databases/my-database/sessions/s1";
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown template %s", template));
+    }
+    values = pathTemplate.match(path);
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return pathTemplate.matches(path);
+  }
+
+  @Benchmark
+  public boolean matchesSegments() {
+    return pathTemplate.matchSegments(path, false) != null;
+  }
+
+  @Benchmark
+  public Map<String, String> match() {
+    return pathTemplate.match(path);
+  }
+
+  @Benchmark
+  public Map<String, String> matchSegments() {
+    return pathTemplate.matchSegments(path, false);
+  }
+
+  @Benchmark
+  public String instantiate() {
+    return pathTemplate.instantiate(values);
+  }
+
+  @Benchmark
+  public String instantiateSegments() {
+    return pathTemplate.instantiateSegments(values, false);
+  }
+}
@@ -30,6 +30,7 @@
 
 package com.google.api.pathtemplate;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.truth.Truth;
 import java.util.ArrayList;
@@ -817,6 +818,123 @@ public class PathTemplateTest {
     Truth.assertThat(pathTemplate.matches(pattern)).isTrue();
   }
 
+  // Compiled Templates
+  // ==================
+
+  private static final List<String> COMPILED_TEMPLATES =
+      Arrays.asList(
+          "buckets/*/*/objects/*",
+          "v1/{name=shelves/*/books/*}",
+          "v1/shelves/{shelf}/books/{book}",
+          "shelves/*/books/**",
+          "{name=**}",
+          "v1/{name=projects/*/**}",
+          "v1/{name=**/books/*}",
+          "projects/-/locations/{location}",
+          "a/{x=b/*}/c/{y=**}");
+
+  private static final List<String> MATCH_INPUTS =
+      Arrays.asList(
+          "",
+          "/",
+          "buckets/f/o/objects/bar",
+          "buckets/f/o/objects/bar/baz",
+          "v1/shelves/s1/books/b1",
+          "v1/shelves/s1/books/",
+          "v1/shelves//books/b1",
+          "shelves/s1/books",
+          "shelves/s1/books/a/b/c",
+          "v1/projects/p1",
+          "v1/projects/p1/",
+          "v1/books/b1",
+          "projects/-/locations/us",
+          "projects/p1/locations/us",
+          "a/b/x/c",
+          "a/b/x/c/y/z",
+          "a/b/x/d/y",
+          "v1/shelves/s%2F1/books/b1",
+          "v1/shelves/s+1/books/b1",
+          "v1/shelves/ s1 /books/b1",
+          "//somewhere.io/v1/shelves/s1/books/b1",
+          "https://somewhere.io/shelves/s1/books/b1");
+
+  @Test
+  public void compiledMatchEqualsSegmentMatch() {
+    for (String templateString : COMPILED_TEMPLATES) {
+      for (PathTemplate template :
+          Arrays.asList(
+              PathTemplate.create(templateString),
+              PathTemplate.createWithoutUrlEncoding(templateString))) {
+        for (String path : MATCH_INPUTS) {
+          Map<String, String> expected = template.matchSegments(path, false);
+          Truth.assertWithMessage("%s matching %s", templateString, path)
+              .that(template.match(path))
+              .isEqualTo(expected);
+          Truth.assertWithMessage("%s matches %s", templateString, path)
+              .that(template.matches(path))
+              .isEqualTo(expected != null);
+          if (expected != null) {
+            Truth.assertThat(ImmutableList.copyOf(template.match(path).keySet()))
+                .containsExactlyElementsIn(expected.keySet())
+                .inOrder();
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void compiledMatchResultIsImmutable() {
+    Map<String, String> match =
+        PathTemplate.create("v1/{name=shelves/*/books/*}").match("v1/shelves/s1/books/b1");
+    Truth.assertThat(match).containsExactly("name", "shelves/s1/books/b1");
+    thrown.expect(UnsupportedOperationException.class);
+    match.put("name", "other");
+  }
+
+  @Test
+  public void compiledInstantiateEqualsSegmentInstantiate() {
+    List<String> values =
+        Arrays.asList("s1", "", "a/b", "a b", "a%2Fb", "x.y-z_*", "caf\u00e9", "p1/locations/l1");
+    for (String templateString : COMPILED_TEMPLATES) {
+      for (PathTemplate template :
+          Arrays.asList(
+              PathTemplate.create(templateString),
+              PathTemplate.createWithoutUrlEncoding(templateString))) {
+        for (String value : values) {
+          ImmutableMap.Builder<String, String> bindings = ImmutableMap.builder();
+          for (String var : template.vars()) {
+            bindings.put(var, value);
+          }
+          assertSameInstantiation(template, bindings.build());
+        }
+      }
+    }
+    // Host names and missing bindings are left to the segment algorithm.
+    assertSameInstantiation(
+        PathTemplate.create("v1/shelves/{shelf}"),
+        ImmutableMap.of(PathTemplate.HOSTNAME_VAR, "//somewhere.io", "shelf", "s1"));
+    assertSameInstantiation(PathTemplate.create("v1/shelves/{shelf}"), ImmutableMap.of());
+  }
+
+  private static void assertSameInstantiation(PathTemplate template, Map<String, String> values) {
+    String expected;
+    try {
+      expected = template.instantiateSegments(values, false);
+    } catch (ValidationException e) {
+      try {
+        template.instantiate(values);
+        throw new AssertionError(
+            String.format("%s did not throw for %s: %s", template, values, e.getMessage()));
+      } catch (ValidationException expectedException) {
+        return;
+      }
+    }
+    Truth.assertWithMessage("%s instantiated with %s", template, values)
+        .that(template.instantiate(values))
+        .isEqualTo(expected);
+  }
+
   // Other
   // =====
 
@@ -44,6 +44,18 @@ public abstract class ArithmeticOperationExpr implements OperationExpr {
         .build();
   }
 
+  public static ArithmeticOperationExpr additionWithExprs(Expr lhsExpr, Expr rhsExpr) {
+    return builder()
+        .setLhsExpr(lhsExpr)
+        .setRhsExpr(rhsExpr)
+        .setOperatorKind(OperatorKind.ARITHMETIC_ADDITION)
+        .setType(
+            lhsExpr.type().equals(TypeNode.LONG) || rhsExpr.type().equals(TypeNode.LONG)
+                ? TypeNode.LONG
+                : TypeNode.INT)
+        .build();
+  }
+
   private static Builder builder() {
     return new AutoValue_ArithmeticOperationExpr.Builder();
   }
@@ -79,9 +91,14 @@ public abstract class ArithmeticOperationExpr implements OperationExpr {
       Preconditions.checkState(
           !lhsExprType.equals(TypeNode.VOID) && !rhsExprType.equals(TypeNode.VOID), errorMsg);
 
-      // Type-checking for Concat operator.
+      // Type-checking for Concat and integer addition operators.
       if (operator.equals(OperatorKind.ARITHMETIC_ADDITION)) {
-        Preconditions.checkState(isValidConcatTypes(lhsExprType, rhsExprType), errorMsg);
+        if (arithmeticOperationExpr.type().equals(TypeNode.STRING)) {
+          Preconditions.checkState(isValidConcatTypes(lhsExprType, rhsExprType), errorMsg);
+        } else {
+          Preconditions.checkState(
+              isValidIntegerType(lhsExprType) && isValidIntegerType(rhsExprType), errorMsg);
+        }
       }
 
       return arithmeticOperationExpr;
@@ -91,5 +108,9 @@ public abstract class ArithmeticOperationExpr implements OperationExpr {
       // concat requires at least one String-typed expression
       return lhsType.equals(TypeNode.STRING) || rhsType.equals(TypeNode.STRING);
     }
+
+    private boolean isValidIntegerType(TypeNode type) {
+      return type.equals(TypeNode.INT) || type.equals(TypeNode.LONG);
+    }
   }
 }
@@ -131,11 +131,17 @@ public class JavaWriterVisitor implements AstNodeVisitor {
   private final StringBuffer buffer = new StringBuffer();
   private final ImportWriterVisitor importWriterVisitor = new ImportWriterVisitor();
 
+  // True while writing a compilation unit (a top-level class or a package-info) that is formatted
+  // as a whole once it is complete. Comments inside it are then written unformatted, since that
+  // final pass wraps and indents them anyway.
+  private boolean isWritingFormattedUnit = false;
+
   public JavaWriterVisitor() {}
 
   public void clear() {
     buffer.setLength(0);
     importWriterVisitor.clear();
+    isWritingFormattedUnit = false;
   }
 
   public String write() {
@@ -777,10 +783,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
   @Override
   public void visit(LineComment lineComment) {
     // Split comments by new line and add `//` to each line.
-    String formattedSource =
-        JavaFormatter.format(
-            String.format("// %s", String.join("\n//", lineComment.comment().split("\\r?\\n"))));
-    buffer.append(formattedSource);
+    comment(String.format("// %s", String.join("\n//", lineComment.comment().split("\\r?\\n"))));
   }
 
   @Override
@@ -794,7 +797,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
               sourceComment.append(String.format("%s %s%s", ASTERISK, comment, NEWLINE));
             });
     sourceComment.append(BLOCK_COMMENT_END);
-    buffer.append(JavaFormatter.format(sourceComment.toString()));
+    comment(sourceComment.toString());
   }
 
   @Override
@@ -807,7 +810,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
               sourceComment.append(String.format("%s %s%s", ASTERISK, comment, NEWLINE));
             });
     sourceComment.append(BLOCK_COMMENT_END);
-    buffer.append(JavaFormatter.format(sourceComment.toString()));
+    comment(sourceComment.toString());
   }
 
   /** =============================== OTHER =============================== */
@@ -925,6 +928,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
   @Override
   public void visit(ClassDefinition classDefinition) {
     if (!classDefinition.isNested()) {
+      isWritingFormattedUnit = true;
       statements(classDefinition.fileHeader().stream().collect(Collectors.toList()));
       newline();
       importWriterVisitor.initialize(
@@ -1017,6 +1021,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
 
     // We should have valid Java by now, so format it.
     if (!classDefinition.isNested()) {
+      isWritingFormattedUnit = false;
       String formattedClazz = JavaFormatter.format(buffer.toString());
 
       // fixing region tag after formatting
@@ -1033,6 +1038,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
 
   @Override
   public void visit(PackageInfoDefinition packageInfoDefinition) {
+    isWritingFormattedUnit = true;
     statements(packageInfoDefinition.fileHeader().stream().collect(Collectors.toList()));
     newline();
     statements(
@@ -1048,6 +1054,7 @@ public class JavaWriterVisitor implements AstNodeVisitor {
     buffer.append(importWriterVisitor.write());
 
     // Format code.
+    isWritingFormattedUnit = false;
     buffer.replace(0, buffer.length(), JavaFormatter.format(buffer.toString()));
   }
 
@@ -1089,6 +1096,16 @@ public class JavaWriterVisitor implements AstNodeVisitor {
     buffer.append(NEWLINE);
   }
 
+  private void comment(String sourceComment) {
+    if (isWritingFormattedUnit) {
+      // Left to the formatting pass over the whole compilation unit.
+      buffer.append(sourceComment);
+      newline();
+    } else {
+      buffer.append(JavaFormatter.format(sourceComment));
+    }
+  }
+
   private void leftParen() {
     buffer.append(LEFT_PAREN);
   }
@@ -14,11 +14,13 @@
 
 package com.google.api.generator.gapic;
 
+import com.google.api.generator.gapic.cache.GenerationCache;
 import com.google.api.generator.gapic.composer.Composer;
 import com.google.api.generator.gapic.model.GapicClass;
 import com.google.api.generator.gapic.model.GapicContext;
 import com.google.api.generator.gapic.model.GapicPackageInfo;
 import com.google.api.generator.gapic.protoparser.Parser;
+import com.google.api.generator.gapic.protowriter.SourceFile;
 import com.google.api.generator.gapic.protowriter.Writer;
 import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
 import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
@@ -27,9 +29,23 @@ import java.util.List;
 public class Generator {
   public static CodeGeneratorResponse generateGapic(CodeGeneratorRequest request) {
     GapicContext context = Parser.parse(request);
+    if (context.generationCacheDir() != null) {
+      return generateGapicWithCache(request, context);
+    }
     List<GapicClass> clazzes = Composer.composeServiceClasses(context);
     GapicPackageInfo packageInfo = Composer.composePackageInfo(context);
     String outputFilename = "temp-codegen.srcjar";
     return Writer.write(context, clazzes, packageInfo, outputFilename);
   }
+
+  // Reuses the rendered classes of the services and resource names that did not change since the
+  // previous run. The package-info depends on all services, so it is always composed.
+  private static CodeGeneratorResponse generateGapicWithCache(
+      CodeGeneratorRequest request, GapicContext context) {
+    GenerationCache cache = GenerationCache.create(context.generationCacheDir(), request);
+    List<SourceFile> sourceFiles = cache.composeAndRender(context);
+    GapicPackageInfo packageInfo = Composer.composePackageInfo(context);
+    String outputFilename = "temp-codegen.srcjar";
+    return Writer.writeSourceFiles(context, sourceFiles, packageInfo, outputFilename);
+  }
 }
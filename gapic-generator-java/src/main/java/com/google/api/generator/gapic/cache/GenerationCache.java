@@ -0,0 +1,392 @@
+// Copyright 2023 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.generator.gapic.cache;
+
+import com.google.api.generator.engine.ast.Reference;
+import com.google.api.generator.engine.ast.TypeNode;
+import com.google.api.generator.gapic.Generator;
+import com.google.api.generator.gapic.composer.Composer;
+import com.google.api.generator.gapic.model.Field;
+import com.google.api.generator.gapic.model.GapicClass;
+import com.google.api.generator.gapic.model.GapicContext;
+import com.google.api.generator.gapic.model.Message;
+import com.google.api.generator.gapic.model.Method;
+import com.google.api.generator.gapic.model.ResourceName;
+import com.google.api.generator.gapic.model.Service;
+import com.google.api.generator.gapic.protoparser.PluginArgumentParser;
+import com.google.api.generator.gapic.protowriter.SourceFile;
+import com.google.api.generator.gapic.protowriter.Writer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.gapic.metadata.GapicMetadata.ServiceForTransport;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An on-disk cache of rendered source files, for regenerating a library after small API edits.
+ *
+ * <p>The cached units are the classes of each service, the mock classes of each mixin service, and
+ * each resource name helper class. A unit is keyed by a fingerprint of the models that its classes
+ * are composed from, together with the generator version and the plugin parameters (including the
+ * contents of the configuration files they point to, but not the output and cache locations). Units
+ * with an unchanged fingerprint are read back from the cache instead of being composed and rendered
+ * again.
+ */
+public class GenerationCache {
+  private static final String CACHE_FILE_SUFFIX = ".zip";
+  private static final String METADATA_ENTRY_NAME = "gapic_metadata";
+  // Written last, so that truncated or otherwise corrupt entries are not mistaken for empty units.
+  private static final String END_ENTRY_NAME = "end";
+  private static final String UNKNOWN_VERSION = "unknown";
+
+  // Stubs, client and settings classes, mocks, and tests. See Composer.generateServiceClasses.
+  private static final int SERVICE_CLASS_SECTION_COUNT = 4;
+
+  private final Path cacheDir;
+  private final String baseKey;
+
+  private GenerationCache(Path cacheDir, String baseKey) {
+    this.cacheDir = cacheDir;
+    this.baseKey = baseKey;
+  }
+
+  public static GenerationCache create(String cacheDir, CodeGeneratorRequest request) {
+    return new GenerationCache(Paths.get(cacheDir), createBaseKey(generatorVersion(), request));
+  }
+
+  /**
+   * Returns the rendered source files of all service, mixin mock, and resource name helper classes,
+   * in the order that {@link Composer#composeServiceClasses} would produce them. Records the
+   * services in the context's GAPIC metadata as composition does.
+   */
+  public List<SourceFile> composeAndRender(GapicContext context) {
+    try {
+      Files.createDirectories(cacheDir);
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Could not create generation cache directory %s", cacheDir), e);
+    }
+
+    // As in Composer.generateServiceClasses, the sections of each service are regrouped by section.
+    List<List<List<SourceFile>>> serviceFiles =
+        context
+            .services()
+            .parallelStream()
+            .map(s -> composeAndRenderService(context, s))
+            .collect(Collectors.toList());
+    Composer.restoreGapicMetadataServiceOrder(context);
+
+    List<SourceFile> sourceFiles = new ArrayList<>();
+    for (int section = 0; section < SERVICE_CLASS_SECTION_COUNT; section++) {
+      for (List<List<SourceFile>> sections : serviceFiles) {
+        sourceFiles.addAll(sections.get(section));
+      }
+    }
+    sourceFiles.addAll(
+        context
+            .mixinServices()
+            .parallelStream()
+            .map(s -> composeAndRenderMixinService(context, s))
+            .flatMap(List::stream)
+            .collect(Collectors.toList()));
+    sourceFiles.addAll(
+        Composer.getHelperResourceNamesToGenerate(context)
+            .parallelStream()
+            .map(r -> composeAndRenderResourceName(context, r))
+            .flatMap(List::stream)
+            .collect(Collectors.toList()));
+    return sourceFiles;
+  }
+
+  private List<List<SourceFile>> composeAndRenderService(GapicContext context, Service service) {
+    String key = createServiceKey(context, service, "service");
+    Optional<CachedUnit> cachedUnit = read(key, SERVICE_CLASS_SECTION_COUNT);
+    if (cachedUnit.isPresent()) {
+      ServiceForTransport serviceMetadata = cachedUnit.get().serviceMetadata;
+      if (serviceMetadata != null) {
+        // Mirrors AbstractServiceClientClassComposer, which records each composed client.
+        context.updateGapicMetadata(
+            metadata ->
+                metadata
+                    .toBuilder()
+                    .setProtoPackage(service.protoPakkage())
+                    .setLibraryPackage(service.pakkage())
+                    .putServices(service.name(), serviceMetadata)
+                    .build());
+      }
+      return cachedUnit.get().sections;
+    }
+
+    List<List<SourceFile>> sections =
+        Composer.composeServiceClassSections(context, service).stream()
+            .map(GenerationCache::render)
+            .collect(Collectors.toList());
+    write(
+        key,
+        new CachedUnit(
+            sections, context.gapicMetadata().getServicesMap().getOrDefault(service.name(), null)));
+    return sections;
+  }
+
+  private List<SourceFile> composeAndRenderMixinService(GapicContext context, Service service) {
+    return getOrCompose(
+        createServiceKey(context, service, "mixin"),
+        () -> Composer.composeMixinMockClasses(context, service));
+  }
+
+  private List<SourceFile> composeAndRenderResourceName(
+      GapicContext context, ResourceName resourceName) {
+    Hasher hasher = newHasher("resource_name");
+    putString(hasher, resourceName.toString());
+    putString(hasher, Boolean.toString(hasObjectMessage(context)));
+    return getOrCompose(
+        hasher.hash().toString(),
+        () ->
+            Collections.singletonList(
+                Composer.composeResourceNameHelperClass(context, resourceName)));
+  }
+
+  private List<SourceFile> getOrCompose(String key, Supplier<List<GapicClass>> composeFn) {
+    Optional<CachedUnit> cachedUnit = read(key, 1);
+    if (cachedUnit.isPresent()) {
+      return cachedUnit.get().sections.get(0);
+    }
+    List<SourceFile> sourceFiles = render(composeFn.get());
+    write(key, new CachedUnit(Collections.singletonList(sourceFiles), null));
+    return sourceFiles;
+  }
+
+  private static List<SourceFile> render(List<GapicClass> clazzes) {
+    return clazzes.stream().map(Writer::render).flatMap(List::stream).collect(Collectors.toList());
+  }
+
+  // A service's classes depend on the service itself, the messages it transitively references, the
+  // resource names (for samples and tests), and the mixin services that the client delegates to.
+  private String createServiceKey(GapicContext context, Service service, String unitKind) {
+    Hasher hasher = newHasher(unitKind);
+    putString(hasher, service.toString());
+    for (Message message : collectReferencedMessages(context, service).values()) {
+      putString(hasher, message.toString());
+    }
+    for (ResourceName resourceName : context.resourceNames().values()) {
+      putString(hasher, resourceName.toString());
+    }
+    for (ResourceName resourceName : context.helperResourceNames().values()) {
+      putString(hasher, resourceName.toString());
+    }
+    for (Service mixinService : context.mixinServices()) {
+      putString(hasher, mixinService.toString());
+    }
+    putString(hasher, Boolean.toString(hasObjectMessage(context)));
+    return hasher.hash().toString();
+  }
+
+  // Keyed by full name so that the fingerprint does not depend on the traversal order.
+  @VisibleForTesting
+  static Map<String, Message> collectReferencedMessages(GapicContext context, Service service) {
+    Map<String, Message> messages = new TreeMap<>();
+    Deque<Reference> references = new ArrayDeque<>();
+    for (Method method : service.methods()) {
+      addReference(method.inputType(), references);
+      addReference(method.outputType(), references);
+      if (method.hasLro()) {
+        addReference(method.lro().responseType(), references);
+        addReference(method.lro().metadataType(), references);
+      }
+    }
+    while (!references.isEmpty()) {
+      Reference reference = references.poll();
+      // Map and repeated fields refer to their messages through generics.
+      references.addAll(reference.generics());
+      Message message = context.messages().get(reference.fullName());
+      if (message == null || messages.containsKey(reference.fullName())) {
+        continue;
+      }
+      messages.put(reference.fullName(), message);
+      for (Field field : message.fields()) {
+        addReference(field.type(), references);
+      }
+    }
+    return messages;
+  }
+
+  private static void addReference(TypeNode type, Deque<Reference> references) {
+    if (type != null && type.reference() != null) {
+      references.add(type.reference());
+    }
+  }
+
+  // The mock service and resource name helper composers qualify java.lang.Object when a message
+  // shadows it.
+  private static boolean hasObjectMessage(GapicContext context) {
+    return context.messages().keySet().stream()
+        .anyMatch(s -> s.equals("Object") || s.endsWith(".Object"));
+  }
+
+  private Hasher newHasher(String unitKind) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, baseKey);
+    putString(hasher, unitKind);
+    return hasher;
+  }
+
+  // Length-prefixed, so that adjacent strings cannot run into each other.
+  private static void putString(Hasher hasher, String value) {
+    hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+  }
+
+  @VisibleForTesting
+  static String createBaseKey(String generatorVersion, CodeGeneratorRequest request) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, generatorVersion);
+    // The output srcjar and the cache directory do not affect the generated code, and the srcjar
+    // differs on every run, so neither is part of the key.
+    putString(hasher, PluginArgumentParser.removeOutputLocationArguments(request.getParameter()));
+    // The configuration files are referenced by path, so their contents are hashed as well.
+    for (String configFilePath : PluginArgumentParser.parseConfigFilePaths(request)) {
+      Path path = Paths.get(configFilePath);
+      if (!Files.isRegularFile(path)) {
+        continue;
+      }
+      try {
+        hasher.putBytes(Files.readAllBytes(path));
+      } catch (IOException e) {
+        throw new UncheckedIOException(String.format("Could not read %s", path), e);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  // Release builds carry their version in the jar manifest. The jar's size and modification time
+  // also distinguish between snapshot builds of the same version.
+  private static String generatorVersion() {
+    String version =
+        Strings.isNullOrEmpty(Generator.class.getPackage().getImplementationVersion())
+            ? UNKNOWN_VERSION
+            : Generator.class.getPackage().getImplementationVersion();
+    CodeSource codeSource = Generator.class.getProtectionDomain().getCodeSource();
+    if (codeSource == null) {
+      return version;
+    }
+    try {
+      Path codePath = Paths.get(codeSource.getLocation().toURI());
+      return String.format(
+          "%s:%d:%d",
+          version, Files.size(codePath), Files.getLastModifiedTime(codePath).toMillis());
+    } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+      return version;
+    }
+  }
+
+  // A corrupt or unreadable entry is treated as a miss, and overwritten once the unit is composed.
+  private Optional<CachedUnit> read(String key, int sectionCount) {
+    Path cacheFile = cacheDir.resolve(key + CACHE_FILE_SUFFIX);
+    if (!Files.isRegularFile(cacheFile)) {
+      return Optional.empty();
+    }
+    try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(cacheFile))) {
+      List<List<SourceFile>> sections = new ArrayList<>();
+      for (int section = 0; section < sectionCount; section++) {
+        sections.add(new ArrayList<>());
+      }
+      ServiceForTransport serviceMetadata = null;
+      boolean isComplete = false;
+      for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+        if (entry.getName().equals(END_ENTRY_NAME)) {
+          isComplete = true;
+          break;
+        }
+        if (entry.getName().equals(METADATA_ENTRY_NAME)) {
+          serviceMetadata = ServiceForTransport.parseFrom(ByteStreams.toByteArray(zis));
+          continue;
+        }
+        // Entries are named <section>/<path>.
+        int separatorIndex = entry.getName().indexOf('/');
+        int section = Integer.parseInt(entry.getName().substring(0, separatorIndex));
+        sections
+            .get(section)
+            .add(
+                SourceFile.create(
+                    entry.getName().substring(separatorIndex + 1),
+                    new String(ByteStreams.toByteArray(zis), StandardCharsets.UTF_8)));
+      }
+      return isComplete ? Optional.of(new CachedUnit(sections, serviceMetadata)) : Optional.empty();
+    } catch (IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  // Entries are written to a temporary file first, so that concurrent or interrupted runs never
+  // observe a partially written entry.
+  private void write(String key, CachedUnit cachedUnit) {
+    Path cacheFile = cacheDir.resolve(key + CACHE_FILE_SUFFIX);
+    try {
+      Path tempFile = Files.createTempFile(cacheDir, key, ".tmp");
+      try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(tempFile))) {
+        for (int section = 0; section < cachedUnit.sections.size(); section++) {
+          for (SourceFile sourceFile : cachedUnit.sections.get(section)) {
+            zos.putNextEntry(new ZipEntry(String.format("%d/%s", section, sourceFile.path())));
+            zos.write(sourceFile.code().getBytes(StandardCharsets.UTF_8));
+          }
+        }
+        if (cachedUnit.serviceMetadata != null) {
+          zos.putNextEntry(new ZipEntry(METADATA_ENTRY_NAME));
+          cachedUnit.serviceMetadata.writeTo(zos);
+        }
+        zos.putNextEntry(new ZipEntry(END_ENTRY_NAME));
+      }
+      Files.move(
+          tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Could not write generation cache entry %s", cacheFile), e);
+    }
+  }
+
+  // The rendered sections of a unit, and for services the GAPIC metadata recorded for the client.
+  private static class CachedUnit {
+    private final List<List<SourceFile>> sections;
+    private final ServiceForTransport serviceMetadata;
+
+    private CachedUnit(List<List<SourceFile>> sections, ServiceForTransport serviceMetadata) {
+      this.sections = sections;
+      this.serviceMetadata = serviceMetadata;
+    }
+  }
+}
@@ -33,16 +33,22 @@ import com.google.api.generator.gapic.composer.rest.HttpJsonServiceStubClassComp
 import com.google.api.generator.gapic.model.GapicClass;
 import com.google.api.generator.gapic.model.GapicContext;
 import com.google.api.generator.gapic.model.GapicPackageInfo;
+import com.google.api.generator.gapic.model.ResourceName;
 import com.google.api.generator.gapic.model.Sample;
 import com.google.api.generator.gapic.model.Service;
 import com.google.api.generator.gapic.model.Transport;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.gapic.metadata.GapicMetadata;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class Composer {
+  // Stubs, client and settings classes, mocks, and tests.
+  private static final int SERVICE_CLASS_SECTION_COUNT = 4;
+
   public static List<GapicClass> composeServiceClasses(GapicContext context) {
     List<GapicClass> clazzes = new ArrayList<>();
     clazzes.addAll(generateServiceClasses(context));
@@ -56,139 +62,222 @@ public class Composer {
   }
 
   public static List<GapicClass> generateServiceClasses(GapicContext context) {
+    // Each service is composed as its own fork-join task. The results are then regrouped into the
+    // stub, client/settings, mock, and test sections of the sequential pipeline, in service order.
+    List<List<List<GapicClass>>> serviceClazzes =
+        context
+            .services()
+            .parallelStream()
+            .map(s -> generateServiceClassSections(context, s))
+            .collect(Collectors.toList());
+    restoreGapicMetadataServiceOrder(context);
+
     List<GapicClass> clazzes = new ArrayList<>();
-    clazzes.addAll(generateStubClasses(context));
-    clazzes.addAll(generateClientSettingsClasses(context));
-    clazzes.addAll(generateMockClasses(context, context.services()));
-    clazzes.addAll(generateTestClasses(context));
+    for (int section = 0; section < SERVICE_CLASS_SECTION_COUNT; section++) {
+      for (List<List<GapicClass>> sections : serviceClazzes) {
+        clazzes.addAll(sections.get(section));
+      }
+    }
     return clazzes;
   }
 
   public static List<GapicClass> generateResourceNameHelperClasses(GapicContext context) {
+    return getHelperResourceNamesToGenerate(context)
+        .parallelStream()
+        .map(r -> ResourceNameHelperClassComposer.instance().generate(r, context))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Composes the classes of a single service, grouped into the stub, client/settings, mock, and
+   * test sections that {@link #composeServiceClasses} lays out across all services. The classes
+   * carry their license header and executable samples.
+   */
+  public static List<List<GapicClass>> composeServiceClassSections(
+      GapicContext context, Service service) {
+    return generateServiceClassSections(context, service).stream()
+        .map(clazzes -> addApacheLicense(prepareExecutableSamples(clazzes)))
+        .collect(Collectors.toList());
+  }
+
+  /** Composes the mock classes of a single mixin service, with their license header. */
+  public static List<GapicClass> composeMixinMockClasses(GapicContext context, Service service) {
+    return addApacheLicense(prepareExecutableSamples(generateMockClasses(context, service)));
+  }
+
+  /** Composes the helper class of a single resource name, with its license header. */
+  public static GapicClass composeResourceNameHelperClass(
+      GapicContext context, ResourceName resourceName) {
+    return addApacheLicense(
+            prepareExecutableSamples(
+                Arrays.asList(
+                    ResourceNameHelperClassComposer.instance().generate(resourceName, context))))
+        .get(0);
+  }
+
+  /** Returns the resource names that get a helper class, in generation order. */
+  public static List<ResourceName> getHelperResourceNamesToGenerate(GapicContext context) {
     return context.helperResourceNames().values().stream()
         .distinct()
         .filter(r -> !r.isOnlyWildcard())
-        .map(r -> ResourceNameHelperClassComposer.instance().generate(r, context))
         .collect(Collectors.toList());
   }
 
   public static List<GapicClass> generateStubClasses(GapicContext context) {
-    List<GapicClass> clazzes = new ArrayList<>();
-    context
-        .services()
-        .forEach(
-            s -> {
-              if (context.transport() == Transport.REST) {
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.rest.ServiceStubClassComposer.instance()
-                        .generate(context, s));
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.rest.ServiceStubSettingsClassComposer
-                        .instance()
-                        .generate(context, s));
-                clazzes.add(
-                    HttpJsonServiceCallableFactoryClassComposer.instance().generate(context, s));
-                clazzes.add(HttpJsonServiceStubClassComposer.instance().generate(context, s));
-              } else if (context.transport() == Transport.GRPC) {
-                clazzes.add(ServiceStubClassComposer.instance().generate(context, s));
-                clazzes.add(ServiceStubSettingsClassComposer.instance().generate(context, s));
-                clazzes.add(
-                    GrpcServiceCallableFactoryClassComposer.instance().generate(context, s));
-                clazzes.add(GrpcServiceStubClassComposer.instance().generate(context, s));
-              } else if (context.transport() == Transport.GRPC_REST) {
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.grpcrest.ServiceStubClassComposer
-                        .instance()
-                        .generate(context, s));
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.grpcrest
-                        .ServiceStubSettingsClassComposer.instance()
-                        .generate(context, s));
-                clazzes.add(
-                    GrpcServiceCallableFactoryClassComposer.instance().generate(context, s));
-                clazzes.add(GrpcServiceStubClassComposer.instance().generate(context, s));
-                clazzes.add(
-                    HttpJsonServiceCallableFactoryClassComposer.instance().generate(context, s));
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.grpcrest
-                        .HttpJsonServiceStubClassComposer.instance()
-                        .generate(context, s));
-              }
-            });
-    return clazzes;
+    return generateForEachService(context.services(), s -> generateStubClasses(context, s));
   }
 
   public static List<GapicClass> generateClientSettingsClasses(GapicContext context) {
-    List<GapicClass> clazzes = new ArrayList<>();
-    context
-        .services()
-        .forEach(
-            s -> {
-              if (context.transport() == Transport.REST) {
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.rest.ServiceClientClassComposer
-                        .instance()
-                        .generate(context, s));
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.rest.ServiceSettingsClassComposer
-                        .instance()
-                        .generate(context, s));
-              } else if (context.transport() == Transport.GRPC) {
-                clazzes.add(ServiceClientClassComposer.instance().generate(context, s));
-                clazzes.add(ServiceSettingsClassComposer.instance().generate(context, s));
-              } else if (context.transport() == Transport.GRPC_REST) {
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.grpcrest.ServiceClientClassComposer
-                        .instance()
-                        .generate(context, s));
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.grpcrest.ServiceSettingsClassComposer
-                        .instance()
-                        .generate(context, s));
-              }
-            });
+    List<GapicClass> clazzes =
+        generateForEachService(context.services(), s -> generateClientSettingsClasses(context, s));
+    restoreGapicMetadataServiceOrder(context);
     return clazzes;
   }
 
   public static List<GapicClass> generateMockClasses(GapicContext context, List<Service> services) {
+    return generateForEachService(services, s -> generateMockClasses(context, s));
+  }
+
+  public static List<GapicClass> generateTestClasses(GapicContext context) {
+    return generateForEachService(context.services(), s -> generateTestClasses(context, s));
+  }
+
+  private static List<List<GapicClass>> generateServiceClassSections(
+      GapicContext context, Service s) {
+    return Arrays.asList(
+        generateStubClasses(context, s),
+        generateClientSettingsClasses(context, s),
+        generateMockClasses(context, s),
+        generateTestClasses(context, s));
+  }
+
+  private static List<GapicClass> generateStubClasses(GapicContext context, Service s) {
     List<GapicClass> clazzes = new ArrayList<>();
-    services.forEach(
-        s -> {
-          if (context.transport() == Transport.REST) {
-            // REST transport tests do not use mock services.
-          } else if (context.transport() == Transport.GRPC) {
-            clazzes.add(MockServiceClassComposer.instance().generate(context, s));
-            clazzes.add(MockServiceImplClassComposer.instance().generate(context, s));
-          } else if (context.transport() == Transport.GRPC_REST) {
-            clazzes.add(MockServiceClassComposer.instance().generate(context, s));
-            clazzes.add(MockServiceImplClassComposer.instance().generate(context, s));
-          }
-        });
+    if (context.transport() == Transport.REST) {
+      clazzes.add(
+          com.google.api.generator.gapic.composer.rest.ServiceStubClassComposer.instance()
+              .generate(context, s));
+      clazzes.add(
+          com.google.api.generator.gapic.composer.rest.ServiceStubSettingsClassComposer.instance()
+              .generate(context, s));
+      clazzes.add(HttpJsonServiceCallableFactoryClassComposer.instance().generate(context, s));
+      clazzes.add(HttpJsonServiceStubClassComposer.instance().generate(context, s));
+    } else if (context.transport() == Transport.GRPC) {
+      clazzes.add(ServiceStubClassComposer.instance().generate(context, s));
+      clazzes.add(ServiceStubSettingsClassComposer.instance().generate(context, s));
+      clazzes.add(GrpcServiceCallableFactoryClassComposer.instance().generate(context, s));
+      clazzes.add(GrpcServiceStubClassComposer.instance().generate(context, s));
+    } else if (context.transport() == Transport.GRPC_REST) {
+      clazzes.add(
+          com.google.api.generator.gapic.composer.grpcrest.ServiceStubClassComposer.instance()
+              .generate(context, s));
+      clazzes.add(
+          com.google.api.generator.gapic.composer.grpcrest.ServiceStubSettingsClassComposer
+              .instance()
+              .generate(context, s));
+      clazzes.add(GrpcServiceCallableFactoryClassComposer.instance().generate(context, s));
+      clazzes.add(GrpcServiceStubClassComposer.instance().generate(context, s));
+      clazzes.add(HttpJsonServiceCallableFactoryClassComposer.instance().generate(context, s));
+      clazzes.add(
+          com.google.api.generator.gapic.composer.grpcrest.HttpJsonServiceStubClassComposer
+              .instance()
+              .generate(context, s));
+    }
     return clazzes;
   }
 
-  public static List<GapicClass> generateTestClasses(GapicContext context) {
+  private static List<GapicClass> generateClientSettingsClasses(GapicContext context, Service s) {
     List<GapicClass> clazzes = new ArrayList<>();
-    context
-        .services()
-        .forEach(
-            s -> {
-              if (context.transport() == Transport.REST) {
-                clazzes.add(
-                    com.google.api.generator.gapic.composer.rest.ServiceClientTestClassComposer
-                        .instance()
-                        .generate(context, s));
-              } else if (context.transport() == Transport.GRPC) {
-                clazzes.add(ServiceClientTestClassComposer.instance().generate(context, s));
-              } else if (context.transport() == Transport.GRPC_REST) {
-                clazzes.add(ServiceClientTestClassComposer.instance().generate(context, s));
-                clazzes.add(HttpJsonServiceClientTestClassComposer.instance().generate(context, s));
-              }
-            });
+    if (context.transport() == Transport.REST) {
+      clazzes.add(
+          com.google.api.generator.gapic.composer.rest.ServiceClientClassComposer.instance()
+              .generate(context, s));
+      clazzes.add(
+          com.google.api.generator.gapic.composer.rest.ServiceSettingsClassComposer.instance()
+              .generate(context, s));
+    } else if (context.transport() == Transport.GRPC) {
+      clazzes.add(ServiceClientClassComposer.instance().generate(context, s));
+      clazzes.add(ServiceSettingsClassComposer.instance().generate(context, s));
+    } else if (context.transport() == Transport.GRPC_REST) {
+      clazzes.add(
+          com.google.api.generator.gapic.composer.grpcrest.ServiceClientClassComposer.instance()
+              .generate(context, s));
+      clazzes.add(
+          com.google.api.generator.gapic.composer.grpcrest.ServiceSettingsClassComposer.instance()
+              .generate(context, s));
+    }
+    return clazzes;
+  }
 
+  private static List<GapicClass> generateMockClasses(GapicContext context, Service s) {
+    List<GapicClass> clazzes = new ArrayList<>();
+    if (context.transport() == Transport.REST) {
+      // REST transport tests do not use mock services.
+    } else if (context.transport() == Transport.GRPC) {
+      clazzes.add(MockServiceClassComposer.instance().generate(context, s));
+      clazzes.add(MockServiceImplClassComposer.instance().generate(context, s));
+    } else if (context.transport() == Transport.GRPC_REST) {
+      clazzes.add(MockServiceClassComposer.instance().generate(context, s));
+      clazzes.add(MockServiceImplClassComposer.instance().generate(context, s));
+    }
     return clazzes;
   }
 
+  private static List<GapicClass> generateTestClasses(GapicContext context, Service s) {
+    List<GapicClass> clazzes = new ArrayList<>();
+    if (context.transport() == Transport.REST) {
+      clazzes.add(
+          com.google.api.generator.gapic.composer.rest.ServiceClientTestClassComposer.instance()
+              .generate(context, s));
+    } else if (context.transport() == Transport.GRPC) {
+      clazzes.add(ServiceClientTestClassComposer.instance().generate(context, s));
+    } else if (context.transport() == Transport.GRPC_REST) {
+      clazzes.add(ServiceClientTestClassComposer.instance().generate(context, s));
+      clazzes.add(HttpJsonServiceClientTestClassComposer.instance().generate(context, s));
+    }
+    return clazzes;
+  }
+
+  // Runs the composer for each service on the common fork-join pool. Parallel streams keep the
+  // encounter order, so the classes come back in service order regardless of scheduling.
+  private static List<GapicClass> generateForEachService(
+      List<Service> services, Function<Service, List<GapicClass>> generateFn) {
+    return services
+        .parallelStream()
+        .map(generateFn)
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Client classes record their methods in the shared GapicMetadata as they finish, which may
+   * happen in any order when they are composed concurrently. Rebuilds the services map (and the
+   * last-write package fields) so that gapic_metadata.json matches the sequential, service-ordered
+   * pipeline.
+   */
+  public static void restoreGapicMetadataServiceOrder(GapicContext context) {
+    if (context.services().isEmpty()) {
+      return;
+    }
+    context.updateGapicMetadata(
+        metadata -> {
+          GapicMetadata.Builder metadataBuilder = metadata.toBuilder().clearServices();
+          for (Service service : context.services()) {
+            if (metadata.containsServices(service.name())) {
+              metadataBuilder.putServices(
+                  service.name(), metadata.getServicesOrThrow(service.name()));
+            }
+          }
+          Service lastService = context.services().get(context.services().size() - 1);
+          if (metadata.containsServices(lastService.name())) {
+            metadataBuilder
+                .setProtoPackage(lastService.protoPakkage())
+                .setLibraryPackage(lastService.pakkage());
+          }
+          return metadataBuilder.build();
+        });
+  }
+
   @VisibleForTesting
   static List<GapicClass> prepareExecutableSamples(List<GapicClass> clazzes) {
     // Include license header, apiShortName, and apiVersion
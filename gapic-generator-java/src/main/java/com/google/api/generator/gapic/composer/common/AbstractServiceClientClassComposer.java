@@ -1815,12 +1815,6 @@ public abstract class AbstractServiceClientClassComposer implements ClassCompose
       Service service,
       String clientClassName,
       Map<String, List<String>> grpcRpcToJavaMethodNames) {
-    GapicMetadata.Builder metadataBuilder = context.gapicMetadata().toBuilder();
-    metadataBuilder =
-        metadataBuilder
-            .setProtoPackage(service.protoPakkage())
-            .setLibraryPackage(service.pakkage());
-
     GapicMetadata.ServiceAsClient.Builder serviceClientProtoBuilder =
         GapicMetadata.ServiceAsClient.newBuilder().setLibraryClient(clientClassName);
 
@@ -1835,12 +1829,17 @@ public abstract class AbstractServiceClientClassComposer implements ClassCompose
       serviceClientProtoBuilder.putRpcs(rpcName, methodList);
     }
 
-    metadataBuilder =
-        metadataBuilder.putServices(
-            service.name(),
-            GapicMetadata.ServiceForTransport.newBuilder()
-                .putClients("grpc", serviceClientProtoBuilder.build())
+    GapicMetadata.ServiceForTransport serviceForTransport =
+        GapicMetadata.ServiceForTransport.newBuilder()
+            .putClients("grpc", serviceClientProtoBuilder.build())
+            .build();
+    context.updateGapicMetadata(
+        metadata ->
+            metadata
+                .toBuilder()
+                .setProtoPackage(service.protoPakkage())
+                .setLibraryPackage(service.pakkage())
+                .putServices(service.name(), serviceForTransport)
                 .build());
-    context.updateGapicMetadata(metadataBuilder.build());
   }
 }
@@ -16,7 +16,7 @@ package com.google.api.generator.gapic.composer.grpc;
 
 import com.google.api.gax.grpc.GrpcCallSettings;
 import com.google.api.gax.grpc.GrpcStubCallableFactory;
-import com.google.api.gax.rpc.RequestParamsBuilder;
+import com.google.api.gax.rpc.RoutingHeaderParamsExtractor;
 import com.google.api.generator.engine.ast.AssignmentExpr;
 import com.google.api.generator.engine.ast.ConcreteReference;
 import com.google.api.generator.engine.ast.EnumRefExpr;
@@ -27,6 +27,7 @@ import com.google.api.generator.engine.ast.LambdaExpr;
 import com.google.api.generator.engine.ast.LogicalOperationExpr;
 import com.google.api.generator.engine.ast.MethodInvocationExpr;
 import com.google.api.generator.engine.ast.RelationalOperationExpr;
+import com.google.api.generator.engine.ast.ReturnExpr;
 import com.google.api.generator.engine.ast.ScopeNode;
 import com.google.api.generator.engine.ast.Statement;
 import com.google.api.generator.engine.ast.StringObjectValue;
@@ -224,7 +225,7 @@ public class GrpcServiceStubClassComposer extends AbstractTransportServiceStubCl
           MethodInvocationExpr.builder()
               .setExprReferenceExpr(callSettingsBuilderExpr)
               .setMethodName("setParamsExtractor")
-              .setArguments(createRequestParamsExtractorClassInstance(method, classStatements))
+              .setArguments(createRequestParamsExtractorExpr(method, classStatements))
               .build();
     }
 
@@ -256,8 +257,13 @@ public class GrpcServiceStubClassComposer extends AbstractTransportServiceStubCl
     return String.format("google.iam.v1.IAMPolicy/%s", protoMethod.name());
   }
 
-  private LambdaExpr createRequestParamsExtractorClassInstance(
-      Method method, List<Statement> classStatements) {
+  private Expr createRequestParamsExtractorExpr(Method method, List<Statement> classStatements) {
+    // If the google.api.routing annotation is present(even with empty routing parameters),
+    // the implicit routing headers specified in the google.api.http annotation should not be sent
+    if (method.routingHeaderRule() != null) {
+      return createRoutingHeaderParamsExtractorExpr(method, classStatements);
+    }
+
     List<Statement> bodyStatements = new ArrayList<>();
     VariableExpr requestVarExpr =
         VariableExpr.withVariable(
@@ -270,15 +276,8 @@ public class GrpcServiceStubClassComposer extends AbstractTransportServiceStubCl
                 .build());
     MethodInvocationExpr.Builder returnExpr =
         MethodInvocationExpr.builder().setReturnType(returnType);
-    // If the google.api.routing annotation is present(even with empty routing parameters),
-    // the implicit routing headers specified in the google.api.http annotation should not be sent
-    if (method.routingHeaderRule() == null) {
-      createRequestParamsExtractorBodyForHttpBindings(
-          method, requestVarExpr, bodyStatements, returnExpr);
-    } else {
-      createRequestParamsExtractorBodyForRoutingHeaders(
-          method, requestVarExpr, classStatements, bodyStatements, returnExpr);
-    }
+    createRequestParamsExtractorBodyForHttpBindings(
+        method, requestVarExpr, bodyStatements, returnExpr);
 
     // Overrides extract().
     // https://github.com/googleapis/gax-java/blob/8d45d186e36ae97b789a6f89d80ae5213a773b65/gax/src/main/java/com/google/api/gax/rpc/RequestParamsExtractor.java#L55
@@ -340,43 +339,31 @@ public class GrpcServiceStubClassComposer extends AbstractTransportServiceStubCl
     returnExprBuilder.setExprReferenceExpr(paramsVarExpr).setMethodName("build");
   }
 
-  private void createRequestParamsExtractorBodyForRoutingHeaders(
-      Method method,
-      VariableExpr requestVarExpr,
-      List<Statement> classStatements,
-      List<Statement> bodyStatements,
-      MethodInvocationExpr.Builder returnExprBuilder) {
-    TypeNode routingHeadersBuilderType =
+  // Declares a static RoutingHeaderParamsExtractor for the routing rules of the method, so that
+  // the path templates are compiled and the encoded header is cached once per method, e.g.
+  //   private static final RoutingHeaderParamsExtractor<Request> EXAMPLE_PARAMS_EXTRACTOR =
+  //       RoutingHeaderParamsExtractor.<Request>newBuilder()
+  //           .add(request -> request.getTableName(), "table_name", EXAMPLE_0_PATH_TEMPLATE)
+  //           .build();
+  private Expr createRoutingHeaderParamsExtractorExpr(
+      Method method, List<Statement> classStatements) {
+    TypeNode extractorType =
         TypeNode.withReference(
-            ConcreteReference.builder().setClazz(RequestParamsBuilder.class).build());
-    VariableExpr routingHeadersBuilderVarExpr =
-        VariableExpr.builder()
-            .setVariable(
-                Variable.builder().setName("builder").setType(routingHeadersBuilderType).build())
-            .setIsDecl(true)
-            .build();
-    MethodInvocationExpr routingHeaderBuilderInvokeExpr =
+            ConcreteReference.builder()
+                .setClazz(RoutingHeaderParamsExtractor.class)
+                .setGenerics(method.inputType().reference())
+                .build());
+    Expr extractorBuilderExpr =
         MethodInvocationExpr.builder()
-            .setStaticReferenceType(routingHeadersBuilderType)
-            .setMethodName("create")
-            .setReturnType(routingHeadersBuilderType)
-            .build();
-    Expr routingHeadersBuilderInitExpr =
-        AssignmentExpr.builder()
-            .setVariableExpr(routingHeadersBuilderVarExpr)
-            .setValueExpr(routingHeaderBuilderInvokeExpr)
+            .setStaticReferenceType(
+                TypeNode.withReference(
+                    ConcreteReference.withClazz(RoutingHeaderParamsExtractor.class)))
+            .setGenerics(Arrays.asList(method.inputType().reference()))
+            .setMethodName("newBuilder")
             .build();
-    bodyStatements.add(ExprStatement.withExpr(routingHeadersBuilderInitExpr));
     List<RoutingHeaderParam> routingHeaderParams = method.routingHeaderRule().routingHeaderParams();
-    VariableExpr routingHeadersBuilderVarNonDeclExpr =
-        VariableExpr.builder()
-            .setVariable(
-                Variable.builder().setName("builder").setType(routingHeadersBuilderType).build())
-            .build();
     for (int i = 0; i < routingHeaderParams.size(); i++) {
       RoutingHeaderParam routingHeaderParam = routingHeaderParams.get(i);
-      MethodInvocationExpr requestFieldGetterExpr =
-          createRequestFieldGetterExpr(requestVarExpr, routingHeaderParam.fieldName());
       Expr routingHeaderKeyExpr =
           ValueExpr.withValue(StringObjectValue.withValue(routingHeaderParam.key()));
       String pathTemplateName =
@@ -389,31 +376,73 @@ public class GrpcServiceStubClassComposer extends AbstractTransportServiceStubCl
       Statement pathTemplateClassVar =
           createPathTemplateClassStatement(routingHeaderParam, pathTemplateType, pathTemplateVar);
       classStatements.add(pathTemplateClassVar);
-      MethodInvocationExpr addParamMethodExpr =
+      extractorBuilderExpr =
           MethodInvocationExpr.builder()
-              .setExprReferenceExpr(routingHeadersBuilderVarNonDeclExpr)
+              .setExprReferenceExpr(extractorBuilderExpr)
               .setMethodName("add")
-              .setArguments(requestFieldGetterExpr, routingHeaderKeyExpr, routingHeaderPatternExpr)
+              .setArguments(
+                  createRoutingHeaderFieldGetterLambda(method, routingHeaderParam),
+                  routingHeaderKeyExpr,
+                  routingHeaderPatternExpr)
               .build();
+    }
+    extractorBuilderExpr =
+        MethodInvocationExpr.builder()
+            .setExprReferenceExpr(extractorBuilderExpr)
+            .setMethodName("build")
+            .setReturnType(extractorType)
+            .build();
 
-      ExprStatement addParamStatement = ExprStatement.withExpr(addParamMethodExpr);
-      // No need to add null check if there is no nested fields
-      if (routingHeaderParam.getDescendantFieldNames().size() == 1) {
-        bodyStatements.add(addParamStatement);
-      } else {
-        IfStatement ifStatement =
-            IfStatement.builder()
-                .setConditionExpr(
-                    fieldValuesNotNullConditionExpr(
-                        requestVarExpr, routingHeaderParam.getDescendantFieldNames()))
-                .setBody(ImmutableList.of(addParamStatement))
-                .build();
-        bodyStatements.add(ifStatement);
-      }
+    Variable extractorVar =
+        Variable.builder()
+            .setType(extractorType)
+            .setName(
+                String.format("%s_PARAMS_EXTRACTOR", JavaStyle.toUpperSnakeCase(method.name())))
+            .build();
+    classStatements.add(
+        ExprStatement.withExpr(
+            AssignmentExpr.builder()
+                .setVariableExpr(
+                    VariableExpr.builder()
+                        .setVariable(extractorVar)
+                        .setIsDecl(true)
+                        .setIsStatic(true)
+                        .setIsFinal(true)
+                        .setScope(ScopeNode.PRIVATE)
+                        .build())
+                .setValueExpr(extractorBuilderExpr)
+                .build()));
+    return VariableExpr.withVariable(extractorVar);
+  }
+
+  // Returns the field value of the routing header param, or null if a parent field is not set,
+  // e.g. request -> request.getTableName()
+  private LambdaExpr createRoutingHeaderFieldGetterLambda(
+      Method method, RoutingHeaderParam routingHeaderParam) {
+    VariableExpr requestVarExpr =
+        VariableExpr.withVariable(
+            Variable.builder().setType(method.inputType()).setName("request").build());
+    MethodInvocationExpr requestFieldGetterExpr =
+        createRequestFieldGetterExpr(requestVarExpr, routingHeaderParam.fieldName());
+    LambdaExpr.Builder lambdaBuilder =
+        LambdaExpr.builder().setArguments(requestVarExpr.toBuilder().setIsDecl(true).build());
+    // No need to add null check if there is no nested fields
+    if (routingHeaderParam.getDescendantFieldNames().size() == 1) {
+      return lambdaBuilder.setReturnExpr(requestFieldGetterExpr).build();
     }
-    returnExprBuilder
-        .setExprReferenceExpr(routingHeadersBuilderVarNonDeclExpr)
-        .setMethodName("build");
+    IfStatement ifStatement =
+        IfStatement.builder()
+            .setConditionExpr(
+                fieldValuesNotNullConditionExpr(
+                    requestVarExpr, routingHeaderParam.getDescendantFieldNames()))
+            .setBody(
+                ImmutableList.of(
+                    ExprStatement.withExpr(ReturnExpr.withExpr(requestFieldGetterExpr))))
+            .build();
+    return lambdaBuilder
+        .setBody(ImmutableList.of(ifStatement))
+        .setReturnExpr(ValueExpr.createNullExpr())
+        .build();
   }
 
   private Statement createPathTemplateClassStatement(
@@ -80,9 +80,6 @@ public class MockServiceImplClassComposer implements ClassComposer {
                           .build()))
               .build());
 
-  private static Reference javaObjectReference = ConcreteReference.withClazz(Object.class);
-  private static VariableExpr responsesVarExpr;
-
   private MockServiceImplClassComposer() {}
 
   public static MockServiceImplClassComposer instance() {
@@ -98,13 +95,13 @@ public class MockServiceImplClassComposer implements ClassComposer {
 
     // Use the full name java.lang.Object if there is a proto message that is also named "Object".
     // Affects GCS.
-    if (context.messages().keySet().stream()
-        .anyMatch(s -> s.equals("Object") || s.endsWith(".Object"))) {
-      javaObjectReference =
-          ConcreteReference.builder().setClazz(Object.class).setUseFullName(true).build();
-    }
+    Reference javaObjectReference =
+        context.messages().keySet().stream()
+                .anyMatch(s -> s.equals("Object") || s.endsWith(".Object"))
+            ? ConcreteReference.builder().setClazz(Object.class).setUseFullName(true).build()
+            : ConcreteReference.withClazz(Object.class);
 
-    responsesVarExpr =
+    VariableExpr responsesVarExpr =
         VariableExpr.withVariable(
             Variable.builder()
                 .setName("responses")
@@ -123,13 +120,14 @@ public class MockServiceImplClassComposer implements ClassComposer {
             .setScope(ScopeNode.PUBLIC)
             .setName(className)
             .setExtendsType(typeStore.get(String.format(IMPL_BASE_PATTERN, service.name())))
-            .setStatements(createFieldDeclarations())
-            .setMethods(createClassMethods(service, typeStore))
+            .setStatements(createFieldDeclarations(responsesVarExpr))
+            .setMethods(
+                createClassMethods(service, typeStore, javaObjectReference, responsesVarExpr))
             .build();
     return GapicClass.create(kind, classDef);
   }
 
-  private static List<Statement> createFieldDeclarations() {
+  private static List<Statement> createFieldDeclarations(VariableExpr responsesVarExpr) {
     return Arrays.asList(
         ExprStatement.withExpr(
             requestsVarExpr.toBuilder().setIsDecl(true).setScope(ScopeNode.PRIVATE).build()),
@@ -146,23 +144,29 @@ public class MockServiceImplClassComposer implements ClassComposer {
             .build());
   }
 
-  private static List<MethodDefinition> createClassMethods(Service service, TypeStore typeStore) {
+  private static List<MethodDefinition> createClassMethods(
+      Service service,
+      TypeStore typeStore,
+      Reference javaObjectReference,
+      VariableExpr responsesVarExpr) {
     List<MethodDefinition> javaMethods = new ArrayList<>();
     javaMethods.add(
-        createConstructor(typeStore.get(ClassNames.getMockServiceImplClassName(service))));
+        createConstructor(
+            typeStore.get(ClassNames.getMockServiceImplClassName(service)), responsesVarExpr));
     javaMethods.add(createGetRequestsMethod());
-    javaMethods.add(createAddResponseMethod());
-    javaMethods.add(createSetResponsesMethod(service));
-    javaMethods.add(createAddExceptionMethod());
-    javaMethods.add(createResetMethod());
-    javaMethods.addAll(createProtoMethodOverrides(service));
+    javaMethods.add(createAddResponseMethod(responsesVarExpr));
+    javaMethods.add(createSetResponsesMethod(service, javaObjectReference, responsesVarExpr));
+    javaMethods.add(createAddExceptionMethod(responsesVarExpr));
+    javaMethods.add(createResetMethod(responsesVarExpr));
+    javaMethods.addAll(createProtoMethodOverrides(service, javaObjectReference, responsesVarExpr));
     return javaMethods;
   }
 
-  private static MethodDefinition createConstructor(TypeNode classType) {
+  private static MethodDefinition createConstructor(
+      TypeNode classType, VariableExpr responsesVarExpr) {
     return MethodDefinition.constructorBuilder()
         .setScope(ScopeNode.PUBLIC)
-        .setBody(createRequestResponseAssignStatements())
+        .setBody(createRequestResponseAssignStatements(responsesVarExpr))
         .setReturnType(classType)
         .build();
   }
@@ -176,7 +180,7 @@ public class MockServiceImplClassComposer implements ClassComposer {
         .build();
   }
 
-  private static MethodDefinition createAddResponseMethod() {
+  private static MethodDefinition createAddResponseMethod(VariableExpr responsesVarExpr) {
     VariableExpr responseArgExpr =
         VariableExpr.withVariable(
             Variable.builder()
@@ -198,7 +202,8 @@ public class MockServiceImplClassComposer implements ClassComposer {
         .build();
   }
 
-  private static MethodDefinition createSetResponsesMethod(Service service) {
+  private static MethodDefinition createSetResponsesMethod(
+      Service service, Reference javaObjectReference, VariableExpr responsesVarExpr) {
     VariableExpr responsesArgVarExpr =
         VariableExpr.withVariable(
             Variable.builder()
@@ -239,7 +244,7 @@ public class MockServiceImplClassComposer implements ClassComposer {
         .build();
   }
 
-  private static MethodDefinition createAddExceptionMethod() {
+  private static MethodDefinition createAddExceptionMethod(VariableExpr responsesVarExpr) {
     VariableExpr exceptionArgExpr =
         VariableExpr.withVariable(
             Variable.builder()
@@ -261,23 +266,25 @@ public class MockServiceImplClassComposer implements ClassComposer {
         .build();
   }
 
-  private static MethodDefinition createResetMethod() {
+  private static MethodDefinition createResetMethod(VariableExpr responsesVarExpr) {
     return MethodDefinition.builder()
         .setScope(ScopeNode.PUBLIC)
         .setReturnType(TypeNode.VOID)
         .setName("reset")
-        .setBody(createRequestResponseAssignStatements())
+        .setBody(createRequestResponseAssignStatements(responsesVarExpr))
         .build();
   }
 
-  private static List<MethodDefinition> createProtoMethodOverrides(Service service) {
+  private static List<MethodDefinition> createProtoMethodOverrides(
+      Service service, Reference javaObjectReference, VariableExpr responsesVarExpr) {
     return service.methods().stream()
         .filter(m -> !m.isMixin()) // Mixin APIs will get their own generated mocks.
-        .map(m -> createGenericProtoMethodOverride(m))
+        .map(m -> createGenericProtoMethodOverride(m, javaObjectReference, responsesVarExpr))
         .collect(Collectors.toList());
   }
 
-  private static MethodDefinition createGenericProtoMethodOverride(Method protoMethod) {
+  private static MethodDefinition createGenericProtoMethodOverride(
+      Method protoMethod, Reference javaObjectReference, VariableExpr responsesVarExpr) {
     ConcreteReference streamObserverRef = ConcreteReference.withClazz(StreamObserver.class);
     TypeNode objectType = TypeNode.withReference(javaObjectReference);
     VariableExpr localResponseVarExpr =
@@ -296,7 +303,11 @@ public class MockServiceImplClassComposer implements ClassComposer {
 
     if (protoMethod.stream().equals(Stream.CLIENT) || protoMethod.stream().equals(Stream.BIDI)) {
       return createGenericClientStreamingProtoMethodOverride(
-          protoMethod, responseObserverVarExpr, localResponseVarExpr);
+          protoMethod,
+          responseObserverVarExpr,
+          localResponseVarExpr,
+          javaObjectReference,
+          responsesVarExpr);
     }
 
     VariableExpr requestArgVarExpr =
@@ -330,7 +341,11 @@ public class MockServiceImplClassComposer implements ClassComposer {
   }
 
   private static MethodDefinition createGenericClientStreamingProtoMethodOverride(
-      Method protoMethod, VariableExpr responseObserverVarExpr, VariableExpr localResponseVarExpr) {
+      Method protoMethod,
+      VariableExpr responseObserverVarExpr,
+      VariableExpr localResponseVarExpr,
+      Reference javaObjectReference,
+      VariableExpr responsesVarExpr) {
     ConcreteReference streamObserverRef = ConcreteReference.withClazz(StreamObserver.class);
 
     TypeNode returnType =
@@ -358,7 +373,9 @@ public class MockServiceImplClassComposer implements ClassComposer {
                                 protoMethod,
                                 returnType,
                                 responseObserverVarExpr,
-                                localResponseVarExpr))
+                                localResponseVarExpr,
+                                javaObjectReference,
+                                responsesVarExpr))
                         .build())))
         .setReturnExpr(requestObserverVarExpr)
         .build();
@@ -368,19 +385,30 @@ public class MockServiceImplClassComposer implements ClassComposer {
       Method protoMethod,
       TypeNode classType,
       VariableExpr responseObserverVarExpr,
-      VariableExpr localResponseVarExpr) {
+      VariableExpr localResponseVarExpr,
+      Reference javaObjectReference,
+      VariableExpr responsesVarExpr) {
     return AnonymousClassExpr.builder()
         .setType(classType)
         .setMethods(
             Arrays.asList(
-                createOnNextJavaMethod(protoMethod, responseObserverVarExpr, localResponseVarExpr),
+                createOnNextJavaMethod(
+                    protoMethod,
+                    responseObserverVarExpr,
+                    localResponseVarExpr,
+                    javaObjectReference,
+                    responsesVarExpr),
                 createOnErrorJavaMethod(responseObserverVarExpr),
                 createOnCompletedJavaMethod(responseObserverVarExpr)))
         .build();
   }
 
   private static MethodDefinition createOnNextJavaMethod(
-      Method protoMethod, VariableExpr responseObserverVarExpr, VariableExpr localResponseVarExpr) {
+      Method protoMethod,
+      VariableExpr responseObserverVarExpr,
+      VariableExpr localResponseVarExpr,
+      Reference javaObjectReference,
+      VariableExpr responsesVarExpr) {
     VariableExpr valueVarExpr =
         VariableExpr.withVariable(
             Variable.builder().setName("value").setType(protoMethod.inputType()).build());
@@ -627,7 +655,8 @@ public class MockServiceImplClassComposer implements ClassComposer {
             .build());
   }
 
-  private static List<Statement> createRequestResponseAssignStatements() {
+  private static List<Statement> createRequestResponseAssignStatements(
+      VariableExpr responsesVarExpr) {
     Expr assignRequestVarExpr =
         AssignmentExpr.builder()
             .setVariableExpr(requestsVarExpr)
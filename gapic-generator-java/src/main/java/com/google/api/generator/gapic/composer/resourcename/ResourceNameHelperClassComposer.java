@@ -16,6 +16,7 @@ package com.google.api.generator.gapic.composer.resourcename;
 
 import com.google.api.core.BetaApi;
 import com.google.api.generator.engine.ast.AnnotationNode;
+import com.google.api.generator.engine.ast.ArithmeticOperationExpr;
 import com.google.api.generator.engine.ast.AssignmentExpr;
 import com.google.api.generator.engine.ast.AssignmentOperationExpr;
 import com.google.api.generator.engine.ast.CastExpr;
@@ -43,6 +44,7 @@ import com.google.api.generator.engine.ast.TernaryExpr;
 import com.google.api.generator.engine.ast.ThisObjectValue;
 import com.google.api.generator.engine.ast.ThrowExpr;
 import com.google.api.generator.engine.ast.TypeNode;
+import com.google.api.generator.engine.ast.UnaryOperationExpr;
 import com.google.api.generator.engine.ast.ValueExpr;
 import com.google.api.generator.engine.ast.Variable;
 import com.google.api.generator.engine.ast.VariableExpr;
@@ -56,6 +58,7 @@ import com.google.api.generator.gapic.utils.ResourceNameConstants;
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.pathtemplate.ValidationException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -69,12 +72,18 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.annotation.Generated;
 
 public class ResourceNameHelperClassComposer {
   private static final String CLASS_NAME_PATTERN = "%sName";
   private static final String BUILDER_CLASS_HEADER_PATTERN = "Builder for %s.";
+  private static final String SCAN_METHOD_NAME_PATTERN = "scan%sName";
+
+  private static final Pattern LITERAL_SEGMENT_PATTERN = Pattern.compile("[a-zA-Z0-9_.~-]+");
+  private static final Pattern VARIABLE_SEGMENT_PATTERN = Pattern.compile("\\{([a-z0-9_]+)\\}");
 
   private static final ResourceNameHelperClassComposer INSTANCE =
       new ResourceNameHelperClassComposer();
@@ -83,8 +92,6 @@ public class ResourceNameHelperClassComposer {
   private static final Map<String, VariableExpr> FIXED_CLASS_VARS =
       createFixedClassMemberVariables();
 
-  private static Reference javaObjectReference = ConcreteReference.withClazz(Object.class);
-
   private ResourceNameHelperClassComposer() {}
 
   public static ResourceNameHelperClassComposer instance() {
@@ -98,11 +105,11 @@ public class ResourceNameHelperClassComposer {
     TypeStore typeStore = createDynamicTypes(resourceName, tokenHierarchies);
     // Use the full name java.lang.Object if there is a proto message that is also named "Object".
     // Affects GCS.
-    if (context.messages().keySet().stream()
-        .anyMatch(s -> s.equals("Object") || s.endsWith(".Object"))) {
-      javaObjectReference =
-          ConcreteReference.builder().setClazz(Object.class).setUseFullName(true).build();
-    }
+    Reference javaObjectReference =
+        context.messages().keySet().stream()
+                .anyMatch(s -> s.equals("Object") || s.endsWith(".Object"))
+            ? ConcreteReference.builder().setClazz(Object.class).setUseFullName(true).build()
+            : ConcreteReference.withClazz(Object.class);
 
     // Set up variables.
     List<VariableExpr> templateFinalVarExprs = createTemplateClassMembers(tokenHierarchies);
@@ -144,7 +151,8 @@ public class ResourceNameHelperClassComposer {
                     templateFinalVarExprs,
                     patternTokenVarExprs,
                     tokenHierarchies,
-                    typeStore))
+                    typeStore,
+                    javaObjectReference))
             .setNestedClasses(
                 createNestedBuilderClasses(
                     resourceName, tokenHierarchies, templateFinalVarExprs, typeStore))
@@ -247,6 +255,14 @@ public class ResourceNameHelperClassComposer {
             .setScope(ScopeNode.PRIVATE)
             .setIsVolatile(true)
             .build());
+    memberVars.add(
+        FIXED_CLASS_VARS
+            .get("stringValue")
+            .toBuilder()
+            .setIsDecl(true)
+            .setScope(ScopeNode.PRIVATE)
+            .setIsVolatile(true)
+            .build());
 
     boolean hasVariants = tokenHierarchies.size() > 1;
     if (hasVariants) {
@@ -277,7 +293,8 @@ public class ResourceNameHelperClassComposer {
       List<VariableExpr> templateFinalVarExprs,
       Map<String, VariableExpr> patternTokenVarExprs,
       List<List<String>> tokenHierarchies,
-      TypeStore typeStore) {
+      TypeStore typeStore,
+      Reference javaObjectReference) {
     List<MethodDefinition> javaMethods = new ArrayList<>();
 
     javaMethods.addAll(
@@ -307,7 +324,8 @@ public class ResourceNameHelperClassComposer {
             resourceName, patternTokenVarExprs, tokenHierarchies, typeStore));
     javaMethods.add(
         createToStringMethod(templateFinalVarExprs, patternTokenVarExprs, tokenHierarchies));
-    javaMethods.add(createEqualsMethod(resourceName, tokenHierarchies, typeStore));
+    javaMethods.add(
+        createEqualsMethod(resourceName, tokenHierarchies, typeStore, javaObjectReference));
     javaMethods.add(createHashCodeMethod(tokenHierarchies));
     return javaMethods;
   }
@@ -699,19 +717,267 @@ public class ResourceNameHelperClassComposer {
       TypeStore typeStore) {
     List<MethodDefinition> javaMethods = new ArrayList<>();
     TypeNode thisClassType = typeStore.get(getThisClassName(resourceName));
+    List<List<String>> scannablePatternParts = getScannablePatternParts(resourceName.patterns());
     javaMethods.add(
-        createParseMethod(thisClassType, templateFinalVarExprs, tokenHierarchies, typeStore));
+        createParseMethod(
+            thisClassType,
+            templateFinalVarExprs,
+            tokenHierarchies,
+            scannablePatternParts,
+            typeStore));
     javaMethods.add(createParseListMethod(thisClassType));
     javaMethods.add(createToStringListMethod(thisClassType));
-    javaMethods.add(createIsParseableFromMethod(templateFinalVarExprs));
+    javaMethods.add(
+        createIsParseableFromMethod(
+            thisClassType, templateFinalVarExprs, tokenHierarchies, scannablePatternParts));
+    javaMethods.addAll(createScanMethods(thisClassType, tokenHierarchies, scannablePatternParts));
+
+    return javaMethods;
+  }
+
+  // Returns the parts of the leading patterns which the generated scan methods can match, as split
+  // by splitScannablePattern. The scan methods are tried before the path templates, so they stop at
+  // the first pattern they cannot match, to keep the order in which the patterns are tried.
+  private static List<List<String>> getScannablePatternParts(List<String> patterns) {
+    List<List<String>> scannablePatternParts = new ArrayList<>();
+    for (String pattern : patterns) {
+      List<String> parts = splitScannablePattern(pattern);
+      if (parts == null) {
+        break;
+      }
+      scannablePatternParts.add(parts);
+    }
+    return scannablePatternParts;
+  }
+
+  /**
+   * Splits a pattern made only of literal and single-variable segments, and starting with a
+   * literal, into the literal text around its variables, interleaved with the variable names.
+   * "projects/{project}/foobars/{foobar}" becomes ["projects/", "project", "/foobars/", "foobar",
+   * ""].
+   *
+   * <p>Returns null for any other pattern, such as ones with wildcards, complex resource IDs or a
+   * leading variable, which can also match host names. These are only matched with {@link
+   * PathTemplate}.
+   */
+  @VisibleForTesting
+  static List<String> splitScannablePattern(String pattern) {
+    List<String> parts = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    String[] segments = pattern.split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      String segment = segments[i];
+      if (i > 0) {
+        literal.append('/');
+      }
+      Matcher variableMatcher = VARIABLE_SEGMENT_PATTERN.matcher(segment);
+      if (i > 0 && variableMatcher.matches()) {
+        parts.add(literal.toString());
+        parts.add(variableMatcher.group(1));
+        literal.setLength(0);
+      } else if (LITERAL_SEGMENT_PATTERN.matcher(segment).matches()) {
+        literal.append(segment);
+      } else {
+        return null;
+      }
+    }
+    parts.add(literal.toString());
+    return parts.size() > 1 ? parts : null;
+  }
 
+  private static List<MethodDefinition> createScanMethods(
+      TypeNode thisClassType,
+      List<List<String>> tokenHierarchies,
+      List<List<String>> scannablePatternParts) {
+    List<MethodDefinition> javaMethods = new ArrayList<>();
+    for (int i = 0; i < scannablePatternParts.size(); i++) {
+      javaMethods.add(
+          createScanMethod(
+              thisClassType,
+              tokenHierarchies.get(i),
+              scannablePatternParts.get(i),
+              tokenHierarchies.size() > 1));
+    }
     return javaMethods;
   }
 
+  // Creates a method which matches one pattern by scanning for its literals, and returns null if
+  // the string does not match. Any string it matches is also matched by the path template, but the
+  // values only agree for strings without whitespace, which PathTemplate trims from each segment.
+  // Code for projects/{project}/foobars/{foobar}:
+  // private static FoobarName scanProjectFoobarName(String formattedString) {
+  //   if (!formattedString.startsWith("projects/")) {
+  //     return null;
+  //   }
+  //   int projectEnd = formattedString.indexOf("/", 9);
+  //   if (projectEnd == -1 || !formattedString.startsWith("/foobars/", projectEnd)) {
+  //     return null;
+  //   }
+  //   if (formattedString.indexOf("/", projectEnd + 9) != -1) {
+  //     return null;
+  //   }
+  //   return ofProjectFoobarName(
+  //       formattedString.substring(9, projectEnd), formattedString.substring(projectEnd + 9));
+  // }
+  private static MethodDefinition createScanMethod(
+      TypeNode thisClassType, List<String> tokens, List<String> parts, boolean hasVariants) {
+    VariableExpr formattedStringVarExpr =
+        VariableExpr.withVariable(
+            Variable.builder().setName("formattedString").setType(TypeNode.STRING).build());
+    ValueExpr slashExpr = ValueExpr.withValue(StringObjectValue.withValue("/"));
+    ValueExpr notFoundExpr = createIntValueExpr(-1);
+    Statement returnNullStatement =
+        ExprStatement.withExpr(ReturnExpr.withExpr(ValueExpr.createNullExpr()));
+    Function<Expr, Statement> returnNullIfFn =
+        conditionExpr ->
+            IfStatement.builder()
+                .setConditionExpr(conditionExpr)
+                .setBody(Arrays.asList(returnNullStatement))
+                .build();
+
+    List<Statement> body = new ArrayList<>();
+    String prefix = parts.get(0);
+    body.add(
+        returnNullIfFn.apply(
+            UnaryOperationExpr.logicalNotWithExpr(
+                createStringMethodExpr(
+                    formattedStringVarExpr,
+                    "startsWith",
+                    TypeNode.BOOLEAN,
+                    ValueExpr.withValue(StringObjectValue.withValue(prefix))))));
+
+    Map<String, Expr> tokenValueExprs = new HashMap<>();
+    Expr startExpr = createIntValueExpr(prefix.length());
+    for (int i = 1; i < parts.size(); i += 2) {
+      String token = parts.get(i);
+      String literal = parts.get(i + 1);
+      boolean isLast = i + 2 == parts.size();
+      if (isLast && literal.isEmpty()) {
+        // The last variable extends to the end of the string.
+        body.add(
+            returnNullIfFn.apply(
+                RelationalOperationExpr.notEqualToWithExprs(
+                    createStringMethodExpr(
+                        formattedStringVarExpr, "indexOf", TypeNode.INT, slashExpr, startExpr),
+                    notFoundExpr)));
+        tokenValueExprs.put(
+            token,
+            createStringMethodExpr(
+                formattedStringVarExpr, "substring", TypeNode.STRING, startExpr));
+        break;
+      }
+
+      VariableExpr endVarExpr =
+          VariableExpr.withVariable(
+              Variable.builder()
+                  .setName(JavaStyle.toLowerCamelCase(token) + "End")
+                  .setType(TypeNode.INT)
+                  .build());
+      body.add(
+          ExprStatement.withExpr(
+              AssignmentExpr.builder()
+                  .setVariableExpr(endVarExpr.toBuilder().setIsDecl(true).build())
+                  .setValueExpr(
+                      createStringMethodExpr(
+                          formattedStringVarExpr, "indexOf", TypeNode.INT, slashExpr, startExpr))
+                  .build()));
+      Expr nextStartExpr =
+          ArithmeticOperationExpr.additionWithExprs(
+              endVarExpr, createIntValueExpr(literal.length()));
+      Expr conditionExpr = RelationalOperationExpr.equalToWithExprs(endVarExpr, notFoundExpr);
+      if (!literal.equals("/")) {
+        conditionExpr =
+            LogicalOperationExpr.logicalOrWithExprs(
+                conditionExpr,
+                UnaryOperationExpr.logicalNotWithExpr(
+                    createStringMethodExpr(
+                        formattedStringVarExpr,
+                        "startsWith",
+                        TypeNode.BOOLEAN,
+                        ValueExpr.withValue(StringObjectValue.withValue(literal)),
+                        endVarExpr)));
+      }
+      if (isLast) {
+        // The pattern ends with a literal.
+        conditionExpr =
+            LogicalOperationExpr.logicalOrWithExprs(
+                conditionExpr,
+                RelationalOperationExpr.notEqualToWithExprs(
+                    nextStartExpr,
+                    createStringMethodExpr(formattedStringVarExpr, "length", TypeNode.INT)));
+      }
+      body.add(returnNullIfFn.apply(conditionExpr));
+      tokenValueExprs.put(
+          token,
+          createStringMethodExpr(
+              formattedStringVarExpr, "substring", TypeNode.STRING, startExpr, endVarExpr));
+      startExpr = nextStartExpr;
+    }
+
+    String patternName = concatToUpperCamelCaseName(tokens);
+    MethodInvocationExpr ofMethodExpr =
+        MethodInvocationExpr.builder()
+            .setMethodName(hasVariants ? String.format("of%sName", patternName) : "of")
+            .setArguments(tokens.stream().map(tokenValueExprs::get).collect(Collectors.toList()))
+            .setReturnType(thisClassType)
+            .build();
+    return MethodDefinition.builder()
+        .setScope(ScopeNode.PRIVATE)
+        .setIsStatic(true)
+        .setReturnType(thisClassType)
+        .setName(String.format(SCAN_METHOD_NAME_PATTERN, patternName))
+        .setArguments(Arrays.asList(formattedStringVarExpr.toBuilder().setIsDecl(true).build()))
+        .setBody(body)
+        .setReturnExpr(ofMethodExpr)
+        .build();
+  }
+
+  private static MethodInvocationExpr createScanMethodInvocationExpr(
+      TypeNode thisClassType, List<String> tokens, VariableExpr formattedStringVarExpr) {
+    return MethodInvocationExpr.builder()
+        .setMethodName(String.format(SCAN_METHOD_NAME_PATTERN, concatToUpperCamelCaseName(tokens)))
+        .setArguments(formattedStringVarExpr)
+        .setReturnType(thisClassType)
+        .build();
+  }
+
+  // Code: CharMatcher.whitespace().matchesNoneOf(formattedString)
+  private static MethodInvocationExpr createHasNoWhitespaceExpr(
+      VariableExpr formattedStringVarExpr) {
+    MethodInvocationExpr whitespaceExpr =
+        MethodInvocationExpr.builder()
+            .setStaticReferenceType(FIXED_TYPESTORE.get("CharMatcher"))
+            .setMethodName("whitespace")
+            .setReturnType(FIXED_TYPESTORE.get("CharMatcher"))
+            .build();
+    return MethodInvocationExpr.builder()
+        .setExprReferenceExpr(whitespaceExpr)
+        .setMethodName("matchesNoneOf")
+        .setArguments(formattedStringVarExpr)
+        .setReturnType(TypeNode.BOOLEAN)
+        .build();
+  }
+
+  private static MethodInvocationExpr createStringMethodExpr(
+      VariableExpr stringVarExpr, String methodName, TypeNode returnType, Expr... argExprs) {
+    return MethodInvocationExpr.builder()
+        .setExprReferenceExpr(stringVarExpr)
+        .setMethodName(methodName)
+        .setArguments(argExprs)
+        .setReturnType(returnType)
+        .build();
+  }
+
+  private static ValueExpr createIntValueExpr(int value) {
+    return ValueExpr.withValue(
+        PrimitiveValue.builder().setType(TypeNode.INT).setValue(String.valueOf(value)).build());
+  }
+
   private static MethodDefinition createParseMethod(
       TypeNode thisClassType,
       List<VariableExpr> templateFinalVarExprs,
       List<List<String>> tokenHierarchies,
+      List<List<String>> scannablePatternParts,
       TypeStore typeStore) {
     String formattedStringArgName = "formattedString";
     VariableExpr formattedStringArgExpr =
@@ -751,6 +1017,46 @@ public class ResourceNameHelperClassComposer {
                     ExprStatement.withExpr(ReturnExpr.withExpr(ValueExpr.createNullExpr()))))
             .build());
 
+    // Try the scan methods first, and fall back to the path templates for strings they cannot
+    // match, such as ones with host names or whitespace.
+    // Code:
+    // if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+    //   FoobarName name = scanProjectFoobarName(formattedString);
+    //   if (name != null) {
+    //     return name;
+    //   }
+    //   ...
+    // }
+    if (!scannablePatternParts.isEmpty()) {
+      VariableExpr nameVarExpr =
+          VariableExpr.withVariable(
+              Variable.builder().setName("name").setType(thisClassType).build());
+      List<Statement> scanStatements = new ArrayList<>();
+      for (int i = 0; i < scannablePatternParts.size(); i++) {
+        scanStatements.add(
+            ExprStatement.withExpr(
+                AssignmentExpr.builder()
+                    .setVariableExpr(
+                        i == 0 ? nameVarExpr.toBuilder().setIsDecl(true).build() : nameVarExpr)
+                    .setValueExpr(
+                        createScanMethodInvocationExpr(
+                            thisClassType, tokenHierarchies.get(i), formattedStringArgExpr))
+                    .build()));
+        scanStatements.add(
+            IfStatement.builder()
+                .setConditionExpr(
+                    RelationalOperationExpr.notEqualToWithExprs(
+                        nameVarExpr, ValueExpr.createNullExpr()))
+                .setBody(Arrays.asList(ExprStatement.withExpr(ReturnExpr.withExpr(nameVarExpr))))
+                .build());
+      }
+      body.add(
+          IfStatement.builder()
+              .setConditionExpr(createHasNoWhitespaceExpr(formattedStringArgExpr))
+              .setBody(scanStatements)
+              .build());
+    }
+
     List<Expr> formattedStringArgList = Arrays.asList(formattedStringArgExpr);
     List<VariableExpr> formattedStringArgDeclList =
         Arrays.asList(formattedStringArgExpr.toBuilder().setIsDecl(true).build());
@@ -1055,17 +1361,38 @@ public class ResourceNameHelperClassComposer {
   }
 
   private static MethodDefinition createIsParseableFromMethod(
-      List<VariableExpr> templateFinalVarExprs) {
+      TypeNode thisClassType,
+      List<VariableExpr> templateFinalVarExprs,
+      List<List<String>> tokenHierarchies,
+      List<List<String>> scannablePatternParts) {
     VariableExpr formattedStringVarExpr =
         VariableExpr.withVariable(
             Variable.builder().setName("formattedString").setType(TypeNode.STRING).build());
-    Expr returnOrExpr =
+    // Try the scan methods first. Unlike in parse, whitespace does not matter: any string they
+    // match
+    // is also matched by the path template.
+    // Code: return scanProjectFoobarName(formattedString) != null || ...
+    //     || PROJECT_FOOBAR.matches(formattedString) || ...
+    List<Expr> scanExprs = new ArrayList<>();
+    for (int i = 0; i < scannablePatternParts.size(); i++) {
+      scanExprs.add(
+          RelationalOperationExpr.notEqualToWithExprs(
+              createScanMethodInvocationExpr(
+                  thisClassType, tokenHierarchies.get(i), formattedStringVarExpr),
+              ValueExpr.createNullExpr()));
+    }
+    Expr matchesExpr =
         MethodInvocationExpr.builder()
             .setExprReferenceExpr(templateFinalVarExprs.get(0))
             .setMethodName("matches")
             .setArguments(Arrays.asList(formattedStringVarExpr))
             .setReturnType(TypeNode.BOOLEAN)
             .build();
+    scanExprs.add(matchesExpr);
+    Expr returnOrExpr = scanExprs.get(0);
+    for (int i = 1; i < scanExprs.size(); i++) {
+      returnOrExpr = LogicalOperationExpr.logicalOrWithExprs(returnOrExpr, scanExprs.get(i));
+    }
     for (int i = 1; i < templateFinalVarExprs.size(); i++) {
       VariableExpr templateVarExpr = templateFinalVarExprs.get(i);
       returnOrExpr =
@@ -1263,13 +1590,7 @@ public class ResourceNameHelperClassComposer {
               .setArguments(instantiateArgExprs)
               .setReturnType(TypeNode.STRING)
               .build();
-      return MethodDefinition.builder()
-          .setIsOverride(true)
-          .setScope(ScopeNode.PUBLIC)
-          .setReturnType(TypeNode.STRING)
-          .setName("toString")
-          .setReturnExpr(returnInstantiateExpr)
-          .build();
+      return createCachedToStringMethod(returnInstantiateExpr);
     }
 
     VariableExpr fixedValueVarExpr = FIXED_CLASS_VARS.get("fixedValue");
@@ -1292,17 +1613,45 @@ public class ResourceNameHelperClassComposer {
             .setThenExpr(fixedValueVarExpr)
             .build();
 
+    return createCachedToStringMethod(returnExpr);
+  }
+
+  private static MethodDefinition createCachedToStringMethod(Expr valueExpr) {
+    // Code:
+    // if (stringValue == null) {
+    //   stringValue = <valueExpr>;
+    // }
+    // return stringValue;
+    // The fields are immutable, so the value is only instantiated once.
+    VariableExpr stringValueVarExpr = FIXED_CLASS_VARS.get("stringValue");
+    IfStatement cacheStatement =
+        IfStatement.builder()
+            .setConditionExpr(
+                RelationalOperationExpr.equalToWithExprs(
+                    stringValueVarExpr, ValueExpr.createNullExpr()))
+            .setBody(
+                Arrays.asList(
+                    ExprStatement.withExpr(
+                        AssignmentExpr.builder()
+                            .setVariableExpr(stringValueVarExpr)
+                            .setValueExpr(valueExpr)
+                            .build())))
+            .build();
     return MethodDefinition.builder()
         .setIsOverride(true)
         .setScope(ScopeNode.PUBLIC)
         .setReturnType(TypeNode.STRING)
         .setName("toString")
-        .setReturnExpr(returnExpr)
+        .setBody(Arrays.asList(cacheStatement))
+        .setReturnExpr(stringValueVarExpr)
         .build();
   }
 
   private static MethodDefinition createEqualsMethod(
-      ResourceName resourceName, List<List<String>> tokenHierarchies, TypeStore typeStore) {
+      ResourceName resourceName,
+      List<List<String>> tokenHierarchies,
+      TypeStore typeStore,
+      Reference javaObjectReference) {
     // Create method definition variables.
     Variable oVariable =
         Variable.builder()
@@ -1712,6 +2061,7 @@ public class ResourceNameHelperClassComposer {
         Arrays.asList(
             ArrayList.class,
             BetaApi.class,
+            CharMatcher.class,
             Generated.class,
             ImmutableMap.class,
             List.class,
@@ -1760,6 +2110,7 @@ public class ResourceNameHelperClassComposer {
     memberVars.put(
         "pathTemplate", TypeNode.withReference(ConcreteReference.withClazz(PathTemplate.class)));
     memberVars.put("fixedValue", TypeNode.STRING);
+    memberVars.put("stringValue", TypeNode.STRING);
     return memberVars.entrySet().stream()
         .map(e -> Variable.builder().setName(e.getKey()).setType(e.getValue()).build())
         .collect(Collectors.toMap(v -> v.identifier().name(), v -> VariableExpr.withVariable(v)));
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -49,7 +50,7 @@ public abstract class GapicContext {
 
   public abstract boolean restNumericEnumsEnabled();
 
-  public GapicMetadata gapicMetadata() {
+  public synchronized GapicMetadata gapicMetadata() {
     return gapicMetadata;
   }
 
@@ -63,10 +64,24 @@ public abstract class GapicContext {
     return serviceYamlProto() != null;
   }
 
-  public void updateGapicMetadata(GapicMetadata newMetadata) {
+  // Directory of the incremental generation cache, if enabled.
+  @Nullable
+  public abstract String generationCacheDir();
+
+  // Path that the srcjar is streamed to, instead of being returned in the plugin response.
+  @Nullable
+  public abstract String srcjarOutputPath();
+
+  public synchronized void updateGapicMetadata(GapicMetadata newMetadata) {
     gapicMetadata = newMetadata;
   }
 
+  // Applies a read-modify-write update atomically, since the client classes of different services
+  // may be composed concurrently.
+  public synchronized void updateGapicMetadata(UnaryOperator<GapicMetadata> updateFn) {
+    gapicMetadata = updateFn.apply(gapicMetadata);
+  }
+
   static GapicMetadata defaultGapicMetadata() {
     return GapicMetadata.newBuilder()
         .setSchema("1.0")
@@ -115,6 +130,10 @@ public abstract class GapicContext {
 
     public abstract Builder setTransport(Transport transport);
 
+    public abstract Builder setGenerationCacheDir(String generationCacheDir);
+
+    public abstract Builder setSrcjarOutputPath(String srcjarOutputPath);
+
     abstract ImmutableMap<String, ResourceName> resourceNames();
 
     abstract ImmutableMap<String, ResourceName> helperResourceNames();
@@ -119,6 +119,9 @@ public class Parser {
         GapicLanguageSettingsParser.parse(gapicYamlConfigPathOpt);
     Optional<String> transportOpt = PluginArgumentParser.parseTransport(request);
 
+    Optional<String> generationCacheDirOpt = PluginArgumentParser.parseGenerationCacheDir(request);
+    Optional<String> srcjarOutputPathOpt = PluginArgumentParser.parseSrcjarOutputPath(request);
+
     boolean willGenerateMetadata = PluginArgumentParser.hasMetadataFlag(request);
     boolean willGenerateNumericEnum = PluginArgumentParser.hasNumericEnumFlag(request);
 
@@ -218,6 +221,8 @@ public class Parser {
         .setServiceYamlProto(serviceYamlProtoOpt.orElse(null))
         .setTransport(transport)
         .setRestNumericEnumsEnabled(willGenerateNumericEnum)
+        .setGenerationCacheDir(generationCacheDirOpt.orElse(null))
+        .setSrcjarOutputPath(srcjarOutputPathOpt.orElse(null))
         .build();
   }
 
@@ -17,8 +17,11 @@ package com.google.api.generator.gapic.protoparser;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 // Parses the arguments from the protoc plugin.
 public class PluginArgumentParser {
@@ -32,6 +35,8 @@ public class PluginArgumentParser {
   @VisibleForTesting static final String KEY_NUMERIC_ENUM = "rest-numeric-enums";
   @VisibleForTesting static final String KEY_SERVICE_YAML_CONFIG = "api-service-config";
   @VisibleForTesting static final String KEY_TRANSPORT = "transport";
+  @VisibleForTesting static final String KEY_GENERATION_CACHE_DIR = "generation-cache-dir";
+  @VisibleForTesting static final String KEY_SRCJAR_OUTPUT_PATH = "srcjar-output-path";
 
   private static final String JSON_FILE_ENDING = "grpc_service_config.json";
   private static final String GAPIC_YAML_FILE_ENDING = "gapic.yaml";
@@ -53,6 +58,37 @@ public class PluginArgumentParser {
     return parseConfigArgument(request.getParameter(), KEY_TRANSPORT);
   }
 
+  static Optional<String> parseGenerationCacheDir(CodeGeneratorRequest request) {
+    return parseConfigArgument(request.getParameter(), KEY_GENERATION_CACHE_DIR);
+  }
+
+  static Optional<String> parseSrcjarOutputPath(CodeGeneratorRequest request) {
+    return parseConfigArgument(request.getParameter(), KEY_SRCJAR_OUTPUT_PATH);
+  }
+
+  /** Returns the paths of the configuration files that the generated code depends on. */
+  public static List<String> parseConfigFilePaths(CodeGeneratorRequest request) {
+    List<String> configFilePaths = new ArrayList<>();
+    parseJsonConfigPath(request).ifPresent(configFilePaths::add);
+    parseGapicYamlConfigPath(request).ifPresent(configFilePaths::add);
+    parseServiceYamlConfigPath(request).ifPresent(configFilePaths::add);
+    return configFilePaths;
+  }
+
+  /**
+   * Returns the arguments without those that only locate the generator's output and cache, which
+   * do not affect the generated code.
+   */
+  public static String removeOutputLocationArguments(String pluginProtocArgument) {
+    return Arrays.stream(pluginProtocArgument.split(COMMA))
+        .filter(
+            s -> {
+              String key = s.trim().split(EQUALS)[0];
+              return !key.equals(KEY_GENERATION_CACHE_DIR) && !key.equals(KEY_SRCJAR_OUTPUT_PATH);
+            })
+        .collect(Collectors.joining(COMMA));
+  }
+
   static boolean hasMetadataFlag(CodeGeneratorRequest request) {
     return hasFlag(request.getParameter(), KEY_METADATA);
   }
@@ -0,0 +1,42 @@
+// Copyright 2023 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.generator.gapic.protowriter;
+
+import com.google.auto.value.AutoValue;
+
+/** A rendered source file and its path in the srcjar. */
+@AutoValue
+public abstract class SourceFile {
+  public abstract String path();
+
+  public abstract String code();
+
+  public static SourceFile create(String path, String code) {
+    return builder().setPath(path).setCode(code).build();
+  }
+
+  static Builder builder() {
+    return new AutoValue_SourceFile.Builder();
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+    abstract Builder setPath(String path);
+
+    abstract Builder setCode(String code);
+
+    abstract SourceFile build();
+  }
+}
@@ -22,16 +22,31 @@ import com.google.api.generator.gapic.model.GapicClass;
 import com.google.api.generator.gapic.model.GapicContext;
 import com.google.api.generator.gapic.model.GapicPackageInfo;
 import com.google.api.generator.gapic.model.Sample;
+import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
 import com.google.protobuf.util.JsonFormat;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Writer {
+  private static final int RENDER_BATCH_SIZE_PER_THREAD = 4;
+  private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
   static class GapicWriterException extends RuntimeException {
     public GapicWriterException(String errorMessage) {
       super(errorMessage);
@@ -47,31 +62,86 @@ public class Writer {
       List<GapicClass> clazzes,
       GapicPackageInfo gapicPackageInfo,
       String outputFilePath) {
-    ByteString.Output output = ByteString.newOutput();
-    JavaWriterVisitor codeWriter = new JavaWriterVisitor();
-    JarOutputStream jos;
-    try {
-      jos = new JarOutputStream(output);
-    } catch (IOException e) {
-      throw new GapicWriterException(e.getMessage(), e);
+    if (context.srcjarOutputPath() != null) {
+      // Renders a bounded window of classes at a time, so that only the classes about to be
+      // written are held in memory as source code.
+      int batchSize = RENDER_BATCH_SIZE_PER_THREAD * ForkJoinPool.getCommonPoolParallelism();
+      return writeToFile(
+          context,
+          Lists.partition(clazzes, batchSize).stream().map(Writer::renderAll),
+          gapicPackageInfo,
+          Paths.get(context.srcjarOutputPath()));
     }
+    return writeToResponse(
+        context, Stream.of(renderAll(clazzes)), gapicPackageInfo, outputFilePath);
+  }
 
-    for (GapicClass gapicClazz : clazzes) {
-      if (gapicClazz.kind() == GapicClass.Kind.NON_GENERATED) {
-        continue;
-      }
-      String classPath = writeClazz(gapicClazz, codeWriter, jos);
-      writeSamples(gapicClazz, getSamplePackage(gapicClazz), classPath, jos);
+  /**
+   * Renders the class and its samples to source files, in the order they are written to the srcjar.
+   * Non-generated classes render to no files.
+   */
+  public static List<SourceFile> render(GapicClass gapicClazz) {
+    List<SourceFile> sourceFiles = new ArrayList<>();
+    if (gapicClazz.kind() == GapicClass.Kind.NON_GENERATED) {
+      return sourceFiles;
     }
+    ClassDefinition clazz = gapicClazz.classDefinition();
 
-    writeMetadataFile(context, writePackageInfo(gapicPackageInfo, codeWriter, jos), jos);
+    JavaWriterVisitor codeWriter = new JavaWriterVisitor();
+    clazz.accept(codeWriter);
+    String clazzPath = getPath(clazz.packageString(), clazz.classIdentifier().name());
+    sourceFiles.add(
+        SourceFile.create(
+            String.format("%s/%s.java", clazzPath, clazz.classIdentifier().name()),
+            codeWriter.write()));
 
-    try {
-      jos.finish();
-      jos.flush();
-    } catch (IOException e) {
-      throw new GapicWriterException(e.getMessage(), e);
+    String samplePackage = getSamplePackage(gapicClazz);
+    for (Sample sample : gapicClazz.samples()) {
+      sourceFiles.add(
+          SourceFile.create(
+              String.format(
+                  "samples/snippets/generated/%s/%s/%s/%s.java",
+                  clazzPath,
+                  sample.regionTag().serviceName().toLowerCase(),
+                  sample.regionTag().rpcName().toLowerCase(),
+                  sample.name()),
+              SampleCodeWriter.writeExecutableSample(sample, samplePackage)));
     }
+    return sourceFiles;
+  }
+
+  /** Writes already rendered source files, followed by the package-info and metadata files. */
+  public static CodeGeneratorResponse writeSourceFiles(
+      GapicContext context,
+      List<SourceFile> sourceFiles,
+      GapicPackageInfo gapicPackageInfo,
+      String outputFilePath) {
+    if (context.srcjarOutputPath() != null) {
+      return writeToFile(
+          context, Stream.of(sourceFiles), gapicPackageInfo, Paths.get(context.srcjarOutputPath()));
+    }
+    return writeToResponse(context, Stream.of(sourceFiles), gapicPackageInfo, outputFilePath);
+  }
+
+  // Rendering (AST visiting and formatting) dominates the cost of writing, so each class is
+  // rendered as its own fork-join task with its own JavaWriterVisitor. The jar entries are then
+  // written in the original class order, so the srcjar has the same entries and contents as when
+  // the classes were rendered one after the other.
+  private static List<SourceFile> renderAll(List<GapicClass> clazzes) {
+    return clazzes
+        .parallelStream()
+        .map(Writer::render)
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  private static CodeGeneratorResponse writeToResponse(
+      GapicContext context,
+      Stream<List<SourceFile>> sourceFileBatches,
+      GapicPackageInfo gapicPackageInfo,
+      String outputFilePath) {
+    ByteString.Output output = ByteString.newOutput();
+    writeJar(context, sourceFileBatches, gapicPackageInfo, output);
 
     CodeGeneratorResponse.Builder response = CodeGeneratorResponse.newBuilder();
     response
@@ -82,80 +152,130 @@ public class Writer {
     return response.build();
   }
 
-  private static String writeClazz(
-      GapicClass gapicClazz, JavaWriterVisitor codeWriter, JarOutputStream jos) {
-    ClassDefinition clazz = gapicClazz.classDefinition();
+  // The srcjar goes straight to disk instead of through protoc, so the response carries no files.
+  // It is written to a temporary file first and then moved into place, so that a failed run never
+  // leaves a truncated srcjar behind.
+  private static CodeGeneratorResponse writeToFile(
+      GapicContext context,
+      Stream<List<SourceFile>> sourceFileBatches,
+      GapicPackageInfo gapicPackageInfo,
+      Path srcjarPath) {
+    Path tempFile = null;
+    try {
+      tempFile =
+          Files.createTempFile(
+              srcjarPath.toAbsolutePath().getParent(), srcjarPath.getFileName().toString(), ".tmp");
+      try (OutputStream output =
+          new BufferedOutputStream(Files.newOutputStream(tempFile), FILE_BUFFER_SIZE)) {
+        writeJar(context, sourceFileBatches, gapicPackageInfo, output);
+      }
+      Files.move(
+          tempFile,
+          srcjarPath,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new GapicWriterException(
+          String.format("Could not write %s: %s", srcjarPath, e.getMessage()), e);
+    } finally {
+      deleteIfExists(tempFile);
+    }
 
-    clazz.accept(codeWriter);
-    String code = codeWriter.write();
-    codeWriter.clear();
+    return CodeGeneratorResponse.newBuilder()
+        .setSupportedFeatures(CodeGeneratorResponse.Feature.FEATURE_PROTO3_OPTIONAL_VALUE)
+        .build();
+  }
 
-    String path = getPath(clazz.packageString(), clazz.classIdentifier().name());
-    String className = clazz.classIdentifier().name();
-    JarEntry jarEntry = new JarEntry(String.format("%s/%s.java", path, className));
+  // Removes the temporary file of a failed write. It is already moved away after a successful one.
+  private static void deleteIfExists(Path tempFile) {
+    if (tempFile == null) {
+      return;
+    }
     try {
-      jos.putNextEntry(jarEntry);
-      jos.write(code.getBytes(StandardCharsets.UTF_8));
+      Files.deleteIfExists(tempFile);
     } catch (IOException e) {
-      throw new GapicWriterException(
-          String.format(
-              "Could not write code for class %s.%s: %s",
-              clazz.packageString(), clazz.classIdentifier().name(), e.getMessage()),
-          e);
+      // The original failure, if any, is the one worth reporting.
     }
-    return path;
   }
 
-  private static void writeSamples(
-      GapicClass gapicClazz, String pakkage, String clazzPath, JarOutputStream jos) {
-    for (Sample sample : gapicClazz.samples()) {
-      JarEntry jarEntry =
-          new JarEntry(
-              String.format(
-                  "samples/snippets/generated/%s/%s/%s/%s.java",
-                  clazzPath,
-                  sample.regionTag().serviceName().toLowerCase(),
-                  sample.regionTag().rpcName().toLowerCase(),
-                  sample.name()));
-      String executableSampleCode = SampleCodeWriter.writeExecutableSample(sample, pakkage);
-      try {
-        jos.putNextEntry(jarEntry);
-        jos.write(executableSampleCode.getBytes(StandardCharsets.UTF_8));
-      } catch (IOException e) {
-        throw new GapicWriterException(
-            String.format(
-                "Could not write sample code for %s/%s.: %s",
-                clazzPath, sample.name(), e.getMessage()),
-            e);
-      }
+  private static void writeJar(
+      GapicContext context,
+      Stream<List<SourceFile>> sourceFileBatches,
+      GapicPackageInfo gapicPackageInfo,
+      OutputStream output) {
+    JarOutputStream jos;
+    try {
+      jos = new JarOutputStream(output);
+    } catch (IOException e) {
+      throw new GapicWriterException(e.getMessage(), e);
+    }
+    // Encodes the code straight into the jar entries, instead of copying it into byte arrays first.
+    OutputStreamWriter entryWriter = new OutputStreamWriter(jos, StandardCharsets.UTF_8);
+
+    sourceFileBatches.forEachOrdered(
+        sourceFiles -> sourceFiles.forEach(f -> writeSourceFile(f, jos, entryWriter)));
+
+    writeMetadataFile(
+        context,
+        writePackageInfo(gapicPackageInfo, new JavaWriterVisitor(), jos, entryWriter),
+        jos,
+        entryWriter);
+
+    try {
+      jos.finish();
+      jos.flush();
+    } catch (IOException e) {
+      throw new GapicWriterException(e.getMessage(), e);
     }
   }
 
+  private static void writeSourceFile(
+      SourceFile sourceFile, JarOutputStream jos, OutputStreamWriter entryWriter) {
+    try {
+      writeEntry(sourceFile.path(), sourceFile.code(), jos, entryWriter);
+    } catch (IOException e) {
+      throw new GapicWriterException(
+          String.format("Could not write code for %s: %s", sourceFile.path(), e.getMessage()), e);
+    }
+  }
+
+  // The writer buffers encoded characters, so it is flushed before the entry is closed.
+  private static void writeEntry(
+      String name, String code, JarOutputStream jos, OutputStreamWriter entryWriter)
+      throws IOException {
+    jos.putNextEntry(new JarEntry(name));
+    entryWriter.write(code);
+    entryWriter.flush();
+  }
+
   private static String writePackageInfo(
-      GapicPackageInfo gapicPackageInfo, JavaWriterVisitor codeWriter, JarOutputStream jos) {
+      GapicPackageInfo gapicPackageInfo,
+      JavaWriterVisitor codeWriter,
+      JarOutputStream jos,
+      OutputStreamWriter entryWriter) {
     PackageInfoDefinition packageInfo = gapicPackageInfo.packageInfo();
     packageInfo.accept(codeWriter);
     String code = codeWriter.write();
     codeWriter.clear();
 
     String packagePath = "src/main/java/" + packageInfo.pakkage().replaceAll("\\.", "/");
-    JarEntry jarEntry = new JarEntry(String.format("%s/package-info.java", packagePath));
     try {
-      jos.putNextEntry(jarEntry);
-      jos.write(code.getBytes(StandardCharsets.UTF_8));
+      writeEntry(String.format("%s/package-info.java", packagePath), code, jos, entryWriter);
     } catch (IOException e) {
       throw new GapicWriterException("Could not write code for package-info.java", e);
     }
     return packagePath;
   }
 
-  private static void writeMetadataFile(GapicContext context, String path, JarOutputStream jos) {
+  private static void writeMetadataFile(
+      GapicContext context, String path, JarOutputStream jos, OutputStreamWriter entryWriter) {
     if (context.gapicMetadataEnabled()) {
-      JarEntry jarEntry = new JarEntry(String.format("%s/gapic_metadata.json", path));
       try {
-        jos.putNextEntry(jarEntry);
-        jos.write(
-            JsonFormat.printer().print(context.gapicMetadata()).getBytes(StandardCharsets.UTF_8));
+        writeEntry(
+            String.format("%s/gapic_metadata.json", path),
+            JsonFormat.printer().print(context.gapicMetadata()),
+            jos,
+            entryWriter);
       } catch (IOException e) {
         throw new GapicWriterException("Could not write gapic_metadata.json", e);
       }
@@ -0,0 +1,199 @@
+// Copyright 2023 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.generator.benchmark;
+
+import com.google.api.generator.engine.writer.JavaFormatter;
+import com.google.api.generator.engine.writer.JavaWriterVisitor;
+import com.google.api.generator.gapic.composer.Composer;
+import com.google.api.generator.gapic.model.GapicClass;
+import com.google.api.generator.gapic.model.GapicContext;
+import com.google.api.generator.gapic.model.GapicPackageInfo;
+import com.google.api.generator.gapic.protoparser.Parser;
+import com.google.api.generator.gapic.protowriter.Writer;
+import com.google.bookshop.v1beta1.BookshopProto;
+import com.google.logging.v2.LogEntryProto;
+import com.google.logging.v2.LoggingConfigProto;
+import com.google.logging.v2.LoggingMetricsProto;
+import com.google.logging.v2.LoggingProto;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import com.google.pubsub.v1.PubsubProto;
+import com.google.pubsub.v1.SchemaProto;
+import com.google.showcase.v1beta1.EchoOuterClass;
+import google.cloud.CommonResources;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks each stage of the generator pipeline separately, on the test protos that also back the
+ * golden tests. Each stage is measured on the output of the previous one, which is computed once
+ * per trial.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Pbenchmark} in the gapic-generator-java module.
+ * The profile enables JMH's GC profiler, which reports the allocation rate per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+  private static final String TEST_FILES_DIRECTORY = "src/test/resources/";
+  private static final String OUTPUT_FILE_NAME = "temp-codegen.srcjar";
+
+  @Param({"showcase", "bookshop", "logging", "pubsub"})
+  private String api;
+
+  private CodeGeneratorRequest request;
+  private GapicContext context;
+  private List<GapicClass> clazzes;
+  private GapicPackageInfo packageInfo;
+  private List<String> renderedClazzes;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    request = createRequest(api);
+    context = Parser.parse(request);
+    clazzes = Composer.composeServiceClasses(context);
+    packageInfo = Composer.composePackageInfo(context);
+    renderedClazzes = new ArrayList<>();
+    for (GapicClass clazz : clazzes) {
+      renderedClazzes.add(render(clazz));
+    }
+  }
+
+  @Benchmark
+  public GapicContext parse() {
+    return Parser.parse(request);
+  }
+
+  @Benchmark
+  public List<GapicClass> compose() {
+    return Composer.composeServiceClasses(context);
+  }
+
+  /** Visits each class, which includes the final formatting pass over it. */
+  @Benchmark
+  public void render(Blackhole blackhole) {
+    for (GapicClass clazz : clazzes) {
+      blackhole.consume(render(clazz));
+    }
+  }
+
+  /** Formats the already-rendered classes, to separate formatting from the AST visit. */
+  @Benchmark
+  public void format(Blackhole blackhole) {
+    for (String code : renderedClazzes) {
+      blackhole.consume(JavaFormatter.format(code));
+    }
+  }
+
+  @Benchmark
+  public CodeGeneratorResponse write() {
+    return Writer.write(context, clazzes, packageInfo, OUTPUT_FILE_NAME);
+  }
+
+  private static String render(GapicClass clazz) {
+    JavaWriterVisitor visitor = new JavaWriterVisitor();
+    clazz.classDefinition().accept(visitor);
+    return visitor.write();
+  }
+
+  // Builds the request protoc would send for the given API. The generated descriptors carry no
+  // source info, so the generated Javadoc is limited to what the composers add.
+  private static CodeGeneratorRequest createRequest(String api) {
+    switch (api) {
+      case "showcase":
+        return createRequest(
+            Arrays.asList(EchoOuterClass.getDescriptor()),
+            "grpc-service-config=" + testFile("showcase_grpc_service_config.json"),
+            "gapic-config=" + testFile("showcase_gapic.yaml"));
+      case "bookshop":
+        return createRequest(
+            Arrays.asList(BookshopProto.getDescriptor()),
+            "grpc-service-config=" + testFile("bookshop_grpc_service_config.json"));
+      case "logging":
+        return createRequest(
+            Arrays.asList(
+                LoggingProto.getDescriptor(),
+                LogEntryProto.getDescriptor(),
+                LoggingConfigProto.getDescriptor(),
+                LoggingMetricsProto.getDescriptor(),
+                CommonResources.getDescriptor()),
+            "grpc-service-config=" + testFile("logging_grpc_service_config.json"),
+            "gapic-config=" + testFile("logging_gapic.yaml"));
+      case "pubsub":
+        return createRequest(
+            Arrays.asList(
+                PubsubProto.getDescriptor(),
+                SchemaProto.getDescriptor(),
+                CommonResources.getDescriptor()),
+            "grpc-service-config=" + testFile("pubsub_grpc_service_config.json"),
+            "gapic-config=" + testFile("pubsub_gapic.yaml"));
+      default:
+        throw new IllegalArgumentException(String.format("Unknown API %s", api));
+    }
+  }
+
+  private static CodeGeneratorRequest createRequest(
+      List<FileDescriptor> filesToGenerate, String... parameters) {
+    CodeGeneratorRequest.Builder requestBuilder =
+        CodeGeneratorRequest.newBuilder().setParameter(String.join(",", parameters));
+    Set<String> addedFileNames = new HashSet<>();
+    for (FileDescriptor fileDescriptor : filesToGenerate) {
+      addFileWithDependencies(fileDescriptor, addedFileNames, requestBuilder);
+      requestBuilder.addFileToGenerate(fileDescriptor.getName());
+    }
+    return requestBuilder.build();
+  }
+
+  // protoc lists every file after its dependencies.
+  private static void addFileWithDependencies(
+      FileDescriptor fileDescriptor,
+      Set<String> addedFileNames,
+      CodeGeneratorRequest.Builder requestBuilder) {
+    if (!addedFileNames.add(fileDescriptor.getName())) {
+      return;
+    }
+    for (FileDescriptor dependency : fileDescriptor.getDependencies()) {
+      addFileWithDependencies(dependency, addedFileNames, requestBuilder);
+    }
+    requestBuilder.addProtoFile(fileDescriptor.toProto());
+  }
+
+  private static String testFile(String fileName) {
+    return Paths.get(TEST_FILES_DIRECTORY, fileName).toString();
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.api.generator.engine.ast;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 
 import org.junit.Test;
@@ -87,4 +88,31 @@ public class ArithmeticOperationExprTest {
         IllegalStateException.class,
         () -> ArithmeticOperationExpr.concatWithExprs(lhsExpr, rhsExpr));
   }
+
+  @Test
+  public void additionOperator_validIntegerTypes() {
+    // valid type-checking for x + 1
+    VariableExpr lhsExpr =
+        VariableExpr.withVariable(Variable.builder().setType(TypeNode.INT).setName("x").build());
+    ValueExpr rhsExpr =
+        ValueExpr.withValue(PrimitiveValue.builder().setType(TypeNode.INT).setValue("1").build());
+    assertEquals(TypeNode.INT, ArithmeticOperationExpr.additionWithExprs(lhsExpr, rhsExpr).type());
+
+    VariableExpr longExpr =
+        VariableExpr.withVariable(Variable.builder().setType(TypeNode.LONG).setName("y").build());
+    assertEquals(
+        TypeNode.LONG, ArithmeticOperationExpr.additionWithExprs(lhsExpr, longExpr).type());
+  }
+
+  @Test
+  public void additionOperator_invalidNonIntegerType() {
+    // throw exception for addition if an expr is not an integer
+    VariableExpr lhsExpr =
+        VariableExpr.withVariable(Variable.builder().setType(TypeNode.INT).setName("x").build());
+    VariableExpr rhsExpr =
+        VariableExpr.withVariable(Variable.builder().setType(TypeNode.STRING).setName("y").build());
+    assertThrows(
+        IllegalStateException.class,
+        () -> ArithmeticOperationExpr.additionWithExprs(lhsExpr, rhsExpr));
+  }
 }
@@ -2256,6 +2256,69 @@ public class JavaWriterVisitorTest {
         writerVisitor.write());
   }
 
+  @Test
+  public void writeClassDefinition_longCommentsFormattedWithClass() {
+    // Comments inside a class are wrapped and indented by the single formatting pass over the
+    // class, rather than formatted on their own and then re-wrapped at their final indentation.
+    MethodDefinition method =
+        MethodDefinition.builder()
+            .setHeaderCommentStatements(
+                Arrays.asList(
+                    CommentStatement.withComment(
+                        JavaDocComment.builder()
+                            .addComment(
+                                "Opens the library for business, after checking that every shelf"
+                                    + " has been dusted, every book has been returned, and the"
+                                    + " coffee machine has been refilled.")
+                            .addParam("force", "whether to skip the checks")
+                            .build())))
+            .setName("open")
+            .setScope(ScopeNode.PUBLIC)
+            .setReturnType(TypeNode.VOID)
+            .setBody(
+                Arrays.asList(
+                    CommentStatement.withComment(
+                        LineComment.withComment(
+                            "This is a long line comment that goes well past the column limit of"
+                                + " the formatter and so must be wrapped.")),
+                    CommentStatement.withComment(
+                        BlockComment.withComment("A block comment.\nOn two lines."))))
+            .build();
+    ClassDefinition classDef =
+        ClassDefinition.builder()
+            .setPackageString("com.google.example.library.v1.stub")
+            .setName("LibraryServiceStub")
+            .setScope(ScopeNode.PUBLIC)
+            .setMethods(Arrays.asList(method))
+            .build();
+
+    classDef.accept(writerVisitor);
+    assertEquals(
+        LineFormatter.lines(
+            "package com.google.example.library.v1.stub;\n",
+            "\n",
+            "public class LibraryServiceStub {\n",
+            "\n",
+            "  /**\n",
+            "   * Opens the library for business, after checking that every shelf has been dusted,"
+                + " every book has\n",
+            "   * been returned, and the coffee machine has been refilled.\n",
+            "   *\n",
+            "   * @param force whether to skip the checks\n",
+            "   */\n",
+            "  public void open() {\n",
+            "    // This is a long line comment that goes well past the column limit of the formatter"
+                + " and so must\n",
+            "    // be wrapped.\n",
+            "    /*\n",
+            "     * A block comment.\n",
+            "     * On two lines.\n",
+            "     */\n",
+            "  }\n",
+            "}\n"),
+        writerVisitor.write());
+  }
+
   @Test
   public void writeClassDefinition_commentsStatementsAndMethods() {
     LineComment lineComment = LineComment.withComment("AUTO-GENERATED DOCUMENTATION AND CLASS");
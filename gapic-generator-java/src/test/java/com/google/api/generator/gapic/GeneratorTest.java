@@ -0,0 +1,92 @@
+// Copyright 2023 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.generator.gapic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.bookshop.v1beta1.BookshopProto;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GeneratorTest {
+  private static final String TEST_FILES_DIRECTORY = "src/test/resources/";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void generateGapic_cacheHitsWhenWritingToSrcjarOutputPath() throws IOException {
+    File cacheDir = tempFolder.newFolder();
+    Path srcjar = tempFolder.getRoot().toPath().resolve("bookshop.srcjar");
+    CodeGeneratorRequest request =
+        createRequest(
+            BookshopProto.getDescriptor(),
+            "grpc-service-config="
+                + Paths.get(TEST_FILES_DIRECTORY, "bookshop_grpc_service_config.json"),
+            "generation-cache-dir=" + cacheDir,
+            "srcjar-output-path=" + srcjar);
+
+    Generator.generateGapic(request);
+    assertTrue(Files.isRegularFile(srcjar));
+    Set<String> cacheEntries = listFiles(cacheDir.toPath());
+    assertFalse(cacheEntries.isEmpty());
+
+    // The srcjar of the first run now exists. A key that changed with it would miss, and write a
+    // new entry for every unit.
+    Generator.generateGapic(request);
+    assertEquals(cacheEntries, listFiles(cacheDir.toPath()));
+  }
+
+  // Builds the request protoc would send, which lists every file after its dependencies.
+  private static CodeGeneratorRequest createRequest(
+      FileDescriptor fileToGenerate, String... parameters) {
+    CodeGeneratorRequest.Builder requestBuilder =
+        CodeGeneratorRequest.newBuilder().setParameter(String.join(",", parameters));
+    addFileWithDependencies(fileToGenerate, new HashSet<>(), requestBuilder);
+    return requestBuilder.addFileToGenerate(fileToGenerate.getName()).build();
+  }
+
+  private static void addFileWithDependencies(
+      FileDescriptor fileDescriptor,
+      Set<String> addedFileNames,
+      CodeGeneratorRequest.Builder requestBuilder) {
+    if (!addedFileNames.add(fileDescriptor.getName())) {
+      return;
+    }
+    for (FileDescriptor dependency : fileDescriptor.getDependencies()) {
+      addFileWithDependencies(dependency, addedFileNames, requestBuilder);
+    }
+    requestBuilder.addProtoFile(fileDescriptor.toProto());
+  }
+
+  private static Set<String> listFiles(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.map(f -> f.getFileName().toString()).collect(Collectors.toSet());
+    }
+  }
+}
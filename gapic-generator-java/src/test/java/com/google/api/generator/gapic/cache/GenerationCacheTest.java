@@ -0,0 +1,129 @@
+// Copyright 2023 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.generator.gapic.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.generator.gapic.composer.Composer;
+import com.google.api.generator.gapic.model.GapicContext;
+import com.google.api.generator.gapic.protowriter.SourceFile;
+import com.google.api.generator.gapic.protowriter.Writer;
+import com.google.api.generator.test.protoloader.GrpcTestProtoLoader;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GenerationCacheTest {
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void composeAndRender_matchesUncachedGeneration() throws IOException {
+    GapicContext uncachedContext = GrpcTestProtoLoader.instance().parseBookshopService();
+    List<SourceFile> expectedSourceFiles =
+        Composer.composeServiceClasses(uncachedContext).stream()
+            .map(Writer::render)
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+
+    File cacheDir = tempFolder.newFolder();
+    GenerationCache cache =
+        GenerationCache.create(cacheDir.getPath(), CodeGeneratorRequest.getDefaultInstance());
+
+    // Composes every unit and populates the cache.
+    GapicContext missContext = GrpcTestProtoLoader.instance().parseBookshopService();
+    assertEquals(expectedSourceFiles, cache.composeAndRender(missContext));
+    assertEquals(uncachedContext.gapicMetadata(), missContext.gapicMetadata());
+    long cacheFileCount = countFiles(cacheDir.toPath());
+    assertTrue(cacheFileCount > 0);
+
+    // Reads every unit back, including the GAPIC metadata of the clients.
+    GapicContext hitContext = GrpcTestProtoLoader.instance().parseBookshopService();
+    assertEquals(expectedSourceFiles, cache.composeAndRender(hitContext));
+    assertEquals(uncachedContext.gapicMetadata(), hitContext.gapicMetadata());
+    assertEquals(cacheFileCount, countFiles(cacheDir.toPath()));
+  }
+
+  @Test
+  public void composeAndRender_corruptEntryIsRecomposed() throws IOException {
+    File cacheDir = tempFolder.newFolder();
+    GenerationCache cache =
+        GenerationCache.create(cacheDir.getPath(), CodeGeneratorRequest.getDefaultInstance());
+    List<SourceFile> sourceFiles =
+        cache.composeAndRender(GrpcTestProtoLoader.instance().parseBookshopService());
+
+    try (Stream<Path> cacheFiles = Files.list(cacheDir.toPath())) {
+      for (Path cacheFile : cacheFiles.collect(Collectors.toList())) {
+        Files.write(cacheFile, new byte[] {1, 2, 3});
+      }
+    }
+    assertEquals(
+        sourceFiles, cache.composeAndRender(GrpcTestProtoLoader.instance().parseBookshopService()));
+  }
+
+  @Test
+  public void collectReferencedMessages() {
+    GapicContext context = GrpcTestProtoLoader.instance().parseBookshopService();
+    assertTrue(
+        GenerationCache.collectReferencedMessages(context, context.services().get(0))
+            .containsKey("com.google.bookshop.v1beta1.Book"));
+  }
+
+  @Test
+  public void createBaseKey_dependsOnVersionAndParameters() {
+    CodeGeneratorRequest request =
+        CodeGeneratorRequest.newBuilder().setParameter("transport=grpc").build();
+    assertEquals(
+        GenerationCache.createBaseKey("1.0.0", request),
+        GenerationCache.createBaseKey("1.0.0", request));
+    assertNotEquals(
+        GenerationCache.createBaseKey("1.0.0", request),
+        GenerationCache.createBaseKey("1.0.1", request));
+    assertNotEquals(
+        GenerationCache.createBaseKey("1.0.0", request),
+        GenerationCache.createBaseKey(
+            "1.0.0", request.toBuilder().setParameter("transport=grpc+rest").build()));
+  }
+
+  @Test
+  public void createBaseKey_ignoresOutputLocations() {
+    CodeGeneratorRequest request =
+        CodeGeneratorRequest.newBuilder().setParameter("transport=grpc").build();
+    assertEquals(
+        GenerationCache.createBaseKey("1.0.0", request),
+        GenerationCache.createBaseKey(
+            "1.0.0",
+            request.toBuilder()
+                .setParameter(
+                    "generation-cache-dir=/tmp/cache,transport=grpc,"
+                        + "srcjar-output-path=/tmp/out.srcjar")
+                .build()));
+  }
+
+  private static long countFiles(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.count();
+    }
+  }
+}
@@ -30,11 +30,13 @@ import com.google.api.generator.gapic.model.Sample;
 import com.google.api.generator.gapic.model.Service;
 import com.google.api.generator.test.framework.Assert;
 import com.google.api.generator.test.framework.GoldenFileWriter;
+import com.google.api.generator.test.protoloader.GrpcRestTestProtoLoader;
 import com.google.api.generator.test.protoloader.GrpcTestProtoLoader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Test;
 
 public class ComposerTest {
@@ -154,6 +156,37 @@ public class ComposerTest {
     }
   }
 
+  @Test
+  public void composeServiceClasses_deterministicOrder() {
+    GapicContext multiServiceContext = GrpcRestTestProtoLoader.instance().parseShowcaseEcho();
+    List<String> serviceNames =
+        multiServiceContext.services().stream().map(Service::name).collect(Collectors.toList());
+    assertEquals(Arrays.asList("Echo", "EchoEmpy"), serviceNames);
+
+    List<String> classNames = composeClassNames(multiServiceContext);
+    // Classes are grouped by kind, then ordered by service.
+    assertEquals("EchoStub", classNames.get(0));
+    assertEquals("EchoEmpyStub", classNames.get(6));
+    assertEquals(
+        serviceNames,
+        multiServiceContext.gapicMetadata().getServicesMap().keySet().stream()
+            .collect(Collectors.toList()));
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(classNames, composeClassNames(multiServiceContext));
+      assertEquals(
+          serviceNames,
+          multiServiceContext.gapicMetadata().getServicesMap().keySet().stream()
+              .collect(Collectors.toList()));
+    }
+  }
+
+  private static List<String> composeClassNames(GapicContext context) {
+    return Composer.composeServiceClasses(context).stream()
+        .map(c -> c.classDefinition().classIdentifier().name())
+        .collect(Collectors.toList());
+  }
+
   private List<GapicClass> getTestClassListFromService(Service testService) {
     GapicClass testClass =
         GrpcServiceCallableFactoryClassComposer.instance()
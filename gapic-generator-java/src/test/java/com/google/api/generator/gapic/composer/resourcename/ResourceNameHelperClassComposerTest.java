@@ -90,6 +90,35 @@ public class ResourceNameHelperClassComposerTest {
             Arrays.asList("project", "location", "autoscaling_policy")));
   }
 
+  @Test
+  public void splitScannablePattern_basic() {
+    assertEquals(
+        Arrays.asList("projects/", "project", "/foobars/", "foobar", ""),
+        ResourceNameHelperClassComposer.splitScannablePattern(
+            "projects/{project}/foobars/{foobar}"));
+    assertEquals(
+        Arrays.asList("projects/", "project", "/", "agent", "/settings"),
+        ResourceNameHelperClassComposer.splitScannablePattern(
+            "projects/{project}/{agent}/settings"));
+  }
+
+  @Test
+  public void splitScannablePattern_unsupportedPatterns() {
+    // Leading variable, which can match a host name.
+    assertThat(ResourceNameHelperClassComposer.splitScannablePattern("{project}/foobars/{foobar}"))
+        .isNull();
+    // Complex resource ID.
+    assertThat(
+            ResourceNameHelperClassComposer.splitScannablePattern(
+                "sessions/{session}/tests/{shard_id}~{test_id}"))
+        .isNull();
+    // Wildcards.
+    assertThat(ResourceNameHelperClassComposer.splitScannablePattern("projects/{project=**}"))
+        .isNull();
+    // No variables.
+    assertThat(ResourceNameHelperClassComposer.splitScannablePattern("_deleted-topic_")).isNull();
+  }
+
   @Test
   public void generateResourceNameClass_echoFoobarMultiplePatterns() {
     Map<String, Message> messageTypes = Parser.parseMessages(echoFileDescriptor);
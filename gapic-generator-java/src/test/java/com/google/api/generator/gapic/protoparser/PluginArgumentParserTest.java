@@ -246,6 +246,80 @@ public class PluginArgumentParserTest {
     assertTrue(PluginArgumentParser.hasNumericEnumFlag(request));
   }
 
+  @Test
+  public void parseGenerationCacheDir() {
+    String cacheDir = "/tmp/gapic-generator-cache";
+    CodeGeneratorRequest request =
+        CodeGeneratorRequest.newBuilder()
+            .setParameter(
+                String.join(
+                    ",",
+                    createGrpcServiceConfig("/tmp/foo_grpc_service_config.json"),
+                    String.format(
+                        "%s=%s", PluginArgumentParser.KEY_GENERATION_CACHE_DIR, cacheDir)))
+            .build();
+    assertEquals(cacheDir, PluginArgumentParser.parseGenerationCacheDir(request).get());
+  }
+
+  @Test
+  public void parseGenerationCacheDir_noneFound() {
+    CodeGeneratorRequest request =
+        CodeGeneratorRequest.newBuilder()
+            .setParameter(createGrpcServiceConfig("/tmp/foo_grpc_service_config.json"))
+            .build();
+    assertFalse(PluginArgumentParser.parseGenerationCacheDir(request).isPresent());
+  }
+
+  @Test
+  public void parseSrcjarOutputPath() {
+    String srcjarPath = "/tmp/foo.srcjar";
+    CodeGeneratorRequest request =
+        CodeGeneratorRequest.newBuilder()
+            .setParameter(
+                String.join(
+                    ",",
+                    KEY_METADATA,
+                    String.format(
+                        "%s=%s", PluginArgumentParser.KEY_SRCJAR_OUTPUT_PATH, srcjarPath)))
+            .build();
+    assertEquals(srcjarPath, PluginArgumentParser.parseSrcjarOutputPath(request).get());
+  }
+
+  @Test
+  public void parseConfigFilePaths() {
+    String jsonPath = "/tmp/foo_grpc_service_config.json";
+    String gapicPath = "/tmp/foo_gapic.yaml";
+    String serviceYamlPath = "/tmp/foo.yaml";
+    CodeGeneratorRequest request =
+        CodeGeneratorRequest.newBuilder()
+            .setParameter(
+                String.join(
+                    ",",
+                    KEY_METADATA,
+                    createServiceConfig(serviceYamlPath),
+                    createGrpcServiceConfig(jsonPath),
+                    createGapicConfig(gapicPath)))
+            .build();
+    assertEquals(
+        Arrays.asList(jsonPath, gapicPath, serviceYamlPath),
+        PluginArgumentParser.parseConfigFilePaths(request));
+  }
+
+  @Test
+  public void removeOutputLocationArguments() {
+    String grpcServiceConfig = createGrpcServiceConfig("/tmp/foo_grpc_service_config.json");
+    String rawArgument =
+        String.join(
+            ",",
+            grpcServiceConfig,
+            String.format("%s=%s", PluginArgumentParser.KEY_GENERATION_CACHE_DIR, "/tmp/cache"),
+            KEY_METADATA,
+            String.format("%s=%s", PluginArgumentParser.KEY_SRCJAR_OUTPUT_PATH, "/tmp/foo.srcjar"));
+    assertEquals(
+        String.join(",", grpcServiceConfig, KEY_METADATA),
+        PluginArgumentParser.removeOutputLocationArguments(rawArgument));
+  }
+
   @Test
   public void hasFlag_noneFound() {
     String jsonPath = "/tmp/foo_grpc_service_config.json";
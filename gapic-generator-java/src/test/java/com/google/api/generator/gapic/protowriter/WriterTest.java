@@ -0,0 +1,110 @@
+// Copyright 2023 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.api.generator.gapic.protowriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.api.generator.gapic.composer.Composer;
+import com.google.api.generator.gapic.model.GapicClass;
+import com.google.api.generator.gapic.model.GapicContext;
+import com.google.api.generator.gapic.model.GapicPackageInfo;
+import com.google.api.generator.test.protoloader.TestProtoLoader;
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WriterTest {
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void write_srcjarOutputPathMatchesResponse() throws IOException {
+    GapicContext context = TestProtoLoader.instance().parseBookshopService();
+    List<GapicClass> clazzes = Composer.composeServiceClasses(context);
+    GapicPackageInfo packageInfo = Composer.composePackageInfo(context);
+    CodeGeneratorResponse expectedResponse =
+        Writer.write(context, clazzes, packageInfo, "temp-codegen.srcjar");
+
+    File srcjar = tempFolder.newFile("bookshop.srcjar");
+    GapicContext streamingContext =
+        context.toBuilder().setSrcjarOutputPath(srcjar.getPath()).build();
+    CodeGeneratorResponse response =
+        Writer.write(streamingContext, clazzes, packageInfo, "temp-codegen.srcjar");
+
+    // The srcjar goes to the file instead of the response.
+    assertEquals(0, response.getFileCount());
+    assertEquals(expectedResponse.getSupportedFeatures(), response.getSupportedFeatures());
+    try (InputStream srcjarInput = Files.newInputStream(srcjar.toPath())) {
+      assertEquals(
+          readEntries(expectedResponse.getFile(0).getContentBytes().newInput()),
+          readEntries(srcjarInput));
+    }
+  }
+
+  @Test
+  public void write_failureKeepsPreviousSrcjar() throws IOException {
+    GapicContext context = TestProtoLoader.instance().parseBookshopService();
+    List<SourceFile> sourceFiles =
+        Composer.composeServiceClasses(context).stream()
+            .map(Writer::render)
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    File srcjar = tempFolder.newFile("bookshop.srcjar");
+    byte[] previousSrcjar = {1, 2, 3};
+    Files.write(srcjar.toPath(), previousSrcjar);
+
+    // Fails after the source files are written, when the package-info is written.
+    GapicContext streamingContext =
+        context.toBuilder().setSrcjarOutputPath(srcjar.getPath()).build();
+    try {
+      Writer.writeSourceFiles(streamingContext, sourceFiles, null, "temp-codegen.srcjar");
+      fail("Writing a srcjar without a package-info should fail");
+    } catch (NullPointerException expected) {
+    }
+
+    assertArrayEquals(previousSrcjar, Files.readAllBytes(srcjar.toPath()));
+    try (Stream<Path> files = Files.list(tempFolder.getRoot().toPath())) {
+      assertEquals(Collections.singletonList(srcjar.toPath()), files.collect(Collectors.toList()));
+    }
+  }
+
+  // Jar entries carry the time they were written, so the entries are compared instead of the bytes.
+  private static Map<String, String> readEntries(InputStream srcjarInput) throws IOException {
+    Map<String, String> entries = new LinkedHashMap<>();
+    JarInputStream jis = new JarInputStream(srcjarInput);
+    for (JarEntry entry = jis.getNextJarEntry(); entry != null; entry = jis.getNextJarEntry()) {
+      entries.put(
+          entry.getName(), new String(ByteStreams.toByteArray(jis), StandardCharsets.UTF_8));
+    }
+    return entries;
+  }
+}
@@ -30,12 +30,15 @@
 package com.google.api.gax.grpc;
 
 import com.google.api.core.InternalApi;
+import com.google.api.gax.grpc.ChannelPoolSettings.ChannelSelectionStrategy;
+import com.google.api.gax.tracing.ApiTracer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
 import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
 import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
 import io.grpc.ManagedChannel;
@@ -47,7 +50,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -58,7 +63,8 @@ import javax.annotation.Nullable;
 import org.threeten.bp.Duration;
 
 /**
- * A {@link ManagedChannel} that will send requests round-robin via a set of channels.
+ * A {@link ManagedChannel} that will send requests via a set of channels, chosen by the {@link
+ * ChannelPoolSettings.ChannelSelectionStrategy} of the pool.
  *
  * <p>In addition to spreading requests over a set of child connections, the pool will also actively
  * manage the lifecycle of the channels. Currently lifecycle management is limited to pre-emptively
@@ -80,6 +86,14 @@ class ChannelPool extends ManagedChannel {
   private final AtomicInteger indexTicker = new AtomicInteger();
   private final String authority;
 
+  private final boolean adaptiveResize;
+  // Set while an adaptive expansion is scheduled, so that a burst of RPCs schedules only one.
+  private final AtomicBoolean expansionScheduled = new AtomicBoolean();
+  // Channels created by an adaptive expansion that are still connecting. Guarded by entryWriteLock.
+  private int connectingChannelCount;
+  // Consecutive adaptive resize checks that called for shrinking. Guarded by entryWriteLock.
+  private int shrinkCheckCount;
+
   static ChannelPool create(ChannelPoolSettings settings, ChannelFactory channelFactory)
       throws IOException {
     return new ChannelPool(settings, channelFactory, Executors.newSingleThreadScheduledExecutor());
@@ -110,13 +124,15 @@ class ChannelPool extends ManagedChannel {
     entries.set(initialListBuilder.build());
     authority = entries.get().get(0).channel.authority();
     this.executor = executor;
+    this.adaptiveResize = settings.isAdaptiveResizeEnabled() && !settings.isStaticSize();
 
     if (!settings.isStaticSize()) {
+      long resizeIntervalSeconds =
+          adaptiveResize
+              ? ChannelPoolSettings.ADAPTIVE_RESIZE_INTERVAL.getSeconds()
+              : ChannelPoolSettings.RESIZE_INTERVAL.getSeconds();
       executor.scheduleAtFixedRate(
-          this::resizeSafely,
-          ChannelPoolSettings.RESIZE_INTERVAL.getSeconds(),
-          ChannelPoolSettings.RESIZE_INTERVAL.getSeconds(),
-          TimeUnit.SECONDS);
+          this::resizeSafely, resizeIntervalSeconds, resizeIntervalSeconds, TimeUnit.SECONDS);
     }
     if (settings.isPreemptiveRefreshEnabled()) {
       executor.scheduleAtFixedRate(
@@ -134,15 +150,20 @@ class ChannelPool extends ManagedChannel {
   }
 
   /**
-   * Create a {@link ClientCall} on a Channel from the pool chosen in a round-robin fashion to the
-   * remote operation specified by the given {@link MethodDescriptor}. The returned {@link
-   * ClientCall} does not trigger any remote behavior until {@link
+   * Create a {@link ClientCall} on a Channel from the pool, chosen by the channel selection
+   * strategy of the pool, to the remote operation specified by the given {@link MethodDescriptor}.
+   * The returned {@link ClientCall} does not trigger any remote behavior until {@link
    * ClientCall#start(ClientCall.Listener, io.grpc.Metadata)} is invoked.
    */
   @Override
   public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
       MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
-    return getChannel(indexTicker.getAndIncrement()).newCall(methodDescriptor, callOptions);
+    if (settings.getChannelSelectionStrategy() == ChannelSelectionStrategy.ROUND_ROBIN) {
+      return getChannel(indexTicker.getAndIncrement()).newCall(methodDescriptor, callOptions);
+    }
+    Entry entry = getRetainedEntry();
+    recordUsage(entry, callOptions);
+    return new ReleasingClientCall<>(entry.channel.newCall(methodDescriptor, callOptions), entry);
   }
 
   Channel getChannel(int affinity) {
@@ -242,6 +263,10 @@ class ChannelPool extends ManagedChannel {
    *       {@link ChannelPoolSettings#MAX_RESIZE_DELTA} to get closer to middle of that range.
    * </ul>
    *
+   * <p>When resizing adaptively, the pool only shrinks once {@link
+   * ChannelPoolSettings#ADAPTIVE_SHRINK_CHECK_COUNT} consecutive invocations call for it, and the
+   * channels that it adds are connected before they are put in the pool.
+   *
    * <p>Not threadsafe, must be called under the entryWriteLock monitor
    */
   @VisibleForTesting
@@ -274,7 +299,7 @@ class ChannelPool extends ManagedChannel {
     // If the pool were to be resized, try to aim for the middle of the bound, but limit rate of
     // change.
     int tentativeTarget = (maxChannels + minChannels) / 2;
-    int currentSize = localEntries.size();
+    int currentSize = localEntries.size() + connectingChannelCount;
     int delta = tentativeTarget - currentSize;
     int dampenedTarget = tentativeTarget;
     if (Math.abs(delta) > ChannelPoolSettings.MAX_RESIZE_DELTA) {
@@ -283,14 +308,26 @@ class ChannelPool extends ManagedChannel {
     }
 
     // Only resize the pool when thresholds are crossed
-    if (localEntries.size() < minChannels) {
+    if (currentSize > maxChannels && adaptiveResize) {
+      shrinkCheckCount++;
+      if (shrinkCheckCount < ChannelPoolSettings.ADAPTIVE_SHRINK_CHECK_COUNT) {
+        return;
+      }
+    }
+    shrinkCheckCount = 0;
+
+    if (currentSize < minChannels) {
       LOG.fine(
           String.format(
               "Detected throughput peak of %d, expanding channel pool size: %d -> %d.",
               actualOutstandingRpcs, currentSize, dampenedTarget));
 
-      expand(dampenedTarget);
-    } else if (localEntries.size() > maxChannels) {
+      if (adaptiveResize) {
+        addConnectedChannels(dampenedTarget - currentSize);
+      } else {
+        expand(dampenedTarget);
+      }
+    } else if (localEntries.size() > maxChannels && connectingChannelCount == 0) {
       LOG.fine(
           String.format(
               "Detected throughput drop to %d, shrinking channel pool size: %d -> %d.",
@@ -332,6 +369,117 @@ class ChannelPool extends ManagedChannel {
     entries.set(newEntries.build());
   }
 
+  /**
+   * Schedules an adaptive expansion if the retained entry has crossed the maximum number of
+   * outstanding RPCs per channel.
+   */
+  private void onRetained(Entry entry) {
+    if (adaptiveResize
+        && entry.outstandingRpcs.get() > settings.getMaxRpcsPerChannel()
+        && expansionScheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::expandAdaptivelySafely);
+      } catch (RejectedExecutionException e) {
+        // The pool is shutting down
+        expansionScheduled.set(false);
+      }
+    }
+  }
+
+  private void expandAdaptivelySafely() {
+    try {
+      synchronized (entryWriteLock) {
+        expandAdaptively();
+      }
+    } catch (Exception e) {
+      LOG.log(Level.WARNING, "Failed to expand channel pool", e);
+    } finally {
+      expansionScheduled.set(false);
+    }
+  }
+
+  /**
+   * Expands the pool right away when the current number of outstanding RPCs exceeds what the
+   * current and connecting channels can carry, by at most {@link
+   * ChannelPoolSettings#MAX_RESIZE_DELTA} channels.
+   *
+   * <p>Not threadsafe, must be called under the entryWriteLock monitor
+   */
+  @VisibleForTesting
+  void expandAdaptively() {
+    List<Entry> localEntries = entries.get();
+    int outstandingRpcs = 0;
+    for (Entry entry : localEntries) {
+      outstandingRpcs += entry.outstandingRpcs.get();
+    }
+    int currentSize = localEntries.size() + connectingChannelCount;
+    if (outstandingRpcs <= (long) currentSize * settings.getMaxRpcsPerChannel()) {
+      return;
+    }
+
+    int desiredSize = (int) Math.ceil(outstandingRpcs / (double) settings.getMaxRpcsPerChannel());
+    desiredSize = Math.min(desiredSize, currentSize + ChannelPoolSettings.MAX_RESIZE_DELTA);
+    desiredSize = Math.min(desiredSize, settings.getMaxChannelCount());
+    if (desiredSize <= currentSize) {
+      return;
+    }
+
+    LOG.fine(
+        String.format(
+            "Detected %d outstanding RPCs, expanding channel pool size: %d -> %d.",
+            outstandingRpcs, currentSize, desiredSize));
+    addConnectedChannels(desiredSize - currentSize);
+  }
+
+  /**
+   * Creates channels and adds each one to the pool once it has connected, so that RPCs are not
+   * queued behind the connection setup.
+   *
+   * <p>Not threadsafe, must be called under the entryWriteLock monitor
+   */
+  private void addConnectedChannels(int count) {
+    for (int i = 0; i < count; i++) {
+      ManagedChannel channel;
+      try {
+        channel = channelFactory.createSingleChannel();
+      } catch (IOException e) {
+        LOG.log(Level.WARNING, "Failed to add channel", e);
+        continue;
+      }
+      connectingChannelCount++;
+      addWhenConnected(channel);
+    }
+  }
+
+  private void addWhenConnected(ManagedChannel channel) {
+    ConnectivityState state;
+    try {
+      state = channel.getState(true);
+    } catch (UnsupportedOperationException e) {
+      // The channel cannot report its state, so it is used right away
+      state = null;
+    }
+    if (state == ConnectivityState.IDLE || state == ConnectivityState.CONNECTING) {
+      channel.notifyWhenStateChanged(state, () -> addWhenConnected(channel));
+      return;
+    }
+
+    synchronized (entryWriteLock) {
+      connectingChannelCount--;
+      // A channel that failed to connect is still added: it will keep reconnecting like the others
+      if (state == ConnectivityState.SHUTDOWN) {
+        return;
+      }
+      if (executor.isShutdown()) {
+        // The pool was shut down while the channel was connecting
+        channel.shutdown();
+        return;
+      }
+      entries.set(
+          ImmutableList.<Entry>builder().addAll(entries.get()).add(new Entry(channel)).build());
+    }
+  }
+
   private void refreshSafely() {
     try {
       refresh();
@@ -388,6 +536,7 @@ class ChannelPool extends ManagedChannel {
     for (int i = 0; i < 5; i++) {
       Entry entry = getEntry(affinity);
       if (entry.retain()) {
+        onRetained(entry);
         return entry;
       }
     }
@@ -398,6 +547,66 @@ class ChannelPool extends ManagedChannel {
     throw new IllegalStateException("Bug: failed to retain a channel");
   }
 
+  /**
+   * Get and retain the Channel Entry chosen by the channel selection strategy of the pool. The
+   * returned Entry will have its rpc count incremented, preventing it from getting recycled.
+   */
+  private Entry getRetainedEntry() {
+    // Retrying for the same reasons as getRetainedEntry(int)
+    for (int i = 0; i < 5; i++) {
+      Entry entry = selectEntry();
+      if (entry.retain()) {
+        onRetained(entry);
+        return entry;
+      }
+    }
+    throw new IllegalStateException("Bug: failed to retain a channel");
+  }
+
+  /**
+   * Chooses a channel by the load of the channels. The outstanding RPC counts may change while they
+   * are compared, so the choice is a best effort.
+   */
+  private Entry selectEntry() {
+    List<Entry> localEntries = entries.get();
+    int size = localEntries.size();
+    if (size == 1) {
+      return localEntries.get(0);
+    }
+
+    switch (settings.getChannelSelectionStrategy()) {
+      case LEAST_OUTSTANDING:
+        // Start from a rotating index, so that ties are broken round-robin.
+        int start = Math.abs(indexTicker.getAndIncrement() % size);
+        Entry leastLoaded = localEntries.get(start);
+        int leastOutstanding = leastLoaded.outstandingRpcs.get();
+        for (int i = 1; i < size && leastOutstanding > 0; i++) {
+          Entry entry = localEntries.get((start + i) % size);
+          int outstanding = entry.outstandingRpcs.get();
+          if (outstanding < leastOutstanding) {
+            leastLoaded = entry;
+            leastOutstanding = outstanding;
+          }
+        }
+        return leastLoaded;
+      case POWER_OF_TWO_CHOICES:
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        // Pick a second index distinct from the first one
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+          second++;
+        }
+        Entry firstEntry = localEntries.get(first);
+        Entry secondEntry = localEntries.get(second);
+        return secondEntry.outstandingRpcs.get() < firstEntry.outstandingRpcs.get()
+            ? secondEntry
+            : firstEntry;
+      default:
+        return getEntry(indexTicker.getAndIncrement());
+    }
+  }
+
   /**
    * Returns one of the channels managed by this pool. The pool continues to "own" the channel, and
    * the caller should not shut it down.
@@ -415,6 +624,14 @@ class ChannelPool extends ManagedChannel {
     return localEntries.get(index);
   }
 
+  /** Reports the usage of the pool to the tracer of the call, if any. */
+  private void recordUsage(Entry entry, CallOptions callOptions) {
+    ApiTracer tracer = callOptions.getOption(GrpcCallContext.TRACER_KEY);
+    if (tracer != null) {
+      tracer.channelPoolUsageRecorded(entries.get().size(), entry.outstandingRpcs.get());
+    }
+  }
+
   /** Bundles a gRPC {@link ManagedChannel} with some usage accounting. */
   private static class Entry {
     private final ManagedChannel channel;
@@ -512,6 +729,7 @@ class ChannelPool extends ManagedChannel {
         MethodDescriptor<RequestT, ResponseT> methodDescriptor, CallOptions callOptions) {
 
       Entry entry = getRetainedEntry(affinity);
+      recordUsage(entry, callOptions);
 
       return new ReleasingClientCall<>(entry.channel.newCall(methodDescriptor, callOptions), entry);
     }
@@ -59,6 +59,10 @@ public abstract class ChannelPoolSettings {
   static final Duration RESIZE_INTERVAL = Duration.ofMinutes(1);
   /** The maximum number of channels that can be added or removed at a time. */
   static final int MAX_RESIZE_DELTA = 2;
+  /** How often to check and possibly resize the {@link ChannelPool} when resizing adaptively. */
+  static final Duration ADAPTIVE_RESIZE_INTERVAL = Duration.ofSeconds(10);
+  /** The number of consecutive checks that must call for a smaller pool before it shrinks. */
+  static final int ADAPTIVE_SHRINK_CHECK_COUNT = 6;
 
   /**
    * Threshold to start scaling down the channel pool.
@@ -108,6 +112,27 @@ public abstract class ChannelPoolSettings {
    */
   public abstract boolean isPreemptiveRefreshEnabled();
 
+  /**
+   * If the pool should grow as soon as its channels get busy, rather than on its next periodic
+   * check.
+   *
+   * <p>When enabled, a new RPC that takes a channel above {@link #getMaxRpcsPerChannel()}
+   * outstanding RPCs, while the pool as a whole is also above that threshold, expands the pool
+   * right away. New channels are connected before RPCs are sent to them. The pool is checked every
+   * 10 seconds rather than every minute, and it only shrinks once a minute of consecutive checks
+   * has called for it.
+   *
+   * <p>This has no effect on statically sized pools.
+   */
+  public abstract boolean isAdaptiveResizeEnabled();
+
+  /**
+   * How the channel of each new RPC is chosen.
+   *
+   * <p>RPCs that have a channel affinity always go to the channel of their affinity.
+   */
+  public abstract ChannelSelectionStrategy getChannelSelectionStrategy();
+
   /** Helper to check if the {@link ChannelPool} implementation can skip dynamic size logic */
   boolean isStaticSize() {
     // When range is restricted to a single size
@@ -141,7 +166,25 @@ public abstract class ChannelPoolSettings {
         .setMaxChannelCount(200)
         .setMinRpcsPerChannel(0)
         .setMaxRpcsPerChannel(Integer.MAX_VALUE)
-        .setPreemptiveRefreshEnabled(false);
+        .setPreemptiveRefreshEnabled(false)
+        .setAdaptiveResizeEnabled(false)
+        .setChannelSelectionStrategy(ChannelSelectionStrategy.ROUND_ROBIN);
+  }
+
+  /** Strategies to choose the channel of a new RPC among the channels of the pool. */
+  public enum ChannelSelectionStrategy {
+    /** Rotates through the channels, regardless of their load. */
+    ROUND_ROBIN,
+    /**
+     * Picks the channel with the fewest outstanding RPCs. Every channel is looked at, so this suits
+     * small pools best.
+     */
+    LEAST_OUTSTANDING,
+    /**
+     * Picks the channel with fewer outstanding RPCs among two channels chosen at random. This
+     * avoids the most loaded channels at a constant cost, whatever the size of the pool.
+     */
+    POWER_OF_TWO_CHOICES
   }
 
   @AutoValue.Builder
@@ -158,6 +201,10 @@ public abstract class ChannelPoolSettings {
 
     public abstract Builder setPreemptiveRefreshEnabled(boolean enabled);
 
+    public abstract Builder setAdaptiveResizeEnabled(boolean enabled);
+
+    public abstract Builder setChannelSelectionStrategy(ChannelSelectionStrategy strategy);
+
     abstract ChannelPoolSettings autoBuild();
 
     public ChannelPoolSettings build() {
@@ -68,6 +68,19 @@ import org.threeten.bp.Duration;
 public final class GrpcCallContext implements ApiCallContext {
   static final CallOptions.Key<ApiTracer> TRACER_KEY = CallOptions.Key.create("gax.tracer");
 
+  private static final GrpcCallContext EMPTY =
+      new GrpcCallContext(
+          null,
+          CallOptions.DEFAULT,
+          null,
+          null,
+          null,
+          null,
+          ImmutableMap.<String, List<String>>of(),
+          ApiCallContextOptions.getDefaultOptions(),
+          null,
+          null);
+
   private final Channel channel;
   private final CallOptions callOptions;
   @Nullable private final Duration timeout;
@@ -79,19 +92,13 @@ public final class GrpcCallContext implements ApiCallContext {
   private final ImmutableMap<String, List<String>> extraHeaders;
   private final ApiCallContextOptions options;
 
+  // The result of merging an empty context into this one, which is what the default context of a
+  // callable is merged with when the caller does not customize the call. Computed on first use.
+  @Nullable private volatile GrpcCallContext mergedWithEmpty;
+
   /** Returns an empty instance with a null channel and default {@link CallOptions}. */
   public static GrpcCallContext createDefault() {
-    return new GrpcCallContext(
-        null,
-        CallOptions.DEFAULT,
-        null,
-        null,
-        null,
-        null,
-        ImmutableMap.<String, List<String>>of(),
-        ApiCallContextOptions.getDefaultOptions(),
-        null,
-        null);
+    return EMPTY;
   }
 
   /** Returns an instance with the given channel and {@link CallOptions}. */
@@ -328,7 +335,18 @@ public final class GrpcCallContext implements ApiCallContext {
               + inputCallContext.getClass().getName());
     }
     GrpcCallContext grpcCallContext = (GrpcCallContext) inputCallContext;
+    if (grpcCallContext.isEmpty()) {
+      GrpcCallContext merged = mergedWithEmpty;
+      if (merged == null) {
+        merged = mergeFields(grpcCallContext);
+        mergedWithEmpty = merged;
+      }
+      return merged;
+    }
+    return mergeFields(grpcCallContext);
+  }
 
+  private GrpcCallContext mergeFields(GrpcCallContext grpcCallContext) {
     Channel newChannel = grpcCallContext.channel;
     if (newChannel == null) {
       newChannel = channel;
@@ -384,13 +402,15 @@ public final class GrpcCallContext implements ApiCallContext {
 
     ApiCallContextOptions newOptions = options.merge(grpcCallContext.options);
 
-    CallOptions newCallOptions =
-        grpcCallContext
-            .callOptions
-            .withCallCredentials(newCallCredentials)
-            .withDeadline(newDeadline);
-
-    if (newTracer != null) {
+    // Each CallOptions.withX call makes a copy, so only the changed options are set.
+    CallOptions newCallOptions = grpcCallContext.callOptions;
+    if (newCallCredentials != newCallOptions.getCredentials()) {
+      newCallOptions = newCallOptions.withCallCredentials(newCallCredentials);
+    }
+    if (newDeadline != newCallOptions.getDeadline()) {
+      newCallOptions = newCallOptions.withDeadline(newDeadline);
+    }
+    if (newTracer != null && newTracer != newCallOptions.getOption(TRACER_KEY)) {
       newCallOptions = newCallOptions.withOption(TRACER_KEY, newTracer);
     }
 
@@ -407,6 +427,20 @@ public final class GrpcCallContext implements ApiCallContext {
         newRetryableCodes);
   }
 
+  // Returns true if this context sets nothing, so merging it into another one keeps that one as is.
+  private boolean isEmpty() {
+    return channel == null
+        && callOptions == CallOptions.DEFAULT
+        && timeout == null
+        && streamWaitTimeout == null
+        && streamIdleTimeout == null
+        && channelAffinity == null
+        && retrySettings == null
+        && retryableCodes == null
+        && extraHeaders.isEmpty()
+        && options == ApiCallContextOptions.getDefaultOptions();
+  }
+
   /** The {@link Channel} set on this context. */
   public Channel getChannel() {
     return channel;
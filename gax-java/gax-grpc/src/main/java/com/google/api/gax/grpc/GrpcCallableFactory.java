@@ -102,13 +102,23 @@ public class GrpcCallableFactory {
     UnaryCallable<RequestT, ResponseT> callable =
         createBaseUnaryCallable(grpcCallSettings, callSettings, clientContext);
 
-    callable =
-        new TracedUnaryCallable<>(
-            callable,
-            clientContext.getTracerFactory(),
-            getSpanName(grpcCallSettings.getMethodDescriptor()));
-
-    return callable.withDefaultCallContext(clientContext.getDefaultCallContext());
+    SpanName spanName = getSpanName(grpcCallSettings.getMethodDescriptor());
+    callable = new TracedUnaryCallable<>(callable, clientContext.getTracerFactory(), spanName);
+    callable = callable.withDefaultCallContext(clientContext.getDefaultCallContext());
+
+    // Calls which make a single attempt skip the callable chain above, unless their context
+    // overrides the retry settings.
+    if (GrpcFusedUnaryCallable.canFuse(grpcCallSettings, callSettings)) {
+      callable =
+          new GrpcFusedUnaryCallable<>(
+              grpcCallSettings,
+              callSettings,
+              clientContext.getTracerFactory(),
+              spanName,
+              clientContext.getDefaultCallContext(),
+              callable);
+    }
+    return callable;
   }
 
   /**
@@ -291,6 +301,8 @@ public class GrpcCallableFactory {
             clientContext.getTracerFactory(),
             getSpanName(grpcCallSettings.getMethodDescriptor()));
 
+    callable = Callables.prefetching(callable, streamingCallSettings);
+
     return callable.withDefaultCallContext(clientContext.getDefaultCallContext());
   }
 
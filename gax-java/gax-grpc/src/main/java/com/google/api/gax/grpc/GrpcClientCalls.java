@@ -34,6 +34,7 @@ import com.google.api.core.AbstractApiFuture;
 import com.google.api.core.ApiFuture;
 import com.google.api.core.BetaApi;
 import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.tracing.ApiTracer;
 import com.google.api.gax.tracing.ApiTracer.Scope;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
@@ -48,6 +49,8 @@ import io.grpc.stub.MetadataUtils;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import org.threeten.bp.Duration;
 
 /**
  * {@code GrpcClientCalls} creates a new {@code ClientCall} from the given call context.
@@ -68,15 +71,30 @@ class GrpcClientCalls {
     }
 
     GrpcCallContext grpcContext = (GrpcCallContext) context;
-    Preconditions.checkNotNull(grpcContext.getChannel());
+    return newCall(
+        descriptor,
+        grpcContext,
+        grpcContext.getCallOptions(),
+        grpcContext.getTimeout(),
+        grpcContext.getTracer());
+  }
 
-    CallOptions callOptions = grpcContext.getCallOptions();
+  /**
+   * Creates a new {@code ClientCall} with the given call options, timeout and tracer in place of
+   * the ones in the call context, so that callers do not need to derive a new context for them.
+   */
+  static <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+      MethodDescriptor<RequestT, ResponseT> descriptor,
+      GrpcCallContext grpcContext,
+      CallOptions callOptions,
+      @Nullable Duration timeout,
+      ApiTracer tracer) {
+    Preconditions.checkNotNull(grpcContext.getChannel());
     Preconditions.checkNotNull(callOptions);
 
     // Try to convert the timeout into a deadline and use it if it occurs before the actual deadline
-    if (grpcContext.getTimeout() != null) {
-      Deadline newDeadline =
-          Deadline.after(grpcContext.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    if (timeout != null) {
+      Deadline newDeadline = Deadline.after(timeout.toMillis(), TimeUnit.MILLISECONDS);
       Deadline oldDeadline = callOptions.getDeadline();
 
       if (oldDeadline == null || newDeadline.isBefore(oldDeadline)) {
@@ -95,7 +113,7 @@ class GrpcClientCalls {
       channel = ClientInterceptors.intercept(channel, interceptor);
     }
 
-    try (Scope ignored = grpcContext.getTracer().inScope()) {
+    try (Scope ignored = tracer.inScope()) {
       return channel.newCall(descriptor, callOptions);
     }
   }
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.grpc;
+
+import com.google.api.core.AbstractApiFuture;
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.retrying.RetrySettings;
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.RequestParamsEncoder;
+import com.google.api.gax.rpc.RequestParamsExtractor;
+import com.google.api.gax.rpc.RequestUrlParamsEncoder;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.api.gax.rpc.UnaryCallSettings;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.api.gax.tracing.ApiTracer;
+import com.google.api.gax.tracing.ApiTracerFactory;
+import com.google.api.gax.tracing.ApiTracerFactory.OperationType;
+import com.google.api.gax.tracing.SpanName;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.threeten.bp.Duration;
+
+/**
+ * A {@code UnaryCallable} that makes a single traced attempt of a gRPC call. It does the work of
+ * the request param, exception translating, retrying, traced and default context callables created
+ * by {@link GrpcCallableFactory#createUnaryCallable}, with one context, one future and one listener
+ * per call.
+ *
+ * <p>It is only used for methods whose settings disable retries and which wait for the trailers.
+ * Calls whose context overrides the retry settings or the retryable codes are sent through the
+ * regular callable chain instead.
+ *
+ * <p>Package-private for internal use.
+ */
+class GrpcFusedUnaryCallable<RequestT, ResponseT> extends UnaryCallable<RequestT, ResponseT> {
+  private static final Logger LOGGER = Logger.getLogger(GrpcFusedUnaryCallable.class.getName());
+
+  private final MethodDescriptor<RequestT, ResponseT> descriptor;
+  private final RequestParamsEncoder<RequestT> paramsEncoder;
+  private final GrpcApiExceptionFactory exceptionFactory;
+  private final Duration rpcTimeout;
+  private final ApiTracerFactory tracerFactory;
+  private final SpanName spanName;
+  private final ApiCallContext defaultCallContext;
+  private final UnaryCallable<RequestT, ResponseT> fallbackCallable;
+
+  @SuppressWarnings("unchecked")
+  GrpcFusedUnaryCallable(
+      GrpcCallSettings<RequestT, ResponseT> grpcCallSettings,
+      UnaryCallSettings<?, ?> callSettings,
+      ApiTracerFactory tracerFactory,
+      SpanName spanName,
+      ApiCallContext defaultCallContext,
+      UnaryCallable<RequestT, ResponseT> fallbackCallable) {
+    this.descriptor = Preconditions.checkNotNull(grpcCallSettings.getMethodDescriptor());
+    RequestParamsExtractor<RequestT> paramsExtractor = grpcCallSettings.getParamsExtractor();
+    if (paramsExtractor == null) {
+      this.paramsEncoder = null;
+    } else if (paramsExtractor instanceof RequestParamsEncoder) {
+      this.paramsEncoder = (RequestParamsEncoder<RequestT>) paramsExtractor;
+    } else {
+      this.paramsEncoder = new RequestUrlParamsEncoder<>(paramsExtractor, false);
+    }
+    this.exceptionFactory = new GrpcApiExceptionFactory(callSettings.getRetryableCodes());
+    // As in Callables.retrying(), the total timeout is the rpc timeout of the only attempt.
+    Duration totalTimeout = callSettings.getRetrySettings().getTotalTimeout();
+    this.rpcTimeout = totalTimeout.isZero() || totalTimeout.isNegative() ? null : totalTimeout;
+    this.tracerFactory = Preconditions.checkNotNull(tracerFactory);
+    this.spanName = Preconditions.checkNotNull(spanName);
+    this.defaultCallContext = Preconditions.checkNotNull(defaultCallContext);
+    this.fallbackCallable = Preconditions.checkNotNull(fallbackCallable);
+  }
+
+  /**
+   * Returns true if calls with the given settings make a single attempt which waits for the
+   * trailers, so that they can be made by a {@code GrpcFusedUnaryCallable}.
+   */
+  static boolean canFuse(
+      GrpcCallSettings<?, ?> grpcCallSettings, UnaryCallSettings<?, ?> callSettings) {
+    return grpcCallSettings.shouldAwaitTrailers()
+        && callSettings.getHedgingSettings() == null
+        && areRetriesDisabled(callSettings.getRetryableCodes(), callSettings.getRetrySettings());
+  }
+
+  // Same as Callables.areRetriesDisabled().
+  private static boolean areRetriesDisabled(
+      Collection<StatusCode.Code> retryableCodes, RetrySettings retrySettings) {
+    return retrySettings.getMaxAttempts() == 1
+        || retryableCodes.isEmpty()
+        || (retrySettings.getMaxAttempts() == 0 && retrySettings.getTotalTimeout().isZero());
+  }
+
+  @Override
+  public ApiFuture<ResponseT> futureCall(RequestT request, ApiCallContext inputContext) {
+    ApiCallContext context = defaultCallContext.merge(inputContext);
+    if (context.getRetrySettings() != null || context.getRetryableCodes() != null) {
+      return fallbackCallable.futureCall(request, inputContext);
+    }
+
+    Preconditions.checkNotNull(request);
+
+    ApiTracer tracer = tracerFactory.newTracer(context.getTracer(), spanName, OperationType.Unary);
+    FusedCallFuture future = new FusedCallFuture(tracer);
+    future.addListener(future::onDone, MoreExecutors.directExecutor());
+    try {
+      tracer.attemptStarted(request, 0);
+      if (!(context instanceof GrpcCallContext)) {
+        throw new IllegalArgumentException(
+            "context must be an instance of GrpcCallContext, but found "
+                + context.getClass().getName());
+      }
+      GrpcCallContext grpcContext = (GrpcCallContext) context;
+
+      CallOptions callOptions =
+          grpcContext.getCallOptions().withOption(GrpcCallContext.TRACER_KEY, tracer);
+      if (paramsEncoder != null) {
+        callOptions =
+            CallOptionsUtil.putRequestParamsDynamicHeaderOption(
+                callOptions, paramsEncoder.encode(request));
+      }
+      Duration timeout = grpcContext.getTimeout() == null ? rpcTimeout : grpcContext.getTimeout();
+      future.start(
+          GrpcClientCalls.newCall(descriptor, grpcContext, callOptions, timeout, tracer), request);
+    } catch (Throwable e) {
+      future.fail(e);
+    }
+    return future;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("fused(%s)", descriptor);
+  }
+
+  /**
+   * The future of a single call. Its listener resolves it when the trailers are received, like
+   * {@link io.grpc.stub.ClientCalls#futureUnaryCall}, and translates the errors into {@link
+   * ApiException}s.
+   */
+  private class FusedCallFuture extends AbstractApiFuture<ResponseT> {
+    private final ApiTracer tracer;
+    private volatile ClientCall<RequestT, ResponseT> clientCall;
+
+    FusedCallFuture(ApiTracer tracer) {
+      this.tracer = tracer;
+    }
+
+    void start(ClientCall<RequestT, ResponseT> clientCall, RequestT request) {
+      this.clientCall = clientCall;
+      if (isCancelled()) {
+        // The future was cancelled before the call was set, so onDone() could not cancel it.
+        cancelCall();
+        return;
+      }
+      clientCall.start(new Listener(), new Metadata());
+      try {
+        clientCall.sendMessage(request);
+        clientCall.halfClose();
+        // Request an extra message to detect misconfigured servers
+        clientCall.request(2);
+      } catch (Throwable sendError) {
+        try {
+          clientCall.cancel(null, sendError);
+        } catch (Throwable cancelError) {
+          LOGGER.log(Level.SEVERE, "Error encountered while closing it", sendError);
+        }
+        throw sendError;
+      }
+    }
+
+    void succeed(ResponseT response) {
+      if (set(response)) {
+        tracer.attemptSucceeded();
+        tracer.operationSucceeded();
+      }
+    }
+
+    // The listener translates the errors from the server. Errors thrown while starting the call
+    // are passed as they are, as the retrying callable does.
+    void fail(Throwable throwable) {
+      if (setException(throwable)) {
+        if (throwable instanceof ApiException && ((ApiException) throwable).isRetryable()) {
+          tracer.attemptFailedRetriesExhausted(throwable);
+        } else {
+          tracer.attemptPermanentFailure(throwable);
+        }
+        tracer.operationFailed(throwable);
+      }
+    }
+
+    /**
+     * Cancels the call and reports the cancellation when the future is cancelled, with or without
+     * interruption, as the traced callable does.
+     */
+    private void onDone() {
+      if (!isCancelled()) {
+        return;
+      }
+      tracer.attemptCancelled();
+      tracer.operationCancelled();
+      cancelCall();
+    }
+
+    private void cancelCall() {
+      ClientCall<RequestT, ResponseT> call = clientCall;
+      if (call != null) {
+        call.cancel("GrpcFusedUnaryCallable was cancelled", null);
+      }
+    }
+
+    private class Listener extends ClientCall.Listener<ResponseT> {
+      private ResponseT response;
+
+      @Override
+      public void onMessage(ResponseT message) {
+        if (response != null) {
+          throw Status.INTERNAL
+              .withDescription("More than one value received for unary call")
+              .asRuntimeException();
+        }
+        response = message;
+      }
+
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        if (!status.isOk()) {
+          fail(exceptionFactory.create(status.asRuntimeException(trailers)));
+        } else if (response == null) {
+          fail(
+              exceptionFactory.create(
+                  Status.INTERNAL
+                      .withDescription("No value received for unary call")
+                      .asRuntimeException(trailers)));
+        } else {
+          succeed(response);
+        }
+      }
+    }
+  }
+}
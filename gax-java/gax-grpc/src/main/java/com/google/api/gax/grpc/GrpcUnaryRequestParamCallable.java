@@ -31,6 +31,7 @@ package com.google.api.gax.grpc;
 
 import com.google.api.core.ApiFuture;
 import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.RequestParamsEncoder;
 import com.google.api.gax.rpc.RequestParamsExtractor;
 import com.google.api.gax.rpc.RequestUrlParamsEncoder;
 import com.google.api.gax.rpc.UnaryCallable;
@@ -45,14 +46,21 @@ import com.google.common.base.Preconditions;
 class GrpcUnaryRequestParamCallable<RequestT, ResponseT>
     extends UnaryCallable<RequestT, ResponseT> {
   private final UnaryCallable<RequestT, ResponseT> callable;
-  private final RequestUrlParamsEncoder<RequestT> paramsEncoder;
+  private final RequestParamsEncoder<RequestT> paramsEncoder;
 
+  @SuppressWarnings("unchecked")
   GrpcUnaryRequestParamCallable(
       UnaryCallable<RequestT, ResponseT> callable,
       RequestParamsExtractor<RequestT> paramsExtractor) {
     this.callable = Preconditions.checkNotNull(callable);
-    this.paramsEncoder =
-        new RequestUrlParamsEncoder<>(Preconditions.checkNotNull(paramsExtractor), false);
+    Preconditions.checkNotNull(paramsExtractor);
+    // Extractors that encode their own params, such as RoutingHeaderParamsExtractor, skip the
+    // intermediate map.
+    if (paramsExtractor instanceof RequestParamsEncoder) {
+      this.paramsEncoder = (RequestParamsEncoder<RequestT>) paramsExtractor;
+    } else {
+      this.paramsEncoder = new RequestUrlParamsEncoder<>(paramsExtractor, false);
+    }
   }
 
   @Override
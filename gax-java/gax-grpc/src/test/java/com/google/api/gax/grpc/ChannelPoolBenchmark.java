@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.grpc;
+
+import com.google.api.gax.grpc.ChannelPoolSettings.ChannelSelectionStrategy;
+import com.google.api.gax.grpc.testing.FakeServiceGrpc;
+import com.google.type.Color;
+import com.google.type.Money;
+import io.grpc.CallOptions;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of short unary RPCs sent through a {@link ChannelPool}, while long RPCs of
+ * uneven durations keep part of the pool busy. The server limits the number of concurrent calls per
+ * connection, as HTTP/2 servers do, so the RPCs sent to a saturated channel are queued.
+ *
+ * <p>The sampled latency percentiles show how well each {@link ChannelSelectionStrategy} avoids the
+ * saturated channels. Run with {@code mvn test-compile exec:exec -Pbenchmark
+ * -Djmh.args=ChannelPoolBenchmark} in the gax-grpc module.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ChannelPoolBenchmark {
+  private static final int CHANNEL_COUNT = 4;
+  private static final int MAX_CONCURRENT_CALLS_PER_CONNECTION = 8;
+  private static final int LONG_CALL_COUNT = 24;
+
+  @Param({"ROUND_ROBIN", "LEAST_OUTSTANDING", "POWER_OF_TWO_CHOICES"})
+  private ChannelSelectionStrategy strategy;
+
+  private ScheduledExecutorService serverExecutor;
+  private Server server;
+  private ChannelPool pool;
+  private volatile boolean running;
+
+  @Setup
+  public void setUp() throws IOException {
+    serverExecutor = Executors.newSingleThreadScheduledExecutor();
+    server =
+        NettyServerBuilder.forPort(0)
+            .maxConcurrentCallsPerConnection(MAX_CONCURRENT_CALLS_PER_CONNECTION)
+            .addService(
+                ServerServiceDefinition.builder(FakeServiceGrpc.SERVICE_NAME)
+                    .addMethod(
+                        FakeServiceGrpc.METHOD_RECOGNIZE,
+                        ServerCalls.asyncUnaryCall(this::recognize))
+                    .build())
+            .build()
+            .start();
+    pool =
+        ChannelPool.create(
+            ChannelPoolSettings.staticallySized(CHANNEL_COUNT)
+                .toBuilder()
+                .setChannelSelectionStrategy(strategy)
+                .build(),
+            () ->
+                NettyChannelBuilder.forAddress("localhost", server.getPort())
+                    .usePlaintext()
+                    .build());
+
+    running = true;
+    for (int i = 0; i < LONG_CALL_COUNT; i++) {
+      startLongCall();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    running = false;
+    pool.shutdownNow();
+    server.shutdownNow();
+    serverExecutor.shutdownNow();
+    pool.awaitTermination(10, TimeUnit.SECONDS);
+    server.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Money shortCall() {
+    return ClientCalls.blockingUnaryCall(
+        pool, FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT, Color.getDefaultInstance());
+  }
+
+  // Keeps LONG_CALL_COUNT long RPCs outstanding: each one starts another when it completes. Most
+  // take a few milliseconds, some take hundreds, like streaming reads mixed with unary calls.
+  private void startLongCall() {
+    if (!running) {
+      return;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int durationMillis = random.nextInt(10) == 0 ? random.nextInt(100, 500) : random.nextInt(1, 20);
+    ClientCalls.asyncUnaryCall(
+        pool.newCall(FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT),
+        Color.newBuilder().setRed(durationMillis).build(),
+        new StreamObserver<Money>() {
+          @Override
+          public void onNext(Money money) {}
+
+          @Override
+          public void onError(Throwable throwable) {
+            startLongCall();
+          }
+
+          @Override
+          public void onCompleted() {
+            startLongCall();
+          }
+        });
+  }
+
+  // Responds after the number of milliseconds given by the red component of the request.
+  private void recognize(Color request, StreamObserver<Money> responseObserver) {
+    Runnable respond =
+        () -> {
+          responseObserver.onNext(Money.getDefaultInstance());
+          responseObserver.onCompleted();
+        };
+    if (request.getRed() == 0) {
+      respond.run();
+    } else {
+      serverExecutor.schedule(respond, (long) request.getRed(), TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -32,6 +32,7 @@ package com.google.api.gax.grpc;
 import static com.google.api.gax.grpc.testing.FakeServiceGrpc.METHOD_SERVER_STREAMING_RECOGNIZE;
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.api.gax.grpc.ChannelPoolSettings.ChannelSelectionStrategy;
 import com.google.api.gax.grpc.testing.FakeChannelFactory;
 import com.google.api.gax.grpc.testing.FakeMethodDescriptor;
 import com.google.api.gax.grpc.testing.FakeServiceGrpc;
@@ -40,12 +41,14 @@ import com.google.api.gax.rpc.ResponseObserver;
 import com.google.api.gax.rpc.ServerStreamingCallSettings;
 import com.google.api.gax.rpc.ServerStreamingCallable;
 import com.google.api.gax.rpc.StreamController;
+import com.google.api.gax.tracing.ApiTracer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.type.Color;
 import com.google.type.Money;
 import io.grpc.CallOptions;
 import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
@@ -125,6 +128,106 @@ public class ChannelPoolTest {
     }
   }
 
+  @Test
+  public void testLeastOutstanding() throws IOException {
+    List<Integer> callChannels = new ArrayList<>();
+    List<ClientCall<Object, Object>> underlyingCalls = new ArrayList<>();
+    ChannelPool pool =
+        createLoadTrackingPool(
+            3, ChannelSelectionStrategy.LEAST_OUTSTANDING, callChannels, underlyingCalls);
+
+    // Ties are broken round-robin
+    for (int i = 0; i < 3; i++) {
+      startCall(pool);
+    }
+    assertThat(callChannels).containsExactly(0, 1, 2).inOrder();
+
+    // The only idle channel is picked, whatever the rotation
+    completeCall(underlyingCalls.get(1));
+    startCall(pool);
+    assertThat(callChannels.get(3)).isEqualTo(1);
+
+    completeCall(underlyingCalls.get(2));
+    startCall(pool);
+    startCall(pool);
+    assertThat(callChannels.get(4)).isEqualTo(2);
+    assertThat(callChannels.get(5)).isAnyOf(0, 1, 2);
+  }
+
+  @Test
+  public void testPowerOfTwoChoices() throws IOException {
+    List<Integer> callChannels = new ArrayList<>();
+    List<ClientCall<Object, Object>> underlyingCalls = new ArrayList<>();
+    // With two channels, both are always compared
+    ChannelPool pool =
+        createLoadTrackingPool(
+            2, ChannelSelectionStrategy.POWER_OF_TWO_CHOICES, callChannels, underlyingCalls);
+
+    for (int i = 0; i < 3; i++) {
+      startCall(pool);
+    }
+    int busyChannel = callChannels.get(2);
+    int idleChannel = 1 - busyChannel;
+    assertThat(callChannels).containsExactly(busyChannel, idleChannel, busyChannel);
+
+    // The channel with fewer outstanding RPCs is picked
+    startCall(pool);
+    assertThat(callChannels.get(3)).isEqualTo(idleChannel);
+    for (int i = 0; i < 4; i++) {
+      if (callChannels.get(i) == idleChannel) {
+        completeCall(underlyingCalls.get(i));
+      }
+    }
+    for (int i = 0; i < 2; i++) {
+      startCall(pool);
+    }
+    assertThat(callChannels.subList(4, 6)).containsExactly(idleChannel, idleChannel);
+  }
+
+  private ChannelPool createLoadTrackingPool(
+      int channelCount,
+      ChannelSelectionStrategy strategy,
+      List<Integer> callChannels,
+      List<ClientCall<Object, Object>> underlyingCalls)
+      throws IOException {
+    List<ManagedChannel> channels = new ArrayList<>();
+    for (int i = 0; i < channelCount; i++) {
+      int index = i;
+      ManagedChannel channel = Mockito.mock(ManagedChannel.class);
+      Mockito.when(channel.newCall(Mockito.any(), Mockito.any()))
+          .thenAnswer(
+              invocation -> {
+                @SuppressWarnings("unchecked")
+                ClientCall<Object, Object> clientCall = Mockito.mock(ClientCall.class);
+                callChannels.add(index);
+                underlyingCalls.add(clientCall);
+                return clientCall;
+              });
+      channels.add(channel);
+    }
+    return ChannelPool.create(
+        ChannelPoolSettings.staticallySized(channelCount)
+            .toBuilder()
+            .setChannelSelectionStrategy(strategy)
+            .build(),
+        new FakeChannelFactory(channels));
+  }
+
+  private static void startCall(ChannelPool pool) {
+    @SuppressWarnings("unchecked")
+    ClientCall.Listener<Money> listener = Mockito.mock(ClientCall.Listener.class);
+    pool.newCall(FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT)
+        .start(listener, new Metadata());
+  }
+
+  private static void completeCall(ClientCall<Object, Object> underlyingCall) {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<ClientCall.Listener<Object>> captor =
+        ArgumentCaptor.forClass(ClientCall.Listener.class);
+    Mockito.verify(underlyingCall).start(captor.capture(), Mockito.any());
+    captor.getValue().onClose(Status.OK, new Metadata());
+  }
+
   @Test
   public void ensureEvenDistribution() throws InterruptedException, IOException {
     int numChannels = 10;
@@ -502,6 +605,171 @@ public class ChannelPoolTest {
     assertThat(pool.entries.get()).hasSize(2);
   }
 
+  @Test
+  public void adaptiveResizeExpandsWithoutWaitingForResize() throws Exception {
+    ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+    // Run the expansion inline
+    Mockito.doAnswer(
+            invocation -> {
+              invocation.getArgument(0, Runnable.class).run();
+              return null;
+            })
+        .when(executor)
+        .execute(Mockito.any(Runnable.class));
+
+    List<ManagedChannel> channels = new ArrayList<>();
+    List<ClientCall<Object, Object>> startedCalls = new ArrayList<>();
+    ChannelPool pool =
+        new ChannelPool(
+            ChannelPoolSettings.builder()
+                .setInitialChannelCount(2)
+                .setMinRpcsPerChannel(1)
+                .setMaxRpcsPerChannel(2)
+                .setAdaptiveResizeEnabled(true)
+                .build(),
+            createCallTrackingChannelFactory(channels, startedCalls),
+            executor);
+    Mockito.verify(executor)
+        .scheduleAtFixedRate(
+            Mockito.any(Runnable.class),
+            Mockito.eq(ChannelPoolSettings.ADAPTIVE_RESIZE_INTERVAL.getSeconds()),
+            Mockito.eq(ChannelPoolSettings.ADAPTIVE_RESIZE_INTERVAL.getSeconds()),
+            Mockito.eq(TimeUnit.SECONDS));
+
+    // Fill the pool up to the high watermark
+    for (int i = 0; i < 4; i++) {
+      pool.newCall(FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT);
+    }
+    assertThat(pool.entries.get()).hasSize(2);
+
+    // Crossing it expands the pool right away
+    pool.newCall(FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT);
+    assertThat(pool.entries.get()).hasSize(3);
+    assertThat(channels).hasSize(3);
+  }
+
+  @Test
+  public void adaptiveResizeAddsChannelsOnceConnected() throws Exception {
+    ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+    List<ManagedChannel> channels = new ArrayList<>();
+    List<ClientCall<Object, Object>> startedCalls = new ArrayList<>();
+    ChannelFactory callTrackingChannelFactory =
+        createCallTrackingChannelFactory(channels, startedCalls);
+    ChannelPool pool =
+        new ChannelPool(
+            ChannelPoolSettings.builder()
+                .setInitialChannelCount(1)
+                .setMinRpcsPerChannel(1)
+                .setMaxRpcsPerChannel(2)
+                .setAdaptiveResizeEnabled(true)
+                .build(),
+            () -> {
+              ManagedChannel channel = callTrackingChannelFactory.createSingleChannel();
+              Mockito.when(channel.getState(true)).thenReturn(ConnectivityState.CONNECTING);
+              return channel;
+            },
+            executor);
+
+    for (int i = 0; i < 3; i++) {
+      pool.newCall(FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT);
+    }
+    pool.expandAdaptively();
+    assertThat(channels).hasSize(2);
+    assertThat(pool.entries.get()).hasSize(1);
+
+    // The connecting channel counts towards the size of the pool
+    pool.expandAdaptively();
+    assertThat(channels).hasSize(2);
+
+    ManagedChannel newChannel = channels.get(1);
+    ArgumentCaptor<Runnable> callbackCaptor = ArgumentCaptor.forClass(Runnable.class);
+    Mockito.verify(newChannel)
+        .notifyWhenStateChanged(Mockito.eq(ConnectivityState.CONNECTING), callbackCaptor.capture());
+    Mockito.when(newChannel.getState(true)).thenReturn(ConnectivityState.READY);
+    callbackCaptor.getValue().run();
+    assertThat(pool.entries.get()).hasSize(2);
+  }
+
+  @Test
+  public void adaptiveResizeShrinksWithHysteresis() throws Exception {
+    ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+    List<ManagedChannel> channels = new ArrayList<>();
+    List<ClientCall<Object, Object>> startedCalls = new ArrayList<>();
+    ChannelPool pool =
+        new ChannelPool(
+            ChannelPoolSettings.builder()
+                .setInitialChannelCount(3)
+                .setMinRpcsPerChannel(1)
+                .setMaxRpcsPerChannel(2)
+                .setAdaptiveResizeEnabled(true)
+                .build(),
+            createCallTrackingChannelFactory(channels, startedCalls),
+            executor);
+
+    for (int i = 0; i < ChannelPoolSettings.ADAPTIVE_SHRINK_CHECK_COUNT - 1; i++) {
+      pool.resize();
+      assertThat(pool.entries.get()).hasSize(3);
+    }
+    // Enough RPCs to keep all the channels resets the hysteresis
+    for (int i = 0; i < 3; i++) {
+      ClientCalls.futureUnaryCall(
+          pool.newCall(FakeServiceGrpc.METHOD_RECOGNIZE, CallOptions.DEFAULT),
+          Color.getDefaultInstance());
+    }
+    pool.resize();
+    assertThat(pool.entries.get()).hasSize(3);
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<ClientCall.Listener<Object>> captor =
+        ArgumentCaptor.forClass(ClientCall.Listener.class);
+    for (ClientCall<Object, Object> call : startedCalls) {
+      Mockito.verify(call).start(captor.capture(), Mockito.any());
+      captor.getValue().onClose(Status.OK, new Metadata());
+    }
+    // The first round still sees the peak of the RPCs
+    pool.resize();
+    for (int i = 0; i < ChannelPoolSettings.ADAPTIVE_SHRINK_CHECK_COUNT - 1; i++) {
+      pool.resize();
+      assertThat(pool.entries.get()).hasSize(3);
+    }
+    pool.resize();
+    assertThat(pool.entries.get()).hasSize(1);
+  }
+
+  @Test
+  public void channelPoolUsageIsRecorded() throws Exception {
+    ManagedChannel sub1 = Mockito.mock(ManagedChannel.class);
+    ManagedChannel sub2 = Mockito.mock(ManagedChannel.class);
+    ChannelPool pool =
+        ChannelPool.create(
+            ChannelPoolSettings.staticallySized(2),
+            new FakeChannelFactory(Arrays.asList(sub1, sub2)));
+    ApiTracer tracer = Mockito.mock(ApiTracer.class);
+
+    pool.newCall(
+        FakeServiceGrpc.METHOD_RECOGNIZE,
+        CallOptions.DEFAULT.withOption(GrpcCallContext.TRACER_KEY, tracer));
+
+    Mockito.verify(tracer).channelPoolUsageRecorded(2, 1);
+  }
+
+  private static ChannelFactory createCallTrackingChannelFactory(
+      List<ManagedChannel> channels, List<ClientCall<Object, Object>> startedCalls) {
+    return () -> {
+      ManagedChannel channel = Mockito.mock(ManagedChannel.class);
+      Mockito.when(channel.newCall(Mockito.any(), Mockito.any()))
+          .thenAnswer(
+              invocation -> {
+                @SuppressWarnings("unchecked")
+                ClientCall<Object, Object> clientCall = Mockito.mock(ClientCall.class);
+                startedCalls.add(clientCall);
+                return clientCall;
+              });
+      channels.add(channel);
+      return channel;
+    };
+  }
+
   @Test
   public void removedIdleChannelsAreShutdown() throws Exception {
     ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
@@ -44,6 +44,7 @@ import com.google.auth.Credentials;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.truth.Truth;
 import io.grpc.CallOptions;
+import io.grpc.Channel;
 import io.grpc.ManagedChannel;
 import io.grpc.Metadata.Key;
 import java.util.ArrayList;
@@ -281,6 +282,20 @@ public class GrpcCallContextTest {
         .isEqualTo(ctx2.getCallOptions().getOption(key));
   }
 
+  @Test
+  public void testMergeWithEmptyContext() {
+    GrpcCallContext ctx =
+        GrpcCallContext.createDefault()
+            .withChannel(Mockito.mock(Channel.class))
+            .withTimeout(Duration.ofSeconds(10))
+            .withExtraHeaders(createTestExtraHeaders("key1", "value1"));
+
+    ApiCallContext merged = ctx.merge(GrpcCallContext.createDefault());
+    Truth.assertThat(merged).isEqualTo(ctx);
+    // The merged context is computed once.
+    Truth.assertThat(ctx.merge(GrpcCallContext.createDefault())).isSameInstanceAs(merged);
+  }
+
   @Test
   public void testWithExtraHeaders() {
     Map<String, List<String>> extraHeaders =
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.grpc;
+
+import com.google.api.gax.grpc.testing.FakeServiceGrpc;
+import com.google.api.gax.retrying.RetrySettings;
+import com.google.api.gax.rpc.ClientContext;
+import com.google.api.gax.rpc.StatusCode.Code;
+import com.google.api.gax.rpc.UnaryCallSettings;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.type.Color;
+import com.google.type.Money;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.threeten.bp.Duration;
+
+/**
+ * Measures unary calls to an in-process server through the callable created by {@link
+ * GrpcCallableFactory#createUnaryCallable} for a method without retries. The "fused" calls are made
+ * by {@link GrpcFusedUnaryCallable}, and the "layered" ones by the regular callable chain, which
+ * the fused callable falls back to when the call context overrides the retryable codes.
+ *
+ * <p>The server and the channel run their callbacks directly, so the results are dominated by the
+ * client-side work. Run with {@code mvn test-compile exec:exec -Pbenchmark
+ * -Djmh.args="GrpcCallableFactoryBenchmark -prof gc"} in the gax-grpc module to also see the bytes
+ * allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrpcCallableFactoryBenchmark {
+  private static final Color REQUEST = Color.newBuilder().setRed(0.5f).build();
+
+  @Param({"fused", "layered"})
+  private String chain;
+
+  private Server server;
+  private ManagedChannel channel;
+  private UnaryCallable<Color, Money> callable;
+  private GrpcCallContext callContext;
+
+  @Setup
+  public void setUp() throws IOException {
+    String serverName = InProcessServerBuilder.generateName();
+    server =
+        InProcessServerBuilder.forName(serverName)
+            .directExecutor()
+            .addService(
+                ServerServiceDefinition.builder(FakeServiceGrpc.SERVICE_NAME)
+                    .addMethod(
+                        FakeServiceGrpc.METHOD_RECOGNIZE,
+                        ServerCalls.asyncUnaryCall(GrpcCallableFactoryBenchmark::recognize))
+                    .build())
+            .build()
+            .start();
+    channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+
+    ClientContext clientContext =
+        ClientContext.newBuilder()
+            .setTransportChannel(GrpcTransportChannel.create(channel))
+            .setDefaultCallContext(GrpcCallContext.of(channel, CallOptions.DEFAULT))
+            .build();
+    UnaryCallSettings<Color, Money> callSettings =
+        UnaryCallSettings.<Color, Money>newUnaryCallSettingsBuilder()
+            .setRetryableCodes(Code.UNAVAILABLE)
+            .setRetrySettings(
+                RetrySettings.newBuilder()
+                    .setTotalTimeout(Duration.ofSeconds(30))
+                    .setMaxAttempts(1)
+                    .build())
+            .build();
+    callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE), callSettings, clientContext);
+
+    switch (chain) {
+      case "fused":
+        callContext = GrpcCallContext.createDefault();
+        break;
+      case "layered":
+        callContext =
+            GrpcCallContext.createDefault()
+                .withRetryableCodes(Collections.singleton(Code.UNAVAILABLE));
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown chain %s", chain));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    channel.shutdownNow();
+    server.shutdownNow();
+    channel.awaitTermination(10, TimeUnit.SECONDS);
+    server.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Money unaryCall() throws ExecutionException, InterruptedException {
+    return callable.futureCall(REQUEST, callContext).get();
+  }
+
+  private static void recognize(Color request, StreamObserver<Money> responseObserver) {
+    responseObserver.onNext(Money.newBuilder().setUnits((long) (request.getRed() * 255)).build());
+    responseObserver.onCompleted();
+  }
+}
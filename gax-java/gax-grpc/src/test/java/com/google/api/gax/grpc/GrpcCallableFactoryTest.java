@@ -34,29 +34,43 @@ import static com.google.common.truth.Truth.assertThat;
 import com.google.api.gax.grpc.testing.FakeServiceGrpc;
 import com.google.api.gax.grpc.testing.FakeServiceImpl;
 import com.google.api.gax.grpc.testing.InProcessServer;
+import com.google.api.gax.retrying.HedgingSettings;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.api.gax.rpc.ClientContext;
 import com.google.api.gax.rpc.InvalidArgumentException;
 import com.google.api.gax.rpc.ServerStreamingCallSettings;
 import com.google.api.gax.rpc.ServerStreamingCallable;
 import com.google.api.gax.rpc.StatusCode.Code;
+import com.google.api.gax.rpc.UnaryCallSettings;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.api.gax.tracing.ApiTracer;
+import com.google.api.gax.tracing.ApiTracerFactory;
+import com.google.api.gax.tracing.ApiTracerFactory.OperationType;
 import com.google.api.gax.tracing.SpanName;
 import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Truth;
 import com.google.type.Color;
 import com.google.type.Money;
 import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
 import io.grpc.ManagedChannel;
 import io.grpc.MethodDescriptor;
 import io.grpc.MethodDescriptor.Marshaller;
 import io.grpc.MethodDescriptor.MethodType;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.threeten.bp.Duration;
 
@@ -64,12 +78,13 @@ import org.threeten.bp.Duration;
 public class GrpcCallableFactoryTest {
   private InProcessServer<FakeServiceImpl> inprocessServer;
   private ManagedChannel channel;
+  private FakeServiceImpl serviceImpl;
   private ClientContext clientContext;
 
   @Before
   public void setUp() throws Exception {
     String serverName = "fakeservice";
-    FakeServiceImpl serviceImpl = new FakeServiceImpl();
+    serviceImpl = new FakeServiceImpl();
     inprocessServer = new InProcessServer<>(serviceImpl, serverName);
     inprocessServer.start();
 
@@ -144,6 +159,189 @@ public class GrpcCallableFactoryTest {
     assertThat(((InvalidArgumentException) actualError2).isRetryable()).isTrue();
   }
 
+  @Test
+  public void createUnaryCallableWithoutRetriesIsFused() throws Exception {
+    ApiTracer tracer = Mockito.mock(ApiTracer.class);
+    ApiTracerFactory tracerFactory = Mockito.mock(ApiTracerFactory.class);
+    Mockito.when(
+            tracerFactory.newTracer(
+                Mockito.any(ApiTracer.class),
+                Mockito.any(SpanName.class),
+                Mockito.eq(OperationType.Unary)))
+        .thenReturn(tracer);
+    UnaryCallable<Color, Money> callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE),
+            createUnaryCallSettings(1),
+            clientContext.toBuilder().setTracerFactory(tracerFactory).build());
+    assertThat(callable).isInstanceOf(GrpcFusedUnaryCallable.class);
+
+    Color request = Color.newBuilder().setRed(0.5f).build();
+    Money response = callable.futureCall(request).get();
+
+    assertThat(response.getUnits()).isEqualTo(127);
+    InOrder inOrder = Mockito.inOrder(tracer);
+    inOrder.verify(tracer).attemptStarted(request, 0);
+    inOrder.verify(tracer).attemptSucceeded();
+    inOrder.verify(tracer).operationSucceeded();
+  }
+
+  @Test
+  public void createUnaryCallableWithoutRetriesTranslatesErrors() {
+    UnaryCallable<Color, Money> callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE),
+            createUnaryCallSettings(1),
+            clientContext);
+
+    Throwable actualError = null;
+    try {
+      callable.call(Color.newBuilder().setRed(-1).build());
+    } catch (Throwable e) {
+      actualError = e;
+    }
+    assertThat(actualError).isInstanceOf(InvalidArgumentException.class);
+    assertThat(((InvalidArgumentException) actualError).isRetryable()).isTrue();
+  }
+
+  @Test
+  public void createUnaryCallableWithRetriesIsNotFused() {
+    UnaryCallable<Color, Money> callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE),
+            createUnaryCallSettings(3),
+            clientContext);
+
+    assertThat(callable).isNotInstanceOf(GrpcFusedUnaryCallable.class);
+  }
+
+  @Test
+  public void createUnaryCallableWithoutRetriesRetriesWithContextRetrySettings() {
+    ApiTracer tracer = Mockito.mock(ApiTracer.class);
+    ApiTracerFactory tracerFactory = Mockito.mock(ApiTracerFactory.class);
+    Mockito.when(
+            tracerFactory.newTracer(
+                Mockito.any(ApiTracer.class),
+                Mockito.any(SpanName.class),
+                Mockito.eq(OperationType.Unary)))
+        .thenReturn(tracer);
+    UnaryCallable<Color, Money> callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE),
+            createUnaryCallSettings(1),
+            clientContext.toBuilder().setTracerFactory(tracerFactory).build());
+    GrpcCallContext context =
+        GrpcCallContext.createDefault()
+            .withRetrySettings(
+                RetrySettings.newBuilder()
+                    .setTotalTimeout(Duration.ofSeconds(5))
+                    .setMaxAttempts(3)
+                    .build());
+
+    Color request = Color.newBuilder().setRed(-1).build();
+    try {
+      callable.call(request, context);
+      Truth.assertWithMessage("The call should have failed").fail();
+    } catch (InvalidArgumentException e) {
+      // expected
+    }
+
+    Mockito.verify(tracer).attemptStarted(request, 0);
+    Mockito.verify(tracer).attemptStarted(request, 1);
+    Mockito.verify(tracer).attemptStarted(request, 2);
+    Mockito.verify(tracer).attemptFailedRetriesExhausted(Mockito.any(Throwable.class));
+  }
+
+  @Test
+  public void createUnaryCallableWithoutRetriesCancelsCall() throws Exception {
+    ApiTracer tracer = Mockito.mock(ApiTracer.class);
+    ApiTracerFactory tracerFactory = Mockito.mock(ApiTracerFactory.class);
+    Mockito.when(
+            tracerFactory.newTracer(
+                Mockito.any(ApiTracer.class),
+                Mockito.any(SpanName.class),
+                Mockito.eq(OperationType.Unary)))
+        .thenReturn(tracer);
+    UnaryCallable<Color, Money> callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE),
+            createUnaryCallSettings(1),
+            clientContext.toBuilder().setTracerFactory(tracerFactory).build());
+    final CountDownLatch callCancelled = new CountDownLatch(1);
+    ClientInterceptor cancelRecorder =
+        new ClientInterceptor() {
+          @Override
+          public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+              MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+              @Override
+              public void cancel(String message, Throwable cause) {
+                callCancelled.countDown();
+                super.cancel(message, cause);
+              }
+            };
+          }
+        };
+    GrpcCallContext context =
+        GrpcCallContext.of(
+            ClientInterceptors.intercept(channel, cancelRecorder), CallOptions.DEFAULT);
+    serviceImpl.delayRecognize(1, 30, TimeUnit.SECONDS);
+
+    // Cancelling without interruption must still cancel the call and report it.
+    callable.futureCall(Color.newBuilder().setRed(0.5f).build(), context).cancel(false);
+
+    assertThat(callCancelled.await(10, TimeUnit.SECONDS)).isTrue();
+    Mockito.verify(tracer).attemptCancelled();
+    Mockito.verify(tracer).operationCancelled();
+    Mockito.verify(tracer, Mockito.never()).operationSucceeded();
+  }
+
+  @Test
+  public void createUnaryCallableWithHedgingHedgesSlowCalls() throws Exception {
+    ApiTracer tracer = Mockito.mock(ApiTracer.class);
+    ApiTracerFactory tracerFactory = Mockito.mock(ApiTracerFactory.class);
+    Mockito.when(
+            tracerFactory.newTracer(
+                Mockito.any(ApiTracer.class),
+                Mockito.any(SpanName.class),
+                Mockito.eq(OperationType.Unary)))
+        .thenReturn(tracer);
+    UnaryCallable<Color, Money> callable =
+        GrpcCallableFactory.createUnaryCallable(
+            GrpcCallSettings.create(FakeServiceGrpc.METHOD_RECOGNIZE),
+            createUnaryCallSettings(1)
+                .toBuilder()
+                .setHedgingSettings(
+                    HedgingSettings.newBuilder().setDelay(Duration.ofMillis(50)).build())
+                .build(),
+            clientContext.toBuilder().setTracerFactory(tracerFactory).build());
+    assertThat(callable).isNotInstanceOf(GrpcFusedUnaryCallable.class);
+    // Only the first attempt is slow.
+    serviceImpl.delayRecognize(1, 30, TimeUnit.SECONDS);
+
+    Color request = Color.newBuilder().setRed(0.5f).build();
+    Money response = callable.futureCall(request).get(10, TimeUnit.SECONDS);
+
+    assertThat(response.getUnits()).isEqualTo(127);
+    Mockito.verify(tracer).attemptStarted(request, 0);
+    Mockito.verify(tracer).attemptHedged(1);
+    Mockito.verify(tracer).attemptStarted(request, 1);
+    Mockito.verify(tracer).attemptSucceeded();
+    Mockito.verify(tracer).attemptCancelled();
+    Mockito.verify(tracer, Mockito.timeout(1000)).operationSucceeded();
+  }
+
+  private static UnaryCallSettings<Color, Money> createUnaryCallSettings(int maxAttempts) {
+    return UnaryCallSettings.<Color, Money>newUnaryCallSettingsBuilder()
+        .setRetryableCodes(Code.INVALID_ARGUMENT)
+        .setRetrySettings(
+            RetrySettings.newBuilder()
+                .setTotalTimeout(Duration.ofSeconds(5))
+                .setMaxAttempts(maxAttempts)
+                .build())
+        .build();
+  }
+
   @Test
   public void testGetSpanName() {
     @SuppressWarnings("unchecked")
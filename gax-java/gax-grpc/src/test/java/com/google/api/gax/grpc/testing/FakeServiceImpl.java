@@ -31,20 +31,65 @@ package com.google.api.gax.grpc.testing;
 
 import com.google.api.core.BetaApi;
 import com.google.api.gax.grpc.testing.FakeServiceGrpc.FakeServiceImplBase;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.type.Color;
 import com.google.type.Money;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @BetaApi
 public class FakeServiceImpl extends FakeServiceImplBase {
+  private static final ScheduledExecutorService DELAY_EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("fake-service-%d").build());
+
   private Throwable receivedError;
+  private final AtomicInteger delayedRecognizeCalls = new AtomicInteger();
+  private volatile long recognizeDelayMillis;
 
   public Throwable getLastRecievedError() {
     return receivedError;
   }
 
+  /** Delays the responses of the next {@code calls} calls of recognize by the given time. */
+  public void delayRecognize(int calls, long delay, TimeUnit unit) {
+    recognizeDelayMillis = unit.toMillis(delay);
+    delayedRecognizeCalls.set(calls);
+  }
+
+  @Override
+  public void recognize(Color color, StreamObserver<Money> responseObserver) {
+    if (delayedRecognizeCalls.getAndUpdate(calls -> Math.max(calls - 1, 0)) > 0) {
+      // The in-process server runs on the calling thread, so respond later from another thread.
+      DELAY_EXECUTOR.schedule(
+          () -> {
+            if (!((ServerCallStreamObserver<Money>) responseObserver).isCancelled()) {
+              recognizeNow(color, responseObserver);
+            }
+          },
+          recognizeDelayMillis,
+          TimeUnit.MILLISECONDS);
+      return;
+    }
+    recognizeNow(color, responseObserver);
+  }
+
+  private void recognizeNow(Color color, StreamObserver<Money> responseObserver) {
+    if (color.getRed() < 0) {
+      responseObserver.onError(
+          Status.INVALID_ARGUMENT.withDescription("red must be positive").asRuntimeException());
+      return;
+    }
+    responseObserver.onNext(convert(color));
+    responseObserver.onCompleted();
+  }
+
   @Override
   public StreamObserver<Color> streamingRecognize(StreamObserver<Money> responseObserver) {
     return new RequestStreamObserver(responseObserver);
@@ -72,19 +72,22 @@ public final class HttpJsonCallContext implements ApiCallContext {
   @Nullable private final RetrySettings retrySettings;
   @Nullable private final ImmutableSet<StatusCode.Code> retryableCodes;
 
+  private static final HttpJsonCallContext EMPTY =
+      new HttpJsonCallContext(
+          null,
+          HttpJsonCallOptions.DEFAULT,
+          null,
+          null,
+          null,
+          ImmutableMap.of(),
+          ApiCallContextOptions.getDefaultOptions(),
+          null,
+          null,
+          null);
+
   /** Returns an empty instance. */
   public static HttpJsonCallContext createDefault() {
-    return new HttpJsonCallContext(
-        null,
-        HttpJsonCallOptions.newBuilder().build(),
-        null,
-        null,
-        null,
-        ImmutableMap.of(),
-        ApiCallContextOptions.getDefaultOptions(),
-        null,
-        null,
-        null);
+    return EMPTY;
   }
 
   public static HttpJsonCallContext of(HttpJsonChannel channel, HttpJsonCallOptions options) {
@@ -158,6 +161,10 @@ public final class HttpJsonCallContext implements ApiCallContext {
               + inputCallContext.getClass().getName());
     }
     HttpJsonCallContext httpJsonCallContext = (HttpJsonCallContext) inputCallContext;
+    // Merging an empty context, as when the caller does not customize the call, changes nothing.
+    if (httpJsonCallContext.isEmpty()) {
+      return this;
+    }
 
     HttpJsonChannel newChannel = httpJsonCallContext.channel;
     if (newChannel == null) {
@@ -215,6 +222,19 @@ public final class HttpJsonCallContext implements ApiCallContext {
         newRetryableCodes);
   }
 
+  private boolean isEmpty() {
+    return channel == null
+        && HttpJsonCallOptions.DEFAULT.equals(callOptions)
+        && timeout == null
+        && streamWaitTimeout == null
+        && streamIdleTimeout == null
+        && extraHeaders.isEmpty()
+        && options == ApiCallContextOptions.getDefaultOptions()
+        && tracer == null
+        && retrySettings == null
+        && retryableCodes == null;
+  }
+
   @Override
   public HttpJsonCallContext withCredentials(Credentials newCredentials) {
     HttpJsonCallOptions.Builder builder =
@@ -62,7 +62,7 @@ public abstract class HttpJsonCallOptions {
   }
 
   public HttpJsonCallOptions merge(HttpJsonCallOptions inputOptions) {
-    if (inputOptions == null) {
+    if (inputOptions == null || inputOptions.equals(DEFAULT)) {
       return this;
     }
 
@@ -189,6 +189,7 @@ public class HttpJsonCallableFactory {
     }
 
     callable = Callables.retrying(callable, streamingCallSettings, clientContext);
+    callable = Callables.prefetching(callable, streamingCallSettings);
     return callable.withDefaultCallContext(clientContext.getDefaultCallContext());
   }
 
@@ -32,18 +32,15 @@ package com.google.api.gax.httpjson;
 import com.google.api.client.http.EmptyContent;
 import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpContent;
-import com.google.api.client.http.HttpMediaType;
 import com.google.api.client.http.HttpMethods;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.json.JsonHttpContent;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.JsonObjectParser;
 import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.client.util.GenericData;
 import com.google.auth.Credentials;
 import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auto.value.AutoValue;
@@ -152,8 +149,6 @@ class HttpRequestRunnable<RequestT, ResponseT> implements Runnable {
   }
 
   HttpRequest createHttpRequest() throws IOException {
-    GenericData tokenRequest = new GenericData();
-
     HttpRequestFormatter<RequestT> requestFormatter = methodDescriptor.getRequestFormatter();
 
     HttpRequestFactory requestFactory;
@@ -165,30 +160,18 @@ class HttpRequestRunnable<RequestT, ResponseT> implements Runnable {
     }
 
     JsonFactory jsonFactory = GsonFactory.getDefaultInstance();
-    // Create HTTP request body.
+    // Create HTTP request body. The body is already JSON, so it is sent as is.
     String requestBody = requestFormatter.getRequestBody(request);
     HttpContent jsonHttpContent;
     if (!Strings.isNullOrEmpty(requestBody)) {
-      jsonFactory.createJsonParser(requestBody).parse(tokenRequest);
-      jsonHttpContent =
-          new JsonHttpContent(jsonFactory, tokenRequest)
-              .setMediaType((new HttpMediaType("application/json; charset=utf-8")));
+      jsonHttpContent = new JsonBodyHttpContent(requestBody);
     } else {
       // Force underlying HTTP lib to set Content-Length header to avoid 411s.
       // See EmptyContent.java.
       jsonHttpContent = new EmptyContent();
     }
 
-    // Populate URL path and query parameters.
-    String normalizedEndpoint = normalizeEndpoint(endpoint);
-    GenericUrl url = new GenericUrl(normalizedEndpoint + requestFormatter.getPath(request));
-    Map<String, List<String>> queryParams = requestFormatter.getQueryParamNames(request);
-    for (Entry<String, List<String>> queryParam : queryParams.entrySet()) {
-      if (queryParam.getValue() != null) {
-        url.set(queryParam.getKey(), queryParam.getValue());
-      }
-    }
-
+    GenericUrl url = createUrl(endpoint, requestFormatter, request);
     HttpRequest httpRequest = buildRequest(requestFactory, url, jsonHttpContent);
 
     for (Map.Entry<String, Object> entry : headers.getHeaders().entrySet()) {
@@ -256,6 +239,20 @@ class HttpRequestRunnable<RequestT, ResponseT> implements Runnable {
     return httpRequest;
   }
 
+  /** Populates the URL path and query parameters of the request. */
+  static <RequestT> GenericUrl createUrl(
+      String endpoint, HttpRequestFormatter<RequestT> requestFormatter, RequestT request) {
+    String normalizedEndpoint = normalizeEndpoint(endpoint);
+    GenericUrl url = new GenericUrl(normalizedEndpoint + requestFormatter.getPath(request));
+    Map<String, List<String>> queryParams = requestFormatter.getQueryParamNames(request);
+    for (Entry<String, List<String>> queryParam : queryParams.entrySet()) {
+      if (queryParam.getValue() != null) {
+        url.set(queryParam.getKey(), queryParam.getValue());
+      }
+    }
+    return url;
+  }
+
   private boolean shouldUpdateTimeout(int currentTimeoutMs, long newTimeoutMs) {
     return currentTimeoutMs > 0
         && currentTimeoutMs < newTimeoutMs
@@ -263,7 +260,7 @@ class HttpRequestRunnable<RequestT, ResponseT> implements Runnable {
   }
 
   // This will be frequently executed, so avoiding using regexps if not necessary.
-  private String normalizeEndpoint(String rawEndpoint) {
+  private static String normalizeEndpoint(String rawEndpoint) {
     String normalized = rawEndpoint;
     // Set protocol as https by default if not set explicitly
     if (!normalized.contains("://")) {
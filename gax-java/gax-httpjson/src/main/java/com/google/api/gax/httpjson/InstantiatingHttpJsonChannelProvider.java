@@ -40,7 +40,11 @@ import com.google.api.gax.rpc.TransportChannelProvider;
 import com.google.api.gax.rpc.mtls.MtlsProvider;
 import com.google.auth.Credentials;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.util.Map;
@@ -62,6 +66,9 @@ import java.util.concurrent.ScheduledExecutorService;
 @BetaApi
 @InternalExtensionOnly
 public final class InstantiatingHttpJsonChannelProvider implements TransportChannelProvider {
+  // Compiled for Java 11 into the versioned part of the multi-release jar.
+  private static final String ASYNC_HTTP_CLIENT_CHANNEL_CLASS =
+      "com.google.api.gax.httpjson.JavaNetHttpJsonChannel";
 
   private final Executor executor;
   private final HeaderProvider headerProvider;
@@ -69,6 +76,7 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
   private final String endpoint;
   private final HttpTransport httpTransport;
   private final MtlsProvider mtlsProvider;
+  private final boolean asyncHttpClientEnabled;
 
   private InstantiatingHttpJsonChannelProvider(
       Executor executor,
@@ -76,13 +84,15 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
       HttpJsonInterceptorProvider interceptorProvider,
       String endpoint,
       HttpTransport httpTransport,
-      MtlsProvider mtlsProvider) {
+      MtlsProvider mtlsProvider,
+      boolean asyncHttpClientEnabled) {
     this.executor = executor;
     this.headerProvider = headerProvider;
     this.interceptorProvider = interceptorProvider;
     this.endpoint = endpoint;
     this.httpTransport = httpTransport;
     this.mtlsProvider = mtlsProvider;
+    this.asyncHttpClientEnabled = asyncHttpClientEnabled;
   }
 
   /**
@@ -181,17 +191,22 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
   }
 
   private HttpJsonTransportChannel createChannel() throws IOException, GeneralSecurityException {
-    HttpTransport httpTransportToUse = httpTransport;
-    if (httpTransportToUse == null) {
-      httpTransportToUse = createHttpTransport();
-    }
+    ManagedHttpJsonChannel channel;
+    if (asyncHttpClientEnabled) {
+      channel = createAsyncHttpClientChannel();
+    } else {
+      HttpTransport httpTransportToUse = httpTransport;
+      if (httpTransportToUse == null) {
+        httpTransportToUse = createHttpTransport();
+      }
 
-    ManagedHttpJsonChannel channel =
-        ManagedHttpJsonChannel.newBuilder()
-            .setEndpoint(endpoint)
-            .setExecutor(executor)
-            .setHttpTransport(httpTransportToUse)
-            .build();
+      channel =
+          ManagedHttpJsonChannel.newBuilder()
+              .setEndpoint(endpoint)
+              .setExecutor(executor)
+              .setHttpTransport(httpTransportToUse)
+              .build();
+    }
 
     HttpJsonClientInterceptor headerInterceptor =
         new HttpJsonHeaderInterceptor(headerProvider.getHeaders());
@@ -206,11 +221,46 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
     return HttpJsonTransportChannel.newBuilder().setManagedChannel(channel).build();
   }
 
+  private ManagedHttpJsonChannel createAsyncHttpClientChannel()
+      throws IOException, GeneralSecurityException {
+    Preconditions.checkNotNull(endpoint);
+    KeyStore mtlsKeyStore = null;
+    if (mtlsProvider.useMtlsClientCertificate()) {
+      mtlsKeyStore = mtlsProvider.getKeyStore();
+    }
+    Constructor<?> constructor;
+    try {
+      constructor =
+          Class.forName(ASYNC_HTTP_CLIENT_CHANNEL_CLASS)
+              .getDeclaredConstructor(Executor.class, String.class, KeyStore.class);
+    } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+      throw new IllegalStateException("The async HTTP client requires Java 11 or newer", e);
+    }
+    try {
+      return (ManagedHttpJsonChannel)
+          constructor.newInstance(
+              executor == null ? ManagedHttpJsonChannel.DEFAULT_EXECUTOR : executor,
+              endpoint,
+              mtlsKeyStore);
+    } catch (InvocationTargetException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), GeneralSecurityException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   /** The endpoint to be used for the channel. */
   public String getEndpoint() {
     return endpoint;
   }
 
+  /** Whether the channel sends its calls with the non-blocking HTTP client of the JDK. */
+  public boolean isAsyncHttpClientEnabled() {
+    return asyncHttpClientEnabled;
+  }
+
   @Override
   public boolean shouldAutoClose() {
     return true;
@@ -232,6 +282,7 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
     private String endpoint;
     private HttpTransport httpTransport;
     private MtlsProvider mtlsProvider = new MtlsProvider();
+    private boolean asyncHttpClientEnabled;
 
     private Builder() {}
 
@@ -242,6 +293,7 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
       this.httpTransport = provider.httpTransport;
       this.mtlsProvider = provider.mtlsProvider;
       this.interceptorProvider = provider.interceptorProvider;
+      this.asyncHttpClientEnabled = provider.asyncHttpClientEnabled;
     }
 
     /**
@@ -299,6 +351,25 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
       return this;
     }
 
+    /**
+     * Sets whether the channel sends its calls with the non-blocking {@code java.net.http}
+     * HttpClient of the JDK, instead of blocking a thread of the executor on every call until its
+     * response is read. The response of each call is received and parsed chunk by chunk on the
+     * executor as it arrives, so a few threads sustain thousands of concurrent calls.
+     *
+     * <p>This is optional and disabled by default. The client requires Java 11 or newer, and the
+     * HTTP transport set by {@link #setHttpTransport(HttpTransport)} is not used when it is
+     * enabled.
+     */
+    public Builder setAsyncHttpClientEnabled(boolean asyncHttpClientEnabled) {
+      this.asyncHttpClientEnabled = asyncHttpClientEnabled;
+      return this;
+    }
+
+    public boolean isAsyncHttpClientEnabled() {
+      return asyncHttpClientEnabled;
+    }
+
     public String getEndpoint() {
       return endpoint;
     }
@@ -311,7 +382,13 @@ public final class InstantiatingHttpJsonChannelProvider implements TransportChan
 
     public InstantiatingHttpJsonChannelProvider build() {
       return new InstantiatingHttpJsonChannelProvider(
-          executor, headerProvider, interceptorProvider, endpoint, httpTransport, mtlsProvider);
+          executor,
+          headerProvider,
+          interceptorProvider,
+          endpoint,
+          httpTransport,
+          mtlsProvider,
+          asyncHttpClientEnabled);
     }
   }
 }
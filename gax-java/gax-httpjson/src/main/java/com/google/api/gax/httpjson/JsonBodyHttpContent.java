@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.httpjson;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.http.HttpMediaType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An HTTP request body that holds a JSON text, such as the request body produced by {@link
+ * ProtoMessageRequestFormatter#getRequestBody}.
+ *
+ * <p>The text is already valid JSON, so it is encoded to UTF-8 as is in a single pass, only
+ * dropping the whitespace between tokens that the protobuf JSON printer adds for readability. This
+ * replaces parsing the text into a {@code GenericData} tree only to serialize it again, once to
+ * compute the content length and once to send it.
+ *
+ * <p>Package-private for internal use.
+ */
+class JsonBodyHttpContent extends AbstractHttpContent {
+  private static final HttpMediaType JSON_MEDIA_TYPE =
+      new HttpMediaType("application/json; charset=utf-8");
+
+  private final String json;
+  // Encoded on first use, and kept for the retries of the request.
+  private byte[] encodedJson;
+  private int encodedLength;
+
+  JsonBodyHttpContent(String json) {
+    super(JSON_MEDIA_TYPE);
+    this.json = json;
+  }
+
+  @Override
+  public long getLength() {
+    encode();
+    return encodedLength;
+  }
+
+  @Override
+  public boolean retrySupported() {
+    return true;
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    encode();
+    out.write(encodedJson, 0, encodedLength);
+    out.flush();
+  }
+
+  // Encodes the JSON text to UTF-8, skipping the whitespace outside of string literals. Whitespace
+  // inside of string literals is always escaped, so a string literal ends at the first quote that
+  // does not follow a backslash.
+  private void encode() {
+    if (encodedJson != null) {
+      return;
+    }
+    byte[] bytes = new byte[json.length() + (json.length() >> 2) + 16];
+    int length = 0;
+    boolean inString = false;
+    boolean escaped = false;
+    for (int i = 0; i < json.length(); i++) {
+      char c = json.charAt(i);
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          inString = false;
+        }
+      } else if (c == '"') {
+        inString = true;
+      } else if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+        continue;
+      }
+
+      if (bytes.length - length < 4) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      if (c < 0x80) {
+        bytes[length++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[length++] = (byte) (0xC0 | (c >> 6));
+        bytes[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        int codePoint = Character.codePointAt(json, i);
+        if (Character.isSupplementaryCodePoint(codePoint)) {
+          i++;
+          bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+          bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+          bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+          bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+          // An unpaired surrogate is replaced, like String.getBytes(UTF_8) does.
+          bytes[length++] = (byte) '?';
+        }
+      } else {
+        bytes[length++] = (byte) (0xE0 | (c >> 12));
+        bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[length++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    encodedJson = bytes;
+    encodedLength = length;
+  }
+}
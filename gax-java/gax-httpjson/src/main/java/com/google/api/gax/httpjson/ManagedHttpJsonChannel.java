@@ -47,7 +47,7 @@ import javax.annotation.Nullable;
 @BetaApi
 public class ManagedHttpJsonChannel implements HttpJsonChannel, BackgroundResource {
 
-  private static final ExecutorService DEFAULT_EXECUTOR =
+  static final ExecutorService DEFAULT_EXECUTOR =
       InstantiatingExecutorProvider.newBuilder().build().getExecutor();
 
   private final Executor executor;
@@ -69,6 +69,17 @@ public class ManagedHttpJsonChannel implements HttpJsonChannel, BackgroundResour
     this.deadlineScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
   }
 
+  /**
+   * Creates a channel without an HTTP transport or a deadline executor, for subclasses which send
+   * their calls with their own transport and override every method of the channel.
+   */
+  ManagedHttpJsonChannel(Executor executor, String endpoint) {
+    this.executor = executor;
+    this.endpoint = endpoint;
+    this.httpTransport = null;
+    this.deadlineScheduledExecutorService = null;
+  }
+
   @Override
   public <RequestT, ResponseT> HttpJsonClientCall<RequestT, ResponseT> newCall(
       ApiMethodDescriptor<RequestT, ResponseT> methodDescriptor, HttpJsonCallOptions callOptions) {
@@ -29,45 +29,149 @@
  */
 package com.google.api.gax.httpjson;
 
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonToken;
-import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.CharArrayReader;
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.PipedReader;
-import java.io.PipedWriter;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
 
-/** This class is not thread-safe and is expected to be used under external synchronization. */
+/**
+ * Iterates over the elements of a JSON array, which is how the messages of a server streaming
+ * response are sent. Only the boundaries of the elements are located; each element is returned as a
+ * reader over its characters, to be parsed by the protobuf JSON parser.
+ *
+ * <p>The array is either read from a {@link Reader}, or pushed to the iterator chunk by chunk with
+ * {@link #append(ByteBuffer)} by a non-blocking transport. A reader is read only as far as needed
+ * to find the next element, so the response is consumed no faster than the messages are requested.
+ * When the chunks are pushed instead, {@link #hasNext()} returns {@code false} once the elements
+ * completed by the chunks appended so far are consumed, and {@link #finish()} checks that the array
+ * was received in full.
+ *
+ * <p>The reader returned by {@link #next()} remains valid until the following call to {@link
+ * #next()} or {@link #append(ByteBuffer)}.
+ *
+ * <p>This class is not thread-safe and is expected to be used under external synchronization.
+ */
 class ProtoMessageJsonStreamIterator implements Closeable, Iterator<Reader> {
-  private volatile boolean arrayStarted;
-  private final JsonReader jsonReader;
-  private final PipedReader reader;
-  private final PipedWriter writer;
+  private static final int READ_SIZE = 0x2000; // 8K
 
-  ProtoMessageJsonStreamIterator(Reader rawReader) throws IOException {
-    this.arrayStarted = false;
-    this.jsonReader = new JsonReader(rawReader);
-    this.reader = new PipedReader(0x40000); // 256K
-    this.writer = new PipedWriter();
-    writer.connect(reader);
+  private enum State {
+    BEFORE_ARRAY,
+    FIRST_ELEMENT,
+    NEXT_ELEMENT,
+    IN_ELEMENT,
+    AFTER_ELEMENT,
+    AFTER_ARRAY
+  }
+
+  // Null when the chunks of the array are appended instead.
+  @Nullable private final Reader rawReader;
+  @Nullable private final CharsetDecoder decoder;
+  // The bytes of a character split between two appended chunks.
+  @Nullable private final ByteBuffer partialCharacter;
+
+  // Characters read but not scanned yet are in buffer[position, limit). The buffer is compacted
+  // into another array, so that it never overwrites the element returned last, which may still be
+  // being parsed. The two arrays alternate as long as no element outgrows them.
+  private char[] buffer;
+  private char[] spareBuffer;
+  private char[] lastElementBuffer;
+  private int position;
+  private int limit;
+  private int elementStart;
+  private int elementEnd;
+  private boolean elementScanned;
+
+  // The scanning state is kept between chunks, so that an element is scanned only once however
+  // many chunks it spans. Strings, numbers and literals are primitive elements, but only the end of
+  // a string is marked by the element itself.
+  private State state = State.BEFORE_ARRAY;
+  private boolean primitive;
+  private int depth;
+  private boolean inString;
+  private boolean escaped;
+
+  ProtoMessageJsonStreamIterator(Reader rawReader) {
+    this.rawReader = rawReader;
+    this.decoder = null;
+    this.partialCharacter = null;
+    this.buffer = new char[READ_SIZE];
+    this.elementStart = -1;
+  }
+
+  /** Creates an iterator over a UTF-8 encoded array whose chunks are appended as they arrive. */
+  ProtoMessageJsonStreamIterator() {
+    this.rawReader = null;
+    this.decoder =
+        StandardCharsets.UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.partialCharacter = ByteBuffer.allocate(4);
+    this.buffer = new char[READ_SIZE];
+    this.elementStart = -1;
   }
 
   @Override
   public void close() throws IOException {
-    reader.close();
-    writer.close();
-    jsonReader.close();
+    if (rawReader != null) {
+      rawReader.close();
+    }
   }
 
+  /** Appends the next chunk of the array, for an iterator created without a reader. */
+  void append(ByteBuffer chunk) {
+    // A character split between two chunks is decoded once its last byte arrives.
+    while (partialCharacter.position() > 0 && chunk.hasRemaining()) {
+      partialCharacter.put(chunk.get());
+      partialCharacter.flip();
+      decode(partialCharacter);
+      partialCharacter.compact();
+    }
+    decode(chunk);
+    partialCharacter.put(chunk);
+  }
+
+  private void decode(ByteBuffer input) {
+    CoderResult result;
+    do {
+      makeRoom();
+      CharBuffer target = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+      result = decoder.decode(input, target, false);
+      limit = target.position();
+    } while (result.isOverflow());
+  }
+
+  /** Checks that the appended chunks hold the whole array. */
+  void finish() throws MalformedJsonException {
+    checkSyntax(state == State.AFTER_ARRAY, "Unexpected end of the stream");
+  }
+
+  @Override
   public boolean hasNext() {
+    if (elementScanned) {
+      return true;
+    }
     try {
-      if (!arrayStarted) {
-        jsonReader.beginArray();
-        arrayStarted = true;
+      while (!scanElement()) {
+        if (rawReader == null || state == State.AFTER_ARRAY) {
+          return false;
+        }
+        if (!fill()) {
+          throw new MalformedJsonException("Unexpected end of the stream");
+        }
       }
-      return jsonReader.hasNext();
+      elementScanned = true;
+      return true;
     } catch (IOException e) {
       throw new RestSerializationException(e);
     }
@@ -75,60 +179,158 @@ class ProtoMessageJsonStreamIterator implements Closeable, Iterator<Reader> {
 
   @Override
   public Reader next() {
-    try {
-      int nestedObjectCount = 0;
-      JsonWriter jsonWriter = new JsonWriter(writer);
-      do {
-        JsonToken token = jsonReader.peek();
-        switch (token) {
-          case BEGIN_ARRAY:
-            jsonReader.beginArray();
-            jsonWriter.beginArray();
-            break;
-          case END_ARRAY:
-            jsonReader.endArray();
-            jsonWriter.endArray();
-            break;
-          case BEGIN_OBJECT:
-            nestedObjectCount++;
-            jsonReader.beginObject();
-            jsonWriter.beginObject();
-            break;
-          case END_OBJECT:
-            jsonReader.endObject();
-            jsonWriter.endObject();
-            nestedObjectCount--;
-            break;
-          case NAME:
-            String name = jsonReader.nextName();
-            jsonWriter.name(name);
-            break;
-          case STRING:
-            String s = jsonReader.nextString();
-            jsonWriter.value(s);
-            break;
-          case NUMBER:
-            String n = jsonReader.nextString();
-            jsonWriter.value(n);
-            break;
-          case BOOLEAN:
-            boolean b = jsonReader.nextBoolean();
-            jsonWriter.value(b);
-            break;
-          case NULL:
-            jsonReader.nextNull();
-            jsonWriter.nullValue();
-            break;
-          case END_DOCUMENT:
-            nestedObjectCount--;
-        }
-      } while (nestedObjectCount > 0);
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Reader element = new CharArrayReader(buffer, elementStart, elementEnd - elementStart);
+    lastElementBuffer = buffer;
+    elementScanned = false;
+    elementStart = -1;
+    return element;
+  }
 
-      jsonWriter.flush();
+  // Scans the buffered characters up to the end of the next element. Returns false if they run out
+  // first, or if the end of the array is reached.
+  private boolean scanElement() throws MalformedJsonException {
+    while (position < limit && state != State.AFTER_ARRAY) {
+      char c = buffer[position];
+      switch (state) {
+        case BEFORE_ARRAY:
+          if (!isWhitespace(c)) {
+            checkSyntax(c == '[', "Expected '[' at the start of the stream");
+            state = State.FIRST_ELEMENT;
+          }
+          break;
+        case FIRST_ELEMENT:
+        case NEXT_ELEMENT:
+          if (c == ']' && state == State.FIRST_ELEMENT) {
+            state = State.AFTER_ARRAY;
+          } else if (!isWhitespace(c)) {
+            startElement(c);
+          }
+          break;
+        case IN_ELEMENT:
+          if (primitive && !inString && depth == 0 && (c == ',' || c == ']' || isWhitespace(c))) {
+            // The end of a number or a literal is only known once the next character is scanned,
+            // and that character is left for after the element.
+            elementEnd = position;
+            state = State.AFTER_ELEMENT;
+            return true;
+          }
+          if (scanElementCharacter(c)) {
+            elementEnd = ++position;
+            state = State.AFTER_ELEMENT;
+            return true;
+          }
+          break;
+        case AFTER_ELEMENT:
+          if (c == ',') {
+            state = State.NEXT_ELEMENT;
+          } else if (c == ']') {
+            state = State.AFTER_ARRAY;
+          } else {
+            checkSyntax(isWhitespace(c), "Expected ',' or ']' after an array element");
+          }
+          break;
+        default:
+          break;
+      }
+      position++;
+    }
+    return false;
+  }
 
-      return reader;
-    } catch (IOException e) {
-      throw new RestSerializationException(e);
+  private void startElement(char first) throws MalformedJsonException {
+    checkSyntax(
+        first != ',' && first != ']' && first != '}' && first != ':', "Expected an array element");
+    state = State.IN_ELEMENT;
+    elementStart = position;
+    primitive = first != '{' && first != '[';
+    depth = 0;
+    inString = false;
+    escaped = false;
+    scanElementCharacter(first);
+  }
+
+  // Scans a character of the element being scanned. Returns true if it ends the element.
+  private boolean scanElementCharacter(char c) throws MalformedJsonException {
+    if (inString) {
+      if (escaped) {
+        escaped = false;
+      } else if (c == '\\') {
+        escaped = true;
+      } else if (c == '"') {
+        inString = false;
+        return depth == 0;
+      }
+      return false;
+    }
+    switch (c) {
+      case '"':
+        inString = true;
+        return false;
+      case '{':
+      case '[':
+        depth++;
+        return false;
+      case '}':
+      case ']':
+        checkSyntax(depth > 0, "Unbalanced brackets in an array element");
+        return --depth == 0;
+      default:
+        return false;
+    }
+  }
+
+  // Reads more characters. Returns false at the end of the stream.
+  private boolean fill() throws IOException {
+    makeRoom();
+    int read = rawReader.read(buffer, limit, buffer.length - limit);
+    if (read <= 0) {
+      return false;
+    }
+    limit += read;
+    return true;
+  }
+
+  // Makes room after the buffered characters, keeping those of the element being scanned.
+  private void makeRoom() {
+    if (limit < buffer.length) {
+      return;
+    }
+    int keepFrom = elementStart >= 0 ? elementStart : position;
+    int kept = limit - keepFrom;
+    char[] target;
+    if (kept + READ_SIZE > buffer.length) {
+      target = new char[Math.max(buffer.length * 2, kept + READ_SIZE)];
+    } else if (spareBuffer != null
+        && spareBuffer != lastElementBuffer
+        && spareBuffer.length == buffer.length) {
+      target = spareBuffer;
+    } else {
+      target = new char[buffer.length];
+    }
+    System.arraycopy(buffer, keepFrom, target, 0, kept);
+    spareBuffer = buffer;
+    buffer = target;
+    position -= keepFrom;
+    limit -= keepFrom;
+    if (elementStart >= 0) {
+      elementStart -= keepFrom;
+      if (elementScanned) {
+        elementEnd -= keepFrom;
+      }
+    }
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+  }
+
+  private static void checkSyntax(boolean expression, String message)
+      throws MalformedJsonException {
+    if (!expression) {
+      throw new MalformedJsonException(message);
     }
   }
 }
@@ -43,10 +43,12 @@ public class ProtoMessageResponseParser<ResponseT extends Message>
 
   private final ResponseT defaultInstance;
   private final TypeRegistry defaultRegistry;
+  private final ProtoRestSerializer<ResponseT> defaultSerializer;
 
   private ProtoMessageResponseParser(ResponseT defaultInstance, TypeRegistry defaultRegistry) {
     this.defaultInstance = defaultInstance;
     this.defaultRegistry = defaultRegistry;
+    this.defaultSerializer = ProtoRestSerializer.create(defaultRegistry);
   }
 
   public static <ResponseT extends Message>
@@ -72,14 +74,15 @@ public class ProtoMessageResponseParser<ResponseT extends Message>
 
   @Override
   public ResponseT parse(Reader httpContent, TypeRegistry registry) {
-    return ProtoRestSerializer.<ResponseT>create(registry)
-        .fromJson(httpContent, defaultInstance.newBuilderForType());
+    ProtoRestSerializer<ResponseT> serializer =
+        registry == defaultRegistry ? defaultSerializer : ProtoRestSerializer.create(registry);
+    return serializer.fromJson(httpContent, defaultInstance.newBuilderForType());
   }
 
   /* {@inheritDoc} */
   @Override
   public String serialize(ResponseT response) {
-    return ProtoRestSerializer.create(defaultRegistry).toJson(response, false);
+    return defaultSerializer.toJson(response, false);
   }
 
   // Convert to @AutoValue if this class gets more complicated
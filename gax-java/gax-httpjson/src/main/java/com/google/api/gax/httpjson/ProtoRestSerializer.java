@@ -31,12 +31,18 @@ package com.google.api.gax.httpjson;
 
 import com.google.api.core.BetaApi;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.TypeRegistry;
 import com.google.protobuf.util.JsonFormat;
+import com.google.protobuf.util.JsonFormat.Parser;
 import com.google.protobuf.util.JsonFormat.Printer;
 import java.io.IOException;
 import java.io.Reader;
@@ -53,20 +59,28 @@ import java.util.Map;
 @BetaApi
 public class ProtoRestSerializer<RequestT extends Message> {
 
-  private final TypeRegistry registry;
+  // Printers and parsers are immutable and thread-safe. Those for the empty type registry, which
+  // the generated stubs use to serialize every request, are shared by all the instances.
+  private static final JsonFormats EMPTY_REGISTRY_FORMATS =
+      new JsonFormats(TypeRegistry.getEmptyTypeRegistry());
 
-  private ProtoRestSerializer(TypeRegistry registry) {
-    this.registry = registry;
+  private final JsonFormats formats;
+
+  private ProtoRestSerializer(JsonFormats formats) {
+    this.formats = formats;
   }
 
   /** Creates a new instance of ProtoRestSerializer. */
   public static <RequestT extends Message> ProtoRestSerializer<RequestT> create() {
-    return create(TypeRegistry.getEmptyTypeRegistry());
+    return new ProtoRestSerializer<>(EMPTY_REGISTRY_FORMATS);
   }
 
   /** Creates a new instance of ProtoRestSerializer. */
   static <RequestT extends Message> ProtoRestSerializer<RequestT> create(TypeRegistry registry) {
-    return new ProtoRestSerializer<>(registry);
+    if (registry == TypeRegistry.getEmptyTypeRegistry()) {
+      return create();
+    }
+    return new ProtoRestSerializer<>(new JsonFormats(registry));
   }
 
   /**
@@ -81,11 +95,10 @@ public class ProtoRestSerializer<RequestT extends Message> {
    */
   String toJson(Message message, boolean numericEnum) {
     try {
-      Printer printer = JsonFormat.printer().usingTypeRegistry(registry);
       if (numericEnum) {
-        return printer.printingEnumsAsInts().print(message);
+        return formats.numericEnumPrinter.print(message);
       } else {
-        return printer.print(message);
+        return formats.printer.print(message);
       }
     } catch (InvalidProtocolBufferException e) {
       throw new RestSerializationException("Failed to serialize message to JSON", e);
@@ -103,7 +116,7 @@ public class ProtoRestSerializer<RequestT extends Message> {
   @SuppressWarnings("unchecked")
   RequestT fromJson(Reader json, Message.Builder builder) {
     try {
-      JsonFormat.parser().usingTypeRegistry(registry).ignoringUnknownFields().merge(json, builder);
+      formats.parser.merge(json, builder);
       return (RequestT) builder.build();
     } catch (IOException e) {
       throw new RestSerializationException("Failed to parse response message", e);
@@ -139,6 +152,87 @@ public class ProtoRestSerializer<RequestT extends Message> {
     }
   }
 
+  // Flattens the fields of a message into query params, walking its descriptor. The params are the
+  // same as those of its JSON form with numeric enums, where each leaf value is put under the path
+  // of JSON names that leads to it. Well-known types and maps, which have a special JSON form, are
+  // still flattened from their JSON form.
+  private void putMessageQueryParam(
+      Map<String, List<String>> fields, String fieldName, Message message) {
+    if (hasSpecialJsonForm(message)) {
+      putDecomposedMessageQueryParam(
+          fields, fieldName, JsonParser.parseString(toJson(message, true)));
+      return;
+    }
+    for (Map.Entry<FieldDescriptor, Object> field : message.getAllFields().entrySet()) {
+      FieldDescriptor descriptor = field.getKey();
+      String paramName = fieldName + "." + descriptor.getJsonName();
+      if (descriptor.isRepeated()) {
+        for (Object value : (List<?>) field.getValue()) {
+          putFieldValueQueryParam(fields, paramName, descriptor, value);
+        }
+      } else {
+        putFieldValueQueryParam(fields, paramName, descriptor, field.getValue());
+      }
+    }
+  }
+
+  private void putFieldValueQueryParam(
+      Map<String, List<String>> fields,
+      String paramName,
+      FieldDescriptor descriptor,
+      Object value) {
+    switch (descriptor.getType()) {
+      case MESSAGE:
+      case GROUP:
+        putMessageQueryParam(fields, paramName, (Message) value);
+        return;
+      case ENUM:
+        addQueryParam(fields, paramName, String.valueOf(((EnumValueDescriptor) value).getNumber()));
+        return;
+      case UINT32:
+      case FIXED32:
+        addQueryParam(fields, paramName, Integer.toUnsignedString((Integer) value));
+        return;
+      case UINT64:
+      case FIXED64:
+        addQueryParam(fields, paramName, Long.toUnsignedString((Long) value));
+        return;
+      case BYTES:
+        addQueryParam(
+            fields, paramName, BaseEncoding.base64().encode(((ByteString) value).toByteArray()));
+        return;
+      default:
+        // Strings, booleans, signed integers and floating point numbers, whose JSON text is
+        // their string representation. Non-finite numbers are printed as "NaN" and "Infinity".
+        addQueryParam(fields, paramName, String.valueOf(value));
+    }
+  }
+
+  private static boolean hasSpecialJsonForm(Message message) {
+    Descriptor descriptor = message.getDescriptorForType();
+    if (descriptor.getFile().getPackage().equals("google.protobuf")) {
+      return true;
+    }
+    for (FieldDescriptor field : descriptor.getFields()) {
+      if (field.isMapField()
+          || field.getType() == FieldDescriptor.Type.ENUM
+              && field.getEnumType().getFullName().equals("google.protobuf.NullValue")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void addQueryParam(
+      Map<String, List<String>> fields, String paramName, String value) {
+    List<String> paramValueList = fields.get(paramName);
+    if (paramValueList == null) {
+      paramValueList = new ArrayList<>();
+      fields.put(paramName, paramValueList);
+    }
+    paramValueList.add(value);
+  }
+
   /**
    * Puts a message field in {@code fields} map which will be used to populate query parameters of a
    * request.
@@ -153,9 +247,7 @@ public class ProtoRestSerializer<RequestT extends Message> {
         fieldValue instanceof List<?> ? (List<Object>) fieldValue : ImmutableList.of(fieldValue);
     for (Object fieldValueItem : toProcess) {
       if (fieldValueItem instanceof Message) {
-        String json = toJson(((Message) fieldValueItem), true);
-        JsonElement parsed = JsonParser.parseString(json);
-        putDecomposedMessageQueryParam(fields, fieldName, parsed);
+        putMessageQueryParam(fields, fieldName, (Message) fieldValueItem);
       } else {
         currentParamValueList.add(String.valueOf(fieldValueItem));
       }
@@ -189,4 +281,16 @@ public class ProtoRestSerializer<RequestT extends Message> {
   public String toBody(String fieldName, RequestT fieldValue, boolean numericEnum) {
     return toJson(fieldValue, numericEnum);
   }
+
+  private static final class JsonFormats {
+    private final Printer printer;
+    private final Printer numericEnumPrinter;
+    private final Parser parser;
+
+    private JsonFormats(TypeRegistry registry) {
+      printer = JsonFormat.printer().usingTypeRegistry(registry);
+      numericEnumPrinter = printer.printingEnumsAsInts();
+      parser = JsonFormat.parser().usingTypeRegistry(registry).ignoringUnknownFields();
+    }
+  }
 }
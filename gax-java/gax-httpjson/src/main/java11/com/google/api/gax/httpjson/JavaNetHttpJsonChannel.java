@@ -0,0 +1,219 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.httpjson;
+
+import java.lang.reflect.Method;
+import java.net.http.HttpClient;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * A {@link ManagedHttpJsonChannel} which sends its calls with the non-blocking {@link HttpClient}
+ * of the JDK. No thread waits for the response of a call, so a few threads serve thousands of
+ * concurrent calls.
+ *
+ * <p>The class requires Java 11, so it is only shipped in the versioned part of the multi-release
+ * jar and is created reflectively by {@link InstantiatingHttpJsonChannelProvider}.
+ *
+ * <p>After {@link #shutdown()}, new calls fail with {@code UNAVAILABLE}, and the channel terminates
+ * once the calls started before are closed. The HTTP client is then shut down on Java 21 and
+ * later, which closes its connections and stops its selector thread; on older runtimes they are
+ * released once the client is no longer referenced. The executor of the channel belongs to its
+ * provider, and is not shut down with the channel.
+ *
+ * <p>Package-private for internal use.
+ */
+final class JavaNetHttpJsonChannel extends ManagedHttpJsonChannel {
+  private final Executor executor;
+  private final String endpoint;
+  private final HttpClient httpClient;
+  private final ScheduledExecutorService deadlineScheduledExecutorService;
+
+  private final Object lock = new Object();
+
+  @GuardedBy("lock")
+  private final Set<JavaNetHttpJsonClientCall<?, ?>> activeCalls = new HashSet<>();
+
+  @GuardedBy("lock")
+  private boolean isTransportShutdown;
+
+  @GuardedBy("lock")
+  private boolean isTransportTerminated;
+
+  JavaNetHttpJsonChannel(Executor executor, String endpoint, @Nullable KeyStore mtlsKeyStore)
+      throws GeneralSecurityException {
+    super(executor, endpoint);
+    this.executor = executor;
+    this.endpoint = endpoint;
+    HttpClient.Builder httpClientBuilder = HttpClient.newBuilder().executor(executor);
+    if (mtlsKeyStore != null) {
+      httpClientBuilder.sslContext(createSslContext(mtlsKeyStore));
+    }
+    this.httpClient = httpClientBuilder.build();
+    this.deadlineScheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  private static SSLContext createSslContext(KeyStore mtlsKeyStore)
+      throws GeneralSecurityException {
+    KeyManagerFactory keyManagerFactory =
+        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keyManagerFactory.init(mtlsKeyStore, new char[0]);
+    SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+    return sslContext;
+  }
+
+  @Override
+  public <RequestT, ResponseT> HttpJsonClientCall<RequestT, ResponseT> newCall(
+      ApiMethodDescriptor<RequestT, ResponseT> methodDescriptor, HttpJsonCallOptions callOptions) {
+    return new JavaNetHttpJsonClientCall<>(
+        methodDescriptor,
+        endpoint,
+        callOptions,
+        httpClient,
+        executor,
+        deadlineScheduledExecutorService,
+        this);
+  }
+
+  /** Registers a call when it starts. Returns false if the channel is shut down. */
+  boolean callStarted(JavaNetHttpJsonClientCall<?, ?> call) {
+    synchronized (lock) {
+      if (isTransportShutdown) {
+        return false;
+      }
+      activeCalls.add(call);
+      return true;
+    }
+  }
+
+  /** Unregisters a call when it is closed. */
+  void callClosed(JavaNetHttpJsonClientCall<?, ?> call) {
+    synchronized (lock) {
+      if (activeCalls.remove(call)) {
+        maybeTerminate();
+      }
+    }
+  }
+
+  @GuardedBy("lock")
+  private void maybeTerminate() {
+    if (!isTransportShutdown || isTransportTerminated || !activeCalls.isEmpty()) {
+      return;
+    }
+    isTransportTerminated = true;
+    deadlineScheduledExecutorService.shutdown();
+    shutdownHttpClient();
+    lock.notifyAll();
+  }
+
+  // HttpClient.shutdown() only exists since Java 21, while the channel is compiled for Java 11.
+  private void shutdownHttpClient() {
+    try {
+      Method shutdown = HttpClient.class.getMethod("shutdown");
+      shutdown.invoke(httpClient);
+    } catch (NoSuchMethodException e) {
+      // The client is released once it is no longer referenced.
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to shut down the HTTP client", e);
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (lock) {
+      if (isTransportShutdown) {
+        return;
+      }
+      isTransportShutdown = true;
+      maybeTerminate();
+    }
+  }
+
+  @Override
+  public boolean isShutdown() {
+    synchronized (lock) {
+      return isTransportShutdown;
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    synchronized (lock) {
+      return isTransportTerminated && deadlineScheduledExecutorService.isTerminated();
+    }
+  }
+
+  @Override
+  public void shutdownNow() {
+    List<JavaNetHttpJsonClientCall<?, ?>> callsToCancel;
+    synchronized (lock) {
+      isTransportShutdown = true;
+      callsToCancel = new ArrayList<>(activeCalls);
+    }
+    // The calls are cancelled outside of the lock, as they unregister themselves under their own
+    // lock.
+    for (JavaNetHttpJsonClientCall<?, ?> call : callsToCancel) {
+      call.cancel("Channel shutdownNow invoked", null);
+    }
+    synchronized (lock) {
+      maybeTerminate();
+    }
+  }
+
+  @Override
+  public boolean awaitTermination(long duration, TimeUnit unit) throws InterruptedException {
+    long deadlineNanos = System.nanoTime() + unit.toNanos(duration);
+    synchronized (lock) {
+      long remainingNanos = deadlineNanos - System.nanoTime();
+      while (!isTransportTerminated) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+        remainingNanos = deadlineNanos - System.nanoTime();
+      }
+    }
+    return deadlineScheduledExecutorService.awaitTermination(
+        Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+}
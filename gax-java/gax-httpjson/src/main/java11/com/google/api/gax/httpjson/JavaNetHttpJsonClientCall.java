@@ -0,0 +1,599 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.httpjson;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.gax.httpjson.ApiMethodDescriptor.MethodType;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.auth.Credentials;
+import com.google.auth.RequestMetadataCallback;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * An implementation of {@link HttpJsonClientCall} on the non-blocking {@link HttpClient} of the
+ * JDK. It behaves as {@link HttpJsonClientCallImpl}, but instead of a thread which waits for the
+ * response and reads it, the response is pushed to the call chunk by chunk as it arrives. The
+ * messages of a server stream are split by a {@link ProtoMessageJsonStreamIterator}, and the next
+ * chunk of the stream is only requested while the listener has requested more messages than are
+ * buffered.
+ *
+ * <p>The listener is notified on the executor of the channel, one notification at a time and never
+ * under the lock of the call.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @param <RequestT> call request type
+ * @param <ResponseT> call response type
+ */
+final class JavaNetHttpJsonClientCall<RequestT, ResponseT>
+    extends HttpJsonClientCall<RequestT, ResponseT> {
+  // The headers which the HTTP client sets itself and refuses to take from the caller.
+  private static final Set<String> RESTRICTED_HEADERS =
+      ImmutableSet.of("connection", "content-length", "expect", "host", "upgrade");
+
+  private final Object lock = new Object();
+
+  private final ApiMethodDescriptor<RequestT, ResponseT> methodDescriptor;
+  private final String endpoint;
+  private final HttpJsonCallOptions callOptions;
+  private final HttpClient httpClient;
+  private final Executor executor;
+  private final ScheduledExecutorService deadlineCancellationExecutor;
+  private final JavaNetHttpJsonChannel channel;
+  // Runs the listener notifications one at a time, in the order they are scheduled.
+  private final Executor notificationExecutor;
+
+  @GuardedBy("lock")
+  private Listener<ResponseT> listener;
+
+  @GuardedBy("lock")
+  private HttpJsonMetadata requestHeaders;
+
+  @GuardedBy("lock")
+  private boolean requestSent;
+
+  @GuardedBy("lock")
+  private int pendingNumMessages;
+
+  @GuardedBy("lock")
+  private Future<?> deadlineFuture;
+
+  @GuardedBy("lock")
+  private CompletableFuture<?> responseFuture;
+
+  @GuardedBy("lock")
+  private Flow.Subscription subscription;
+
+  @GuardedBy("lock")
+  private boolean chunkRequested;
+
+  // The messages received from the server, but not yet requested by the listener.
+  @GuardedBy("lock")
+  private final Queue<ResponseT> receivedMessages = new ArrayDeque<>();
+
+  // Set once the response is received in full, to close the call with after the last message.
+  @GuardedBy("lock")
+  private int responseStatusCode;
+
+  @GuardedBy("lock")
+  private HttpJsonMetadata responseTrailers;
+
+  @GuardedBy("lock")
+  private boolean closed;
+
+  // Set when the call is closed before its response is processed in full, to drop the already
+  // scheduled notifications other than onClose().
+  private volatile boolean terminated;
+
+  JavaNetHttpJsonClientCall(
+      ApiMethodDescriptor<RequestT, ResponseT> methodDescriptor,
+      String endpoint,
+      HttpJsonCallOptions callOptions,
+      HttpClient httpClient,
+      Executor executor,
+      ScheduledExecutorService deadlineCancellationExecutor,
+      JavaNetHttpJsonChannel channel) {
+    this.methodDescriptor = methodDescriptor;
+    this.endpoint = endpoint;
+    this.callOptions = callOptions;
+    this.httpClient = httpClient;
+    this.executor = executor;
+    this.deadlineCancellationExecutor = deadlineCancellationExecutor;
+    this.channel = channel;
+    this.notificationExecutor = MoreExecutors.newSequentialExecutor(executor);
+  }
+
+  @Override
+  public void start(Listener<ResponseT> responseListener, HttpJsonMetadata requestHeaders) {
+    Preconditions.checkNotNull(responseListener);
+    Preconditions.checkNotNull(requestHeaders);
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      Preconditions.checkState(this.listener == null, "The call is already started");
+      this.listener = responseListener;
+      this.requestHeaders = requestHeaders;
+      if (!channel.callStarted(this)) {
+        int statusCode = StatusCode.Code.UNAVAILABLE.getHttpStatusCode();
+        close(
+            statusCode,
+            "The channel is shut down",
+            new HttpJsonStatusRuntimeException(statusCode, "The channel is shut down", null),
+            true);
+        return;
+      }
+
+      // Only schedule the deadline if the RPC timeout has been set in the RetrySettings
+      Duration timeout = callOptions.getTimeout();
+      if (timeout != null) {
+        deadlineFuture =
+            deadlineCancellationExecutor.schedule(
+                this::timeout, timeout.toMillis(), TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void timeout() {
+    synchronized (lock) {
+      close(
+          StatusCode.Code.DEADLINE_EXCEEDED.getHttpStatusCode(),
+          "Deadline exceeded",
+          new HttpJsonStatusRuntimeException(
+              StatusCode.Code.DEADLINE_EXCEEDED.getHttpStatusCode(), "Deadline exceeded", null),
+          true);
+    }
+  }
+
+  @Override
+  public void request(int numMessages) {
+    if (numMessages < 0) {
+      throw new IllegalArgumentException("numMessages must be non-negative");
+    }
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      pendingNumMessages += numMessages;
+      deliver();
+    }
+  }
+
+  @Override
+  public void cancel(@Nullable String message, @Nullable Throwable cause) {
+    Throwable actualCause = cause;
+    if (actualCause == null) {
+      actualCause = new CancellationException(message);
+    }
+    synchronized (lock) {
+      close(499, message, actualCause, true);
+    }
+  }
+
+  @Override
+  public void sendMessage(RequestT message) {
+    Preconditions.checkNotNull(message);
+    HttpJsonMetadata headers;
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      Preconditions.checkState(listener != null, "The call hasn't been started");
+      Preconditions.checkState(
+          !requestSent,
+          "The message has already been sent. Bidirectional streaming calls are not supported");
+      requestSent = true;
+      headers = requestHeaders;
+    }
+
+    HttpRequest.Builder httpRequestBuilder;
+    URI uri;
+    try {
+      GenericUrl url =
+          HttpRequestRunnable.createUrl(endpoint, methodDescriptor.getRequestFormatter(), message);
+      uri = url.toURI();
+      httpRequestBuilder = createHttpRequestBuilder(uri, message, headers);
+    } catch (RuntimeException | IOException e) {
+      onRequestFailure(e);
+      return;
+    }
+
+    Credentials credentials = callOptions.getCredentials();
+    if (credentials == null || !credentials.hasRequestMetadata()) {
+      send(httpRequestBuilder.build());
+      return;
+    }
+    credentials.getRequestMetadata(
+        uri,
+        executor,
+        new RequestMetadataCallback() {
+          @Override
+          public void onSuccess(Map<String, List<String>> metadata) {
+            for (Map.Entry<String, List<String>> entry : metadata.entrySet()) {
+              for (String value : entry.getValue()) {
+                httpRequestBuilder.header(entry.getKey(), value);
+              }
+            }
+            send(httpRequestBuilder.build());
+          }
+
+          @Override
+          public void onFailure(Throwable e) {
+            onRequestFailure(e);
+          }
+        });
+  }
+
+  @Override
+  public void halfClose() {
+    // no-op for now, as halfClose makes sense only for bidirectional streams.
+  }
+
+  private HttpRequest.Builder createHttpRequestBuilder(
+      URI uri, RequestT message, HttpJsonMetadata headers) throws IOException {
+    HttpRequest.Builder httpRequestBuilder = HttpRequest.newBuilder(uri);
+
+    // The body is already JSON, so it is sent as is. Unlike HttpURLConnection, the HTTP client
+    // supports PATCH, so there is no need to override the method with a header.
+    String requestBody = methodDescriptor.getRequestFormatter().getRequestBody(message);
+    BodyPublisher bodyPublisher;
+    if (!Strings.isNullOrEmpty(requestBody)) {
+      JsonBodyHttpContent content = new JsonBodyHttpContent(requestBody);
+      ByteArrayOutputStream encodedBody = new ByteArrayOutputStream((int) content.getLength());
+      content.writeTo(encodedBody);
+      bodyPublisher = BodyPublishers.ofByteArray(encodedBody.toByteArray());
+      httpRequestBuilder.header("Content-Type", content.getType());
+    } else {
+      bodyPublisher = BodyPublishers.noBody();
+    }
+    httpRequestBuilder.method(methodDescriptor.getHttpMethod(), bodyPublisher);
+
+    for (Map.Entry<String, Object> entry : headers.getHeaders().entrySet()) {
+      if (!RESTRICTED_HEADERS.contains(entry.getKey().toLowerCase(Locale.ROOT))) {
+        httpRequestBuilder.header(entry.getKey(), (String) entry.getValue());
+      }
+    }
+
+    Duration timeout = callOptions.getTimeout();
+    if (timeout != null) {
+      httpRequestBuilder.timeout(timeout);
+    }
+    return httpRequestBuilder;
+  }
+
+  private void send(HttpRequest httpRequest) {
+    CompletableFuture<?> future;
+    try {
+      future = httpClient.sendAsync(httpRequest, ResponseBodySubscriber::new);
+      future.whenComplete(
+          (response, e) -> {
+            if (e != null) {
+              onRequestFailure(e);
+            }
+          });
+    } catch (RuntimeException e) {
+      onRequestFailure(e);
+      return;
+    }
+    synchronized (lock) {
+      if (closed) {
+        future.cancel(true);
+        return;
+      }
+      responseFuture = future;
+    }
+  }
+
+  // The request could not be sent, or the response could not be received.
+  private void onRequestFailure(Throwable e) {
+    Throwable cause = e;
+    if (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    synchronized (lock) {
+      close(400, null, cause, true);
+    }
+  }
+
+  @GuardedBy("lock")
+  private void deliver() {
+    while (!closed && pendingNumMessages > 0 && !receivedMessages.isEmpty()) {
+      pendingNumMessages--;
+      ResponseT message = receivedMessages.poll();
+      notifyListener(listener -> listener.onMessage(message));
+    }
+    if (closed) {
+      return;
+    }
+    if (responseTrailers != null && receivedMessages.isEmpty()) {
+      close(responseStatusCode, responseTrailers.getStatusMessage(), null, false);
+    } else {
+      requestChunk();
+    }
+  }
+
+  // Requests the next chunk of a server stream while there are fewer buffered messages than the
+  // listener has requested. Other responses are requested in full when the response starts.
+  @GuardedBy("lock")
+  private void requestChunk() {
+    if (subscription != null
+        && !chunkRequested
+        && responseTrailers == null
+        && receivedMessages.size() <= pendingNumMessages) {
+      chunkRequested = true;
+      subscription.request(1);
+    }
+  }
+
+  @GuardedBy("lock")
+  private void notifyListener(Consumer<Listener<ResponseT>> notification) {
+    Listener<ResponseT> localListener = listener;
+    notificationExecutor.execute(
+        () -> {
+          if (terminated) {
+            return;
+          }
+          try {
+            notification.accept(localListener);
+          } catch (Throwable e) {
+            // Exceptions in message delivery result into cancellation of the call to stay
+            // consistent with other transport implementations.
+            HttpJsonStatusRuntimeException ex =
+                new HttpJsonStatusRuntimeException(499, "Exception in message delivery", e);
+            synchronized (lock) {
+              close(ex.getStatusCode(), ex.getMessage(), ex, true);
+            }
+          }
+        });
+  }
+
+  @GuardedBy("lock")
+  private void close(
+      int statusCode, String message, Throwable cause, boolean terminateImmediately) {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    channel.callClosed(this);
+    if (deadlineFuture != null) {
+      deadlineFuture.cancel(false);
+    }
+    if (terminateImmediately) {
+      // The response is not received in full, so its connection can not be reused.
+      terminated = true;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+      if (responseFuture != null) {
+        responseFuture.cancel(true);
+      }
+      receivedMessages.clear();
+    }
+
+    if (listener == null) {
+      return;
+    }
+    Listener<ResponseT> localListener = listener;
+    HttpJsonMetadata trailers =
+        HttpJsonMetadata.newBuilder().setStatusMessage(message).setException(cause).build();
+    notificationExecutor.execute(() -> localListener.onClose(statusCode, trailers));
+  }
+
+  /**
+   * Receives the body of the response. The body of a server stream is split into messages as it
+   * arrives, while other bodies are collected and parsed once received in full. Flow.Subscriber
+   * methods are called one at a time, so the state of the body is not guarded by the lock.
+   */
+  private final class ResponseBodySubscriber implements BodySubscriber<Void> {
+    private final CompletableFuture<Void> body = new CompletableFuture<>();
+    private final int statusCode;
+    private final HttpHeaders responseHeaders;
+    private final ProtoMessageJsonStreamIterator streamIterator;
+    private final ByteArrayOutputStream collectedBody;
+    private final WritableByteChannel collectedBodyChannel;
+
+    ResponseBodySubscriber(ResponseInfo responseInfo) {
+      statusCode = responseInfo.statusCode();
+      responseHeaders = new HttpHeaders();
+      for (Map.Entry<String, List<String>> header : responseInfo.headers().map().entrySet()) {
+        HttpHeadersUtils.setHeader(
+            responseHeaders, header.getKey(), String.join(",", header.getValue()));
+      }
+      if (isSuccessful() && methodDescriptor.getType() == MethodType.SERVER_STREAMING) {
+        streamIterator = new ProtoMessageJsonStreamIterator();
+        collectedBody = null;
+        collectedBodyChannel = null;
+      } else {
+        streamIterator = null;
+        collectedBody = new ByteArrayOutputStream();
+        collectedBodyChannel = Channels.newChannel(collectedBody);
+      }
+
+      synchronized (lock) {
+        if (!closed) {
+          HttpJsonMetadata headers =
+              HttpJsonMetadata.newBuilder().setHeaders(responseHeaders).build();
+          notifyListener(listener -> listener.onHeaders(headers));
+        }
+      }
+    }
+
+    private boolean isSuccessful() {
+      return statusCode >= 200 && statusCode < 300;
+    }
+
+    @Override
+    public CompletionStage<Void> getBody() {
+      return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      synchronized (lock) {
+        if (closed) {
+          subscription.cancel();
+          return;
+        }
+        if (streamIterator == null) {
+          subscription.request(Long.MAX_VALUE);
+        } else {
+          JavaNetHttpJsonClientCall.this.subscription = subscription;
+          requestChunk();
+        }
+      }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunk) {
+      try {
+        if (streamIterator == null) {
+          for (ByteBuffer buffer : chunk) {
+            collectedBodyChannel.write(buffer);
+          }
+          return;
+        }
+        List<ResponseT> messages = new ArrayList<>();
+        for (ByteBuffer buffer : chunk) {
+          streamIterator.append(buffer);
+          while (streamIterator.hasNext()) {
+            messages.add(parse(streamIterator.next()));
+          }
+        }
+        synchronized (lock) {
+          chunkRequested = false;
+          if (!closed) {
+            receivedMessages.addAll(messages);
+            deliver();
+          }
+        }
+      } catch (Throwable e) {
+        onResponseFailure(e);
+      }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+      onResponseFailure(e);
+    }
+
+    @Override
+    public void onComplete() {
+      try {
+        if (streamIterator != null) {
+          streamIterator.finish();
+          complete(null);
+        } else if (isSuccessful()) {
+          ResponseT message = parse(new ByteArrayInputStream(collectedBody.toByteArray()));
+          complete(message);
+        } else {
+          String content = new String(collectedBody.toByteArray(), StandardCharsets.UTF_8);
+          HttpResponseException exception =
+              new HttpResponseException.Builder(statusCode, null, responseHeaders)
+                  .setContent(content)
+                  .setMessage(statusCode + "\n" + content)
+                  .build();
+          synchronized (lock) {
+            close(statusCode, null, exception, false);
+          }
+        }
+        body.complete(null);
+      } catch (Throwable e) {
+        onResponseFailure(e);
+      }
+    }
+
+    private ResponseT parse(InputStream body) {
+      return methodDescriptor.getResponseParser().parse(body, callOptions.getTypeRegistry());
+    }
+
+    private ResponseT parse(Reader element) {
+      return methodDescriptor.getResponseParser().parse(element, callOptions.getTypeRegistry());
+    }
+
+    private void complete(@Nullable ResponseT message) {
+      synchronized (lock) {
+        if (message != null) {
+          receivedMessages.add(message);
+        }
+        responseStatusCode = statusCode;
+        responseTrailers = HttpJsonMetadata.newBuilder().build();
+        deliver();
+      }
+    }
+
+    private void onResponseFailure(Throwable e) {
+      synchronized (lock) {
+        close(statusCode, null, e, true);
+      }
+      body.completeExceptionally(e);
+    }
+  }
+}
@@ -181,6 +181,16 @@ public class HttpJsonCallContextTest {
     Truth.assertThat(ctx1.merge(ctx2).getTimeout()).isEqualTo(timeout);
   }
 
+  @Test
+  public void testMergeWithEmptyContext() {
+    HttpJsonCallContext ctx =
+        HttpJsonCallContext.createDefault()
+            .withChannel(Mockito.mock(HttpJsonChannel.class))
+            .withTimeout(Duration.ofSeconds(10));
+
+    Truth.assertThat(ctx.merge(HttpJsonCallContext.createDefault())).isSameInstanceAs(ctx);
+  }
+
   @Test
   public void testMergeWithTracer() {
     ApiTracer explicitTracer = Mockito.mock(ApiTracer.class);
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.httpjson;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.httpjson.ApiMethodDescriptor.MethodType;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.ClientContext;
+import com.google.api.gax.rpc.DeadlineExceededException;
+import com.google.api.gax.rpc.FixedHeaderProvider;
+import com.google.api.gax.rpc.ServerStream;
+import com.google.api.gax.rpc.ServerStreamingCallSettings;
+import com.google.api.gax.rpc.ServerStreamingCallable;
+import com.google.api.gax.rpc.StatusCode.Code;
+import com.google.api.gax.rpc.UnaryCallSettings;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.truth.Truth;
+import com.google.protobuf.Field;
+import com.google.type.Color;
+import com.google.type.Money;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+/**
+ * Tests the channel on the JDK HTTP client through {@link InstantiatingHttpJsonChannelProvider},
+ * against a local HTTP server.
+ */
+@RunWith(JUnit4.class)
+public class JavaNetHttpJsonClientCallTest {
+  private static final ApiMethodDescriptor<Color, Money> METHOD_ECHO =
+      createMethodDescriptor("POST", "/fake/v1/echo/{blue}", MethodType.UNARY);
+  private static final ApiMethodDescriptor<Color, Money> METHOD_PATCH =
+      createMethodDescriptor("PATCH", "/fake/v1/patch/{blue}", MethodType.UNARY);
+  private static final ApiMethodDescriptor<Color, Money> METHOD_SLOW =
+      createMethodDescriptor("POST", "/fake/v1/slow/{blue}", MethodType.UNARY);
+  private static final ApiMethodDescriptor<Color, Money> METHOD_ERROR =
+      createMethodDescriptor("POST", "/fake/v1/error/{blue}", MethodType.UNARY);
+  private static final ApiMethodDescriptor<Color, Money> METHOD_STREAM =
+      createMethodDescriptor("POST", "/fake/v1/stream/{blue}", MethodType.SERVER_STREAMING);
+
+  private static final Color REQUEST = Color.newBuilder().setRed(0.5f).setGreen(0.25f).build();
+  private static final int SLOW_RESPONSE_DELAY_MS = 500;
+
+  private static HttpServer server;
+  private static ScheduledExecutorService serverExecutor;
+  private static volatile RecordedRequest lastRequest;
+
+  private ScheduledExecutorService executor;
+  private HttpJsonTransportChannel transportChannel;
+  private ClientContext clientContext;
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    serverExecutor = Executors.newScheduledThreadPool(2);
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2048);
+    server.setExecutor(serverExecutor);
+    server.createContext("/fake/v1/", JavaNetHttpJsonClientCallTest::handle);
+    server.start();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    executor = Executors.newScheduledThreadPool(2);
+    InstantiatingHttpJsonChannelProvider channelProvider =
+        InstantiatingHttpJsonChannelProvider.newBuilder()
+            .setEndpoint("http://localhost:" + server.getAddress().getPort())
+            .setExecutor(executor)
+            .setHeaderProvider(FixedHeaderProvider.create("header-key", "headerValue"))
+            .setAsyncHttpClientEnabled(true)
+            .build();
+    try {
+      transportChannel = channelProvider.getTransportChannel();
+    } catch (IllegalStateException e) {
+      Assume.assumeNoException("The async HTTP client requires Java 11", e);
+    }
+    clientContext =
+        ClientContext.newBuilder()
+            .setExecutor(executor)
+            .setTransportChannel(transportChannel)
+            .setDefaultCallContext(
+                HttpJsonCallContext.of(
+                        transportChannel.getManagedChannel(), HttpJsonCallOptions.DEFAULT)
+                    .withTimeout(Duration.ofSeconds(30)))
+            .build();
+  }
+
+  @After
+  public void tearDown() {
+    if (transportChannel != null) {
+      transportChannel.shutdown();
+    }
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testUnaryCall() {
+    Money response =
+        createUnaryCallable(METHOD_ECHO).call(REQUEST.toBuilder().setBlue(127).build());
+
+    Truth.assertThat(response)
+        .isEqualTo(Money.newBuilder().setCurrencyCode("USD").setUnits(127).build());
+    RecordedRequest request = lastRequest;
+    Truth.assertThat(request.method).isEqualTo("POST");
+    Truth.assertThat(request.path).isEqualTo("/fake/v1/echo/127.0");
+    Truth.assertThat(request.query).isEqualTo("red=0.5");
+    Truth.assertThat(request.body).isEqualTo("{\"green\":0.25}");
+    Truth.assertThat(request.headerValue).isEqualTo("headerValue");
+  }
+
+  @Test
+  public void testPatchCall() {
+    createUnaryCallable(METHOD_PATCH).call(REQUEST);
+
+    // Unlike NetHttpTransport, the JDK HTTP client sends PATCH requests as they are.
+    RecordedRequest request = lastRequest;
+    Truth.assertThat(request.method).isEqualTo("PATCH");
+    Truth.assertThat(request.methodOverride).isNull();
+  }
+
+  @Test
+  public void testErrorResponse() {
+    try {
+      createUnaryCallable(METHOD_ERROR).call(REQUEST);
+      Assert.fail("Expected an exception");
+    } catch (ApiException e) {
+      Truth.assertThat(e.getStatusCode().getCode()).isEqualTo(Code.NOT_FOUND);
+      Truth.assertThat(e).hasMessageThat().contains("Resource not found");
+    }
+  }
+
+  @Test
+  public void testDeadlineExceeded() {
+    UnaryCallable<Color, Money> callable = createUnaryCallable(METHOD_SLOW);
+    try {
+      callable.call(
+          REQUEST, clientContext.getDefaultCallContext().withTimeout(Duration.ofMillis(100)));
+      Assert.fail("Expected an exception");
+    } catch (DeadlineExceededException expected) {
+    }
+  }
+
+  @Test
+  public void testServerStreaming() {
+    ServerStreamingCallable<Color, Money> callable =
+        HttpJsonCallableFactory.createServerStreamingCallable(
+            HttpJsonCallSettings.create(METHOD_STREAM),
+            ServerStreamingCallSettings.<Color, Money>newBuilder().build(),
+            clientContext);
+
+    ServerStream<Money> stream = callable.call(REQUEST.toBuilder().setBlue(3).build());
+
+    List<Money> expected = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      expected.add(Money.newBuilder().setCurrencyCode("€" + i).setUnits(i).build());
+    }
+    Truth.assertThat(Lists.newArrayList(stream)).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  @Test
+  public void testManyConcurrentCalls() throws InterruptedException, ExecutionException {
+    // Every call waits for its response for SLOW_RESPONSE_DELAY_MS, so blocking the two threads of
+    // the executor on the calls would take minutes.
+    int callCount = 1000;
+    UnaryCallable<Color, Money> callable = createUnaryCallable(METHOD_SLOW);
+    long startNanos = System.nanoTime();
+    List<ApiFuture<Money>> responses = new ArrayList<>();
+    for (int i = 0; i < callCount; i++) {
+      responses.add(callable.futureCall(REQUEST.toBuilder().setBlue(i).build()));
+    }
+    for (int i = 0; i < callCount; i++) {
+      Truth.assertThat(responses.get(i).get().getUnits()).isEqualTo(i);
+    }
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    Truth.assertThat(elapsedMs).isLessThan(callCount * SLOW_RESPONSE_DELAY_MS / 20);
+  }
+
+  @Test
+  public void testShutdownWaitsForStartedCalls() throws Exception {
+    ManagedHttpJsonChannel channel = transportChannel.getManagedChannel();
+    SettableApiFuture<Integer> slowCallStatus = startCall(channel, METHOD_SLOW);
+
+    channel.shutdown();
+    Truth.assertThat(channel.isShutdown()).isTrue();
+    Truth.assertThat(channel.isTerminated()).isFalse();
+    // Calls started after the shutdown fail, while the one started before completes.
+    Truth.assertThat(startCall(channel, METHOD_ECHO).get())
+        .isEqualTo(Code.UNAVAILABLE.getHttpStatusCode());
+    Truth.assertThat(slowCallStatus.get()).isEqualTo(200);
+    Truth.assertThat(channel.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    Truth.assertThat(channel.isTerminated()).isTrue();
+  }
+
+  @Test
+  public void testShutdownNowCancelsStartedCalls() throws Exception {
+    ManagedHttpJsonChannel channel = transportChannel.getManagedChannel();
+    SettableApiFuture<Integer> slowCallStatus = startCall(channel, METHOD_SLOW);
+
+    channel.shutdownNow();
+    Truth.assertThat(slowCallStatus.get()).isEqualTo(499);
+    Truth.assertThat(channel.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    Truth.assertThat(channel.isTerminated()).isTrue();
+  }
+
+  // Starts a call directly on the channel, and returns the status code it is closed with.
+  private static SettableApiFuture<Integer> startCall(
+      ManagedHttpJsonChannel channel, ApiMethodDescriptor<Color, Money> methodDescriptor) {
+    SettableApiFuture<Integer> closedStatus = SettableApiFuture.create();
+    HttpJsonClientCall<Color, Money> call =
+        channel.newCall(methodDescriptor, HttpJsonCallOptions.DEFAULT);
+    call.start(
+        new HttpJsonClientCall.Listener<Money>() {
+          @Override
+          public void onClose(int statusCode, HttpJsonMetadata trailers) {
+            closedStatus.set(statusCode);
+          }
+        },
+        HttpJsonMetadata.newBuilder().build());
+    call.request(1);
+    call.sendMessage(REQUEST);
+    return closedStatus;
+  }
+
+  private UnaryCallable<Color, Money> createUnaryCallable(
+      ApiMethodDescriptor<Color, Money> methodDescriptor) {
+    return HttpJsonCallableFactory.createUnaryCallable(
+        HttpJsonCallSettings.create(methodDescriptor),
+        UnaryCallSettings.<Color, Money>newUnaryCallSettingsBuilder().build(),
+        clientContext);
+  }
+
+  private static void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String[] segments = path.split("/");
+    String method = segments[3];
+    long units = (long) Float.parseFloat(segments[4]);
+    lastRequest =
+        new RecordedRequest(
+            exchange.getRequestMethod(),
+            path,
+            exchange.getRequestURI().getQuery(),
+            new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8),
+            exchange.getRequestHeaders().getFirst("header-key"),
+            exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override"));
+    switch (method) {
+      case "slow":
+        // The exchange is completed later, so the threads of the server are not blocked.
+        serverExecutor.schedule(
+            () -> respond(exchange, 200, money("USD", units)),
+            SLOW_RESPONSE_DELAY_MS,
+            TimeUnit.MILLISECONDS);
+        break;
+      case "error":
+        respond(
+            exchange,
+            404,
+            "{\"error\": {\"code\": 404, \"message\": \"Resource not found\", \"status\":"
+                + " \"NOT_FOUND\"}}");
+        break;
+      case "stream":
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream body = exchange.getResponseBody()) {
+          body.write('[');
+          for (int i = 0; i < units; i++) {
+            byte[] element = money("€" + i, i).getBytes(StandardCharsets.UTF_8);
+            // Splits each element, and its multi-byte character, between two chunks.
+            body.write(element, 0, 20);
+            body.flush();
+            body.write(element, 20, element.length - 20);
+            body.write(i < units - 1 ? ',' : ']');
+            body.flush();
+          }
+        }
+        break;
+      default:
+        respond(exchange, 200, money("USD", units));
+    }
+  }
+
+  private static void respond(HttpExchange exchange, int statusCode, String body) {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+      exchange.sendResponseHeaders(statusCode, bytes.length);
+      responseBody.write(bytes);
+    } catch (IOException e) {
+      // The client has gone away.
+    }
+  }
+
+  private static String money(String currencyCode, long units) {
+    return String.format("{\"currencyCode\": \"%s\", \"units\": \"%d\"}", currencyCode, units);
+  }
+
+  private static ApiMethodDescriptor<Color, Money> createMethodDescriptor(
+      String httpMethod, String path, MethodType methodType) {
+    return ApiMethodDescriptor.<Color, Money>newBuilder()
+        .setFullMethodName("google.cloud.v1.Fake/" + httpMethod + path)
+        .setHttpMethod(httpMethod)
+        .setRequestFormatter(
+            ProtoMessageRequestFormatter.<Color>newBuilder()
+                .setPath(
+                    path,
+                    request -> {
+                      Map<String, String> fields = new HashMap<>();
+                      ProtoRestSerializer<Field> serializer = ProtoRestSerializer.create();
+                      serializer.putPathParam(fields, "blue", request.getBlue());
+                      return fields;
+                    })
+                .setQueryParamsExtractor(
+                    request -> {
+                      Map<String, List<String>> fields = new HashMap<>();
+                      ProtoRestSerializer<Field> serializer = ProtoRestSerializer.create();
+                      serializer.putQueryParam(fields, "red", request.getRed());
+                      return fields;
+                    })
+                .setRequestBodyExtractor(
+                    request ->
+                        ProtoRestSerializer.create()
+                            .toBody("*", request.toBuilder().clearBlue().clearRed().build(), false))
+                .build())
+        .setResponseParser(
+            ProtoMessageResponseParser.<Money>newBuilder()
+                .setDefaultInstance(Money.getDefaultInstance())
+                .build())
+        .setType(methodType)
+        .build();
+  }
+
+  private static final class RecordedRequest {
+    private final String method;
+    private final String path;
+    private final String query;
+    private final String body;
+    private final String headerValue;
+    private final String methodOverride;
+
+    private RecordedRequest(
+        String method,
+        String path,
+        String query,
+        String body,
+        String headerValue,
+        String methodOverride) {
+      this.method = method;
+      this.path = path;
+      this.query = query;
+      this.body = body;
+      this.headerValue = headerValue;
+      this.methodOverride = methodOverride;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.httpjson;
+
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpMediaType;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.GenericData;
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.Field;
+import com.google.protobuf.Option;
+import com.google.protobuf.Type;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares sending a JSON request body with {@link JsonBodyHttpContent} against parsing it into a
+ * {@link GenericData} and sending it with {@link JsonHttpContent}, as {@link HttpRequestRunnable}
+ * used to. Both start from the body printed by {@link ProtoRestSerializer}, and both compute the
+ * content length and write the content once, like the HTTP transport does.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Pbenchmark} in the gax-httpjson module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBodyHttpContentBenchmark {
+  private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+
+  // The number of fields of the request message, which has about 200 bytes of JSON per field.
+  @Param({"1", "100", "10000"})
+  private int fieldCount;
+
+  private String requestBody;
+
+  @Setup
+  public void setUp() {
+    Type.Builder message = Type.newBuilder().setName("projects/my-project/types/my-type");
+    for (int i = 0; i < fieldCount; i++) {
+      message.addFields(
+          Field.newBuilder()
+              .setName("field_" + i)
+              .setJsonName("field" + i)
+              .setNumber(i + 1)
+              .setKind(Field.Kind.TYPE_STRING)
+              .setDefaultValue("default value ☺ " + i)
+              .addOptions(Option.newBuilder().setName("deprecated")));
+    }
+    requestBody = ProtoRestSerializer.<Type>create().toBody("*", message.build(), false);
+  }
+
+  @Benchmark
+  public long jsonBodyHttpContent() throws IOException {
+    return send(new JsonBodyHttpContent(requestBody));
+  }
+
+  @Benchmark
+  public long genericDataJsonHttpContent() throws IOException {
+    GenericData tokenRequest = new GenericData();
+    JSON_FACTORY.createJsonParser(requestBody).parse(tokenRequest);
+    return send(
+        new JsonHttpContent(JSON_FACTORY, tokenRequest)
+            .setMediaType(new HttpMediaType("application/json; charset=utf-8")));
+  }
+
+  private static long send(HttpContent content) throws IOException {
+    long length = content.getLength();
+    content.writeTo(ByteStreams.nullOutputStream());
+    return length;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.httpjson;
+
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.GenericData;
+import com.google.common.truth.Truth;
+import com.google.gson.JsonParser;
+import com.google.protobuf.Field;
+import com.google.protobuf.Option;
+import com.google.protobuf.Type;
+import com.google.protobuf.util.JsonFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class JsonBodyHttpContentTest {
+  private static final Type MESSAGE =
+      Type.newBuilder()
+          .setName("types/\"quoted\" \\ name with spaces")
+          .addFields(
+              Field.newBuilder()
+                  .setName("feline ☺ → ←")
+                  .setNumber(2)
+                  .setDefaultValue("emoji 😺, tab\t, newline\n")
+                  .addOptions(Option.newBuilder().setName("{ \"not\": [\"json\"] }")))
+          .addFields(Field.newBuilder().setName("").setNumber(Integer.MAX_VALUE))
+          .build();
+
+  @Test
+  public void writeTo_sameJsonAsJsonHttpContent() throws IOException {
+    String requestBody = ProtoRestSerializer.<Type>create().toBody("*", MESSAGE, false);
+
+    JsonFactory jsonFactory = GsonFactory.getDefaultInstance();
+    GenericData tokenRequest = new GenericData();
+    jsonFactory.createJsonParser(requestBody).parse(tokenRequest);
+    String expected = write(new JsonHttpContent(jsonFactory, tokenRequest));
+    String actual = write(new JsonBodyHttpContent(requestBody));
+
+    Truth.assertThat(JsonParser.parseString(actual)).isEqualTo(JsonParser.parseString(expected));
+    Type.Builder parsed = Type.newBuilder();
+    JsonFormat.parser().merge(actual, parsed);
+    Truth.assertThat(parsed.build()).isEqualTo(MESSAGE);
+  }
+
+  @Test
+  public void writeTo_dropsWhitespaceBetweenTokensOnly() throws IOException {
+    JsonBodyHttpContent content =
+        new JsonBodyHttpContent("{\n  \"a b\": [ 1,\t2 ],\r\n  \"c\": \"\\\" d \\\\\" }");
+
+    Truth.assertThat(write(content)).isEqualTo("{\"a b\":[1,2],\"c\":\"\\\" d \\\\\"}");
+  }
+
+  @Test
+  public void getLength_isLengthOfWrittenUtf8() throws IOException {
+    JsonBodyHttpContent content = new JsonBodyHttpContent("{\"a\": \"☺ 😺 é\"}");
+
+    String written = write(content);
+    Truth.assertThat(written).isEqualTo("{\"a\":\"☺ 😺 é\"}");
+    Truth.assertThat(content.getLength())
+        .isEqualTo(written.getBytes(StandardCharsets.UTF_8).length);
+    Truth.assertThat(content.getType()).isEqualTo("application/json; charset=utf-8");
+    Truth.assertThat(content.retrySupported()).isTrue();
+    // The content can be written again, e.g. for a retry.
+    Truth.assertThat(write(content)).isEqualTo(written);
+  }
+
+  private static String write(HttpContent content) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    content.writeTo(out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
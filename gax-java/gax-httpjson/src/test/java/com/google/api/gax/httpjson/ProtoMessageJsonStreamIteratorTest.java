@@ -30,13 +30,23 @@
 
 package com.google.api.gax.httpjson;
 
+import com.google.common.base.Strings;
+import com.google.common.io.CharStreams;
 import com.google.common.truth.Truth;
+import com.google.gson.stream.MalformedJsonException;
 import com.google.protobuf.Field;
 import com.google.protobuf.Int64Value;
 import com.google.protobuf.Option;
 import com.google.protobuf.util.JsonFormat;
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class ProtoMessageJsonStreamIteratorTest {
@@ -235,4 +245,120 @@ public class ProtoMessageJsonStreamIteratorTest {
 
     streamIter.close();
   }
+
+  @Test
+  public void testPrimitiveElements() throws IOException {
+    String jsonData = "[ 1,-2.5e3 ,true,\nnull, \"a\\\"],[{\" ,{}, [[], {\"a\": [1]}]\t]";
+
+    ProtoMessageJsonStreamIterator streamIter =
+        new ProtoMessageJsonStreamIterator(new StringReader(jsonData));
+
+    List<String> elements = new ArrayList<>();
+    while (streamIter.hasNext()) {
+      elements.add(CharStreams.toString(streamIter.next()));
+    }
+    Truth.assertThat(elements)
+        .containsExactly("1", "-2.5e3", "true", "null", "\"a\\\"],[{\"", "{}", "[[], {\"a\": [1]}]")
+        .inOrder();
+
+    streamIter.close();
+  }
+
+  @Test
+  public void testElementsLargerThanBuffer() throws IOException {
+    List<Field> expectedData = new ArrayList<>();
+    StringBuilder jsonData = new StringBuilder("[");
+    for (int i = 0; i < 20; i++) {
+      Field field =
+          Field.newBuilder()
+              .setName(Strings.repeat("name\"{[", i * 1000))
+              .addOptions(Option.newBuilder().setName("option" + i))
+              .setNumber(i)
+              .build();
+      expectedData.add(field);
+      jsonData.append(i == 0 ? "" : ",").append(JsonFormat.printer().print(field));
+    }
+    jsonData.append("]");
+
+    // Reads a few characters at a time, so that elements span many reads.
+    Reader rawReader =
+        new FilterReader(new StringReader(jsonData.toString())) {
+          @Override
+          public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, 7));
+          }
+        };
+    ProtoMessageJsonStreamIterator streamIter = new ProtoMessageJsonStreamIterator(rawReader);
+
+    List<Field> actualData = new ArrayList<>();
+    boolean hasNext = streamIter.hasNext();
+    while (hasNext) {
+      Reader element = streamIter.next();
+      // The next element is looked for before the last one is parsed, as the call does.
+      hasNext = streamIter.hasNext();
+      Field.Builder builder = Field.newBuilder();
+      JsonFormat.parser().merge(element, builder);
+      actualData.add(builder.build());
+    }
+    Truth.assertThat(actualData).containsExactlyElementsIn(expectedData).inOrder();
+
+    streamIter.close();
+  }
+
+  @Test
+  public void testMalformedStream() {
+    for (String jsonData : new String[] {"{}", "[1 2]", "[{\"name\": \"cat\"", "[1,]", "[1"}) {
+      ProtoMessageJsonStreamIterator streamIter =
+          new ProtoMessageJsonStreamIterator(new StringReader(jsonData));
+      try {
+        while (streamIter.hasNext()) {
+          streamIter.next();
+        }
+        Assert.fail("Expected a RestSerializationException for " + jsonData);
+      } catch (RestSerializationException e) {
+        Truth.assertThat(e).hasCauseThat().isInstanceOf(MalformedJsonException.class);
+      }
+    }
+  }
+
+  @Test
+  public void testAppendedChunks() throws IOException {
+    String jsonData =
+        "[{\"name\": \"\u00e9\u20ac\ud83d\ude00\"}, 12345, {\"a\": [\"b\\\"]\"]}, \"c\"]";
+
+    List<String> expected = iterateChunks(jsonData, 1000);
+    Truth.assertThat(expected)
+        .containsExactly(
+            "{\"name\": \"\u00e9\u20ac\ud83d\ude00\"}", "12345", "{\"a\": [\"b\\\"]\"]}", "\"c\"")
+        .inOrder();
+    // Splits the multi-byte characters between chunks too.
+    for (int chunkSize = 1; chunkSize < 10; chunkSize++) {
+      Truth.assertThat(iterateChunks(jsonData, chunkSize)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testMalformedAppendedChunks() throws IOException {
+    for (String jsonData : new String[] {"{}", "[{}{}]", "[{},]", "[,{}]", "[{}}]", "[{}", "[1"}) {
+      try {
+        iterateChunks(jsonData, 1);
+        Assert.fail("Expected an exception for " + jsonData);
+      } catch (MalformedJsonException | RestSerializationException expected) {
+      }
+    }
+  }
+
+  private static List<String> iterateChunks(String jsonData, int chunkSize) throws IOException {
+    byte[] bytes = jsonData.getBytes(StandardCharsets.UTF_8);
+    ProtoMessageJsonStreamIterator streamIter = new ProtoMessageJsonStreamIterator();
+    List<String> elements = new ArrayList<>();
+    for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+      streamIter.append(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+      while (streamIter.hasNext()) {
+        elements.add(CharStreams.toString(streamIter.next()));
+      }
+    }
+    streamIter.finish();
+    return elements;
+  }
 }
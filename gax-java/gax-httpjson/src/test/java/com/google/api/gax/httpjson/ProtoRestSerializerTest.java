@@ -31,19 +31,37 @@
 package com.google.api.gax.httpjson;
 
 import com.google.common.truth.Truth;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.DescriptorValidationException;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
 import com.google.protobuf.Duration;
+import com.google.protobuf.DynamicMessage;
 import com.google.protobuf.Field;
 import com.google.protobuf.Field.Cardinality;
 import com.google.protobuf.FieldMask;
 import com.google.protobuf.FloatValue;
 import com.google.protobuf.Int32Value;
+import com.google.protobuf.Message;
 import com.google.protobuf.Option;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.TypeRegistry;
+import com.google.rpc.ErrorInfo;
 import com.google.rpc.RetryInfo;
+import com.google.rpc.Status;
 import com.google.type.Interval;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -278,4 +296,170 @@ public class ProtoRestSerializerTest {
     String body = requestSerializer.toBody("bodyField1", field, false);
     Truth.assertThat(body).isEqualTo(fieldJson);
   }
+
+  @Test
+  public void putQueryParamAllFieldTypes_sameAsJsonForm() throws Exception {
+    Descriptor descriptor = createAllTypesDescriptor();
+    Descriptor nestedDescriptor = descriptor.findNestedTypeByName("Nested");
+    DynamicMessage.Builder message = DynamicMessage.newBuilder(descriptor);
+    setField(message, "int32_field", -1);
+    setField(message, "int64_field", Long.MIN_VALUE);
+    setField(message, "uint32_field", -1);
+    setField(message, "uint64_field", -1L);
+    setField(message, "sint32_field", Integer.MIN_VALUE);
+    setField(message, "sint64_field", Long.MAX_VALUE);
+    setField(message, "fixed32_field", Integer.MIN_VALUE);
+    setField(message, "fixed64_field", Long.MIN_VALUE);
+    setField(message, "sfixed32_field", 7);
+    setField(message, "sfixed64_field", -7L);
+    setField(message, "float_field", 0.1f);
+    setField(message, "double_field", 1e20);
+    setField(message, "bool_field", true);
+    setField(message, "string_field", "a \"string\" ☺");
+    setField(message, "bytes_field", ByteString.copyFrom(new byte[] {0, -1, 2, 3}));
+    setField(message, "enum_field", descriptor.findEnumTypeByName("Color").findValueByNumber(2));
+    FieldDescriptor repeatedDoubleField = descriptor.findFieldByName("repeated_double_field");
+    message.addRepeatedField(repeatedDoubleField, Double.NaN);
+    message.addRepeatedField(repeatedDoubleField, Double.NEGATIVE_INFINITY);
+    message.addRepeatedField(repeatedDoubleField, 0.0);
+    FieldDescriptor nestedField = descriptor.findFieldByName("nested_field");
+    for (String name : Arrays.asList("first", "second")) {
+      DynamicMessage.Builder nested = DynamicMessage.newBuilder(nestedDescriptor);
+      setField(nested, "name", name);
+      setField(nested, "duration", Duration.newBuilder().setSeconds(3).build());
+      message.addRepeatedField(nestedField, nested.build());
+    }
+    message.addRepeatedField(nestedField, DynamicMessage.newBuilder(nestedDescriptor).build());
+
+    assertQueryParamsSameAsJsonForm(message.build());
+  }
+
+  @Test
+  public void putQueryParamMessages_sameAsJsonForm() {
+    assertQueryParamsSameAsJsonForm(field);
+    assertQueryParamsSameAsJsonForm(Field.getDefaultInstance());
+    assertQueryParamsSameAsJsonForm(
+        RetryInfo.newBuilder()
+            .setRetryDelay(Duration.newBuilder().setSeconds(1).setNanos(1))
+            .build());
+    assertQueryParamsSameAsJsonForm(
+        Interval.newBuilder().setStartTime(Timestamp.newBuilder().setSeconds(1)).build());
+    assertQueryParamsSameAsJsonForm(
+        Status.newBuilder()
+            .setCode(3)
+            .setMessage("message")
+            .addDetails(Any.pack(Duration.newBuilder().setSeconds(1).build()))
+            .build());
+    assertQueryParamsSameAsJsonForm(
+        ErrorInfo.newBuilder().setReason("reason").putMetadata("key", "value").build());
+  }
+
+  // Flattens the message through its JSON form, as putQueryParam used to.
+  private void assertQueryParamsSameAsJsonForm(Message message) {
+    Map<String, List<String>> expectedFields = new HashMap<>();
+    putJsonQueryParam(
+        expectedFields, "object", JsonParser.parseString(requestSerializer.toJson(message, true)));
+
+    Map<String, List<String>> fields = new HashMap<>();
+    requestSerializer.putQueryParam(fields, "object", message);
+
+    Truth.assertThat(fields).isEqualTo(expectedFields);
+  }
+
+  private static void putJsonQueryParam(
+      Map<String, List<String>> fields, String fieldName, JsonElement parsed) {
+    if (parsed.isJsonPrimitive()) {
+      fields.computeIfAbsent(fieldName, k -> new ArrayList<>()).add(parsed.getAsString());
+    } else if (parsed.isJsonArray()) {
+      for (JsonElement element : parsed.getAsJsonArray()) {
+        putJsonQueryParam(fields, fieldName, element);
+      }
+    } else {
+      for (String key : parsed.getAsJsonObject().keySet()) {
+        putJsonQueryParam(fields, fieldName + "." + key, parsed.getAsJsonObject().get(key));
+      }
+    }
+  }
+
+  private static void setField(DynamicMessage.Builder message, String fieldName, Object value) {
+    message.setField(message.getDescriptorForType().findFieldByName(fieldName), value);
+  }
+
+  private static Descriptor createAllTypesDescriptor() throws DescriptorValidationException {
+    DescriptorProto.Builder allTypes = DescriptorProto.newBuilder().setName("AllTypes");
+    Object[][] scalarFields = {
+      {"int32_field", FieldDescriptorProto.Type.TYPE_INT32},
+      {"int64_field", FieldDescriptorProto.Type.TYPE_INT64},
+      {"uint32_field", FieldDescriptorProto.Type.TYPE_UINT32},
+      {"uint64_field", FieldDescriptorProto.Type.TYPE_UINT64},
+      {"sint32_field", FieldDescriptorProto.Type.TYPE_SINT32},
+      {"sint64_field", FieldDescriptorProto.Type.TYPE_SINT64},
+      {"fixed32_field", FieldDescriptorProto.Type.TYPE_FIXED32},
+      {"fixed64_field", FieldDescriptorProto.Type.TYPE_FIXED64},
+      {"sfixed32_field", FieldDescriptorProto.Type.TYPE_SFIXED32},
+      {"sfixed64_field", FieldDescriptorProto.Type.TYPE_SFIXED64},
+      {"float_field", FieldDescriptorProto.Type.TYPE_FLOAT},
+      {"double_field", FieldDescriptorProto.Type.TYPE_DOUBLE},
+      {"bool_field", FieldDescriptorProto.Type.TYPE_BOOL},
+      {"string_field", FieldDescriptorProto.Type.TYPE_STRING},
+      {"bytes_field", FieldDescriptorProto.Type.TYPE_BYTES},
+    };
+    for (Object[] scalarField : scalarFields) {
+      allTypes.addField(
+          FieldDescriptorProto.newBuilder()
+              .setName((String) scalarField[0])
+              .setNumber(allTypes.getFieldCount() + 1)
+              .setType((FieldDescriptorProto.Type) scalarField[1]));
+    }
+    allTypes
+        .addField(
+            FieldDescriptorProto.newBuilder()
+                .setName("enum_field")
+                .setNumber(allTypes.getFieldCount() + 1)
+                .setType(FieldDescriptorProto.Type.TYPE_ENUM)
+                .setTypeName(".test.AllTypes.Color"))
+        .addField(
+            FieldDescriptorProto.newBuilder()
+                .setName("repeated_double_field")
+                .setNumber(allTypes.getFieldCount() + 2)
+                .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)
+                .setType(FieldDescriptorProto.Type.TYPE_DOUBLE))
+        .addField(
+            FieldDescriptorProto.newBuilder()
+                .setName("nested_field")
+                .setNumber(allTypes.getFieldCount() + 3)
+                .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)
+                .setType(FieldDescriptorProto.Type.TYPE_MESSAGE)
+                .setTypeName(".test.AllTypes.Nested"))
+        .addEnumType(
+            EnumDescriptorProto.newBuilder()
+                .setName("Color")
+                .addValue(EnumValueDescriptorProto.newBuilder().setName("UNKNOWN").setNumber(0))
+                .addValue(EnumValueDescriptorProto.newBuilder().setName("RED").setNumber(1))
+                .addValue(EnumValueDescriptorProto.newBuilder().setName("BLUE").setNumber(2)))
+        .addNestedType(
+            DescriptorProto.newBuilder()
+                .setName("Nested")
+                .addField(
+                    FieldDescriptorProto.newBuilder()
+                        .setName("name")
+                        .setNumber(1)
+                        .setType(FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(
+                    FieldDescriptorProto.newBuilder()
+                        .setName("duration")
+                        .setNumber(2)
+                        .setType(FieldDescriptorProto.Type.TYPE_MESSAGE)
+                        .setTypeName(".google.protobuf.Duration")));
+    FileDescriptorProto file =
+        FileDescriptorProto.newBuilder()
+            .setName("test/all_types.proto")
+            .setPackage("test")
+            .setSyntax("proto3")
+            .addDependency("google/protobuf/duration.proto")
+            .addMessageType(allTypes)
+            .build();
+    return FileDescriptor.buildFrom(file, new FileDescriptor[] {Duration.getDescriptor().getFile()})
+        .findMessageTypeByName("AllTypes");
+  }
 }
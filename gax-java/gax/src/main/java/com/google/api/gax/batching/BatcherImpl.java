@@ -52,12 +52,15 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -66,7 +69,12 @@ import javax.annotation.Nullable;
  * Queues up the elements until {@link #flush()} is called; once batching is over, returned future
  * resolves.
  *
- * <p>This class is not thread-safe, and expects to be used from a single thread.
+ * <p>Elements can be added from multiple threads. They are accumulated in a lock-free queue, and
+ * drained into batches by a single thread at a time. An element which reaches a threshold while
+ * another thread is draining is left to that thread, so adding an element never waits for another
+ * thread that is adding or sending elements. The elements added by a single thread are sent in the
+ * order in which they were added. The other methods, and closing the batcher while elements are
+ * being added, expect to be used from a single thread.
  *
  * @param <ElementT> The type of each individual element to be batched.
  * @param <ElementResultT> The type of the result for each individual element.
@@ -85,13 +93,20 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
   private final BatchingSettings batchingSettings;
   private final BatcherReference currentBatcherReference;
 
-  private Batch<ElementT, ElementResultT, RequestT, ResponseT> currentOpenBatch;
+  private final ConcurrentLinkedQueue<PendingElement<ElementT, ElementResultT>> pendingElements =
+      new ConcurrentLinkedQueue<>();
+  private final AtomicLong pendingElementCount = new AtomicLong(0);
+  private final AtomicLong pendingByteCount = new AtomicLong(0);
+  private final long elementThreshold;
+  private final long bytesThreshold;
   private final AtomicInteger numOfOutstandingBatches = new AtomicInteger(0);
   private final Object flushLock = new Object();
-  private final Object elementLock = new Object();
+  // Held by the only thread draining the pending elements into batches. add() only tries to take
+  // it, and the thread holding it checks the thresholds again after releasing it.
+  private final ReentrantLock drainLock = new ReentrantLock();
   private final Future<?> scheduledFuture;
   private SettableApiFuture<Void> closeFuture;
-  private final BatcherStats batcherStats = new BatcherStats();
+  private final BatcherStats batcherStats;
   private final FlowController flowController;
   private final ApiCallContext callContext;
 
@@ -163,6 +178,28 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
       @Nullable FlowController flowController,
       @Nullable ApiCallContext callContext) {
 
+    this(
+        batchingDescriptor,
+        unaryCallable,
+        prototype,
+        batchingSettings,
+        executor,
+        flowController,
+        callContext,
+        new BatcherStats());
+  }
+
+  /** Creates a batcher which records its failures in the given stats, which can be shared. */
+  BatcherImpl(
+      BatchingDescriptor<ElementT, ElementResultT, RequestT, ResponseT> batchingDescriptor,
+      UnaryCallable<RequestT, ResponseT> unaryCallable,
+      RequestT prototype,
+      BatchingSettings batchingSettings,
+      ScheduledExecutorService executor,
+      @Nullable FlowController flowController,
+      @Nullable ApiCallContext callContext,
+      BatcherStats batcherStats) {
+
     this.batchingDescriptor =
         Preconditions.checkNotNull(batchingDescriptor, "batching descriptor cannot be null");
     this.unaryCallable = Preconditions.checkNotNull(unaryCallable, "callable cannot be null");
@@ -192,7 +229,10 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
               + "#maxOutstandingRequestBytes must be greater or equal to requestByteThreshold");
     }
     this.flowController = flowController;
-    currentOpenBatch = new Batch<>(prototype, batchingDescriptor, batchingSettings, batcherStats);
+    Long elementCountThreshold = batchingSettings.getElementCountThreshold();
+    this.elementThreshold = elementCountThreshold == null ? 0 : elementCountThreshold;
+    Long requestByteThreshold = batchingSettings.getRequestByteThreshold();
+    this.bytesThreshold = requestByteThreshold == null ? 0 : requestByteThreshold;
     if (batchingSettings.getDelayThreshold() != null) {
       long delay = batchingSettings.getDelayThreshold().toMillis();
       PushCurrentBatchRunnable<ElementT, ElementResultT, RequestT, ResponseT> runnable =
@@ -204,6 +244,7 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
     }
     currentBatcherReference = new BatcherReference(this);
     this.callContext = callContext;
+    this.batcherStats = batcherStats;
   }
 
   /** {@inheritDoc} */
@@ -240,13 +281,12 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
     long throttledTimeMs = stopwatch.elapsed(TimeUnit.MILLISECONDS);
 
     SettableApiFuture<ElementResultT> result = SettableApiFuture.create();
-    synchronized (elementLock) {
-      currentOpenBatch.add(element, result, throttledTimeMs);
-    }
+    pendingElements.add(new PendingElement<>(element, result, bytesSize, throttledTimeMs));
 
-    if (currentOpenBatch.hasAnyThresholdReached()) {
-      sendOutstanding();
-    }
+    // The counters are only a trigger; the batches are cut by the drain in sendOutstanding().
+    pendingElementCount.incrementAndGet();
+    pendingByteCount.addAndGet(bytesSize);
+    drainIfThresholdReached();
     return result;
   }
 
@@ -260,16 +300,69 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
   /** {@inheritDoc} */
   @Override
   public void sendOutstanding() {
-    final Batch<ElementT, ElementResultT, RequestT, ResponseT> accumulatedBatch;
+    // Unlike add(), waits for the thread draining, so that every element added before the call has
+    // been sent when it returns, as flush() and closeAsync() expect.
+    drainLock.lock();
+    try {
+      drainPendingElements();
+    } finally {
+      drainLock.unlock();
+    }
+    drainIfThresholdReached();
+  }
 
-    synchronized (elementLock) {
-      if (currentOpenBatch.isEmpty()) {
-        return;
+  /**
+   * Drains the pending elements if a threshold is reached and no other thread is draining them.
+   *
+   * <p>A thread which fails to take the lock leaves its elements to the thread holding it, which
+   * checks the thresholds again once it released the lock. Either the failing thread sees the lock
+   * released, or the holder sees the elements, so no element is left behind.
+   */
+  private void drainIfThresholdReached() {
+    while (isAnyThresholdReached() && drainLock.tryLock()) {
+      try {
+        drainPendingElements();
+      } finally {
+        drainLock.unlock();
+      }
+    }
+  }
+
+  private boolean isAnyThresholdReached() {
+    return !pendingElements.isEmpty()
+        && (pendingElementCount.get() >= elementThreshold
+            || pendingByteCount.get() >= bytesThreshold);
+  }
+
+  /**
+   * Sends the pending elements in batches cut at the thresholds. Must be called with the drain lock
+   * held: the batches are sent while holding it, so that the elements added by one thread are sent
+   * in order.
+   */
+  private void drainPendingElements() {
+    Batch<ElementT, ElementResultT, RequestT, ResponseT> batch = null;
+    PendingElement<ElementT, ElementResultT> pending;
+    while ((pending = pendingElements.poll()) != null) {
+      pendingElementCount.decrementAndGet();
+      pendingByteCount.addAndGet(-pending.byteSize);
+      if (batch == null) {
+        batch =
+            new Batch<>(
+                prototype, batchingDescriptor, elementThreshold, bytesThreshold, batcherStats);
+      }
+      batch.add(pending.element, pending.result, pending.byteSize, pending.throttledTimeMs);
+      if (batch.hasAnyThresholdReached()) {
+        sendBatch(batch);
+        batch = null;
       }
-      accumulatedBatch = currentOpenBatch;
-      currentOpenBatch = new Batch<>(prototype, batchingDescriptor, batchingSettings, batcherStats);
     }
+    if (batch != null) {
+      sendBatch(batch);
+    }
+  }
 
+  private void sendBatch(
+      final Batch<ElementT, ElementResultT, RequestT, ResponseT> accumulatedBatch) {
     // This check is for old clients that instantiated the batcher without ApiCallContext
     ApiCallContext callContextWithOption = null;
     if (callContext != null) {
@@ -423,23 +516,26 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
     private Batch(
         RequestT prototype,
         BatchingDescriptor<ElementT, ElementResultT, RequestT, ResponseT> descriptor,
-        BatchingSettings batchingSettings,
+        long elementThreshold,
+        long bytesThreshold,
         BatcherStats batcherStats) {
       this.descriptor = descriptor;
       this.builder = descriptor.newRequestBuilder(prototype);
       this.entries = new ArrayList<>();
-      Long elementCountThreshold = batchingSettings.getElementCountThreshold();
-      this.elementThreshold = elementCountThreshold == null ? 0 : elementCountThreshold;
-      Long requestByteThreshold = batchingSettings.getRequestByteThreshold();
-      this.bytesThreshold = requestByteThreshold == null ? 0 : requestByteThreshold;
+      this.elementThreshold = elementThreshold;
+      this.bytesThreshold = bytesThreshold;
       this.batcherStats = batcherStats;
     }
 
-    void add(ElementT element, SettableApiFuture<ElementResultT> result, long throttledTimeMs) {
+    void add(
+        ElementT element,
+        SettableApiFuture<ElementResultT> result,
+        long byteSize,
+        long throttledTimeMs) {
       builder.add(element);
       entries.add(BatchEntry.create(element, result));
       elementCounter++;
-      byteCounter += descriptor.countBytes(element);
+      byteCounter += byteSize;
       totalThrottledTimeMs += throttledTimeMs;
     }
 
@@ -463,15 +559,30 @@ public class BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
       batcherStats.recordBatchFailure(throwable);
     }
 
-    boolean isEmpty() {
-      return elementCounter == 0;
-    }
-
     boolean hasAnyThresholdReached() {
       return elementCounter >= elementThreshold || byteCounter >= bytesThreshold;
     }
   }
 
+  /** An element which has been added, but not yet drained into a {@link Batch}. */
+  private static class PendingElement<ElementT, ElementResultT> {
+    private final ElementT element;
+    private final SettableApiFuture<ElementResultT> result;
+    private final long byteSize;
+    private final long throttledTimeMs;
+
+    private PendingElement(
+        ElementT element,
+        SettableApiFuture<ElementResultT> result,
+        long byteSize,
+        long throttledTimeMs) {
+      this.element = element;
+      this.result = result;
+      this.byteSize = byteSize;
+      this.throttledTimeMs = throttledTimeMs;
+    }
+  }
+
   /**
    * Executes {@link #sendOutstanding()} on a periodic interval.
    *
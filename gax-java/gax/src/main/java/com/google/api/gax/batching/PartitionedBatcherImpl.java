@@ -0,0 +1,354 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.batching;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.InternalApi;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.UnaryCallable;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.threeten.bp.Duration;
+
+/**
+ * Queues up the elements of each {@link PartitionKey}, as returned by {@link
+ * PartitionedBatchingDescriptor#getPartitionKey(Object)}, into separate batches, so that every
+ * batch request goes to a single destination.
+ *
+ * <p>The partitions share one {@link FlowController} and one task on the executor, which sends the
+ * accumulated elements of every partition at the delay threshold. The element and byte thresholds
+ * apply to each partition separately. A partition which has not received an element for the
+ * partition idle timeout is closed and dropped; the next element for its key starts a new one.
+ *
+ * <p>Elements can be added from multiple threads, like with {@link BatcherImpl}. The other methods
+ * expect to be used from a single thread.
+ *
+ * @param <ElementT> The type of each individual element to be batched.
+ * @param <ElementResultT> The type of the result for each individual element.
+ * @param <RequestT> The type of the request that will contain the accumulated elements.
+ * @param <ResponseT> The type of the response that will unpack into individual element results.
+ */
+@InternalApi("For google-cloud-java client use only")
+public class PartitionedBatcherImpl<ElementT, ElementResultT, RequestT, ResponseT>
+    implements Batcher<ElementT, ElementResultT> {
+
+  private final PartitionedBatchingDescriptor<ElementT, ElementResultT, RequestT, ResponseT>
+      batchingDescriptor;
+  private final UnaryCallable<RequestT, ResponseT> unaryCallable;
+  private final RequestT prototype;
+  private final BatchingSettings partitionBatchingSettings;
+  private final ScheduledExecutorService executor;
+  private final FlowController flowController;
+  @Nullable private final ApiCallContext callContext;
+  private final long partitionIdleTimeoutNanos;
+
+  private final ConcurrentMap<PartitionKey, Partition<ElementT, ElementResultT>> partitions =
+      new ConcurrentHashMap<>();
+  // The close futures of the evicted partitions which are still sending their last batches.
+  private final Set<ApiFuture<Void>> evictedPartitionCloses =
+      Collections.newSetFromMap(new ConcurrentHashMap<ApiFuture<Void>, Boolean>());
+  private final BatcherStats batcherStats = new BatcherStats();
+  private final Future<?> scheduledFuture;
+  private SettableApiFuture<Void> closeFuture;
+
+  /**
+   * @param batchingDescriptor a {@link PartitionedBatchingDescriptor} for transforming individual
+   *     elements into wrappers request and response, and for routing them to their partition
+   * @param unaryCallable a {@link UnaryCallable} object
+   * @param prototype a {@link RequestT} object
+   * @param batchingSettings a {@link BatchingSettings} with configuration of thresholds, which
+   *     apply to each partition
+   * @param executor the executor which sends the elements of the partitions at the delay threshold
+   * @param flowController a {@link FlowController} for throttling requests, shared by all the
+   *     partitions. If it's null, create a {@link FlowController} object from {@link
+   *     BatchingSettings#getFlowControlSettings()}.
+   * @param callContext a {@link ApiCallContext} object that'll be merged in unaryCallable
+   * @param partitionIdleTimeout how long a partition can go without new elements before it is
+   *     dropped
+   */
+  public PartitionedBatcherImpl(
+      PartitionedBatchingDescriptor<ElementT, ElementResultT, RequestT, ResponseT>
+          batchingDescriptor,
+      UnaryCallable<RequestT, ResponseT> unaryCallable,
+      RequestT prototype,
+      BatchingSettings batchingSettings,
+      ScheduledExecutorService executor,
+      @Nullable FlowController flowController,
+      @Nullable ApiCallContext callContext,
+      Duration partitionIdleTimeout) {
+    this.batchingDescriptor =
+        Preconditions.checkNotNull(batchingDescriptor, "batching descriptor cannot be null");
+    this.unaryCallable = Preconditions.checkNotNull(unaryCallable, "callable cannot be null");
+    this.prototype = Preconditions.checkNotNull(prototype, "request prototype cannot be null");
+    Preconditions.checkNotNull(batchingSettings, "batching setting cannot be null");
+    this.executor = Preconditions.checkNotNull(executor, "executor cannot be null");
+    Preconditions.checkArgument(
+        partitionIdleTimeout.compareTo(Duration.ZERO) > 0, "partitionIdleTimeout must be positive");
+    if (flowController == null) {
+      flowController = new FlowController(batchingSettings.getFlowControlSettings());
+    }
+    this.flowController = flowController;
+    this.callContext = callContext;
+    this.partitionIdleTimeoutNanos = partitionIdleTimeout.toNanos();
+    // The partitions are sent by the task scheduled below, instead of one task per partition.
+    this.partitionBatchingSettings = batchingSettings.toBuilder().setDelayThreshold(null).build();
+
+    Duration period =
+        batchingSettings.getDelayThreshold() != null
+            ? batchingSettings.getDelayThreshold()
+            : partitionIdleTimeout;
+    SendPartitionsRunnable runnable = new SendPartitionsRunnable(this);
+    scheduledFuture =
+        executor.scheduleWithFixedDelay(
+            runnable, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    runnable.setScheduledFuture(scheduledFuture);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ApiFuture<ElementResultT> add(ElementT element) {
+    Preconditions.checkState(closeFuture == null, "Cannot add elements on a closed batcher");
+
+    PartitionKey key = batchingDescriptor.getPartitionKey(element);
+    while (true) {
+      Partition<ElementT, ElementResultT> partition =
+          partitions.computeIfAbsent(key, newKey -> new Partition<>(createPartitionBatcher()));
+      if (partition.acquire()) {
+        try {
+          return partition.batcher.add(element);
+        } finally {
+          partition.release();
+        }
+      }
+      // The partition is being evicted, make sure that it is gone before creating its successor.
+      partitions.remove(key, partition);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void flush() throws InterruptedException {
+    sendOutstanding();
+    for (Partition<ElementT, ElementResultT> partition : partitions.values()) {
+      partition.batcher.flush();
+    }
+    for (ApiFuture<Void> evictedPartitionClose : evictedPartitionCloses) {
+      try {
+        evictedPartitionClose.get();
+      } catch (ExecutionException e) {
+        // The failures are reported when the batcher is closed.
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void sendOutstanding() {
+    for (Partition<ElementT, ElementResultT> partition : partitions.values()) {
+      partition.batcher.sendOutstanding();
+    }
+  }
+
+  /** Sends the accumulated elements of every partition, and drops the idle partitions. */
+  @VisibleForTesting
+  void sendOutstandingAndEvictIdlePartitions() {
+    long now = System.nanoTime();
+    for (Map.Entry<PartitionKey, Partition<ElementT, ElementResultT>> entry :
+        partitions.entrySet()) {
+      Partition<ElementT, ElementResultT> partition = entry.getValue();
+      if (partition.tryEvict(now, partitionIdleTimeoutNanos)) {
+        partitions.remove(entry.getKey(), partition);
+        final ApiFuture<Void> partitionClose = partition.batcher.closeAsync();
+        evictedPartitionCloses.add(partitionClose);
+        partitionClose.addListener(
+            new Runnable() {
+              @Override
+              public void run() {
+                evictedPartitionCloses.remove(partitionClose);
+              }
+            },
+            directExecutor());
+      } else {
+        partition.batcher.sendOutstanding();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  int getPartitionCount() {
+    return partitions.size();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws InterruptedException {
+    try {
+      closeAsync().get();
+    } catch (ExecutionException e) {
+      // Original stacktrace of a batching exception is not useful, so rethrow the error with
+      // the caller stacktrace
+      if (e.getCause() instanceof BatchingException) {
+        BatchingException cause = (BatchingException) e.getCause();
+        throw new BatchingException(cause.getMessage());
+      } else {
+        throw new IllegalStateException("unexpected error closing the batcher", e.getCause());
+      }
+    }
+  }
+
+  @Override
+  public ApiFuture<Void> closeAsync() {
+    if (closeFuture != null) {
+      return closeFuture;
+    }
+    closeFuture = SettableApiFuture.create();
+    scheduledFuture.cancel(false);
+
+    List<ApiFuture<Void>> partitionCloses = new ArrayList<>(evictedPartitionCloses);
+    for (Partition<ElementT, ElementResultT> partition : partitions.values()) {
+      partitionCloses.add(partition.batcher.closeAsync());
+    }
+    partitions.clear();
+
+    // The partitions share the stats, so the failures of all of them are reported once at the end.
+    ApiFutures.successfulAsList(partitionCloses)
+        .addListener(
+            new Runnable() {
+              @Override
+              public void run() {
+                BatchingException batchingException = batcherStats.asException();
+                if (batchingException != null) {
+                  closeFuture.setException(batchingException);
+                } else {
+                  closeFuture.set(null);
+                }
+              }
+            },
+            directExecutor());
+    return closeFuture;
+  }
+
+  @InternalApi("For google-cloud-java client use only")
+  public FlowController getFlowController() {
+    return flowController;
+  }
+
+  private BatcherImpl<ElementT, ElementResultT, RequestT, ResponseT> createPartitionBatcher() {
+    return new BatcherImpl<>(
+        batchingDescriptor,
+        unaryCallable,
+        prototype,
+        partitionBatchingSettings,
+        executor,
+        flowController,
+        callContext,
+        batcherStats);
+  }
+
+  /** The batcher of one partition, and the bookkeeping to evict it once it is idle. */
+  private static class Partition<ElementT, ElementResultT> {
+    private final Batcher<ElementT, ElementResultT> batcher;
+    // The number of adds in progress, or -1 once the partition has been evicted.
+    private final AtomicInteger activeAdds = new AtomicInteger();
+    private volatile long lastAddNanos = System.nanoTime();
+
+    private Partition(Batcher<ElementT, ElementResultT> batcher) {
+      this.batcher = batcher;
+    }
+
+    private boolean acquire() {
+      while (true) {
+        int current = activeAdds.get();
+        if (current < 0) {
+          return false;
+        }
+        if (activeAdds.compareAndSet(current, current + 1)) {
+          lastAddNanos = System.nanoTime();
+          return true;
+        }
+      }
+    }
+
+    private void release() {
+      activeAdds.decrementAndGet();
+    }
+
+    private boolean tryEvict(long nowNanos, long idleTimeoutNanos) {
+      return nowNanos - lastAddNanos >= idleTimeoutNanos && activeAdds.compareAndSet(0, -1);
+    }
+  }
+
+  /**
+   * Executes {@link #sendOutstandingAndEvictIdlePartitions()} on a periodic interval.
+   *
+   * <p>This class holds a weak reference to the batcher, and cancels itself once the batcher has
+   * been garbage collected.
+   */
+  private static class SendPartitionsRunnable implements Runnable {
+    private final WeakReference<PartitionedBatcherImpl<?, ?, ?, ?>> batcherReferent;
+    private volatile Future<?> scheduledFuture;
+
+    private SendPartitionsRunnable(PartitionedBatcherImpl<?, ?, ?, ?> batcher) {
+      this.batcherReferent = new WeakReference<PartitionedBatcherImpl<?, ?, ?, ?>>(batcher);
+    }
+
+    @Override
+    public void run() {
+      PartitionedBatcherImpl<?, ?, ?, ?> batcher = batcherReferent.get();
+      if (batcher == null) {
+        scheduledFuture.cancel(true);
+      } else {
+        batcher.sendOutstandingAndEvictIdlePartitions();
+      }
+    }
+
+    private void setScheduledFuture(Future<?> scheduledFuture) {
+      this.scheduledFuture = scheduledFuture;
+    }
+  }
+}
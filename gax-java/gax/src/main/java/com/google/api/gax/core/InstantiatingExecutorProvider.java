@@ -60,6 +60,9 @@ public abstract class InstantiatingExecutorProvider implements ExecutorProvider
 
   @Override
   public ScheduledExecutorService getExecutor() {
+    if (isVirtualThreadsEnabled() && VirtualThreadScheduledExecutor.isSupported()) {
+      return VirtualThreadScheduledExecutor.create(getExecutorThreadCount(), getThreadFactory());
+    }
     return new ScheduledThreadPoolExecutor(getExecutorThreadCount(), getThreadFactory());
   }
 
@@ -74,6 +77,15 @@ public abstract class InstantiatingExecutorProvider implements ExecutorProvider
   /** Return a thread-factory to create gax processing threads so we can name them appropriately */
   public abstract ThreadFactory getThreadFactory();
 
+  /**
+   * Whether the executor created by this ExecutorProvider runs each submitted task on a new virtual
+   * thread, so that blocking calls do not tie up its threads. Delayed tasks are still scheduled,
+   * and run, on {@link #getExecutorThreadCount()} threads created by {@link #getThreadFactory()}.
+   *
+   * <p>Virtual threads require Java 21 or newer. On older runtimes this setting has no effect.
+   */
+  public abstract boolean isVirtualThreadsEnabled();
+
   public abstract Builder toBuilder();
 
   public static Builder newBuilder() {
@@ -82,7 +94,8 @@ public abstract class InstantiatingExecutorProvider implements ExecutorProvider
 
     return new AutoValue_InstantiatingExecutorProvider.Builder()
         .setExecutorThreadCount(numThreads)
-        .setThreadFactory(DEFAULT_THREAD_FACTORY);
+        .setThreadFactory(DEFAULT_THREAD_FACTORY)
+        .setVirtualThreadsEnabled(false);
   }
 
   @AutoValue.Builder
@@ -95,6 +108,10 @@ public abstract class InstantiatingExecutorProvider implements ExecutorProvider
 
     public abstract ThreadFactory getThreadFactory();
 
+    public abstract Builder setVirtualThreadsEnabled(boolean value);
+
+    public abstract boolean isVirtualThreadsEnabled();
+
     public abstract InstantiatingExecutorProvider build();
   }
 }
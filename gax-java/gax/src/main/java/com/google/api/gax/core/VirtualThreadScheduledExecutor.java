@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.core;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A ScheduledExecutorService which runs each submitted task on a new virtual thread, so that the
+ * tasks which block, such as HTTP requests and the reads of server streams, do not tie up a fixed
+ * pool of platform threads. Delayed and periodic tasks are still scheduled on a small {@link
+ * ScheduledThreadPoolExecutor}, and run on its threads: gax only schedules short tasks, such as the
+ * start of a retry attempt or the cancellation of a call on its deadline.
+ *
+ * <p>Virtual threads are only available on Java 21 and later, so they are created reflectively to
+ * keep gax compatible with Java 8.
+ *
+ * <p>Package-private for internal use.
+ */
+final class VirtualThreadScheduledExecutor extends AbstractExecutorService
+    implements ScheduledExecutorService {
+  // Thread.ofVirtual().name("Gax-virtual-", 1).factory(), or null before Java 21.
+  @Nullable
+  private static final ThreadFactory VIRTUAL_THREAD_FACTORY = createVirtualThreadFactory();
+
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService taskExecutor;
+
+  @VisibleForTesting
+  VirtualThreadScheduledExecutor(ScheduledExecutorService scheduler, ExecutorService taskExecutor) {
+    this.scheduler = scheduler;
+    this.taskExecutor = taskExecutor;
+  }
+
+  /** Whether the runtime supports virtual threads. */
+  static boolean isSupported() {
+    return VIRTUAL_THREAD_FACTORY != null;
+  }
+
+  /**
+   * Creates an executor which runs its tasks on virtual threads, and schedules them with the given
+   * number of platform threads.
+   *
+   * @throws IllegalStateException if the runtime does not support virtual threads
+   */
+  static VirtualThreadScheduledExecutor create(
+      int schedulerThreadCount, ThreadFactory schedulerThreadFactory) {
+    if (!isSupported()) {
+      throw new IllegalStateException("Virtual threads require Java 21 or newer");
+    }
+    ExecutorService taskExecutor;
+    try {
+      taskExecutor =
+          (ExecutorService)
+              Executors.class
+                  .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                  .invoke(null, VIRTUAL_THREAD_FACTORY);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+    return new VirtualThreadScheduledExecutor(
+        new ScheduledThreadPoolExecutor(schedulerThreadCount, schedulerThreadFactory),
+        taskExecutor);
+  }
+
+  @Nullable
+  private static ThreadFactory createVirtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder =
+          builderClass
+              .getMethod("name", String.class, long.class)
+              .invoke(builder, "Gax-virtual-", 1L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Virtual threads are not supported by the runtime.
+      return null;
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    taskExecutor.execute(command);
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+    return scheduler.schedule(command, delay, unit);
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+    return scheduler.schedule(callable, delay, unit);
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(
+      Runnable command, long initialDelay, long period, TimeUnit unit) {
+    return scheduler.scheduleAtFixedRate(command, initialDelay, period, unit);
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(
+      Runnable command, long initialDelay, long delay, TimeUnit unit) {
+    return scheduler.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+  }
+
+  @Override
+  public void shutdown() {
+    scheduler.shutdown();
+    taskExecutor.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> pendingTasks = new ArrayList<>(scheduler.shutdownNow());
+    pendingTasks.addAll(taskExecutor.shutdownNow());
+    return pendingTasks;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return scheduler.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return scheduler.isTerminated() && taskExecutor.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+    return scheduler.awaitTermination(timeout, unit)
+        && taskExecutor.awaitTermination(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+}
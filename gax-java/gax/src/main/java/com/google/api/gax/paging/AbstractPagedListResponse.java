@@ -29,10 +29,23 @@
  */
 package com.google.api.gax.paging;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.api.core.ApiAsyncFunction;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiExceptions;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** Partial implementation of {@link com.google.api.gax.paging.PagedListResponse}. */
 public abstract class AbstractPagedListResponse<
@@ -72,6 +85,63 @@ public abstract class AbstractPagedListResponse<
     };
   }
 
+  /**
+   * Returns an iterable that traverses all of the elements of the underlying data source, like
+   * {@link #iterateAll()}, while fetching up to {@code prefetchPages} pages ahead of the page that
+   * is being consumed. See {@link #iteratePages(int)} for details. This method is not thread-safe.
+   */
+  public Iterable<ResourceT> iterateAll(final int prefetchPages) {
+    return Iterables.concat(
+        Iterables.transform(iteratePages(prefetchPages), currentPage -> currentPage.getValues()));
+  }
+
+  /**
+   * Returns an iterable over all Page objects, like {@link #iteratePages()}, while fetching up to
+   * {@code prefetchPages} pages ahead of the page that has been returned last.
+   *
+   * <p>Each page is requested with the token of the previous one, so the prefetched pages are
+   * fetched one after another, as soon as the previous response arrives. This overlaps the fetching
+   * with the processing of the pages, while the number of pages which are held in memory or in
+   * flight stays bounded by {@code prefetchPages}. Prefetched pages that are never consumed are
+   * discarded. An iteration which is abandoned early can not be detected, so its prefetched pages
+   * are still fetched; use {@link #streamPages(int)} and close the stream to cancel them instead.
+   */
+  public Iterable<PageT> iteratePages(final int prefetchPages) {
+    Preconditions.checkArgument(prefetchPages > 0, "prefetchPages must be positive");
+    return new Iterable<PageT>() {
+      @Override
+      public Iterator<PageT> iterator() {
+        return new PrefetchingPagesIterator(page, prefetchPages);
+      }
+    };
+  }
+
+  /**
+   * Returns a stream that traverses all of the elements of the underlying data source, while
+   * fetching up to {@code prefetchPages} pages ahead of the page that is being consumed. See
+   * {@link #streamPages(int)} for details.
+   */
+  public Stream<ResourceT> streamAll(int prefetchPages) {
+    return streamPages(prefetchPages).flatMap(currentPage -> currentPage.streamValues());
+  }
+
+  /**
+   * Returns a stream over all Page objects, while fetching up to {@code prefetchPages} pages ahead
+   * of the page that has been consumed last, like {@link #iteratePages(int)}.
+   *
+   * <p>Closing the stream cancels the pages which are prefetched or in flight. A stream which may
+   * not be consumed in full should therefore be closed, for example with a try-with-resources
+   * statement.
+   */
+  public Stream<PageT> streamPages(int prefetchPages) {
+    Preconditions.checkArgument(prefetchPages > 0, "prefetchPages must be positive");
+    PrefetchingPagesIterator pages = new PrefetchingPagesIterator(page, prefetchPages);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(pages::cancel);
+  }
+
   @Override
   public String getNextPageToken() {
     return getPage().getNextPageToken();
@@ -124,6 +194,72 @@ public abstract class AbstractPagedListResponse<
     }
   }
 
+  private class PrefetchingPagesIterator extends AbstractIterator<PageT> {
+    private final int prefetchPages;
+    private final Deque<ApiFuture<PageT>> prefetchedPages = new ArrayDeque<>();
+    private PageT first;
+    private ApiFuture<PageT> last;
+    private boolean cancelled;
+
+    private PrefetchingPagesIterator(PageT first, int prefetchPages) {
+      this.first = Preconditions.checkNotNull(first);
+      this.last = ApiFutures.immediateFuture(first);
+      this.prefetchPages = prefetchPages;
+    }
+
+    @Override
+    protected PageT computeNext() {
+      if (cancelled) {
+        return endOfData();
+      }
+      PageT current;
+      if (first != null) {
+        current = first;
+        first = null;
+      } else {
+        current = ApiExceptions.callAndTranslateApiException(prefetchedPages.poll());
+        if (current == null) {
+          return endOfData();
+        }
+      }
+      prefetch();
+      return current;
+    }
+
+    // Cancels the pages which are prefetched or in flight, and ends the iteration. Cancelling every
+    // page of the chain, rather than only the first pending one, keeps the pages chained after it
+    // from being fetched.
+    private void cancel() {
+      cancelled = true;
+      first = null;
+      for (ApiFuture<PageT> prefetchedPage : prefetchedPages) {
+        prefetchedPage.cancel(false);
+      }
+      prefetchedPages.clear();
+    }
+
+    // Chains the fetch of each page to the arrival of the previous one, until the window is full.
+    // A page without a next page resolves to null, and so do the pages chained after it.
+    private void prefetch() {
+      while (prefetchedPages.size() < prefetchPages) {
+        last =
+            ApiFutures.transformAsync(
+                last,
+                new ApiAsyncFunction<PageT, PageT>() {
+                  @Override
+                  public ApiFuture<PageT> apply(PageT previous) {
+                    if (previous == null) {
+                      return ApiFutures.immediateFuture(null);
+                    }
+                    return previous.getNextPageAsync();
+                  }
+                },
+                directExecutor());
+        prefetchedPages.add(last);
+      }
+    }
+  }
+
   private class NextIterator<T> extends AbstractIterator<T> {
 
     private T current;
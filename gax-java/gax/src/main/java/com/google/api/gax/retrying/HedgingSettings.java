@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.retrying;
+
+import com.google.api.core.BetaApi;
+import com.google.auto.value.AutoValue;
+import org.threeten.bp.Duration;
+
+/**
+ * Holds the parameters for <b>hedging</b>: sending extra attempts of an idempotent call while the
+ * earlier attempts are still in flight, so that one slow server does not delay the whole call.
+ *
+ * <p>The first attempt is sent right away. Each time the hedging delay passes without a response,
+ * another attempt is sent, until {@link #getMaxAttempts()} attempts have been sent. The first
+ * successful response completes the call, and the attempts still in flight are cancelled.
+ *
+ * <p>An attempt that fails with a retryable code sends the next attempt right away instead of
+ * waiting for the delay. An attempt that fails with any other code fails the whole call. The call
+ * fails once every attempt has failed, or once the total timeout of its {@link RetrySettings} has
+ * passed.
+ *
+ * <p>The hedging delay is {@link #getDelay()}, or, if {@link #getDelayPercentile()} is set, the
+ * given percentile of the latency of the successful attempts of the same method during the last
+ * minute, once enough of them have completed. The percentile is estimated from latencies grouped in
+ * power-of-two buckets of microseconds, so it may be off by up to a factor of two, and it is
+ * updated every few seconds.
+ *
+ * <p>Hedged attempts are new calls, so a {@code ChannelPool} without channel affinity sends them on
+ * the channel its selection strategy picks, which is usually another channel.
+ */
+@BetaApi("The surface for hedging is not stable yet and may change in the future.")
+@AutoValue
+public abstract class HedgingSettings {
+
+  /**
+   * The maximum number of attempts of a call, including the first one. The default value is {@code
+   * 2}.
+   */
+  public abstract int getMaxAttempts();
+
+  /**
+   * The delay after which another attempt is sent if no attempt has completed, and the delay used
+   * until enough latencies are known for {@link #getDelayPercentile()}.
+   */
+  public abstract Duration getDelay();
+
+  /**
+   * The percentile of the latency of the successful attempts to use as the delay, or {@code 0} to
+   * always use {@link #getDelay()}. The percentile is an estimate; see the class documentation. The
+   * default value is {@code 0}.
+   */
+  public abstract double getDelayPercentile();
+
+  public static Builder newBuilder() {
+    return new AutoValue_HedgingSettings.Builder().setMaxAttempts(2).setDelayPercentile(0);
+  }
+
+  public abstract Builder toBuilder();
+
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    /**
+     * The maximum number of attempts of a call, including the first one. The default value is
+     * {@code 2}.
+     */
+    public abstract Builder setMaxAttempts(int maxAttempts);
+
+    /**
+     * The delay after which another attempt is sent if no attempt has completed, and the delay used
+     * until enough latencies are known for {@link #setDelayPercentile(double)}.
+     */
+    public abstract Builder setDelay(Duration delay);
+
+    /**
+     * The percentile of the latency of the successful attempts to use as the delay, such as {@code
+     * 95}, or {@code 0} to always use {@link #setDelay(Duration)}. The default value is {@code 0}.
+     *
+     * <p>The percentile is estimated from latencies grouped in power-of-two buckets of
+     * microseconds, by assuming that the latencies of a bucket are spread evenly over it. The
+     * estimate stays within the bucket which holds the percentile: a 95th percentile of 3
+     * milliseconds gives a delay between 2.048 and 4.096 milliseconds.
+     */
+    public abstract Builder setDelayPercentile(double delayPercentile);
+
+    abstract HedgingSettings autoBuild();
+
+    public HedgingSettings build() {
+      HedgingSettings settings = autoBuild();
+      if (settings.getMaxAttempts() < 1) {
+        throw new IllegalStateException("max attempts must be positive");
+      }
+      if (settings.getDelay().isNegative()) {
+        throw new IllegalStateException("delay must not be negative");
+      }
+      if (settings.getDelayPercentile() < 0 || settings.getDelayPercentile() > 100) {
+        throw new IllegalStateException("delay percentile must be between 0 and 100");
+      }
+      return settings;
+    }
+  }
+}
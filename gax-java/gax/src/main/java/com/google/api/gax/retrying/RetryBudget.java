@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.retrying;
+
+import com.google.api.core.BetaApi;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A token bucket which throttles the retries of all the calls of a client when too many of their
+ * attempts fail, so that the retries do not add to the load of a backend that is already
+ * overloaded.
+ *
+ * <p>The bucket starts full with {@code maxTokens} tokens. Each attempt which fails with a
+ * retryable error takes one token, and each successful attempt returns {@code tokenRatio} tokens.
+ * Failed attempts are only retried while the bucket holds more than half of {@code maxTokens}. Once
+ * the bucket is drained, retries resume when successful attempts have refilled it, so that in the
+ * long run the retries are at most about {@code tokenRatio} times the successful attempts.
+ *
+ * <p>This follows the retry throttling of gRPC service configs. The bucket is lock-free and is
+ * meant to be shared by all the methods of a client, see {@link
+ * com.google.api.gax.rpc.StubSettings.Builder#setRetryBudget(RetryBudget)}.
+ */
+@BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+public final class RetryBudget {
+  // The tokens are counted in thousandths, so that fractional token ratios add up exactly.
+  private static final int SCALE = 1000;
+
+  private final int maxTokens;
+  private final int tokenRatio;
+  private final AtomicInteger tokens;
+
+  /**
+   * Creates a full retry budget.
+   *
+   * @param maxTokens the capacity of the bucket, greater than 0 and at most 1000.
+   * @param tokenRatio the number of tokens a successful attempt returns, greater than 0 and at most
+   *     1, rounded to three decimal places.
+   */
+  public RetryBudget(int maxTokens, double tokenRatio) {
+    Preconditions.checkArgument(
+        maxTokens > 0 && maxTokens <= 1000, "maxTokens must be in (0, 1000]");
+    Preconditions.checkArgument(
+        tokenRatio >= 0.001 && tokenRatio <= 1, "tokenRatio must be in [0.001, 1]");
+    this.maxTokens = maxTokens * SCALE;
+    this.tokenRatio = (int) Math.round(tokenRatio * SCALE);
+    this.tokens = new AtomicInteger(this.maxTokens);
+  }
+
+  /** Returns true if the bucket holds enough tokens to retry a failed attempt. */
+  public boolean isRetryAllowed() {
+    return tokens.get() > maxTokens / 2;
+  }
+
+  /** Returns the number of tokens left in the bucket. */
+  public double getTokens() {
+    return (double) tokens.get() / SCALE;
+  }
+
+  /** Returns the capacity of the bucket. */
+  public int getMaxTokens() {
+    return maxTokens / SCALE;
+  }
+
+  /** Records a successful attempt, which returns {@code tokenRatio} tokens to the bucket. */
+  public void recordSuccess() {
+    int current;
+    do {
+      current = tokens.get();
+      if (current == maxTokens) {
+        // Most attempts succeed, so avoid writing to the shared counter when it is full.
+        return;
+      }
+    } while (!tokens.compareAndSet(current, Math.min(current + tokenRatio, maxTokens)));
+  }
+
+  /** Records an attempt which failed with a retryable error, which takes one token. */
+  public void recordFailure() {
+    int current;
+    do {
+      current = tokens.get();
+      if (current == 0) {
+        return;
+      }
+    } while (!tokens.compareAndSet(current, Math.max(current - SCALE, 0)));
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("tokens", getTokens())
+        .add("maxTokens", getMaxTokens())
+        .add("tokenRatio", (double) tokenRatio / SCALE)
+        .toString();
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.retrying;
+
+import com.google.api.core.BetaApi;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A retry algorithm which stops retrying while a {@link RetryBudget} is drained. It only reads the
+ * budget; the outcomes of the attempts must be recorded in the budget by the caller.
+ *
+ * <p>The budget is checked last, once the result and timed algorithms decided to retry, so that a
+ * retry refused by the budget is one which would have been made otherwise. The refusal is reported
+ * to the tracer of the {@link RetryingContext}.
+ *
+ * @param <ResponseT> response type
+ */
+@BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+public class ThrottledRetryAlgorithm<ResponseT> extends RetryAlgorithm<ResponseT> {
+  private final RetryBudget retryBudget;
+
+  public ThrottledRetryAlgorithm(
+      ResultRetryAlgorithmWithContext<ResponseT> resultAlgorithm,
+      TimedRetryAlgorithmWithContext timedAlgorithm,
+      RetryBudget retryBudget) {
+    super(resultAlgorithm, timedAlgorithm);
+    this.retryBudget = Preconditions.checkNotNull(retryBudget);
+  }
+
+  /**
+   * Returns {@code true} if the result and timed algorithms would retry and the retry budget allows
+   * it. Reports {@link com.google.api.gax.tracing.ApiTracer#retryThrottled(double)} when only the
+   * budget refuses the retry.
+   */
+  @Override
+  public boolean shouldRetry(
+      RetryingContext context,
+      Throwable previousThrowable,
+      ResponseT previousResponse,
+      TimedAttemptSettings nextAttemptSettings)
+      throws CancellationException {
+    if (!super.shouldRetry(context, previousThrowable, previousResponse, nextAttemptSettings)) {
+      return false;
+    }
+    if (retryBudget.isRetryAllowed()) {
+      return true;
+    }
+    if (context != null) {
+      context.getTracer().retryThrottled(retryBudget.getTokens());
+    }
+    return false;
+  }
+}
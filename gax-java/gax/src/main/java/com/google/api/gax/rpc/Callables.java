@@ -34,10 +34,14 @@ import com.google.api.gax.batching.BatchingSettings;
 import com.google.api.gax.longrunning.OperationResponsePollAlgorithm;
 import com.google.api.gax.longrunning.OperationSnapshot;
 import com.google.api.gax.retrying.ExponentialRetryAlgorithm;
+import com.google.api.gax.retrying.HedgingSettings;
+import com.google.api.gax.retrying.ResultRetryAlgorithmWithContext;
 import com.google.api.gax.retrying.RetryAlgorithm;
+import com.google.api.gax.retrying.RetryBudget;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.api.gax.retrying.ScheduledRetryingExecutor;
 import com.google.api.gax.retrying.StreamingRetryAlgorithm;
+import com.google.api.gax.retrying.ThrottledRetryAlgorithm;
 import java.util.Collection;
 
 /**
@@ -58,6 +62,17 @@ public class Callables {
 
     UnaryCallSettings<?, ?> settings = callSettings;
 
+    HedgingSettings hedgingSettings = settings.getHedgingSettings();
+    if (hedgingSettings != null) {
+      return new HedgingCallable<>(
+          clientContext.getDefaultCallContext(),
+          innerCallable,
+          hedgingSettings,
+          settings.getRetrySettings().getTotalTimeout(),
+          clientContext.getExecutor(),
+          clientContext.getClock());
+    }
+
     if (areRetriesDisabled(settings.getRetryableCodes(), settings.getRetrySettings())) {
       // When retries are disabled, the total timeout can be treated as the rpc timeout.
       settings =
@@ -67,10 +82,20 @@ public class Callables {
               .build();
     }
 
-    RetryAlgorithm<ResponseT> retryAlgorithm =
-        new RetryAlgorithm<>(
-            new ApiResultRetryAlgorithm<ResponseT>(),
-            new ExponentialRetryAlgorithm(settings.getRetrySettings(), clientContext.getClock()));
+    ResultRetryAlgorithmWithContext<ResponseT> resultAlgorithm =
+        new ApiResultRetryAlgorithm<ResponseT>();
+    ExponentialRetryAlgorithm timedAlgorithm =
+        new ExponentialRetryAlgorithm(settings.getRetrySettings(), clientContext.getClock());
+    RetryAlgorithm<ResponseT> retryAlgorithm;
+    RetryBudget retryBudget = clientContext.getRetryBudget();
+    if (retryBudget != null) {
+      // The callable records the outcome of every attempt, and the algorithm stops retrying while
+      // the budget is drained.
+      innerCallable = new RetryBudgetCallable<>(innerCallable, retryBudget);
+      retryAlgorithm = new ThrottledRetryAlgorithm<>(resultAlgorithm, timedAlgorithm, retryBudget);
+    } else {
+      retryAlgorithm = new RetryAlgorithm<>(resultAlgorithm, timedAlgorithm);
+    }
     ScheduledRetryingExecutor<ResponseT> retryingExecutor =
         new ScheduledRetryingExecutor<>(retryAlgorithm, clientContext.getExecutor());
     return new RetryingCallable<>(
@@ -121,6 +146,20 @@ public class Callables {
     return callable;
   }
 
+  /**
+   * Create a callable whose {@link ServerStream}s request responses ahead of their iteration, as
+   * configured by {@link ServerStreamingCallSettings#getPrefetchWindow()}. Returns the callable
+   * unchanged for the default window of 1.
+   */
+  public static <RequestT, ResponseT> ServerStreamingCallable<RequestT, ResponseT> prefetching(
+      ServerStreamingCallable<RequestT, ResponseT> callable,
+      ServerStreamingCallSettings<RequestT, ResponseT> callSettings) {
+    if (callSettings.getPrefetchWindow() == 1) {
+      return callable;
+    }
+    return new PrefetchingServerStreamingCallable<>(callable, callSettings.getPrefetchWindow());
+  }
+
   /**
    * Create a callable object that represents a batching API method. Designed for use by generated
    * code.
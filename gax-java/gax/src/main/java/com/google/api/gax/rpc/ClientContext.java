@@ -35,6 +35,7 @@ import com.google.api.core.NanoClock;
 import com.google.api.gax.core.BackgroundResource;
 import com.google.api.gax.core.ExecutorAsBackgroundResource;
 import com.google.api.gax.core.ExecutorProvider;
+import com.google.api.gax.retrying.RetryBudget;
 import com.google.api.gax.rpc.internal.QuotaProjectIdHidingCredentials;
 import com.google.api.gax.rpc.mtls.MtlsProvider;
 import com.google.api.gax.tracing.ApiTracerFactory;
@@ -109,6 +110,14 @@ public abstract class ClientContext {
   @Nonnull
   public abstract ApiTracerFactory getTracerFactory();
 
+  /**
+   * Gets the {@link RetryBudget} shared by the retrying calls of the client, or {@code null} if
+   * their retries are not throttled.
+   */
+  @BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+  @Nullable
+  public abstract RetryBudget getRetryBudget();
+
   public static Builder newBuilder() {
     return new AutoValue_ClientContext.Builder()
         .setBackgroundResources(Collections.<BackgroundResource>emptyList())
@@ -249,6 +258,7 @@ public abstract class ClientContext {
         .setStreamWatchdog(watchdog)
         .setStreamWatchdogCheckInterval(settings.getStreamWatchdogCheckInterval())
         .setTracerFactory(settings.getTracerFactory())
+        .setRetryBudget(settings.getRetryBudget())
         .build();
   }
 
@@ -325,6 +335,14 @@ public abstract class ClientContext {
     @BetaApi("The surface for tracing is not stable yet and may change in the future.")
     public abstract Builder setTracerFactory(ApiTracerFactory tracerFactory);
 
+    /**
+     * Set the {@link RetryBudget} shared by the retrying calls of the client.
+     *
+     * @param retryBudget the budget, or {@code null} to not throttle retries.
+     */
+    @BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+    public abstract Builder setRetryBudget(@Nullable RetryBudget retryBudget);
+
     public abstract ClientContext build();
   }
 }
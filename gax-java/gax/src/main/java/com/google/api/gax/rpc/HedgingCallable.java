@@ -0,0 +1,343 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.rpc;
+
+import com.google.api.core.AbstractApiFuture;
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.retrying.HedgingSettings;
+import com.google.api.gax.tracing.ApiTracer;
+import com.google.api.gax.tracing.LatencyHistogram;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.threeten.bp.Duration;
+
+/**
+ * A UnaryCallable that sends another attempt of a call to an inner callable each time the hedging
+ * delay passes without a response, completes with the first successful response, and cancels the
+ * attempts still in flight. See {@link HedgingSettings} for a description of the hedging policy.
+ *
+ * <p>The latencies of the successful attempts of the last minute are tracked per callable, that is
+ * per method, to derive the hedging delay from {@link HedgingSettings#getDelayPercentile()}. The
+ * percentile is estimated from a {@link LatencyHistogram}, and computed again once per slot of the
+ * window rather than for every attempt.
+ *
+ * <p>Package-private for internal use.
+ */
+class HedgingCallable<RequestT, ResponseT> extends UnaryCallable<RequestT, ResponseT> {
+  // The number of successful attempts needed before the percentile replaces the fixed delay.
+  static final int MIN_LATENCY_SAMPLES = 100;
+  // The latencies older than the window are not used for the percentile, so that the delay follows
+  // a change of the latency. The window is forgotten one slot at a time.
+  static final Duration LATENCY_WINDOW = Duration.ofMinutes(1);
+  static final int LATENCY_WINDOW_SLOTS = 6;
+
+  private final ApiCallContext callContextPrototype;
+  private final UnaryCallable<RequestT, ResponseT> callable;
+  private final HedgingSettings hedgingSettings;
+  private final Duration totalTimeout;
+  private final ScheduledExecutorService executor;
+  private final ApiClock clock;
+  private final WindowedLatencyHistogram latencies;
+  // The delay computed from the latencies, with the window slot it was computed in.
+  private volatile PercentileDelay percentileDelay;
+
+  HedgingCallable(
+      ApiCallContext callContextPrototype,
+      UnaryCallable<RequestT, ResponseT> callable,
+      HedgingSettings hedgingSettings,
+      Duration totalTimeout,
+      ScheduledExecutorService executor,
+      ApiClock clock) {
+    this.callContextPrototype = Preconditions.checkNotNull(callContextPrototype);
+    this.callable = Preconditions.checkNotNull(callable);
+    this.hedgingSettings = Preconditions.checkNotNull(hedgingSettings);
+    this.totalTimeout = Preconditions.checkNotNull(totalTimeout);
+    this.executor = Preconditions.checkNotNull(executor);
+    this.clock = Preconditions.checkNotNull(clock);
+    this.latencies = new WindowedLatencyHistogram(LATENCY_WINDOW, LATENCY_WINDOW_SLOTS, clock);
+  }
+
+  @Override
+  public ApiFuture<ResponseT> futureCall(RequestT request, ApiCallContext inputContext) {
+    Preconditions.checkNotNull(request);
+    ApiCallContext context = callContextPrototype.nullToSelf(inputContext);
+    HedgedFuture future = new HedgedFuture(request, context);
+    future.addListener(future::onDone, MoreExecutors.directExecutor());
+    int attemptNumber = future.reserveAttempt();
+    future.startAttempt(attemptNumber);
+    return future;
+  }
+
+  /** Returns the delay after which the next attempt is sent. */
+  Duration getHedgingDelay() {
+    double percentile = hedgingSettings.getDelayPercentile();
+    if (percentile == 0) {
+      return hedgingSettings.getDelay();
+    }
+    long slot = latencies.currentSlot();
+    PercentileDelay delay = percentileDelay;
+    if (delay == null || delay.slot != slot) {
+      // Concurrent attempts may compute the same delay; the last one wins.
+      delay = new PercentileDelay(slot, computeHedgingDelay(percentile));
+      percentileDelay = delay;
+    }
+    return delay.delay;
+  }
+
+  private Duration computeHedgingDelay(double percentile) {
+    LatencyHistogram recentLatencies = latencies.snapshot();
+    if (recentLatencies.getCount() < MIN_LATENCY_SAMPLES) {
+      return hedgingSettings.getDelay();
+    }
+    return Duration.ofNanos(recentLatencies.getPercentileNanos(percentile));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("hedging(%s)", callable);
+  }
+
+  private static final class PercentileDelay {
+    private final long slot;
+    private final Duration delay;
+
+    private PercentileDelay(long slot, Duration delay) {
+      this.slot = slot;
+      this.delay = delay;
+    }
+  }
+
+  private class HedgedFuture extends AbstractApiFuture<ResponseT> {
+    private final RequestT request;
+    private final ApiCallContext context;
+    private final ApiTracer tracer;
+    // The time after which no attempt is started, or Long.MAX_VALUE without a total timeout.
+    private final long deadlineNanos;
+
+    // Guards the fields below and the calls to the tracer, whose events may come from the threads
+    // of several attempts.
+    private final Object lock = new Object();
+    private final List<ApiFuture<ResponseT>> attempts = new ArrayList<>();
+    private ScheduledFuture<?> scheduledAttempt;
+    private int startedAttempts;
+    // The numbers of the attempts started and not completed.
+    private final List<Integer> attemptsInFlight = new ArrayList<>();
+    private boolean completed;
+
+    private HedgedFuture(RequestT request, ApiCallContext context) {
+      this.request = request;
+      this.context = context;
+      this.tracer = context.getTracer();
+      this.deadlineNanos =
+          totalTimeout.isZero() ? Long.MAX_VALUE : clock.nanoTime() + totalTimeout.toNanos();
+    }
+
+    /**
+     * Reserves the number of the next attempt and reports its start to the tracer, or returns -1 if
+     * the call is complete, or out of attempts or time.
+     */
+    private int reserveAttempt() {
+      synchronized (lock) {
+        if (completed
+            || startedAttempts == hedgingSettings.getMaxAttempts()
+            || (startedAttempts > 0 && clock.nanoTime() >= deadlineNanos)) {
+          return -1;
+        }
+        if (scheduledAttempt != null) {
+          scheduledAttempt.cancel(false);
+          scheduledAttempt = null;
+        }
+        int attemptNumber = startedAttempts++;
+        attemptsInFlight.add(attemptNumber);
+        if (attemptNumber > 0) {
+          tracer.attemptHedged(attemptNumber);
+        }
+        tracer.attemptStarted(request, attemptNumber);
+        return attemptNumber;
+      }
+    }
+
+    private void startAttempt(int attemptNumber) {
+      if (attemptNumber < 0) {
+        return;
+      }
+      ApiCallContext attemptContext = context;
+      if (context.getTimeout() == null && deadlineNanos != Long.MAX_VALUE) {
+        // Each attempt may use the time left of the total timeout.
+        long remainingNanos = Math.max(deadlineNanos - clock.nanoTime(), 1);
+        attemptContext = context.withTimeout(Duration.ofNanos(remainingNanos));
+      }
+
+      final long startNanos = clock.nanoTime();
+      ApiFuture<ResponseT> attempt;
+      try {
+        attempt = callable.futureCall(request, attemptContext);
+      } catch (Throwable t) {
+        attempt = ApiFutures.immediateFailedFuture(t);
+      }
+
+      boolean cancelAttempt;
+      synchronized (lock) {
+        attempts.add(attempt);
+        cancelAttempt = completed;
+        if (!completed
+            && scheduledAttempt == null
+            && startedAttempts < hedgingSettings.getMaxAttempts()) {
+          scheduledAttempt =
+              executor.schedule(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      startAttempt(reserveAttempt());
+                    }
+                  },
+                  getHedgingDelay().toNanos(),
+                  TimeUnit.NANOSECONDS);
+        }
+      }
+      if (cancelAttempt) {
+        attempt.cancel(true);
+        return;
+      }
+
+      ApiFutures.addCallback(
+          attempt,
+          new ApiFutureCallback<ResponseT>() {
+            @Override
+            public void onSuccess(ResponseT response) {
+              onAttemptSuccess(attemptNumber, response, clock.nanoTime() - startNanos);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+              onAttemptFailure(attemptNumber, t);
+            }
+          },
+          MoreExecutors.directExecutor());
+    }
+
+    private void onAttemptSuccess(int attemptNumber, ResponseT response, long latencyNanos) {
+      synchronized (lock) {
+        attemptsInFlight.remove(Integer.valueOf(attemptNumber));
+        if (completed) {
+          return;
+        }
+        latencies.record(latencyNanos);
+        tracer.attemptEnding(attemptNumber);
+        tracer.attemptSucceeded();
+        complete();
+      }
+      set(response);
+      cancelAttempts();
+    }
+
+    private void onAttemptFailure(int attemptNumber, Throwable t) {
+      int nextAttempt = -1;
+      boolean failCall = false;
+      synchronized (lock) {
+        attemptsInFlight.remove(Integer.valueOf(attemptNumber));
+        if (completed) {
+          return;
+        }
+        if (t instanceof ApiException && ((ApiException) t).isRetryable()) {
+          nextAttempt = reserveAttempt();
+          tracer.attemptEnding(attemptNumber);
+          // The next attempt, if any, is now in flight.
+          if (!attemptsInFlight.isEmpty()) {
+            tracer.attemptFailed(t, Duration.ZERO);
+          } else {
+            tracer.attemptFailedRetriesExhausted(t);
+            complete();
+            failCall = true;
+          }
+        } else {
+          tracer.attemptEnding(attemptNumber);
+          tracer.attemptPermanentFailure(t);
+          complete();
+          failCall = true;
+        }
+      }
+      if (nextAttempt >= 0) {
+        startAttempt(nextAttempt);
+      } else if (failCall) {
+        setException(t);
+        cancelAttempts();
+      }
+    }
+
+    /**
+     * Stops the call when the future is cancelled, with or without interruption. Other completions
+     * already stopped the call.
+     */
+    private void onDone() {
+      if (!isCancelled()) {
+        return;
+      }
+      synchronized (lock) {
+        if (completed) {
+          return;
+        }
+        complete();
+      }
+      cancelAttempts();
+    }
+
+    /** Marks the call complete and reports the attempts in flight as cancelled. */
+    private void complete() {
+      completed = true;
+      for (int attemptNumber : attemptsInFlight) {
+        tracer.attemptEnding(attemptNumber);
+        tracer.attemptCancelled();
+      }
+      if (scheduledAttempt != null) {
+        scheduledAttempt.cancel(false);
+        scheduledAttempt = null;
+      }
+    }
+
+    private void cancelAttempts() {
+      List<ApiFuture<ResponseT>> toCancel;
+      synchronized (lock) {
+        toCancel = new ArrayList<>(attempts);
+      }
+      for (ApiFuture<ResponseT> attempt : toCancel) {
+        attempt.cancel(true);
+      }
+    }
+  }
+}
@@ -29,22 +29,27 @@
  */
 package com.google.api.gax.rpc;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Queues;
 import java.util.concurrent.BlockingQueue;
 
 /**
  * A back pressure aware bridge from a {@link ResponseObserver} to a {@link BlockingQueue}. The
- * queue size is fixed to 1 item and a close signal. The observer will manage its own flow control,
- * keeping the queue in one of 3 states:
+ * queue size is fixed to the prefetch window and a close signal. The observer will manage its own
+ * flow control, keeping the queue in one of 3 states:
  *
  * <ul>
- *   <li>empty: a item has been requested and we are awaiting the next item
- *   <li>1 item: an in progress stream with 1 item buffered
+ *   <li>empty: items have been requested and we are awaiting the next item
+ *   <li>up to prefetch window items: an in progress stream with items buffered
  *   <li>1 control signal: either a Throwable, or an EOF_MARKER which means that the stream is
  *       closed
- *   <li>1 item & 1 control signal: this is the last item of the stream
+ *   <li>items & 1 control signal: these are the last items of the stream
  * </ul>
  *
+ * <p>The observer requests a full window of items when the stream starts. Once the items which have
+ * been requested but not consumed drop to half of the window, it requests enough items to fill the
+ * window again. With the default window of 1 item, each consumed item is requested separately.
+ *
  * <p>The observer can also be abruptly cancelled, which cancels the underlying call and always
  * returns an EOF_MARKER.
  *
@@ -55,12 +60,33 @@ import java.util.concurrent.BlockingQueue;
 final class QueuingResponseObserver<V> extends StateCheckingResponseObserver<V> {
   static final Object EOF_MARKER = new Object();
 
-  private final BlockingQueue<Object> buffer = Queues.newArrayBlockingQueue(2);
+  private final int prefetchWindow;
+  private final int lowWatermark;
+  private final BlockingQueue<Object> buffer;
   private StreamController controller;
   private boolean isCancelled;
+  // The items which have been requested, but not yet consumed. Only accessed by the consumer.
+  private int unconsumedRequests;
+
+  QueuingResponseObserver() {
+    this(1);
+  }
 
+  QueuingResponseObserver(int prefetchWindow) {
+    Preconditions.checkArgument(prefetchWindow > 0, "prefetchWindow must be positive");
+    this.prefetchWindow = prefetchWindow;
+    this.lowWatermark = prefetchWindow / 2;
+    this.buffer = Queues.newArrayBlockingQueue(prefetchWindow + 1);
+    this.unconsumedRequests = prefetchWindow;
+  }
+
+  /** Notes that an item has been consumed, and refills the window if it is low enough. */
   void request() {
-    controller.request(1);
+    unconsumedRequests--;
+    if (unconsumedRequests <= lowWatermark) {
+      controller.request(prefetchWindow - unconsumedRequests);
+      unconsumedRequests = prefetchWindow;
+    }
   }
 
   Object getNext() throws InterruptedException {
@@ -93,11 +119,11 @@ final class QueuingResponseObserver<V> extends StateCheckingResponseObserver<V>
   protected void onStartImpl(StreamController controller) {
     this.controller = controller;
     controller.disableAutoInboundFlowControl();
-    controller.request(1);
+    controller.request(prefetchWindow);
   }
 
   /**
-   * Buffer the response. There should be at most 1 response in the buffer.
+   * Buffer the response. There should be at most prefetch window responses in the buffer.
    *
    * @param response The received response.
    */
@@ -108,7 +134,7 @@ final class QueuingResponseObserver<V> extends StateCheckingResponseObserver<V>
 
   /**
    * Enqueue the error to be thrown later on. The error might occur without a request so the queue
-   * might grow to 2 elements, and in that case the previous response will be consumed first.
+   * might grow by 1 element, and in that case the previous responses will be consumed first.
    *
    * @param t The error occurred on the stream
    */
@@ -119,8 +145,8 @@ final class QueuingResponseObserver<V> extends StateCheckingResponseObserver<V>
 
   /**
    * Enqueue a marker to notify the consumer that the stream is finished. In most situations this
-   * will cause the queue to grow to 2 elements: the requested response and an unsolicited
-   * completion marker.
+   * will cause the queue to grow by 1 element: an unsolicited completion marker after the requested
+   * responses.
    */
   @Override
   protected void onCompleteImpl() {
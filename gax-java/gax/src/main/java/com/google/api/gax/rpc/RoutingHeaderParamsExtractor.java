@@ -0,0 +1,196 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.rpc;
+
+import com.google.api.core.ApiFunction;
+import com.google.api.core.BetaApi;
+import com.google.api.pathtemplate.PathTemplate;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Extracts the routing header params of a method from its requests, following the routing rules
+ * that autogenerated stubs declare once per method.
+ *
+ * <p>It returns the same params as {@link RequestParamsBuilder} would for the same rules, and also
+ * encodes them straight into the {@code x-goog-request-params} header value, without building an
+ * intermediate map. Since a client usually sends many requests for the same resource, the last
+ * header is cached together with the field values it was extracted from, and reused as long as the
+ * field values of the next requests are equal.
+ *
+ * @param <RequestT> request message type
+ */
+@BetaApi
+public final class RoutingHeaderParamsExtractor<RequestT>
+    implements RequestParamsExtractor<RequestT>, RequestParamsEncoder<RequestT> {
+
+  private final ImmutableList<RoutingRule<RequestT>> rules;
+
+  // The last header, replaced as a whole so that concurrent requests always see a consistent one.
+  private volatile EncodedHeader lastHeader;
+
+  private RoutingHeaderParamsExtractor(ImmutableList<RoutingRule<RequestT>> rules) {
+    this.rules = rules;
+  }
+
+  public static <RequestT> Builder<RequestT> newBuilder() {
+    return new Builder<>();
+  }
+
+  @Override
+  public Map<String, String> extract(RequestT request) {
+    RequestParamsBuilder paramsBuilder = RequestParamsBuilder.create();
+    for (RoutingRule<RequestT> rule : rules) {
+      paramsBuilder.add(rule.fieldGetter.apply(request), rule.headerKey, rule.pathTemplate);
+    }
+    return paramsBuilder.build();
+  }
+
+  /**
+   * Encodes the routing header params of the {@code request}, in the same form as {@link
+   * RequestUrlParamsEncoder} encodes the params returned by {@link #extract}.
+   *
+   * @param request request message
+   */
+  @Override
+  public String encode(RequestT request) {
+    int ruleCount = rules.size();
+    if (ruleCount == 0) {
+      return "";
+    }
+    EncodedHeader cachedHeader = lastHeader;
+    String[] fieldValues = null;
+    for (int i = 0; i < ruleCount; i++) {
+      String fieldValue = rules.get(i).fieldGetter.apply(request);
+      if (fieldValues == null) {
+        if (cachedHeader != null && Objects.equals(fieldValue, cachedHeader.fieldValues[i])) {
+          continue;
+        }
+        fieldValues = new String[ruleCount];
+        if (cachedHeader != null) {
+          System.arraycopy(cachedHeader.fieldValues, 0, fieldValues, 0, i);
+        }
+      }
+      fieldValues[i] = fieldValue;
+    }
+    if (fieldValues == null) {
+      return cachedHeader.header;
+    }
+
+    String header = encode(fieldValues, cachedHeader == null ? 0 : cachedHeader.header.length());
+    lastHeader = new EncodedHeader(fieldValues, header);
+    return header;
+  }
+
+  private String encode(String[] fieldValues, int expectedLength) {
+    // Keys keep the position of their first match and the value of their last one, like the map
+    // built by RequestParamsBuilder.
+    String[] keys = new String[fieldValues.length];
+    String[] values = new String[fieldValues.length];
+    int paramCount = 0;
+    for (int i = 0; i < fieldValues.length; i++) {
+      if (fieldValues[i] == null) {
+        continue;
+      }
+      RoutingRule<RequestT> rule = rules.get(i);
+      Map<String, String> matchedValues = rule.pathTemplate.match(fieldValues[i]);
+      String value = matchedValues == null ? null : matchedValues.get(rule.headerKey);
+      if (value == null) {
+        continue;
+      }
+      int paramIndex = 0;
+      while (paramIndex < paramCount && !keys[paramIndex].equals(rule.headerKey)) {
+        paramIndex++;
+      }
+      if (paramIndex == paramCount) {
+        keys[paramCount++] = rule.headerKey;
+      }
+      values[paramIndex] = value;
+    }
+
+    StringBuilder header = new StringBuilder(Math.max(expectedLength, 16));
+    for (int i = 0; i < paramCount; i++) {
+      if (i > 0) {
+        header.append('&');
+      }
+      header.append(keys[i]).append('=').append(values[i]);
+    }
+    return header.toString();
+  }
+
+  public static final class Builder<RequestT> {
+    private final ImmutableList.Builder<RoutingRule<RequestT>> rules = ImmutableList.builder();
+
+    private Builder() {}
+
+    /**
+     * Adds a routing rule parameter. Rules are applied in the order they are added, and a later
+     * match of a header key replaces the value of an earlier one.
+     *
+     * @param fieldGetter returns the field value of a request, or null if it is not set
+     * @param headerKey the header key for the routing header param
+     * @param pathTemplate {@link PathTemplate} the path template used for match-and-extract
+     */
+    public Builder<RequestT> add(
+        ApiFunction<RequestT, String> fieldGetter, String headerKey, PathTemplate pathTemplate) {
+      rules.add(new RoutingRule<>(fieldGetter, headerKey, pathTemplate));
+      return this;
+    }
+
+    public RoutingHeaderParamsExtractor<RequestT> build() {
+      return new RoutingHeaderParamsExtractor<>(rules.build());
+    }
+  }
+
+  private static final class RoutingRule<RequestT> {
+    private final ApiFunction<RequestT, String> fieldGetter;
+    private final String headerKey;
+    private final PathTemplate pathTemplate;
+
+    private RoutingRule(
+        ApiFunction<RequestT, String> fieldGetter, String headerKey, PathTemplate pathTemplate) {
+      this.fieldGetter = Preconditions.checkNotNull(fieldGetter);
+      this.headerKey = Preconditions.checkNotNull(headerKey);
+      this.pathTemplate = Preconditions.checkNotNull(pathTemplate);
+    }
+  }
+
+  private static final class EncodedHeader {
+    private final String[] fieldValues;
+    private final String header;
+
+    private EncodedHeader(String[] fieldValues, String header) {
+      this.fieldValues = fieldValues;
+      this.header = header;
+    }
+  }
+}
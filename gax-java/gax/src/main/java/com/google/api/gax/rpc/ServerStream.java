@@ -40,7 +40,8 @@ import javax.annotation.Nonnull;
  *
  * <p>This class asynchronously pulls responses from upstream via {@link
  * StreamController#request(int)} and exposes them via its Iterator. The implementation is back
- * pressure aware and uses a constant buffer of 1 item.
+ * pressure aware and buffers at most the prefetch window of items, which is 1 item unless set by
+ * {@link ServerStreamingCallSettings.Builder#setPrefetchWindow(int)}.
  *
  * <p>Please note that the stream can only be consumed once and must either be fully consumed or be
  * canceled.
@@ -67,12 +68,20 @@ import javax.annotation.Nonnull;
  * @param <V> The type of each response.
  */
 public class ServerStream<V> implements Iterable<V> {
-  private final QueuingResponseObserver<V> observer = new QueuingResponseObserver<>();
-  private final ServerStreamIterator<V> iterator = new ServerStreamIterator<>(observer);
+  private final QueuingResponseObserver<V> observer;
+  private final ServerStreamIterator<V> iterator;
   private boolean consumed;
 
   @InternalApi("For use by ServerStreamingCallable only.")
-  ServerStream() {}
+  ServerStream() {
+    this(1);
+  }
+
+  @InternalApi("For use by ServerStreamingCallable only.")
+  ServerStream(int prefetchWindow) {
+    observer = new QueuingResponseObserver<>(prefetchWindow);
+    iterator = new ServerStreamIterator<>(observer);
+  }
 
   @InternalApi("For use by ServerStreamingCallable only.")
   ResponseObserver<V> observer() {
@@ -72,6 +72,12 @@ import org.threeten.bp.Duration;
  *       the maximum number of failures in a row.
  *   <li>totalTimeout still applies to the entire stream.
  * </ul>
+ *
+ * <p>The prefetch window is the number of responses that a {@link ServerStream} requests ahead of
+ * the caller's iteration. The stream requests a full window when it starts and refills the window
+ * once half of it has been consumed, so the caller is not waiting on a round trip of flow control
+ * for every response. The window also bounds the number of responses buffered by the stream. The
+ * default window of 1 requests each response only after the previous one has been consumed.
  */
 public final class ServerStreamingCallSettings<RequestT, ResponseT>
     extends StreamingCallSettings<RequestT, ResponseT> {
@@ -83,12 +89,15 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
   @Nonnull private final Duration idleTimeout;
   @Nonnull private final Duration waitTimeout;
 
+  private final int prefetchWindow;
+
   private ServerStreamingCallSettings(Builder<RequestT, ResponseT> builder) {
     this.retryableCodes = ImmutableSet.copyOf(builder.retryableCodes);
     this.retrySettings = builder.retrySettingsBuilder.build();
     this.resumptionStrategy = builder.resumptionStrategy;
     this.idleTimeout = builder.idleTimeout;
     this.waitTimeout = builder.waitTimeout;
+    this.prefetchWindow = builder.prefetchWindow;
   }
 
   /**
@@ -136,6 +145,14 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
     return waitTimeout;
   }
 
+  /**
+   * See the class documentation of {@link ServerStreamingCallSettings} for a description of what
+   * the prefetch window does.
+   */
+  public int getPrefetchWindow() {
+    return prefetchWindow;
+  }
+
   public Builder<RequestT, ResponseT> toBuilder() {
     return new Builder<>(this);
   }
@@ -151,6 +168,7 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
         .add("waitTimeout", waitTimeout)
         .add("retryableCodes", retryableCodes)
         .add("retrySettings", retrySettings)
+        .add("prefetchWindow", prefetchWindow)
         .toString();
   }
 
@@ -164,6 +182,8 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
 
     @Nonnull private Duration waitTimeout;
 
+    private int prefetchWindow;
+
     /** Initialize the builder with default settings */
     private Builder() {
       this.retryableCodes = ImmutableSet.of();
@@ -172,6 +192,7 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
 
       this.idleTimeout = Duration.ZERO;
       this.waitTimeout = Duration.ZERO;
+      this.prefetchWindow = 1;
     }
 
     private Builder(ServerStreamingCallSettings<RequestT, ResponseT> settings) {
@@ -182,6 +203,7 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
 
       this.idleTimeout = settings.idleTimeout;
       this.waitTimeout = settings.waitTimeout;
+      this.prefetchWindow = settings.prefetchWindow;
     }
 
     /**
@@ -303,6 +325,21 @@ public final class ServerStreamingCallSettings<RequestT, ResponseT>
       this.waitTimeout = waitTimeout;
     }
 
+    public int getPrefetchWindow() {
+      return prefetchWindow;
+    }
+
+    /**
+     * Set the number of responses that a {@link ServerStream} requests ahead of its iteration,
+     * which is also the maximum number of responses that it buffers. See the class documentation of
+     * {@link ServerStreamingCallSettings} for details.
+     */
+    public Builder<RequestT, ResponseT> setPrefetchWindow(int prefetchWindow) {
+      Preconditions.checkArgument(prefetchWindow > 0, "prefetchWindow must be positive");
+      this.prefetchWindow = prefetchWindow;
+      return this;
+    }
+
     @Override
     public ServerStreamingCallSettings<RequestT, ResponseT> build() {
       return new ServerStreamingCallSettings<>(this);
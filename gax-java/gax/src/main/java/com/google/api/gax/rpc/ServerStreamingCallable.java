@@ -227,6 +227,13 @@ public abstract class ServerStreamingCallable<RequestT, ResponseT> {
         return ServerStreamingCallable.this.all().withDefaultCallContext(defaultCallContext);
       }
 
+      // Delegate so that the streams keep the prefetch window of the wrapped callable.
+      @Override
+      public ServerStream<ResponseT> call(RequestT request, ApiCallContext thisCallContext) {
+        return ServerStreamingCallable.this.call(
+            request, defaultCallContext.merge(thisCallContext));
+      }
+
       @Override
       public void call(
           RequestT request,
@@ -39,6 +39,7 @@ import com.google.api.gax.core.FixedCredentialsProvider;
 import com.google.api.gax.core.FixedExecutorProvider;
 import com.google.api.gax.core.InstantiatingExecutorProvider;
 import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.retrying.RetryBudget;
 import com.google.api.gax.tracing.ApiTracerFactory;
 import com.google.api.gax.tracing.BaseApiTracerFactory;
 import com.google.auth.oauth2.QuotaProjectIdProvider;
@@ -76,6 +77,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
   @Nullable private final WatchdogProvider streamWatchdogProvider;
   @Nonnull private final Duration streamWatchdogCheckInterval;
   @Nonnull private final ApiTracerFactory tracerFactory;
+  @Nullable private final RetryBudget retryBudget;
   // Track if deprecated setExecutorProvider is called
   private boolean deprecatedExecutorProviderSet;
 
@@ -102,6 +104,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
     this.streamWatchdogProvider = builder.streamWatchdogProvider;
     this.streamWatchdogCheckInterval = builder.streamWatchdogCheckInterval;
     this.tracerFactory = builder.tracerFactory;
+    this.retryBudget = builder.retryBudget;
     this.deprecatedExecutorProviderSet = builder.deprecatedExecutorProviderSet;
   }
 
@@ -172,6 +175,16 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
     return tracerFactory;
   }
 
+  /**
+   * Gets the {@link RetryBudget} shared by the retrying calls of the client, or {@code null} if
+   * their retries are not throttled.
+   */
+  @BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+  @Nullable
+  public RetryBudget getRetryBudget() {
+    return retryBudget;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -188,6 +201,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
         .add("streamWatchdogProvider", streamWatchdogProvider)
         .add("streamWatchdogCheckInterval", streamWatchdogCheckInterval)
         .add("tracerFactory", tracerFactory)
+        .add("retryBudget", retryBudget)
         .toString();
   }
 
@@ -208,6 +222,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
     @Nullable private WatchdogProvider streamWatchdogProvider;
     @Nonnull private Duration streamWatchdogCheckInterval;
     @Nonnull private ApiTracerFactory tracerFactory;
+    @Nullable private RetryBudget retryBudget;
     private boolean deprecatedExecutorProviderSet;
 
     /**
@@ -233,6 +248,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
       this.streamWatchdogProvider = settings.streamWatchdogProvider;
       this.streamWatchdogCheckInterval = settings.streamWatchdogCheckInterval;
       this.tracerFactory = settings.tracerFactory;
+      this.retryBudget = settings.retryBudget;
       this.deprecatedExecutorProviderSet = settings.deprecatedExecutorProviderSet;
     }
 
@@ -267,6 +283,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
         this.streamWatchdogProvider = InstantiatingWatchdogProvider.create();
         this.streamWatchdogCheckInterval = Duration.ofSeconds(10);
         this.tracerFactory = BaseApiTracerFactory.getInstance();
+        this.retryBudget = null;
         this.deprecatedExecutorProviderSet = false;
       } else {
         ExecutorProvider fixedExecutorProvider =
@@ -288,6 +305,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
             FixedWatchdogProvider.create(clientContext.getStreamWatchdog());
         this.streamWatchdogCheckInterval = clientContext.getStreamWatchdogCheckInterval();
         this.tracerFactory = clientContext.getTracerFactory();
+        this.retryBudget = clientContext.getRetryBudget();
         this.quotaProjectId = getQuotaProjectIdFromClientContext(clientContext);
       }
     }
@@ -447,6 +465,18 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
       return self();
     }
 
+    /**
+     * Configures the {@link RetryBudget} shared by the retrying unary calls of the client, which
+     * stops their retries while too many of their attempts fail.
+     *
+     * @param retryBudget the budget, or {@code null}, the default, to not throttle retries.
+     */
+    @BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+    public B setRetryBudget(@Nullable RetryBudget retryBudget) {
+      this.retryBudget = retryBudget;
+      return self();
+    }
+
     /** @deprecated Please use {@link #getBackgroundExecutorProvider()}. */
     @Deprecated
     public ExecutorProvider getExecutorProvider() {
@@ -513,6 +543,13 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
       return tracerFactory;
     }
 
+    /** Gets the {@link RetryBudget} that was previously set on this Builder. */
+    @BetaApi("The surface for retry budgets is not stable yet and may change in the future.")
+    @Nullable
+    public RetryBudget getRetryBudget() {
+      return retryBudget;
+    }
+
     /** Applies the given settings updater function to the given method settings builders. */
     protected static void applyToAllUnaryMethods(
         Iterable<UnaryCallSettings.Builder<?, ?>> methodSettingsBuilders,
@@ -540,6 +577,7 @@ public abstract class StubSettings<SettingsT extends StubSettings<SettingsT>> {
           .add("streamWatchdogProvider", streamWatchdogProvider)
           .add("streamWatchdogCheckInterval", streamWatchdogCheckInterval)
           .add("tracerFactory", tracerFactory)
+          .add("retryBudget", retryBudget)
           .toString();
     }
   }
@@ -29,12 +29,16 @@
  */
 package com.google.api.gax.rpc;
 
+import com.google.api.core.BetaApi;
 import com.google.api.core.InternalExtensionOnly;
+import com.google.api.gax.retrying.HedgingSettings;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import java.util.Objects;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.threeten.bp.Duration;
 
 /**
@@ -49,6 +53,12 @@ import org.threeten.bp.Duration;
  * retry logic when the retry needs to happen. To turn off retries, set the retryable codes to the
  * empty set.
  *
+ * <p>The optional hedging settings replace retries with hedging: extra attempts are sent while the
+ * earlier attempts are still in flight, and the first successful response wins. Only idempotent
+ * methods should be hedged. The total timeout of the retry settings still bounds the call, and the
+ * retryable codes indicate which failed attempts let the other attempts continue. See {@link
+ * HedgingSettings} for details.
+ *
  * <p>UnaryCallSettings contains a concrete builder class, {@link UnaryCallSettings.Builder}. This
  * builder class cannot be used to create an instance of UnaryCallSettings, because
  * UnaryCallSettings is an abstract class.
@@ -58,6 +68,7 @@ public class UnaryCallSettings<RequestT, ResponseT> {
 
   private final ImmutableSet<StatusCode.Code> retryableCodes;
   private final RetrySettings retrySettings;
+  @Nullable private final HedgingSettings hedgingSettings;
 
   /**
    * See the class documentation of {@link UnaryCallSettings} for a description of what retryable
@@ -75,6 +86,16 @@ public class UnaryCallSettings<RequestT, ResponseT> {
     return retrySettings;
   }
 
+  /**
+   * See the class documentation of {@link UnaryCallSettings} for a description of what hedging
+   * settings do. Returns {@code null} if the call is not hedged.
+   */
+  @BetaApi("The surface for hedging is not stable yet and may change in the future.")
+  @Nullable
+  public final HedgingSettings getHedgingSettings() {
+    return hedgingSettings;
+  }
+
   public static <RequestT, ResponseT> Builder<RequestT, ResponseT> newUnaryCallSettingsBuilder() {
     return new Builder<>();
   }
@@ -86,6 +107,7 @@ public class UnaryCallSettings<RequestT, ResponseT> {
   protected UnaryCallSettings(Builder<RequestT, ResponseT> builder) {
     this.retryableCodes = ImmutableSet.copyOf(builder.retryableCodes);
     this.retrySettings = builder.retrySettingsBuilder.build();
+    this.hedgingSettings = builder.hedgingSettings;
   }
 
   @Override
@@ -93,6 +115,7 @@ public class UnaryCallSettings<RequestT, ResponseT> {
     return MoreObjects.toStringHelper(this)
         .add("retryableCodes", retryableCodes)
         .add("retrySettings", retrySettings)
+        .add("hedgingSettings", hedgingSettings)
         .toString();
   }
 
@@ -101,6 +124,7 @@ public class UnaryCallSettings<RequestT, ResponseT> {
     int prime = 43;
     int result = prime + ((retrySettings == null) ? 0 : retrySettings.hashCode());
     result = prime * result + ((retryableCodes == null) ? 0 : retryableCodes.hashCode());
+    result = prime * result + ((hedgingSettings == null) ? 0 : hedgingSettings.hashCode());
     return result;
   }
 
@@ -119,6 +143,8 @@ public class UnaryCallSettings<RequestT, ResponseT> {
       return false;
     } else if (!retryableCodes.equals(other.retryableCodes)) {
       return false;
+    } else if (!Objects.equals(hedgingSettings, other.hedgingSettings)) {
+      return false;
     }
     return true;
   }
@@ -134,6 +160,7 @@ public class UnaryCallSettings<RequestT, ResponseT> {
 
     private Set<StatusCode.Code> retryableCodes;
     private RetrySettings.Builder retrySettingsBuilder;
+    @Nullable private HedgingSettings hedgingSettings;
 
     protected Builder() {
       retryableCodes = Sets.newHashSet();
@@ -143,6 +170,7 @@ public class UnaryCallSettings<RequestT, ResponseT> {
     protected Builder(UnaryCallSettings<RequestT, ResponseT> unaryCallSettings) {
       setRetryableCodes(unaryCallSettings.retryableCodes);
       setRetrySettings(unaryCallSettings.getRetrySettings());
+      setHedgingSettings(unaryCallSettings.getHedgingSettings());
     }
 
     /**
@@ -194,6 +222,17 @@ public class UnaryCallSettings<RequestT, ResponseT> {
       return this;
     }
 
+    /**
+     * See the class documentation of {@link UnaryCallSettings} for a description of what hedging
+     * settings do. Set to {@code null}, the default, to not hedge the call.
+     */
+    @BetaApi("The surface for hedging is not stable yet and may change in the future.")
+    public UnaryCallSettings.Builder<RequestT, ResponseT> setHedgingSettings(
+        @Nullable HedgingSettings hedgingSettings) {
+      this.hedgingSettings = hedgingSettings;
+      return this;
+    }
+
     /** Disables retries and sets the RPC timeout. */
     public UnaryCallSettings.Builder<RequestT, ResponseT> setSimpleTimeoutNoRetries(
         Duration timeout) {
@@ -229,6 +268,16 @@ public class UnaryCallSettings<RequestT, ResponseT> {
       return this.retrySettingsBuilder.build();
     }
 
+    /**
+     * See the class documentation of {@link UnaryCallSettings} for a description of what hedging
+     * settings do.
+     */
+    @BetaApi("The surface for hedging is not stable yet and may change in the future.")
+    @Nullable
+    public HedgingSettings getHedgingSettings() {
+      return this.hedgingSettings;
+    }
+
     /**
      * Builds an instance of the containing class. This operation is unsupported on the abstract
      * base class UnaryCallSettings, but is valid on concrete derived classes.
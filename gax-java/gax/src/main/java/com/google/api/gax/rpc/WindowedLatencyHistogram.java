@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.rpc;
+
+import com.google.api.core.ApiClock;
+import com.google.api.gax.tracing.LatencyHistogram;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.threeten.bp.Duration;
+
+/**
+ * Holds the latencies recorded during a sliding window of time, to compute percentiles of recent
+ * latencies only.
+ *
+ * <p>The window is split into slots, each a {@link LatencyHistogram}. New latencies go to the slot
+ * of the current time, and the slot which falls out of the window is cleared as time passes, so a
+ * latency is forgotten between {@code window - window / slotCount} and {@code window} after it was
+ * recorded.
+ *
+ * <p>Package-private for internal use.
+ */
+final class WindowedLatencyHistogram {
+  private final ApiClock clock;
+  private final long slotNanos;
+  private final AtomicReferenceArray<LatencyHistogram> slots;
+  // The number of the slot which records new latencies, counted in slots since the clock's origin.
+  private volatile long currentSlot;
+
+  WindowedLatencyHistogram(Duration window, int slotCount, ApiClock clock) {
+    Preconditions.checkArgument(slotCount > 0, "slotCount must be positive");
+    Preconditions.checkArgument(
+        window.toNanos() >= slotCount, "window must be at least one nanosecond per slot");
+    this.clock = Preconditions.checkNotNull(clock);
+    this.slotNanos = window.toNanos() / slotCount;
+    this.slots = new AtomicReferenceArray<>(slotCount);
+    for (int i = 0; i < slotCount; i++) {
+      slots.set(i, new LatencyHistogram());
+    }
+    this.currentSlot = Math.floorDiv(clock.nanoTime(), slotNanos);
+  }
+
+  /** Records a latency in the slot of the current time. */
+  void record(long nanos) {
+    slots.get(slotIndex(rotate())).record(nanos);
+  }
+
+  /**
+   * Returns the number of the slot which records new latencies, counted in slots since the clock's
+   * origin. A snapshot changes mostly when this number does.
+   */
+  long currentSlot() {
+    return rotate();
+  }
+
+  /** Returns a histogram of the latencies recorded during the window. */
+  LatencyHistogram snapshot() {
+    rotate();
+    LatencyHistogram snapshot = new LatencyHistogram();
+    for (int i = 0; i < slots.length(); i++) {
+      snapshot.add(slots.get(i));
+    }
+    return snapshot;
+  }
+
+  /** Clears the slots which fell out of the window and returns the number of the current slot. */
+  private long rotate() {
+    long slot = Math.floorDiv(clock.nanoTime(), slotNanos);
+    long previousSlot = currentSlot;
+    // A clock going backwards keeps recording in the current slot.
+    if (slot <= previousSlot) {
+      return previousSlot;
+    }
+    synchronized (this) {
+      previousSlot = currentSlot;
+      if (slot > previousSlot) {
+        // Only the last slots.length() slots hold latencies which may still be in the window.
+        for (long s = Math.max(previousSlot + 1, slot - slots.length() + 1); s <= slot; s++) {
+          slots.set(slotIndex(s), new LatencyHistogram());
+        }
+        currentSlot = slot;
+      }
+      return currentSlot;
+    }
+  }
+
+  private int slotIndex(long slot) {
+    return (int) Math.floorMod(slot, (long) slots.length());
+  }
+}
@@ -80,6 +80,12 @@ public final class ApiCallContextOptions {
   /** Merge new options into existing ones. Any existing values of the keys are overwritten. */
   public ApiCallContextOptions merge(ApiCallContextOptions newOptions) {
     Preconditions.checkNotNull(newOptions);
+    if (newOptions.options.isEmpty()) {
+      return this;
+    }
+    if (options.isEmpty()) {
+      return newOptions;
+    }
     ImmutableMap.Builder<Key, Object> builder =
         ImmutableMap.<Key, Object>builder().putAll(newOptions.options);
     for (Key key : options.keySet()) {
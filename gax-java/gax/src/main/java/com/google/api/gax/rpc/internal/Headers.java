@@ -40,6 +40,13 @@ import java.util.Map;
 public class Headers {
   public static ImmutableMap<String, List<String>> mergeHeaders(
       Map<String, List<String>> oldHeaders, Map<String, List<String>> newHeaders) {
+    // Merging with no headers keeps the other headers, which are shared if they are immutable.
+    if (newHeaders.isEmpty() && hasImmutableValues(oldHeaders)) {
+      return ImmutableMap.copyOf(oldHeaders);
+    }
+    if (oldHeaders.isEmpty() && hasImmutableValues(newHeaders)) {
+      return ImmutableMap.copyOf(newHeaders);
+    }
     ImmutableMap.Builder<String, List<String>> headersBuilder = ImmutableMap.builder();
     for (Map.Entry<String, List<String>> entry : oldHeaders.entrySet()) {
       String key = entry.getKey();
@@ -60,4 +67,13 @@ public class Headers {
     }
     return headersBuilder.build();
   }
+
+  private static boolean hasImmutableValues(Map<String, List<String>> headers) {
+    for (List<String> value : headers.values()) {
+      if (!(value instanceof ImmutableList)) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
@@ -78,6 +78,18 @@ public interface ApiTracer {
    */
   void connectionSelected(String id);
 
+  /**
+   * Annotates the operation with the usage of the {@code ChannelPool} that its connection was
+   * selected from.
+   *
+   * @param channelCount the number of channels in the pool.
+   * @param outstandingRpcs the number of outstanding RPCs on the selected channel, including this
+   *     one.
+   */
+  default void channelPoolUsageRecorded(int channelCount, int outstandingRpcs) {
+    // noop
+  }
+
   /**
    * Adds an annotation that an attempt is about to start. In general this should occur at the very
    * start of the operation. The attemptNumber is zero based. So the initial attempt will be 0.
@@ -98,6 +110,28 @@ public interface ApiTracer {
    */
   void attemptStarted(Object request, int attemptNumber);
 
+  /**
+   * Adds an annotation that a hedged attempt is about to start, while the earlier attempts of the
+   * operation are still in flight. It is followed by {@link #attemptStarted(Object, int)} for the
+   * same attempt, and the events of the attempts in flight may then interleave.
+   *
+   * @param attemptNumber the zero based sequential attempt number.
+   */
+  default void attemptHedged(int attemptNumber) {
+    // noop
+  }
+
+  /**
+   * Adds an annotation that the next attempt event, such as {@link #attemptSucceeded()}, is about
+   * the attempt with the given number. Once hedged attempts are in flight, this is not always the
+   * last started attempt. It is sent before every such event of an operation that hedges.
+   *
+   * @param attemptNumber the zero based sequential attempt number.
+   */
+  default void attemptEnding(int attemptNumber) {
+    // noop
+  }
+
   /** Adds an annotation that the attempt succeeded. */
   void attemptSucceeded();
 
@@ -128,6 +162,17 @@ public interface ApiTracer {
    */
   void attemptPermanentFailure(Throwable error);
 
+  /**
+   * Adds an annotation that the attempt failed with a retryable error, and that it would have been
+   * retried if the retry budget of the client was not drained. It is followed by {@link
+   * #attemptFailedRetriesExhausted(Throwable)}.
+   *
+   * @param budgetTokens the number of tokens left in the retry budget.
+   */
+  default void retryThrottled(double budgetTokens) {
+    // noop
+  }
+
   /**
    * Signals that the initial RPC for the long running operation failed.
    *
@@ -80,6 +80,11 @@ public class BaseApiTracer implements ApiTracer {
     // noop
   }
 
+  @Override
+  public void channelPoolUsageRecorded(int channelCount, int outstandingRpcs) {
+    // noop
+  }
+
   @Override
   public void attemptStarted(int attemptNumber) {
     // noop
@@ -90,6 +95,16 @@ public class BaseApiTracer implements ApiTracer {
     attemptStarted(attemptNumber);
   }
 
+  @Override
+  public void attemptHedged(int attemptNumber) {
+    // noop
+  }
+
+  @Override
+  public void attemptEnding(int attemptNumber) {
+    // noop
+  }
+
   @Override
   public void attemptSucceeded() {
     // noop
@@ -116,6 +131,11 @@ public class BaseApiTracer implements ApiTracer {
 
   }
 
+  @Override
+  public void retryThrottled(double budgetTokens) {
+    // noop
+  }
+
   @Override
   public void lroStartFailed(Throwable error) {
     // noop
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.tracing;
+
+import com.google.api.core.BetaApi;
+import com.google.api.core.InternalApi;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies with exponential buckets, recorded by {@link MetricsTracer}.
+ *
+ * <p>Bucket {@code 0} counts latencies below one microsecond, and bucket {@code i} counts latencies
+ * from {@code 2^(i-1)} (inclusive) to {@code 2^i} (exclusive) microseconds. The last bucket also
+ * counts every longer latency, which puts its lower bound at roughly 18 minutes.
+ *
+ * <p>Methods may be called concurrently. Recording a value never locks or allocates; if called
+ * concurrently with {@link #record(long)}, the getters return an approximate view.
+ */
+@BetaApi("Surface for tracing is not yet stable")
+@InternalApi("For google-cloud-java client use only")
+public final class LatencyHistogram {
+  static final int BUCKET_COUNT = 32;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder sumNanos = new LongAdder();
+
+  /** Creates an empty histogram. */
+  public LatencyHistogram() {}
+
+  /** Records a latency. Negative latencies, from a clock going backwards, are recorded as 0. */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets.incrementAndGet(bucketIndex(nanos));
+    sumNanos.add(nanos);
+  }
+
+  /** Adds the latencies recorded by another histogram to this one. */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long value = other.buckets.get(i);
+      if (value != 0) {
+        buckets.addAndGet(i, value);
+      }
+    }
+    sumNanos.add(other.getSumNanos());
+  }
+
+  /** The number of recorded latencies. */
+  public long getCount() {
+    // Summing the buckets on read keeps record() at two atomic updates.
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  /** The sum of the recorded latencies, in nanoseconds. */
+  public long getSumNanos() {
+    return sumNanos.sum();
+  }
+
+  /** The number of buckets, which is the same for every histogram. */
+  public int getBucketCount() {
+    return BUCKET_COUNT;
+  }
+
+  /** The number of latencies recorded in the given bucket. */
+  public long getBucketValue(int bucket) {
+    Preconditions.checkElementIndex(bucket, BUCKET_COUNT);
+    return buckets.get(bucket);
+  }
+
+  /**
+   * The exclusive upper bound of the given bucket, in microseconds, or {@link Long#MAX_VALUE} for
+   * the last bucket.
+   */
+  public long getBucketUpperBoundMicros(int bucket) {
+    Preconditions.checkElementIndex(bucket, BUCKET_COUNT);
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+  }
+
+  /**
+   * An estimate of the given percentile of the recorded latencies, in nanoseconds, or 0 if no
+   * latency was recorded.
+   *
+   * <p>The latencies of the bucket which holds the percentile are assumed to be spread evenly over
+   * the bucket, so the estimate is off by less than the width of that bucket: one microsecond for
+   * the first bucket, and half of the upper bound for the others. The last bucket has no upper
+   * bound, and its lower bound is returned.
+   *
+   * @param percentile the percentile, greater than 0 and at most 100.
+   */
+  public long getPercentileNanos(double percentile) {
+    Preconditions.checkArgument(
+        percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile / 100 * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT - 1; i++) {
+      long value = buckets.get(i);
+      if (seen + value >= rank) {
+        long lowerBoundNanos = i == 0 ? 0 : TimeUnit.MICROSECONDS.toNanos(1L << (i - 1));
+        long upperBoundNanos = TimeUnit.MICROSECONDS.toNanos(getBucketUpperBoundMicros(i));
+        return lowerBoundNanos
+            + (long) ((upperBoundNanos - lowerBoundNanos) * ((double) (rank - seen) / value));
+      }
+      seen += value;
+    }
+    return TimeUnit.MICROSECONDS.toNanos(1L << (BUCKET_COUNT - 2));
+  }
+
+  static int bucketIndex(long nanos) {
+    long micros = nanos / 1000;
+    // The number of significant bits of the latency in microseconds: 0 for 0, i for [2^(i-1), 2^i).
+    int bucket = Long.SIZE - Long.numberOfLeadingZeros(micros);
+    return Math.min(bucket, BUCKET_COUNT - 1);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("count", getCount())
+        .add("sumNanos", getSumNanos())
+        .toString();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.tracing;
+
+import com.google.api.core.BetaApi;
+import com.google.api.core.InternalApi;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics that {@link MetricsTracer}s record for one method.
+ *
+ * <p>The instruments are created once per method by {@link MetricsTracerFactory} and bound to each
+ * of its tracers, so recording an event does not look anything up, allocate or box.
+ *
+ * <p>Methods may be called concurrently. If called concurrently with a tracer, the getters return
+ * an approximate view.
+ */
+@BetaApi("Surface for tracing is not yet stable")
+@InternalApi("For google-cloud-java client use only")
+public final class MethodMetrics {
+  private final SpanName spanName;
+
+  private final LatencyHistogram operationLatency = new LatencyHistogram();
+  private final LatencyHistogram attemptLatency = new LatencyHistogram();
+  private final LatencyHistogram retryDelay = new LatencyHistogram();
+
+  private final LongAdder succeededOperationCount = new LongAdder();
+  private final LongAdder cancelledOperationCount = new LongAdder();
+  private final LongAdder failedOperationCount = new LongAdder();
+  private final LongAdder attemptCount = new LongAdder();
+  private final LongAdder failedAttemptCount = new LongAdder();
+  private final LongAdder hedgedAttemptCount = new LongAdder();
+  private final LongAdder throttledRetryCount = new LongAdder();
+
+  MethodMetrics(SpanName spanName) {
+    this.spanName = Preconditions.checkNotNull(spanName, "spanName can't be null");
+  }
+
+  /** The name of the method. */
+  public SpanName getSpanName() {
+    return spanName;
+  }
+
+  /** The latency of each logical operation, from its first attempt to its completion. */
+  public LatencyHistogram getOperationLatency() {
+    return operationLatency;
+  }
+
+  /** The latency of each attempt, from its start to its success or failure. */
+  public LatencyHistogram getAttemptLatency() {
+    return attemptLatency;
+  }
+
+  /** The delay before each retry, as scheduled by the retry algorithm. */
+  public LatencyHistogram getRetryDelay() {
+    return retryDelay;
+  }
+
+  /** The number of operations that succeeded. */
+  public long getSucceededOperationCount() {
+    return succeededOperationCount.sum();
+  }
+
+  /** The number of operations that were cancelled by the caller. */
+  public long getCancelledOperationCount() {
+    return cancelledOperationCount.sum();
+  }
+
+  /** The number of operations that failed. */
+  public long getFailedOperationCount() {
+    return failedOperationCount.sum();
+  }
+
+  /** The number of attempts that were started, including the first attempt of each operation. */
+  public long getAttemptCount() {
+    return attemptCount.sum();
+  }
+
+  /** The number of attempts that failed, whether or not they were retried. */
+  public long getFailedAttemptCount() {
+    return failedAttemptCount.sum();
+  }
+
+  /** The number of attempts that were started while earlier attempts were in flight. */
+  public long getHedgedAttemptCount() {
+    return hedgedAttemptCount.sum();
+  }
+
+  /** The number of failed attempts that were not retried because the retry budget was drained. */
+  public long getThrottledRetryCount() {
+    return throttledRetryCount.sum();
+  }
+
+  void recordOperationSucceeded(long latencyNanos) {
+    operationLatency.record(latencyNanos);
+    succeededOperationCount.increment();
+  }
+
+  void recordOperationCancelled(long latencyNanos) {
+    operationLatency.record(latencyNanos);
+    cancelledOperationCount.increment();
+  }
+
+  void recordOperationFailed(long latencyNanos) {
+    operationLatency.record(latencyNanos);
+    failedOperationCount.increment();
+  }
+
+  void recordAttemptStarted() {
+    attemptCount.increment();
+  }
+
+  void recordAttemptHedged() {
+    hedgedAttemptCount.increment();
+  }
+
+  void recordRetryThrottled() {
+    throttledRetryCount.increment();
+  }
+
+  void recordAttemptCompleted(long latencyNanos) {
+    attemptLatency.record(latencyNanos);
+  }
+
+  void recordAttemptFailed(long latencyNanos) {
+    attemptLatency.record(latencyNanos);
+    failedAttemptCount.increment();
+  }
+
+  void recordRetryDelay(long delayNanos) {
+    retryDelay.record(delayNanos);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("spanName", spanName)
+        .add("operationLatency", operationLatency)
+        .add("attemptCount", getAttemptCount())
+        .add("failedAttemptCount", getFailedAttemptCount())
+        .add("hedgedAttemptCount", getHedgedAttemptCount())
+        .add("throttledRetryCount", getThrottledRetryCount())
+        .add("retryDelay", retryDelay)
+        .toString();
+  }
+}
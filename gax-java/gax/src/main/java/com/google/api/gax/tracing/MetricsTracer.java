@@ -0,0 +1,175 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.tracing;
+
+import com.google.api.core.ApiClock;
+import com.google.api.core.BetaApi;
+import com.google.api.core.InternalApi;
+import com.google.common.base.Preconditions;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.threeten.bp.Duration;
+
+/**
+ * Implementation of {@link ApiTracer} that records the latency of operations and attempts, the
+ * number of attempts and the retry delays of a method into its {@link MethodMetrics}.
+ *
+ * <p>Unlike {@link OpencensusTracer}, this tracer keeps no per-event attributes: every event
+ * updates an instrument that was bound to the tracer when it was created, which keeps its overhead
+ * close to that of {@link BaseApiTracer}.
+ *
+ * <p>The latency of an attempt is measured from the start of the last started attempt, unless
+ * {@link #attemptEnding(int)} names another one, as it does for the interleaved events of hedged
+ * attempts.
+ *
+ * <p>This class is thread compatible. It expects callers to follow grpc's threading model: there is
+ * only one thread that invokes the operation* and attempt* methods. Please see {@link
+ * com.google.api.gax.rpc.ApiStreamObserver} for more information.
+ */
+@BetaApi("Surface for tracing is not yet stable")
+@InternalApi("For google-cloud-java client use only")
+public class MetricsTracer extends BaseApiTracer {
+  private final MethodMetrics metrics;
+  private final ApiClock clock;
+
+  private final long operationStartNanos;
+  // The start of the attempt which the next attempt event is about.
+  private long attemptStartNanos;
+  private int attemptNumber;
+  // The start of the attempts which have not ended, by attempt number, once an attempt was hedged.
+  // Most operations never hedge, so their attempts do not pay for the map.
+  private Map<Integer, Long> hedgedAttemptStartNanos;
+
+  MetricsTracer(@Nonnull MethodMetrics metrics, @Nonnull ApiClock clock) {
+    this.metrics = Preconditions.checkNotNull(metrics, "metrics can't be null");
+    this.clock = Preconditions.checkNotNull(clock, "clock can't be null");
+    this.operationStartNanos = clock.nanoTime();
+    this.attemptStartNanos = operationStartNanos;
+  }
+
+  MethodMetrics getMetrics() {
+    return metrics;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void operationSucceeded() {
+    metrics.recordOperationSucceeded(clock.nanoTime() - operationStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void operationCancelled() {
+    metrics.recordOperationCancelled(clock.nanoTime() - operationStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void operationFailed(Throwable error) {
+    metrics.recordOperationFailed(clock.nanoTime() - operationStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptStarted(int attemptNumber) {
+    this.attemptStartNanos = clock.nanoTime();
+    this.attemptNumber = attemptNumber;
+    if (hedgedAttemptStartNanos != null) {
+      hedgedAttemptStartNanos.put(attemptNumber, attemptStartNanos);
+    }
+    metrics.recordAttemptStarted();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptStarted(Object request, int attemptNumber) {
+    attemptStarted(attemptNumber);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptHedged(int attemptNumber) {
+    if (hedgedAttemptStartNanos == null) {
+      // Keeps the start of the attempt in flight, which the hedged attempt no longer overwrites.
+      hedgedAttemptStartNanos = new HashMap<>();
+      hedgedAttemptStartNanos.put(this.attemptNumber, attemptStartNanos);
+    }
+    metrics.recordAttemptHedged();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptEnding(int attemptNumber) {
+    if (hedgedAttemptStartNanos != null) {
+      Long startNanos = hedgedAttemptStartNanos.remove(attemptNumber);
+      if (startNanos != null) {
+        attemptStartNanos = startNanos;
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptSucceeded() {
+    metrics.recordAttemptCompleted(clock.nanoTime() - attemptStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptCancelled() {
+    metrics.recordAttemptCompleted(clock.nanoTime() - attemptStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptFailed(Throwable error, Duration delay) {
+    metrics.recordAttemptFailed(clock.nanoTime() - attemptStartNanos);
+    metrics.recordRetryDelay(delay.toNanos());
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptFailedRetriesExhausted(Throwable error) {
+    metrics.recordAttemptFailed(clock.nanoTime() - attemptStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void attemptPermanentFailure(Throwable error) {
+    metrics.recordAttemptFailed(clock.nanoTime() - attemptStartNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void retryThrottled(double budgetTokens) {
+    metrics.recordRetryThrottled();
+  }
+}
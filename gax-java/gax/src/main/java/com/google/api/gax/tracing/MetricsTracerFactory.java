@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.tracing;
+
+import com.google.api.core.ApiClock;
+import com.google.api.core.BetaApi;
+import com.google.api.core.InternalApi;
+import com.google.api.core.NanoClock;
+import com.google.common.base.Preconditions;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ApiTracerFactory} to build instances of {@link MetricsTracer}.
+ *
+ * <p>The factory keeps one {@link MethodMetrics} per {@link SpanName}, which is looked up once when
+ * a tracer is created and shared by all the tracers of that method. The metrics can be read with
+ * {@link #getMethodMetrics(SpanName)} or pushed to a {@link MetricsExporter} with {@link
+ * #export(MetricsExporter)}.
+ *
+ * <p>This class is thread safe.
+ */
+@BetaApi("Surface for tracing is not yet stable")
+@InternalApi("For google-cloud-java client use only")
+public final class MetricsTracerFactory extends BaseApiTracerFactory {
+  @Nonnull private final ApiClock clock;
+
+  private final ConcurrentMap<SpanName, MethodMetrics> methodMetrics = new ConcurrentHashMap<>();
+
+  /** Instantiates a new instance that measures latencies with the system nano clock. */
+  public MetricsTracerFactory() {
+    this(NanoClock.getDefaultClock());
+  }
+
+  /**
+   * Instantiates a new instance with an explicit clock.
+   *
+   * @param clock the clock to measure latencies with.
+   */
+  @InternalApi("Visible for testing")
+  MetricsTracerFactory(@Nonnull ApiClock clock) {
+    this.clock = Preconditions.checkNotNull(clock, "clock can't be null");
+  }
+
+  /** {@inheritDoc } */
+  @Override
+  public ApiTracer newTracer(ApiTracer parent, SpanName spanName, OperationType operationType) {
+    return new MetricsTracer(getOrCreateMethodMetrics(spanName), clock);
+  }
+
+  /** Returns the metrics of the given method, or null if it was never traced. */
+  @Nullable
+  public MethodMetrics getMethodMetrics(SpanName spanName) {
+    return methodMetrics.get(spanName);
+  }
+
+  /** Pushes the metrics of every method traced so far to the given exporter. */
+  public void export(MetricsExporter exporter) {
+    exporter.export(Collections.unmodifiableCollection(methodMetrics.values()));
+  }
+
+  private MethodMetrics getOrCreateMethodMetrics(SpanName spanName) {
+    // Check before computeIfAbsent, which locks the bin even when the key is present on Java 8.
+    MethodMetrics metrics = methodMetrics.get(spanName);
+    if (metrics == null) {
+      metrics = methodMetrics.computeIfAbsent(spanName, MethodMetrics::new);
+    }
+    return metrics;
+  }
+}
@@ -296,6 +296,14 @@ public class OpencensusTracer extends BaseApiTracer {
     lastConnectionId = id;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void channelPoolUsageRecorded(int channelCount, int outstandingRpcs) {
+    span.putAttribute("channel pool size", AttributeValue.longAttributeValue(channelCount));
+    span.putAttribute(
+        "channel outstanding rpcs", AttributeValue.longAttributeValue(outstandingRpcs));
+  }
+
   /** {@inheritDoc} */
   @Override
   public void attemptStarted(int attemptNumber) {
@@ -313,6 +321,14 @@ public class OpencensusTracer extends BaseApiTracer {
     attemptStarted(attemptNumber);
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void attemptHedged(int attemptNumber) {
+    Map<String, AttributeValue> attributes = new HashMap<>();
+    attributes.put("attempt", AttributeValue.longAttributeValue(attemptNumber));
+    span.addAnnotation("Hedged attempt started", attributes);
+  }
+
   /** {@inheritDoc} */
   @Override
   public void attemptSucceeded() {
@@ -387,6 +403,14 @@ public class OpencensusTracer extends BaseApiTracer {
     lastConnectionId = null;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void retryThrottled(double budgetTokens) {
+    Map<String, AttributeValue> attributes = new HashMap<>();
+    attributes.put("budget tokens", AttributeValue.doubleAttributeValue(budgetTokens));
+    span.addAnnotation("Retry throttled", attributes);
+  }
+
   /** {@inheritDoc} */
   @Override
   public void responseReceived() {
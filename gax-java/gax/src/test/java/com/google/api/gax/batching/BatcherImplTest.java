@@ -50,12 +50,16 @@ import com.google.api.gax.rpc.testing.FakeCallContext;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -157,6 +161,116 @@ public class BatcherImplTest {
     assertThat(callableCounter.get()).isEqualTo(1);
   }
 
+  /** Elements added from many threads are batched at the thresholds and in order per thread. */
+  @Test
+  public void testAddFromMultipleThreads() throws Exception {
+    final int threadCount = 8;
+    final int elementsPerThread = 1000;
+    final Queue<List<Integer>> batches = new ConcurrentLinkedQueue<>();
+    BatchingSettings settings = batchingSettings.toBuilder().setElementCountThreshold(100L).build();
+    underTest =
+        new BatcherImpl<>(
+            SQUARER_BATCHING_DESC_V2,
+            new LabeledIntSquarerCallable() {
+              @Override
+              public ApiFuture<List<Integer>> futureCall(
+                  LabeledIntList request, ApiCallContext context) {
+                batches.add(new ArrayList<>(request.ints));
+                return super.futureCall(request, context);
+              }
+            },
+            labeledIntList,
+            settings,
+            EXECUTOR);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    List<Future<List<ApiFuture<Integer>>>> producers = new ArrayList<>();
+    for (int thread = 0; thread < threadCount; thread++) {
+      final int firstElement = thread * elementsPerThread;
+      producers.add(
+          executor.submit(
+              () -> {
+                List<ApiFuture<Integer>> results = new ArrayList<>();
+                for (int i = firstElement; i < firstElement + elementsPerThread; i++) {
+                  results.add(underTest.add(i));
+                }
+                return results;
+              }));
+    }
+    List<ApiFuture<Integer>> results = new ArrayList<>();
+    for (Future<List<ApiFuture<Integer>>> producer : producers) {
+      results.addAll(producer.get(10, TimeUnit.SECONDS));
+    }
+    executor.shutdown();
+    underTest.flush();
+
+    for (ApiFuture<Integer> result : results) {
+      assertThat(result.isDone()).isTrue();
+    }
+    int[] lastElementOfThread = new int[threadCount];
+    Arrays.fill(lastElementOfThread, -1);
+    int elementCount = 0;
+    for (List<Integer> batch : batches) {
+      assertThat(batch.size()).isAtMost(100);
+      for (int element : batch) {
+        int thread = element / elementsPerThread;
+        assertThat(element).isGreaterThan(lastElementOfThread[thread]);
+        lastElementOfThread[thread] = element;
+        elementCount++;
+      }
+    }
+    assertThat(elementCount).isEqualTo(threadCount * elementsPerThread);
+  }
+
+  /** Adding elements does not wait for another thread which is sending a batch. */
+  @Test(timeout = 10000)
+  public void testAddDoesNotWaitForSendingThread() throws Exception {
+    final CountDownLatch sending = new CountDownLatch(1);
+    final CountDownLatch releaseSending = new CountDownLatch(1);
+    final Queue<List<Integer>> batches = new ConcurrentLinkedQueue<>();
+    BatchingSettings settings = batchingSettings.toBuilder().setElementCountThreshold(2L).build();
+    underTest =
+        new BatcherImpl<>(
+            SQUARER_BATCHING_DESC_V2,
+            new LabeledIntSquarerCallable() {
+              @Override
+              public ApiFuture<List<Integer>> futureCall(
+                  LabeledIntList request, ApiCallContext context) {
+                batches.add(new ArrayList<>(request.ints));
+                if (batches.size() == 1) {
+                  sending.countDown();
+                  Uninterruptibles.awaitUninterruptibly(releaseSending);
+                }
+                return super.futureCall(request, context);
+              }
+            },
+            labeledIntList,
+            settings,
+            EXECUTOR);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> sender =
+        executor.submit(
+            () -> {
+              underTest.add(1);
+              underTest.add(2);
+            });
+    sending.await();
+
+    // The second batch reaches the threshold while the first one is being sent.
+    Future<Integer> result3 = underTest.add(3);
+    Future<Integer> result4 = underTest.add(4);
+    assertThat(batches).hasSize(1);
+
+    releaseSending.countDown();
+    sender.get();
+    executor.shutdown();
+    // The sending thread drains the elements left to it.
+    assertThat(result3.get()).isEqualTo(9);
+    assertThat(result4.get()).isEqualTo(16);
+    assertThat(batches).containsExactly(Arrays.asList(1, 2), Arrays.asList(3, 4)).inOrder();
+  }
+
   /** Element results are resolved after batch is closed. */
   @Test
   public void testWhenBatcherIsClose() throws Exception {
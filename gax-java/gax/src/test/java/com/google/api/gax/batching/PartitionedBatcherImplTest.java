@@ -0,0 +1,216 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.batching;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.batching.FlowController.FlowControlRuntimeException;
+import com.google.api.gax.batching.FlowController.LimitExceededBehavior;
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.api.gax.rpc.testing.FakeBatchableApi.LabeledIntList;
+import com.google.api.gax.rpc.testing.FakeBatchableApi.LabeledIntSquarerCallable;
+import com.google.api.gax.rpc.testing.FakeBatchableApi.SquarerBatchingDescriptorV2;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class PartitionedBatcherImplTest {
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor();
+
+  /** Partitions the integers by their parity. */
+  private static final PartitionedBatchingDescriptor<
+          Integer, Integer, LabeledIntList, List<Integer>>
+      PARITY_BATCHING_DESC = new ParityBatchingDescriptor();
+
+  private final Queue<List<Integer>> sentBatches = new ConcurrentLinkedQueue<>();
+  private final LabeledIntSquarerCallable callable =
+      new LabeledIntSquarerCallable() {
+        @Override
+        public ApiFuture<List<Integer>> futureCall(LabeledIntList request, ApiCallContext context) {
+          sentBatches.add(request.ints);
+          return super.futureCall(request, context);
+        }
+      };
+  private final BatchingSettings batchingSettings =
+      BatchingSettings.newBuilder()
+          .setElementCountThreshold(2L)
+          .setRequestByteThreshold(1000L)
+          .setDelayThreshold(Duration.ofSeconds(1))
+          .build();
+
+  private PartitionedBatcherImpl<Integer, Integer, LabeledIntList, List<Integer>> underTest;
+
+  @Before
+  public void setUp() {
+    underTest =
+        new PartitionedBatcherImpl<>(
+            PARITY_BATCHING_DESC,
+            callable,
+            new LabeledIntList("Default"),
+            batchingSettings,
+            EXECUTOR,
+            null,
+            null,
+            Duration.ofMillis(1));
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    underTest.close();
+  }
+
+  @AfterClass
+  public static void tearDownExecutor() throws InterruptedException {
+    EXECUTOR.shutdown();
+    EXECUTOR.awaitTermination(100, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void testElementsAreBatchedByPartition() throws Exception {
+    ApiFuture<Integer> one = underTest.add(1);
+    ApiFuture<Integer> two = underTest.add(2);
+    ApiFuture<Integer> three = underTest.add(3);
+
+    // The odd partition reached the element count threshold.
+    assertThat(sentBatches).containsExactly(ImmutableList.of(1, 3));
+    assertThat(one.get()).isEqualTo(1);
+    assertThat(three.get()).isEqualTo(9);
+    assertThat(two.isDone()).isFalse();
+
+    underTest.flush();
+    assertThat(sentBatches).containsExactly(ImmutableList.of(1, 3), ImmutableList.of(2));
+    assertThat(two.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void testPartitionsShareTheFlowController() throws Exception {
+    FlowController flowController =
+        new FlowController(
+            FlowControlSettings.newBuilder()
+                .setLimitExceededBehavior(LimitExceededBehavior.ThrowException)
+                .setMaxOutstandingElementCount(2L)
+                .build());
+    PartitionedBatcherImpl<Integer, Integer, LabeledIntList, List<Integer>> throttledBatcher =
+        new PartitionedBatcherImpl<>(
+            PARITY_BATCHING_DESC,
+            callable,
+            new LabeledIntList("Default"),
+            batchingSettings,
+            EXECUTOR,
+            flowController,
+            null,
+            Duration.ofMinutes(1));
+    assertThat(throttledBatcher.getFlowController()).isSameInstanceAs(flowController);
+
+    throttledBatcher.add(1);
+    throttledBatcher.add(2);
+    // Neither partition has reached its threshold, but together they used up the flow control.
+    Assert.assertThrows(FlowControlRuntimeException.class, () -> throttledBatcher.add(3));
+
+    throttledBatcher.close();
+    assertThat(sentBatches).containsExactly(ImmutableList.of(1), ImmutableList.of(2));
+  }
+
+  @Test
+  public void testIdlePartitionsAreEvicted() throws Exception {
+    ApiFuture<Integer> one = underTest.add(1);
+    underTest.add(2);
+    assertThat(underTest.getPartitionCount()).isEqualTo(2);
+
+    Thread.sleep(5);
+    underTest.sendOutstandingAndEvictIdlePartitions();
+
+    assertThat(underTest.getPartitionCount()).isEqualTo(0);
+    // The evicted partitions sent their elements on the way out.
+    assertThat(one.get()).isEqualTo(1);
+    assertThat(sentBatches).hasSize(2);
+
+    // A new element recreates its partition.
+    ApiFuture<Integer> three = underTest.add(3);
+    assertThat(underTest.getPartitionCount()).isEqualTo(1);
+    underTest.flush();
+    assertThat(three.get()).isEqualTo(9);
+  }
+
+  @Test
+  public void testCloseReportsFailuresOfAllPartitions() throws Exception {
+    PartitionedBatcherImpl<Integer, Integer, LabeledIntList, List<Integer>> failingBatcher =
+        new PartitionedBatcherImpl<>(
+            PARITY_BATCHING_DESC,
+            new LabeledIntSquarerCallable() {
+              @Override
+              public ApiFuture<List<Integer>> futureCall(
+                  LabeledIntList request, ApiCallContext context) {
+                return ApiFutures.immediateFailedFuture(new IllegalStateException("fake error"));
+              }
+            },
+            new LabeledIntList("Default"),
+            batchingSettings,
+            EXECUTOR,
+            null,
+            null,
+            Duration.ofMinutes(1));
+    failingBatcher.add(1);
+    failingBatcher.add(2);
+
+    BatchingException error = Assert.assertThrows(BatchingException.class, failingBatcher::close);
+    assertThat(error).hasMessageThat().contains("IllegalStateException");
+  }
+
+  @Test
+  public void testNoElementAdditionAfterClose() throws Exception {
+    underTest.close();
+    Assert.assertThrows(IllegalStateException.class, () -> underTest.add(1));
+  }
+
+  private static class ParityBatchingDescriptor extends SquarerBatchingDescriptorV2
+      implements PartitionedBatchingDescriptor<Integer, Integer, LabeledIntList, List<Integer>> {
+    @Override
+    public PartitionKey getPartitionKey(Integer element) {
+      return new PartitionKey(element % 2);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InstantiatingExecutorProviderTest {
+
+  @Test
+  public void testVirtualThreadsDisabledByDefault() {
+    InstantiatingExecutorProvider provider = InstantiatingExecutorProvider.newBuilder().build();
+    assertThat(provider.isVirtualThreadsEnabled()).isFalse();
+
+    ScheduledExecutorService executor = provider.getExecutor();
+    assertThat(executor).isInstanceOf(ScheduledThreadPoolExecutor.class);
+    executor.shutdown();
+  }
+
+  @Test
+  public void testVirtualThreadsEnabled() throws Exception {
+    InstantiatingExecutorProvider provider =
+        InstantiatingExecutorProvider.newBuilder().setVirtualThreadsEnabled(true).build();
+    assertThat(provider.isVirtualThreadsEnabled()).isTrue();
+    assertThat(provider.toBuilder().isVirtualThreadsEnabled()).isTrue();
+
+    ScheduledExecutorService executor = provider.getExecutor();
+    if (VirtualThreadScheduledExecutor.isSupported()) {
+      assertThat(executor).isInstanceOf(VirtualThreadScheduledExecutor.class);
+      Thread taskThread = executor.submit(Thread::currentThread).get();
+      assertThat(Thread.class.getMethod("isVirtual").invoke(taskThread)).isEqualTo(true);
+      assertThat(taskThread.getName()).startsWith("Gax-virtual-");
+    } else {
+      // Older runtimes keep using platform threads.
+      assertThat(executor).isInstanceOf(ScheduledThreadPoolExecutor.class);
+    }
+    assertThat(executor.schedule(() -> "done", 1, TimeUnit.MILLISECONDS).get()).isEqualTo("done");
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testTasksRunOnTaskExecutor() throws Exception {
+    ThreadFactory schedulerThreadFactory = runnable -> new Thread(runnable, "scheduler");
+    ThreadFactory taskThreadFactory = runnable -> new Thread(runnable, "task");
+    ExecutorService taskExecutor = Executors.newCachedThreadPool(taskThreadFactory);
+    VirtualThreadScheduledExecutor executor =
+        new VirtualThreadScheduledExecutor(
+            new ScheduledThreadPoolExecutor(1, schedulerThreadFactory), taskExecutor);
+
+    // Submitted tasks run on the task executor, while delayed tasks run on the scheduler.
+    assertThat(executor.submit(() -> Thread.currentThread().getName()).get()).isEqualTo("task");
+    assertThat(
+            executor
+                .schedule(() -> Thread.currentThread().getName(), 1, TimeUnit.MILLISECONDS)
+                .get())
+        .isEqualTo("scheduler");
+    AtomicInteger periodicRuns = new AtomicInteger();
+    executor.scheduleAtFixedRate(periodicRuns::incrementAndGet, 0, 1, TimeUnit.MILLISECONDS);
+    while (periodicRuns.get() < 3) {
+      Thread.sleep(1);
+    }
+
+    executor.shutdown();
+    assertThat(executor.isShutdown()).isTrue();
+    assertThat(taskExecutor.isShutdown()).isTrue();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(executor.isTerminated()).isTrue();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.retrying;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RetryBudgetTest {
+
+  @Test
+  public void testStartsFull() {
+    RetryBudget retryBudget = new RetryBudget(10, 0.1);
+
+    assertThat(retryBudget.getTokens()).isEqualTo(10.0);
+    assertThat(retryBudget.getMaxTokens()).isEqualTo(10);
+    assertThat(retryBudget.isRetryAllowed()).isTrue();
+
+    retryBudget.recordSuccess();
+    assertThat(retryBudget.getTokens()).isEqualTo(10.0);
+  }
+
+  @Test
+  public void testThrottlesAtHalfCapacity() {
+    RetryBudget retryBudget = new RetryBudget(10, 0.1);
+
+    for (int i = 0; i < 4; i++) {
+      retryBudget.recordFailure();
+    }
+    assertThat(retryBudget.getTokens()).isEqualTo(6.0);
+    assertThat(retryBudget.isRetryAllowed()).isTrue();
+
+    retryBudget.recordFailure();
+    assertThat(retryBudget.getTokens()).isEqualTo(5.0);
+    assertThat(retryBudget.isRetryAllowed()).isFalse();
+  }
+
+  @Test
+  public void testSuccessesRefillBudget() {
+    RetryBudget retryBudget = new RetryBudget(10, 0.1);
+    for (int i = 0; i < 20; i++) {
+      retryBudget.recordFailure();
+    }
+    assertThat(retryBudget.getTokens()).isEqualTo(0.0);
+
+    // 51 successes return 5.1 tokens, just enough to allow retries again.
+    for (int i = 0; i < 50; i++) {
+      retryBudget.recordSuccess();
+    }
+    assertThat(retryBudget.getTokens()).isEqualTo(5.0);
+    assertThat(retryBudget.isRetryAllowed()).isFalse();
+    retryBudget.recordSuccess();
+    assertThat(retryBudget.getTokens()).isWithin(1e-9).of(5.1);
+    assertThat(retryBudget.isRetryAllowed()).isTrue();
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new RetryBudget(0, 0.1));
+    assertThrows(IllegalArgumentException.class, () -> new RetryBudget(1001, 0.1));
+    assertThrows(IllegalArgumentException.class, () -> new RetryBudget(10, 0));
+    assertThrows(IllegalArgumentException.class, () -> new RetryBudget(10, 1.5));
+  }
+}
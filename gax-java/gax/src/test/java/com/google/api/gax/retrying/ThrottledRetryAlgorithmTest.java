@@ -0,0 +1,98 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.retrying;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.gax.tracing.ApiTracer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@SuppressWarnings("unchecked")
+@RunWith(JUnit4.class)
+public class ThrottledRetryAlgorithmTest {
+  private final ResultRetryAlgorithmWithContext<Object> resultAlgorithm =
+      mock(ResultRetryAlgorithmWithContext.class);
+  private final TimedRetryAlgorithmWithContext timedAlgorithm =
+      mock(TimedRetryAlgorithmWithContext.class);
+  private final ApiTracer tracer = mock(ApiTracer.class);
+  private final RetryingContext context = mock(RetryingContext.class);
+  private final Throwable previousThrowable = new Throwable();
+  private final TimedAttemptSettings nextAttemptSettings = mock(TimedAttemptSettings.class);
+  private RetryBudget retryBudget;
+  private ThrottledRetryAlgorithm<Object> algorithm;
+
+  @Before
+  public void setUp() {
+    when(context.getTracer()).thenReturn(tracer);
+    when(resultAlgorithm.shouldRetry(context, previousThrowable, null)).thenReturn(true);
+    retryBudget = new RetryBudget(4, 0.1);
+    algorithm = new ThrottledRetryAlgorithm<>(resultAlgorithm, timedAlgorithm, retryBudget);
+  }
+
+  @Test
+  public void testRetriesWhileBudgetAllows() {
+    when(timedAlgorithm.shouldRetry(context, nextAttemptSettings)).thenReturn(true);
+
+    assertThat(algorithm.shouldRetry(context, previousThrowable, null, nextAttemptSettings))
+        .isTrue();
+    verify(tracer, never()).retryThrottled(anyDouble());
+  }
+
+  @Test
+  public void testThrottlesWhenBudgetIsDrained() {
+    when(timedAlgorithm.shouldRetry(context, nextAttemptSettings)).thenReturn(true);
+    retryBudget.recordFailure();
+    retryBudget.recordFailure();
+
+    assertThat(algorithm.shouldRetry(context, previousThrowable, null, nextAttemptSettings))
+        .isFalse();
+    verify(tracer).retryThrottled(2.0);
+  }
+
+  @Test
+  public void testDoesNotReportThrottlingWithoutRetry() {
+    // The attempts are exhausted, so the budget makes no difference.
+    when(timedAlgorithm.shouldRetry(context, nextAttemptSettings)).thenReturn(false);
+    retryBudget.recordFailure();
+    retryBudget.recordFailure();
+
+    assertThat(algorithm.shouldRetry(context, previousThrowable, null, nextAttemptSettings))
+        .isFalse();
+    verify(tracer, never()).retryThrottled(anyDouble());
+  }
+}
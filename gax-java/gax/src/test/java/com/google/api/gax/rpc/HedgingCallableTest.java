@@ -0,0 +1,304 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.rpc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.NanoClock;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.core.FakeApiClock;
+import com.google.api.gax.core.RecordingScheduler;
+import com.google.api.gax.retrying.HedgingSettings;
+import com.google.api.gax.rpc.testing.FakeCallContext;
+import com.google.api.gax.rpc.testing.FakeStatusCode;
+import com.google.api.gax.tracing.ApiTracer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class HedgingCallableTest {
+  private static final Duration TOTAL_TIMEOUT = Duration.ofMinutes(1);
+  // Long enough for the hedging delay to never pass during a test.
+  private static final Duration NEVER = Duration.ofHours(1);
+  private static final long SLOT_NANOS =
+      HedgingCallable.LATENCY_WINDOW.toNanos() / HedgingCallable.LATENCY_WINDOW_SLOTS;
+
+  @SuppressWarnings("unchecked")
+  private final UnaryCallable<Integer, Integer> innerCallable = mock(UnaryCallable.class);
+
+  private final ApiTracer tracer = mock(ApiTracer.class);
+  private ApiCallContext context;
+  private ScheduledExecutorService executor;
+
+  @Before
+  public void setUp() {
+    context = FakeCallContext.createDefault().withTracer(tracer);
+    executor = new ScheduledThreadPoolExecutor(1);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testHedgesAfterDelay() throws Exception {
+    FakeApiClock clock = new FakeApiClock(0);
+    RecordingScheduler scheduler = RecordingScheduler.create(clock);
+    try {
+      SettableApiFuture<Integer> slowAttempt = SettableApiFuture.create();
+      SettableApiFuture<Integer> hedgedAttempt = SettableApiFuture.create();
+      when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+          .thenReturn(slowAttempt, hedgedAttempt);
+      HedgingCallable<Integer, Integer> callable =
+          newCallable(hedgingSettings(2, Duration.ofMillis(10)), scheduler, clock);
+
+      ApiFuture<Integer> future = callable.futureCall(1, context);
+      verify(innerCallable, timeout(1000).times(2))
+          .futureCall(any(Integer.class), any(ApiCallContext.class));
+      hedgedAttempt.set(2);
+
+      assertThat(future.get()).isEqualTo(2);
+      assertThat(slowAttempt.isCancelled()).isTrue();
+      assertThat(scheduler.getSleepDurations()).containsExactly(Duration.ofMillis(10));
+      verify(tracer).attemptStarted(1, 0);
+      verify(tracer).attemptHedged(1);
+      verify(tracer).attemptStarted(1, 1);
+      // The attempts end in another order than they started.
+      InOrder inOrder = inOrder(tracer);
+      inOrder.verify(tracer).attemptEnding(1);
+      inOrder.verify(tracer).attemptSucceeded();
+      inOrder.verify(tracer).attemptEnding(0);
+      inOrder.verify(tracer).attemptCancelled();
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRetryableFailureStartsNextAttempt() throws Exception {
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenReturn(ApiFutures.<Integer>immediateFailedFuture(retryableException()))
+        .thenReturn(ApiFutures.immediateFuture(2));
+    HedgingCallable<Integer, Integer> callable =
+        newCallable(hedgingSettings(3, NEVER), executor, NanoClock.getDefaultClock());
+
+    assertThat(callable.futureCall(1, context).get()).isEqualTo(2);
+    verify(innerCallable, times(2)).futureCall(any(Integer.class), any(ApiCallContext.class));
+    verify(tracer).attemptFailed(any(Throwable.class), any(Duration.class));
+    verify(tracer).attemptSucceeded();
+  }
+
+  @Test
+  public void testFailsWhenAttemptsRunOut() {
+    ApiException exception = retryableException();
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenReturn(ApiFutures.<Integer>immediateFailedFuture(exception));
+    HedgingCallable<Integer, Integer> callable =
+        newCallable(hedgingSettings(2, NEVER), executor, NanoClock.getDefaultClock());
+
+    ExecutionException thrown =
+        assertThrows(ExecutionException.class, () -> callable.futureCall(1, context).get());
+    assertThat(thrown).hasCauseThat().isSameInstanceAs(exception);
+    verify(innerCallable, times(2)).futureCall(any(Integer.class), any(ApiCallContext.class));
+    verify(tracer).attemptFailedRetriesExhausted(exception);
+  }
+
+  @Test
+  public void testNonRetryableFailureFailsCall() {
+    ApiException exception =
+        new InvalidArgumentException(
+            null, FakeStatusCode.of(StatusCode.Code.INVALID_ARGUMENT), false);
+    SettableApiFuture<Integer> firstAttempt = SettableApiFuture.create();
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenReturn(firstAttempt);
+    HedgingCallable<Integer, Integer> callable =
+        newCallable(hedgingSettings(3, NEVER), executor, NanoClock.getDefaultClock());
+
+    ApiFuture<Integer> future = callable.futureCall(1, context);
+    firstAttempt.setException(exception);
+
+    ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+    assertThat(thrown).hasCauseThat().isSameInstanceAs(exception);
+    verify(innerCallable, times(1)).futureCall(any(Integer.class), any(ApiCallContext.class));
+    verify(tracer).attemptPermanentFailure(exception);
+  }
+
+  @Test
+  public void testCancelCancelsAttempts() {
+    SettableApiFuture<Integer> attempt = SettableApiFuture.create();
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenReturn(attempt);
+    HedgingCallable<Integer, Integer> callable =
+        newCallable(hedgingSettings(2, NEVER), executor, NanoClock.getDefaultClock());
+
+    ApiFuture<Integer> future = callable.futureCall(1, context);
+    future.cancel(true);
+
+    assertThat(attempt.isCancelled()).isTrue();
+    verify(tracer).attemptCancelled();
+  }
+
+  @Test
+  public void testCancelWithoutInterruptionStopsHedging() {
+    SettableApiFuture<Integer> attempt = SettableApiFuture.create();
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenReturn(attempt);
+    ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    HedgingCallable<Integer, Integer> callable =
+        newCallable(
+            hedgingSettings(3, Duration.ofMillis(10)), scheduler, NanoClock.getDefaultClock());
+
+    ApiFuture<Integer> future = callable.futureCall(1, context);
+    ArgumentCaptor<Runnable> hedge = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(hedge.capture(), anyLong(), any(TimeUnit.class));
+    future.cancel(false);
+    // A hedge which is already running when the call is cancelled must not start an attempt.
+    hedge.getValue().run();
+
+    assertThat(attempt.isCancelled()).isTrue();
+    verify(innerCallable, times(1)).futureCall(any(Integer.class), any(ApiCallContext.class));
+    verify(tracer, never()).attemptHedged(anyInt());
+    verify(tracer).attemptCancelled();
+  }
+
+  @Test
+  public void testDelayFromLatencyPercentile() throws Exception {
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenReturn(ApiFutures.immediateFuture(2));
+    HedgingSettings hedgingSettings =
+        hedgingSettings(2, NEVER).toBuilder().setDelayPercentile(99).build();
+    // The fake clock only advances between the calls, so every attempt takes no time.
+    FakeApiClock clock = new FakeApiClock(0);
+    HedgingCallable<Integer, Integer> callable = newCallable(hedgingSettings, executor, clock);
+
+    for (int i = 1; i < HedgingCallable.MIN_LATENCY_SAMPLES; i++) {
+      callable.futureCall(1, context).get();
+    }
+    clock.incrementNanoTime(SLOT_NANOS);
+    assertThat(callable.getHedgingDelay()).isEqualTo(NEVER);
+
+    // The delay is computed once per slot of the latency window.
+    callable.futureCall(1, context).get();
+    assertThat(callable.getHedgingDelay()).isEqualTo(NEVER);
+
+    // The latencies are assumed to be spread over their bucket, which is [0, 1) microseconds.
+    clock.incrementNanoTime(SLOT_NANOS);
+    assertThat(callable.getHedgingDelay()).isEqualTo(Duration.ofNanos(990));
+  }
+
+  @Test
+  public void testDelayFollowsRecentLatencies() throws Exception {
+    FakeApiClock clock = new FakeApiClock(0);
+    AtomicLong latencyNanos = new AtomicLong(0);
+    when(innerCallable.futureCall(any(Integer.class), any(ApiCallContext.class)))
+        .thenAnswer(
+            invocation -> {
+              clock.incrementNanoTime(latencyNanos.get());
+              return ApiFutures.immediateFuture(2);
+            });
+    HedgingSettings hedgingSettings =
+        hedgingSettings(2, NEVER).toBuilder().setDelayPercentile(99).build();
+    // The scheduled hedges never run, so that each call makes a single attempt.
+    HedgingCallable<Integer, Integer> callable =
+        newCallable(hedgingSettings, mock(ScheduledExecutorService.class), clock);
+
+    for (int i = 0; i < HedgingCallable.MIN_LATENCY_SAMPLES; i++) {
+      callable.futureCall(1, context).get();
+    }
+    clock.incrementNanoTime(SLOT_NANOS);
+    assertThat(callable.getHedgingDelay()).isEqualTo(Duration.ofNanos(990));
+
+    // The latencies of the previous window are forgotten.
+    clock.incrementNanoTime(HedgingCallable.LATENCY_WINDOW.toNanos());
+    assertThat(callable.getHedgingDelay()).isEqualTo(NEVER);
+
+    latencyNanos.set(Duration.ofMillis(3).toNanos());
+    for (int i = 0; i < HedgingCallable.MIN_LATENCY_SAMPLES; i++) {
+      callable.futureCall(1, context).get();
+    }
+    clock.incrementNanoTime(SLOT_NANOS);
+    // The 99th of 100 latencies in the bucket [2048, 4096) microseconds.
+    assertThat(callable.getHedgingDelay()).isEqualTo(Duration.ofNanos(4075520));
+  }
+
+  @Test
+  public void testInvalidHedgingSettings() {
+    assertThrows(IllegalStateException.class, () -> hedgingSettings(0, NEVER));
+    assertThrows(IllegalStateException.class, () -> hedgingSettings(2, Duration.ofMillis(-1)));
+    assertThrows(
+        IllegalStateException.class,
+        () -> hedgingSettings(2, NEVER).toBuilder().setDelayPercentile(101).build());
+  }
+
+  private HedgingCallable<Integer, Integer> newCallable(
+      HedgingSettings hedgingSettings, ScheduledExecutorService executor, ApiClock clock) {
+    return new HedgingCallable<>(
+        FakeCallContext.createDefault(),
+        innerCallable,
+        hedgingSettings,
+        TOTAL_TIMEOUT,
+        executor,
+        clock);
+  }
+
+  private static HedgingSettings hedgingSettings(int maxAttempts, Duration delay) {
+    return HedgingSettings.newBuilder().setMaxAttempts(maxAttempts).setDelay(delay).build();
+  }
+
+  private static ApiException retryableException() {
+    return new UnavailableException(null, FakeStatusCode.of(StatusCode.Code.UNAVAILABLE), true);
+  }
+}
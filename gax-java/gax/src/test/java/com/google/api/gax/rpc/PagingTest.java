@@ -30,6 +30,7 @@
 package com.google.api.gax.rpc;
 
 import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
 import com.google.api.gax.paging.FixedSizeCollection;
 import com.google.api.gax.paging.Page;
 import com.google.api.gax.rpc.testing.FakeCallContext;
@@ -43,7 +44,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.truth.Truth;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -133,6 +137,114 @@ public class PagingTest {
     Truth.assertThat(requestCapture.getAllValues()).containsExactly(0, 2, 4).inOrder();
   }
 
+  @Test
+  public void pagedWithPrefetch() {
+    ArgumentCaptor<Integer> requestCapture = ArgumentCaptor.forClass(Integer.class);
+    Mockito.when(callIntList.futureCall(requestCapture.capture(), (ApiCallContext) Mockito.any()))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(0, 1, 2)))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(3, 4)))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(5)))
+        .thenReturn(ApiFutures.immediateFuture(Collections.<Integer>emptyList()));
+    ListIntegersPagedResponse response =
+        FakeCallableFactory.createPagedCallable(
+                callIntList,
+                PagedCallSettings.newBuilder(new ListIntegersPagedResponseFactory()).build(),
+                clientContext)
+            .call(0);
+
+    Iterator<Integer> values = response.iterateAll(2).iterator();
+    Truth.assertThat(values.next()).isEqualTo(0);
+    Truth.assertWithMessage("The next 2 pages should be fetched ahead of the iteration")
+        .that(requestCapture.getAllValues())
+        .containsExactly(0, 2, 4)
+        .inOrder();
+
+    Truth.assertThat(ImmutableList.copyOf(values)).containsExactly(1, 2, 3, 4, 5).inOrder();
+    Truth.assertThat(requestCapture.getAllValues()).containsExactly(0, 2, 4, 5).inOrder();
+  }
+
+  @Test
+  public void pagedByPageWithPrefetch() {
+    ArgumentCaptor<Integer> requestCapture = ArgumentCaptor.forClass(Integer.class);
+    Mockito.when(callIntList.futureCall(requestCapture.capture(), (ApiCallContext) Mockito.any()))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(0, 1, 2)))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(3, 4)))
+        .thenReturn(ApiFutures.immediateFuture(Collections.<Integer>emptyList()));
+    ListIntegersPagedResponse response =
+        FakeCallableFactory.createPagedCallable(
+                callIntList,
+                PagedCallSettings.newBuilder(new ListIntegersPagedResponseFactory()).build(),
+                clientContext)
+            .call(0);
+
+    Iterator<? extends Page<Integer>> pages = response.iteratePages(1).iterator();
+    Truth.assertThat(pages.next().getValues()).containsExactly(0, 1, 2).inOrder();
+    Truth.assertThat(requestCapture.getAllValues()).containsExactly(0, 2).inOrder();
+
+    Truth.assertThat(pages.next().getValues()).containsExactly(3, 4).inOrder();
+    Truth.assertThat(pages.next().getValues()).isEmpty();
+    Truth.assertThat(pages.hasNext()).isFalse();
+    Truth.assertThat(requestCapture.getAllValues()).containsExactly(0, 2, 4).inOrder();
+  }
+
+  @Test
+  public void streamWithPrefetch() {
+    Mockito.when(callIntList.futureCall((Integer) Mockito.any(), (ApiCallContext) Mockito.any()))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(0, 1, 2)))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(3, 4)))
+        .thenReturn(ApiFutures.immediateFuture(Collections.<Integer>emptyList()));
+    ListIntegersPagedResponse response =
+        FakeCallableFactory.createPagedCallable(
+                callIntList,
+                PagedCallSettings.newBuilder(new ListIntegersPagedResponseFactory()).build(),
+                clientContext)
+            .call(0);
+
+    try (Stream<Integer> values = response.streamAll(2)) {
+      Truth.assertThat(values.collect(Collectors.toList()))
+          .containsExactly(0, 1, 2, 3, 4)
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void closingStreamCancelsPrefetchedPages() {
+    ArgumentCaptor<Integer> requestCapture = ArgumentCaptor.forClass(Integer.class);
+    SettableApiFuture<List<Integer>> secondPage = SettableApiFuture.create();
+    Mockito.when(callIntList.futureCall(requestCapture.capture(), (ApiCallContext) Mockito.any()))
+        .thenReturn(ApiFutures.immediateFuture(Arrays.asList(0, 1, 2)))
+        .thenReturn(secondPage)
+        .thenReturn(ApiFutures.immediateFuture(Collections.<Integer>emptyList()));
+    ListIntegersPagedResponse response =
+        FakeCallableFactory.createPagedCallable(
+                callIntList,
+                PagedCallSettings.newBuilder(new ListIntegersPagedResponseFactory()).build(),
+                clientContext)
+            .call(0);
+
+    try (Stream<Integer> values = response.streamAll(2)) {
+      Truth.assertThat(values.findFirst().get()).isEqualTo(0);
+    }
+    Truth.assertThat(requestCapture.getAllValues()).containsExactly(0, 2).inOrder();
+
+    // The page chained after the cancelled one is not fetched when the response arrives anyway.
+    secondPage.set(Arrays.asList(3, 4));
+    Truth.assertThat(requestCapture.getAllValues()).containsExactly(0, 2).inOrder();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void pagedWithPrefetchMustBePositive() {
+    Mockito.when(callIntList.futureCall((Integer) Mockito.any(), (ApiCallContext) Mockito.any()))
+        .thenReturn(ApiFutures.immediateFuture(Collections.<Integer>emptyList()));
+
+    FakeCallableFactory.createPagedCallable(
+            callIntList,
+            PagedCallSettings.newBuilder(new ListIntegersPagedResponseFactory()).build(),
+            clientContext)
+        .call(0)
+        .iteratePages(0);
+  }
+
   @Test
   public void streamValues_streamIsCorrectPerPage() {
     ArgumentCaptor<Integer> requestCapture = ArgumentCaptor.forClass(Integer.class);
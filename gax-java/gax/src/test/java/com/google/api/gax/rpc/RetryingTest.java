@@ -36,6 +36,7 @@ import com.google.api.core.ApiFuture;
 import com.google.api.core.ApiFutures;
 import com.google.api.gax.core.FakeApiClock;
 import com.google.api.gax.core.RecordingScheduler;
+import com.google.api.gax.retrying.RetryBudget;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.api.gax.rpc.StatusCode.Code;
 import com.google.api.gax.rpc.testing.FakeCallContext;
@@ -390,6 +391,32 @@ public class RetryingTest {
     }
   }
 
+  @Test
+  public void retryThrottledByRetryBudget() {
+    Throwable throwable =
+        new UnavailableException(
+            "foobar", null, FakeStatusCode.of(StatusCode.Code.UNAVAILABLE), true);
+    Mockito.when(callInt.futureCall((Integer) Mockito.any(), (ApiCallContext) Mockito.any()))
+        .thenReturn(RetryingTest.<Integer>immediateFailedFuture(throwable));
+    // Retries are allowed while the budget holds more than 2 tokens, so only the first failure is
+    // retried.
+    RetryBudget retryBudget = new RetryBudget(4, 0.1);
+    UnaryCallSettings<Integer, Integer> callSettings = createSettings(FAST_RETRY_SETTINGS);
+    UnaryCallable<Integer, Integer> callable =
+        FakeCallableFactory.createUnaryCallable(
+            callInt, callSettings, clientContext.toBuilder().setRetryBudget(retryBudget).build());
+    try {
+      Futures.getUnchecked(callable.futureCall(1));
+      Assert.fail("Callable should have thrown an exception");
+    } catch (UncheckedExecutionException expected) {
+      Truth.assertThat(expected).hasCauseThat().isSameInstanceAs(throwable);
+    }
+    Mockito.verify(callInt, Mockito.times(2))
+        .futureCall((Integer) Mockito.any(), (ApiCallContext) Mockito.any());
+    Truth.assertThat(retryBudget.getTokens()).isEqualTo(2.0);
+    Truth.assertThat(retryBudget.isRetryAllowed()).isFalse();
+  }
+
   @Test
   public void testKnownStatusCode() {
     ImmutableSet<StatusCode.Code> retryable = ImmutableSet.of(StatusCode.Code.UNAVAILABLE);
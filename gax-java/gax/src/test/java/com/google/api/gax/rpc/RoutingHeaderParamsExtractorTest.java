@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.rpc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.pathtemplate.PathTemplate;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RoutingHeaderParamsExtractorTest {
+
+  private static final PathTemplate TABLE_LOCATION_TEMPLATE =
+      PathTemplate.create("projects/**/{table_location=instances/*}");
+  private static final PathTemplate TABLE_LOCATION_ALL_TEMPLATE =
+      PathTemplate.create("{table_location=**}");
+  private static final PathTemplate ROUTING_ID_TEMPLATE =
+      PathTemplate.create("{routing_id=projects/*}/**");
+
+  @Test
+  public void encode_matchesRequestUrlParamsEncoder() {
+    RoutingHeaderParamsExtractor<TestRequest> extractor =
+        RoutingHeaderParamsExtractor.<TestRequest>newBuilder()
+            .add(request -> request.name, "table_location", TABLE_LOCATION_TEMPLATE)
+            .add(request -> request.appProfileId, "routing_id", ROUTING_ID_TEMPLATE)
+            .add(request -> request.name, "table_location", TABLE_LOCATION_ALL_TEMPLATE)
+            .build();
+    RequestUrlParamsEncoder<TestRequest> mapEncoder =
+        new RequestUrlParamsEncoder<>(extractor, false);
+
+    List<TestRequest> requests =
+        Arrays.asList(
+            new TestRequest("projects/my_cozy_home/instances/living_room", "projects/p1/a"),
+            new TestRequest("projects/my_cozy_home/instances/living_room", "projects/p1/a"),
+            new TestRequest("projects/my_cozy_home/instances/kitchen", "projects/p1/a"),
+            new TestRequest("projects/my_cozy_home/instances/kitchen", "no_project"),
+            new TestRequest("projects/my_cozy_home/instances/kitchen", null),
+            new TestRequest(null, "projects/p2/b"),
+            new TestRequest(null, null),
+            new TestRequest("projects/my_cozy_home/instances/living_room", "projects/p1/a"));
+    for (TestRequest request : requests) {
+      assertThat(extractor.encode(request)).isEqualTo(mapEncoder.encode(request));
+    }
+  }
+
+  @Test
+  public void encode_keepsPositionOfFirstMatchAndValueOfLastMatch() {
+    RoutingHeaderParamsExtractor<TestRequest> extractor =
+        RoutingHeaderParamsExtractor.<TestRequest>newBuilder()
+            .add(request -> request.name, "table_location", TABLE_LOCATION_TEMPLATE)
+            .add(request -> request.appProfileId, "routing_id", ROUTING_ID_TEMPLATE)
+            .add(request -> request.name, "table_location", TABLE_LOCATION_ALL_TEMPLATE)
+            .build();
+
+    assertThat(
+            extractor.encode(
+                new TestRequest("projects/my_cozy_home/instances/living_room", "projects/p1/a")))
+        .isEqualTo(
+            "table_location=projects/my_cozy_home/instances/living_room&routing_id=projects/p1");
+    // The first rule does not match, so routing_id is put first.
+    assertThat(extractor.encode(new TestRequest("tables/t1", "projects/p1/a")))
+        .isEqualTo("routing_id=projects/p1&table_location=tables/t1");
+  }
+
+  @Test
+  public void encode_reusesHeaderForEqualFieldValues() {
+    RoutingHeaderParamsExtractor<TestRequest> extractor =
+        RoutingHeaderParamsExtractor.<TestRequest>newBuilder()
+            .add(request -> request.name, "routing_id", ROUTING_ID_TEMPLATE)
+            .build();
+
+    String header = extractor.encode(new TestRequest("projects/p1/a", null));
+    assertThat(header).isEqualTo("routing_id=projects/p1");
+    assertThat(extractor.encode(new TestRequest(new String("projects/p1/a"), null)))
+        .isSameInstanceAs(header);
+    assertThat(extractor.encode(new TestRequest("projects/p2/a", null)))
+        .isEqualTo("routing_id=projects/p2");
+  }
+
+  @Test
+  public void encode_noRules() {
+    RoutingHeaderParamsExtractor<TestRequest> extractor =
+        RoutingHeaderParamsExtractor.<TestRequest>newBuilder().build();
+    assertThat(extractor.encode(new TestRequest("projects/p1", null))).isEmpty();
+    assertThat(extractor.extract(new TestRequest("projects/p1", null))).isEmpty();
+  }
+
+  @Test
+  public void extract_matchesRequestParamsBuilder() {
+    RoutingHeaderParamsExtractor<TestRequest> extractor =
+        RoutingHeaderParamsExtractor.<TestRequest>newBuilder()
+            .add(request -> request.name, "table_location", TABLE_LOCATION_TEMPLATE)
+            .add(request -> request.appProfileId, "routing_id", ROUTING_ID_TEMPLATE)
+            .build();
+    TestRequest request =
+        new TestRequest("projects/my_cozy_home/instances/living_room", "projects/p1/a");
+
+    RequestParamsBuilder paramsBuilder = RequestParamsBuilder.create();
+    paramsBuilder.add(request.name, "table_location", TABLE_LOCATION_TEMPLATE);
+    paramsBuilder.add(request.appProfileId, "routing_id", ROUTING_ID_TEMPLATE);
+    assertThat(extractor.extract(request)).isEqualTo(paramsBuilder.build());
+  }
+
+  private static final class TestRequest {
+    private final String name;
+    private final String appProfileId;
+
+    private TestRequest(String name, String appProfileId) {
+      this.name = name;
+      this.appProfileId = appProfileId;
+    }
+  }
+}
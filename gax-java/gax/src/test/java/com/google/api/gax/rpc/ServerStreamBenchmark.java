@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.rpc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many messages per second the iteration of a {@link ServerStream} receives for
+ * different prefetch windows. The fake transport delivers the requested messages on its own thread
+ * after a delay, which stands in for the round trip of the flow control signal to the server.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Pbenchmark -Djmh.args="ServerStreamBenchmark"} in
+ * the gax module.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerStreamBenchmark {
+  private static final int MESSAGES_PER_STREAM = 1_000;
+
+  @Param({"1", "4", "16", "64"})
+  private int prefetchWindow;
+
+  @Param({"50"})
+  private long requestLatencyMicros;
+
+  private ExecutorService transportExecutor;
+  private ServerStreamingCallable<Integer, Integer> callable;
+
+  @Setup
+  public void setUp() {
+    transportExecutor = Executors.newSingleThreadExecutor();
+    callable =
+        Callables.prefetching(
+            new FakeTransportCallable(),
+            ServerStreamingCallSettings.<Integer, Integer>newBuilder()
+                .setPrefetchWindow(prefetchWindow)
+                .build());
+  }
+
+  @TearDown
+  public void tearDown() {
+    transportExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES_PER_STREAM)
+  public long iterate() {
+    long sum = 0;
+    for (Integer message : callable.call(MESSAGES_PER_STREAM)) {
+      sum += message;
+    }
+    return sum;
+  }
+
+  /** Streams the requested number of messages, honoring the demand of the observer. */
+  private class FakeTransportCallable extends ServerStreamingCallable<Integer, Integer> {
+    @Override
+    public void call(
+        Integer messageCount, ResponseObserver<Integer> responseObserver, ApiCallContext context) {
+      responseObserver.onStart(
+          new StreamController() {
+            // Only accessed by the transport thread.
+            private int sent;
+
+            @Override
+            public void cancel() {}
+
+            @Override
+            public void disableAutoInboundFlowControl() {}
+
+            @Override
+            public void request(int count) {
+              transportExecutor.execute(
+                  () -> {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(requestLatencyMicros));
+                    for (int i = 0; i < count && sent < messageCount; i++) {
+                      responseObserver.onResponse(sent++);
+                    }
+                    if (sent == messageCount) {
+                      sent++;
+                      responseObserver.onComplete();
+                    }
+                  });
+            }
+          });
+    }
+  }
+}
@@ -135,6 +135,33 @@ public class ServerStreamTest {
     Truth.assertThat(results).containsExactly(0, 1, 2, 3, 4);
   }
 
+  @Test
+  public void testPrefetchWindow() {
+    ServerStream<Integer> prefetchingStream = new ServerStream<>(4);
+    MockStreamController<Integer> prefetchingController =
+        new MockStreamController<>(prefetchingStream.observer());
+    prefetchingStream.observer().onStart(prefetchingController);
+
+    Truth.assertWithMessage("ServerStream should request the whole window on start")
+        .that(prefetchingController.popLastPull())
+        .isEqualTo(4);
+
+    for (int i = 0; i < 4; i++) {
+      prefetchingStream.observer().onResponse(i);
+    }
+    Iterator<Integer> it = prefetchingStream.iterator();
+    Truth.assertThat(it.next()).isEqualTo(0);
+    Truth.assertThat(it.next()).isEqualTo(1);
+
+    Truth.assertWithMessage("ServerStream should refill the window once half of it is consumed")
+        .that(prefetchingController.popLastPull())
+        .isEqualTo(2);
+
+    prefetchingStream.observer().onResponse(4);
+    prefetchingStream.observer().onComplete();
+    Truth.assertThat(Lists.newArrayList(it)).containsExactly(2, 3, 4).inOrder();
+  }
+
   @Test
   public void testEarlyTermination() throws Exception {
     Future<Void> taskFuture =
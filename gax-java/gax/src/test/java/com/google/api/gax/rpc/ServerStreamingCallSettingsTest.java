@@ -112,6 +112,24 @@ public class ServerStreamingCallSettingsTest {
     assertThat(builder.build().toBuilder().getWaitTimeout()).isEqualTo(waitTimeout);
   }
 
+  @Test
+  public void prefetchWindowIsNotLost() {
+    ServerStreamingCallSettings.Builder<Object, Object> builder =
+        ServerStreamingCallSettings.newBuilder();
+    assertThat(builder.getPrefetchWindow()).isEqualTo(1);
+
+    builder.setPrefetchWindow(16);
+
+    assertThat(builder.getPrefetchWindow()).isEqualTo(16);
+    assertThat(builder.build().getPrefetchWindow()).isEqualTo(16);
+    assertThat(builder.build().toBuilder().getPrefetchWindow()).isEqualTo(16);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void prefetchWindowMustBePositive() {
+    ServerStreamingCallSettings.newBuilder().setPrefetchWindow(0);
+  }
+
   @Test
   public void testRetrySettingsBuilder() {
     RetrySettings initialSettings =
@@ -33,6 +33,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import com.google.api.gax.retrying.HedgingSettings;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.common.collect.ImmutableSet;
 import java.util.Set;
@@ -110,6 +111,21 @@ public class UnaryCallSettingsTest {
     assertEquals(settingsCodes, settingsCodes2);
   }
 
+  @Test
+  public void testEquals_hedgingSettings() {
+    UnaryCallSettings.Builder<?, ?> builder = new UnaryCallSettings.Builder<Object, Object>();
+    UnaryCallSettings<?, ?> settingsNoHedging = builder.build();
+
+    builder.setHedgingSettings(
+        HedgingSettings.newBuilder().setDelay(Duration.ofMillis(10)).setMaxAttempts(3).build());
+    UnaryCallSettings<?, ?> settingsHedging = builder.build();
+
+    assertThat(settingsNoHedging.getHedgingSettings()).isNull();
+    assertNotEquals(settingsHedging, settingsNoHedging);
+    assertEquals(settingsHedging, settingsHedging.toBuilder().build());
+    assertEquals(settingsHedging.hashCode(), settingsHedging.toBuilder().build().hashCode());
+  }
+
   @Test
   public void testRetrySettingsBuilder() {
     RetrySettings initialSettings =
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.tracing;
+
+import com.google.api.gax.tracing.ApiTracerFactory.OperationType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.threeten.bp.Duration;
+
+/**
+ * Measures the overhead of tracing a unary operation that is retried once, with the no-op {@link
+ * BaseApiTracerFactory}, the {@link MetricsTracerFactory} and the {@link OpencensusTracerFactory}.
+ * Only the OpenCensus API is on the classpath, so its tracer ends no-op spans but still builds its
+ * attribute maps.
+ *
+ * <p>Run with {@code mvn test-compile exec:exec -Pbenchmark -Djmh.args="MetricsTracerBenchmark
+ * -prof gc"} in the gax module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsTracerBenchmark {
+  private static final SpanName SPAN_NAME = SpanName.of("FakeClient", "FakeMethod");
+  private static final RuntimeException ERROR = new RuntimeException("fake");
+  private static final Duration RETRY_DELAY = Duration.ofMillis(10);
+
+  @Param({"base", "metrics", "opencensus"})
+  private String tracerFactory;
+
+  private ApiTracerFactory factory;
+  private Object request;
+
+  @Setup
+  public void setUp() {
+    switch (tracerFactory) {
+      case "base":
+        factory = BaseApiTracerFactory.getInstance();
+        break;
+      case "metrics":
+        factory = new MetricsTracerFactory();
+        break;
+      case "opencensus":
+        factory = new OpencensusTracerFactory();
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown factory %s", tracerFactory));
+    }
+    request = new Object();
+  }
+
+  @Benchmark
+  public ApiTracer retriedOperation() {
+    ApiTracer tracer =
+        factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    tracer.attemptStarted(request, 0);
+    tracer.attemptFailed(ERROR, RETRY_DELAY);
+    tracer.attemptStarted(request, 1);
+    tracer.attemptSucceeded();
+    tracer.operationSucceeded();
+    return tracer;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ *     * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following disclaimer
+ * in the documentation and/or other materials provided with the
+ * distribution.
+ *     * Neither the name of Google LLC nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.api.gax.tracing;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.api.gax.core.FakeApiClock;
+import com.google.api.gax.tracing.ApiTracerFactory.OperationType;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class MetricsTracerFactoryTest {
+  private static final SpanName SPAN_NAME = SpanName.of("FakeClient", "FakeMethod");
+  private static final SpanName OTHER_SPAN_NAME = SpanName.of("FakeClient", "OtherMethod");
+
+  private FakeApiClock clock;
+  private MetricsTracerFactory factory;
+  private InMemoryMetricsExporter exporter;
+
+  @Before
+  public void setUp() {
+    clock = new FakeApiClock(0);
+    factory = new MetricsTracerFactory(clock);
+    exporter = new InMemoryMetricsExporter();
+  }
+
+  @Test
+  public void testSucceededOperation() {
+    ApiTracer tracer =
+        factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    tracer.attemptStarted(new Object(), 0);
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(5));
+    tracer.attemptSucceeded();
+    tracer.operationSucceeded();
+
+    factory.export(exporter);
+    MethodMetrics metrics = exporter.getExportedMetrics(SPAN_NAME);
+    assertThat(metrics).isNotNull();
+    assertThat(metrics.getSucceededOperationCount()).isEqualTo(1);
+    assertThat(metrics.getFailedOperationCount()).isEqualTo(0);
+    assertThat(metrics.getAttemptCount()).isEqualTo(1);
+    assertThat(metrics.getFailedAttemptCount()).isEqualTo(0);
+    assertThat(metrics.getOperationLatency().getSumNanos())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    assertThat(metrics.getAttemptLatency().getCount()).isEqualTo(1);
+    assertThat(metrics.getRetryDelay().getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testRetriedOperation() {
+    ApiTracer tracer =
+        factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    tracer.attemptStarted(new Object(), 0);
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(2));
+    tracer.attemptFailed(new RuntimeException("fake"), Duration.ofMillis(10));
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(10));
+    tracer.attemptStarted(new Object(), 1);
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(3));
+    tracer.attemptFailedRetriesExhausted(new RuntimeException("fake"));
+    tracer.operationFailed(new RuntimeException("fake"));
+
+    MethodMetrics metrics = factory.getMethodMetrics(SPAN_NAME);
+    assertThat(metrics.getFailedOperationCount()).isEqualTo(1);
+    assertThat(metrics.getAttemptCount()).isEqualTo(2);
+    assertThat(metrics.getFailedAttemptCount()).isEqualTo(2);
+    assertThat(metrics.getOperationLatency().getSumNanos())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(15));
+    assertThat(metrics.getAttemptLatency().getSumNanos())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    assertThat(metrics.getRetryDelay().getCount()).isEqualTo(1);
+    assertThat(metrics.getRetryDelay().getSumNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+  }
+
+  @Test
+  public void testHedgedOperation() {
+    ApiTracer tracer =
+        factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    tracer.attemptStarted(new Object(), 0);
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(10));
+    tracer.attemptHedged(1);
+    tracer.attemptStarted(new Object(), 1);
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(2));
+    // The first attempt fails after 12ms, and the next attempt starts while the second is running.
+    tracer.attemptHedged(2);
+    tracer.attemptStarted(new Object(), 2);
+    tracer.attemptEnding(0);
+    tracer.attemptFailed(new RuntimeException("fake"), Duration.ZERO);
+    clock.incrementNanoTime(TimeUnit.MILLISECONDS.toNanos(3));
+    // The third attempt succeeds after 3ms, and the second is cancelled after 5ms.
+    tracer.attemptEnding(2);
+    tracer.attemptSucceeded();
+    tracer.attemptEnding(1);
+    tracer.attemptCancelled();
+    tracer.operationSucceeded();
+
+    MethodMetrics metrics = factory.getMethodMetrics(SPAN_NAME);
+    assertThat(metrics.getAttemptCount()).isEqualTo(3);
+    assertThat(metrics.getHedgedAttemptCount()).isEqualTo(2);
+    assertThat(metrics.getFailedAttemptCount()).isEqualTo(1);
+    assertThat(metrics.getAttemptLatency().getCount()).isEqualTo(3);
+    assertThat(metrics.getAttemptLatency().getSumNanos())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    assertThat(metrics.getOperationLatency().getSumNanos())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(15));
+  }
+
+  @Test
+  public void testCancelledOperation() {
+    ApiTracer tracer =
+        factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    tracer.attemptStarted(new Object(), 0);
+    tracer.attemptCancelled();
+    tracer.operationCancelled();
+
+    MethodMetrics metrics = factory.getMethodMetrics(SPAN_NAME);
+    assertThat(metrics.getCancelledOperationCount()).isEqualTo(1);
+    assertThat(metrics.getFailedAttemptCount()).isEqualTo(0);
+    assertThat(metrics.getAttemptLatency().getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testMetricsAreSharedPerMethod() {
+    MetricsTracer first =
+        (MetricsTracer)
+            factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    MetricsTracer second =
+        (MetricsTracer)
+            factory.newTracer(BaseApiTracer.getInstance(), SPAN_NAME, OperationType.Unary);
+    MetricsTracer other =
+        (MetricsTracer)
+            factory.newTracer(BaseApiTracer.getInstance(), OTHER_SPAN_NAME, OperationType.Unary);
+
+    assertThat(first.getMetrics()).isSameInstanceAs(second.getMetrics());
+    assertThat(other.getMetrics()).isNotSameInstanceAs(first.getMetrics());
+
+    first.operationSucceeded();
+    second.operationSucceeded();
+    factory.export(exporter);
+    assertThat(exporter.getExportedMethodCount()).isEqualTo(2);
+    assertThat(exporter.getExportedMetrics(SPAN_NAME).getSucceededOperationCount()).isEqualTo(2);
+    assertThat(exporter.getExportedMetrics(OTHER_SPAN_NAME).getSucceededOperationCount())
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void testUntracedMethodHasNoMetrics() {
+    assertThat(factory.getMethodMetrics(SPAN_NAME)).isNull();
+  }
+
+  @Test
+  public void testHistogramBuckets() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(500);
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(1));
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(3));
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(4));
+    histogram.record(TimeUnit.DAYS.toNanos(1));
+    histogram.record(-1);
+
+    assertThat(histogram.getCount()).isEqualTo(6);
+    assertThat(histogram.getBucketValue(0)).isEqualTo(2);
+    assertThat(histogram.getBucketValue(1)).isEqualTo(1);
+    assertThat(histogram.getBucketValue(2)).isEqualTo(1);
+    assertThat(histogram.getBucketValue(3)).isEqualTo(1);
+    assertThat(histogram.getBucketValue(histogram.getBucketCount() - 1)).isEqualTo(1);
+    assertThat(histogram.getBucketUpperBoundMicros(2)).isEqualTo(4);
+    assertThat(histogram.getBucketUpperBoundMicros(histogram.getBucketCount() - 1))
+        .isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void testHistogramPercentile() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getPercentileNanos(50)).isEqualTo(0);
+
+    // Three latencies in the bucket [4, 8) microseconds, and one in the bucket [8, 16).
+    for (int micros : new int[] {4, 5, 6, 9}) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+    assertThat(histogram.getPercentileNanos(25))
+        .isEqualTo(TimeUnit.MICROSECONDS.toNanos(4) + TimeUnit.MICROSECONDS.toNanos(4) / 3);
+    assertThat(histogram.getPercentileNanos(75)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(8));
+    assertThat(histogram.getPercentileNanos(100)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(16));
+
+    histogram.record(TimeUnit.DAYS.toNanos(1));
+    assertThat(histogram.getPercentileNanos(100))
+        .isEqualTo(TimeUnit.MICROSECONDS.toNanos(1L << (histogram.getBucketCount() - 2)));
+  }
+}
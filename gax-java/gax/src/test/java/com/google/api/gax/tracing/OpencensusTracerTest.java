@@ -130,6 +130,18 @@ public class OpencensusTracerTest {
     verify(span).putAttribute("batch size", AttributeValue.longAttributeValue(1000));
   }
 
+  @Test
+  public void testChannelPoolUsageExample() {
+    tracer.attemptStarted(0);
+    tracer.connectionSelected("1");
+    tracer.channelPoolUsageRecorded(4, 12);
+    tracer.attemptSucceeded();
+    tracer.operationSucceeded();
+
+    verify(span).putAttribute("channel pool size", AttributeValue.longAttributeValue(4));
+    verify(span).putAttribute("channel outstanding rpcs", AttributeValue.longAttributeValue(12));
+  }
+
   @Test
   public void testLongRunningExample() {
     tracer = new OpencensusTracer(internalTracer, span, OperationType.LongRunning);
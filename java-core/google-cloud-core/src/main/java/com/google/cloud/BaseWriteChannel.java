@@ -16,19 +16,33 @@
 
 package com.google.cloud;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.BetaApi;
 import com.google.api.core.InternalApi;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
 
 /**
  * Base implementation for a {@link WriteChannel}.
  *
+ * <p>By default, the channel accumulates the written data in {@link #getBuffer()} and writes it
+ * with {@link #flushBuffer(int, boolean)}. Channels which are created with a {@link
+ * ChunkBufferPool} instead fill chunk buffers from the pool, and hand each full chunk to {@link
+ * #flushChunk(ByteBuffer, boolean)}. The next chunk is filled while the previous one is uploaded,
+ * so at most two chunks per channel are in use at any time. Subclasses which override {@code
+ * flushChunk} write the chunks without copying them, and may upload them asynchronously.
+ *
  * @param <ServiceOptionsT> the service options used by the channel to issue RPC requests
  * @param <EntityT> the entity this channel writes data to. Possibly with additional configuration
  */
@@ -48,6 +62,15 @@ public abstract class BaseWriteChannel<
   private boolean isOpen = true;
   private int chunkSize = getDefaultChunkSize();
 
+  @Nullable private final ChunkBufferPool chunkBufferPool;
+  // The chunk being filled, only used with a chunkBufferPool.
+  @Nullable private ByteBuffer chunk;
+  // The chunk being uploaded and its upload, only used with a chunkBufferPool.
+  @Nullable private ByteBuffer flushingChunk;
+  @Nullable private ApiFuture<Void> flushingChunkFuture;
+  // The failure of a chunk upload, which is rethrown by every later operation.
+  @Nullable private IOException flushError;
+
   protected int getMinChunkSize() {
     return MIN_CHUNK_SIZE;
   }
@@ -64,6 +87,30 @@ public abstract class BaseWriteChannel<
    */
   protected abstract void flushBuffer(int length, boolean last);
 
+  /**
+   * Writes the chunk to the {@link #getUploadId()} URL, for channels created with a {@link
+   * ChunkBufferPool}. The chunk starts at {@link #getPosition()}, which has to be read before this
+   * method returns. The chunk is read-only, and must not be used after the returned future
+   * completes, as it is then returned to the pool.
+   *
+   * <p>The default implementation copies the chunk to {@link #getBuffer()} and writes it with
+   * {@link #flushBuffer(int, boolean)} before returning.
+   *
+   * @param chunk the data to write, from its position to its limit
+   * @param last if {@code true} the resumable session is closed
+   * @return a future which completes once the chunk has been written
+   */
+  @BetaApi
+  protected ApiFuture<Void> flushChunk(ByteBuffer chunk, boolean last) {
+    int length = chunk.remaining();
+    if (buffer.length < length) {
+      buffer = new byte[length];
+    }
+    chunk.get(buffer, 0, length);
+    flushBuffer(length, last);
+    return ApiFutures.immediateFuture(null);
+  }
+
   protected ServiceOptionsT getOptions() {
     return options;
   }
@@ -88,6 +135,13 @@ public abstract class BaseWriteChannel<
     return limit;
   }
 
+  /** Returns the pool of the chunk buffers, or {@code null} if the channel uses its own buffer. */
+  @BetaApi
+  @Nullable
+  protected ChunkBufferPool getChunkBufferPool() {
+    return chunkBufferPool;
+  }
+
   protected int getChunkSize() {
     return chunkSize;
   }
@@ -101,9 +155,25 @@ public abstract class BaseWriteChannel<
 
   @InternalApi("This class should only be extended within google-cloud-java")
   protected BaseWriteChannel(ServiceOptionsT options, EntityT entity, String uploadId) {
+    this(options, entity, uploadId, null);
+  }
+
+  /**
+   * Creates a channel which fills chunk buffers from the given pool, and writes them with {@link
+   * #flushChunk(ByteBuffer, boolean)}. If the pool is {@code null}, the channel uses its own buffer
+   * and writes it with {@link #flushBuffer(int, boolean)}.
+   */
+  @BetaApi
+  @InternalApi("This class should only be extended within google-cloud-java")
+  protected BaseWriteChannel(
+      ServiceOptionsT options,
+      EntityT entity,
+      String uploadId,
+      @Nullable ChunkBufferPool chunkBufferPool) {
     this.options = options;
     this.entity = entity;
     this.uploadId = uploadId;
+    this.chunkBufferPool = chunkBufferPool;
   }
 
   private void flush() {
@@ -127,6 +197,9 @@ public abstract class BaseWriteChannel<
   @Override
   public final int write(ByteBuffer byteBuffer) throws IOException {
     validateOpen();
+    if (chunkBufferPool != null) {
+      return writeToChunks(byteBuffer);
+    }
     int toWrite = byteBuffer.remaining();
     int spaceInBuffer = buffer.length - limit;
     if (spaceInBuffer >= toWrite) {
@@ -140,6 +213,69 @@ public abstract class BaseWriteChannel<
     return toWrite;
   }
 
+  private int writeToChunks(ByteBuffer byteBuffer) throws IOException {
+    throwIfFlushFailed();
+    int toWrite = byteBuffer.remaining();
+    while (byteBuffer.hasRemaining()) {
+      if (chunk == null) {
+        chunk = chunkBufferPool.acquire(chunkSize);
+      }
+      int length = Math.min(chunk.remaining(), byteBuffer.remaining());
+      ByteBuffer slice = byteBuffer.duplicate();
+      slice.limit(slice.position() + length);
+      chunk.put(slice);
+      byteBuffer.position(byteBuffer.position() + length);
+      limit = chunk.position();
+      if (!chunk.hasRemaining()) {
+        sendChunk(false);
+      }
+    }
+    return toWrite;
+  }
+
+  /** Waits for the previous chunk to be written, and starts writing the current chunk. */
+  private void sendChunk(boolean last) throws IOException {
+    awaitFlushingChunk();
+    ByteBuffer toFlush = chunk != null ? chunk : chunkBufferPool.acquire(chunkSize);
+    chunk = null;
+    limit = 0;
+    toFlush.flip();
+    int length = toFlush.remaining();
+    flushingChunk = toFlush;
+    try {
+      flushingChunkFuture = flushChunk(toFlush.asReadOnlyBuffer(), last);
+    } catch (RuntimeException e) {
+      // Handled like a failed upload, so that the chunk goes back to the pool.
+      flushingChunkFuture = ApiFutures.immediateFailedFuture(e);
+    }
+    position += length;
+  }
+
+  private void awaitFlushingChunk() throws IOException {
+    if (flushingChunkFuture == null) {
+      throwIfFlushFailed();
+      return;
+    }
+    try {
+      flushingChunkFuture.get();
+    } catch (ExecutionException e) {
+      flushError = new IOException("Failed to write the chunk", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing the chunk");
+    }
+    chunkBufferPool.release(flushingChunk);
+    flushingChunk = null;
+    flushingChunkFuture = null;
+    throwIfFlushFailed();
+  }
+
+  private void throwIfFlushFailed() throws IOException {
+    if (flushError != null) {
+      throw flushError;
+    }
+  }
+
   @Override
   public boolean isOpen() {
     return isOpen;
@@ -147,6 +283,20 @@ public abstract class BaseWriteChannel<
 
   @Override
   public final void close() throws IOException {
+    if (isOpen && chunkBufferPool != null) {
+      try {
+        sendChunk(true);
+        awaitFlushingChunk();
+      } finally {
+        isOpen = false;
+        // The chunk being filled is left when the previous chunk failed before it was sent.
+        if (chunk != null) {
+          chunkBufferPool.release(chunk);
+          chunk = null;
+        }
+      }
+      return;
+    }
     if (isOpen) {
       flushBuffer(limit, true);
       position += buffer.length;
@@ -161,7 +311,20 @@ public abstract class BaseWriteChannel<
   @Override
   public RestorableState<WriteChannel> capture() {
     byte[] bufferToSave = null;
-    if (isOpen) {
+    if (isOpen && chunkBufferPool != null) {
+      // The position only accounts for the chunk being written once it has been written.
+      try {
+        awaitFlushingChunk();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      bufferToSave = new byte[limit];
+      if (chunk != null) {
+        ByteBuffer written = chunk.duplicate();
+        written.flip();
+        written.get(bufferToSave);
+      }
+    } else if (isOpen) {
       bufferToSave = Arrays.copyOf(buffer, limit);
     }
     return stateBuilder()
@@ -174,13 +337,17 @@ public abstract class BaseWriteChannel<
 
   /** Restores the state of the current write channel given a {@link BaseState} object. */
   protected void restore(BaseState state) {
-    if (state.buffer != null) {
-      this.buffer = state.buffer.clone();
-      this.limit = state.buffer.length;
-    }
     this.position = state.position;
     this.isOpen = state.isOpen;
     this.chunkSize = state.chunkSize;
+    if (state.buffer != null && chunkBufferPool != null) {
+      this.chunk = chunkBufferPool.acquire(Math.max(chunkSize, state.buffer.length));
+      this.chunk.put(state.buffer);
+      this.limit = state.buffer.length;
+    } else if (state.buffer != null) {
+      this.buffer = state.buffer.clone();
+      this.limit = state.buffer.length;
+    }
   }
 
   protected abstract static class BaseState<
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import com.google.api.core.BetaApi;
+import com.google.common.base.Preconditions;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of the chunk buffers that a {@link BaseWriteChannel} fills and uploads, which can be
+ * shared by all the channels of a client so that writing many objects reuses the same buffers. The
+ * buffers are either heap buffers or direct buffers, which are allocated off the Java heap.
+ *
+ * <p>The pool keeps at most {@code maxPooledBuffers} released buffers; buffers which are released
+ * beyond that are left to the garbage collector. This class is thread-safe.
+ */
+@BetaApi
+public final class ChunkBufferPool {
+
+  private final boolean direct;
+  private final int maxPooledBuffers;
+  private final ConcurrentMap<Integer, Queue<ByteBuffer>> pooledBuffers = new ConcurrentHashMap<>();
+  private final AtomicInteger pooledBufferCount = new AtomicInteger();
+  private final AtomicInteger allocatedBufferCount = new AtomicInteger();
+
+  private ChunkBufferPool(boolean direct, int maxPooledBuffers) {
+    Preconditions.checkArgument(maxPooledBuffers >= 0, "maxPooledBuffers must not be negative");
+    this.direct = direct;
+    this.maxPooledBuffers = maxPooledBuffers;
+  }
+
+  /** Creates a pool of heap buffers, which keeps at most {@code maxPooledBuffers} buffers. */
+  public static ChunkBufferPool create(int maxPooledBuffers) {
+    return new ChunkBufferPool(false, maxPooledBuffers);
+  }
+
+  /** Creates a pool of direct buffers, which keeps at most {@code maxPooledBuffers} buffers. */
+  public static ChunkBufferPool createDirect(int maxPooledBuffers) {
+    return new ChunkBufferPool(true, maxPooledBuffers);
+  }
+
+  /** Returns whether the buffers of this pool are direct buffers. */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /** Returns an empty buffer of the given capacity, reusing a released buffer if there is one. */
+  public ByteBuffer acquire(int capacity) {
+    Queue<ByteBuffer> buffers = pooledBuffers.get(capacity);
+    ByteBuffer buffer = buffers == null ? null : buffers.poll();
+    if (buffer == null) {
+      allocatedBufferCount.incrementAndGet();
+      return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+    pooledBufferCount.decrementAndGet();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer obtained from {@link #acquire(int)} to the pool. The buffer must not be used
+   * after it has been released.
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer.isDirect() != direct) {
+      return;
+    }
+    if (pooledBufferCount.incrementAndGet() > maxPooledBuffers) {
+      pooledBufferCount.decrementAndGet();
+      return;
+    }
+    Queue<ByteBuffer> buffers = pooledBuffers.get(buffer.capacity());
+    if (buffers == null) {
+      buffers = new ConcurrentLinkedQueue<>();
+      Queue<ByteBuffer> existing = pooledBuffers.putIfAbsent(buffer.capacity(), buffers);
+      if (existing != null) {
+        buffers = existing;
+      }
+    }
+    buffers.add(buffer);
+  }
+
+  /** Returns the number of buffers that this pool has allocated, for testing. */
+  int getAllocatedBufferCount() {
+    return allocatedBufferCount.get();
+  }
+}
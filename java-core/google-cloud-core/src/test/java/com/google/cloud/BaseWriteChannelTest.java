@@ -22,13 +22,19 @@ import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
 import com.google.cloud.spi.ServiceRpcFactory;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
@@ -136,6 +142,181 @@ public class BaseWriteChannelTest {
     assertArrayEquals(newContent, channel.getBuffer());
   }
 
+  @Test
+  public void testWriteWithChunkBufferPool() throws IOException {
+    ChunkBufferPool pool = ChunkBufferPool.createDirect(2);
+    List<ByteBuffer> chunks = new ArrayList<>();
+    List<Long> chunkPositions = new ArrayList<>();
+    BaseWriteChannel<CustomServiceOptions, Serializable> pooledChannel =
+        new PooledWriteChannel(pool) {
+          @Override
+          protected ApiFuture<Void> flushChunk(ByteBuffer chunk, boolean last) {
+            assertThat(chunk.isDirect()).isTrue();
+            chunkPositions.add(getPosition());
+            ByteBuffer copy = ByteBuffer.allocate(chunk.remaining());
+            copy.put(chunk);
+            chunks.add(copy);
+            return ApiFutures.immediateFuture(null);
+          }
+        };
+    pooledChannel.setChunkSize(MIN_CHUNK_SIZE);
+
+    ByteBuffer content = randomBuffer(2 * MIN_CHUNK_SIZE + 1);
+    pooledChannel.write(content.duplicate());
+    assertEquals(2 * MIN_CHUNK_SIZE, pooledChannel.getPosition());
+    assertEquals(1, pooledChannel.getLimit());
+    pooledChannel.close();
+
+    assertThat(chunkPositions)
+        .containsExactly(0L, (long) MIN_CHUNK_SIZE, 2L * MIN_CHUNK_SIZE)
+        .inOrder();
+    ByteBuffer written = ByteBuffer.allocate(content.remaining());
+    for (ByteBuffer chunk : chunks) {
+      chunk.flip();
+      written.put(chunk);
+    }
+    written.flip();
+    assertEquals(content, written);
+    // The chunks are uploaded one at a time, so the channel alternates between two buffers.
+    assertEquals(2, pool.getAllocatedBufferCount());
+  }
+
+  @Test
+  public void testChunkIsFilledWhileThePreviousOneIsWritten() throws IOException {
+    List<SettableApiFuture<Void>> flushes = new ArrayList<>();
+    BaseWriteChannel<CustomServiceOptions, Serializable> pooledChannel =
+        new PooledWriteChannel(ChunkBufferPool.create(2)) {
+          @Override
+          protected ApiFuture<Void> flushChunk(ByteBuffer chunk, boolean last) {
+            SettableApiFuture<Void> flush = SettableApiFuture.create();
+            flushes.add(flush);
+            return flush;
+          }
+        };
+    pooledChannel.setChunkSize(MIN_CHUNK_SIZE);
+
+    pooledChannel.write(randomBuffer(MIN_CHUNK_SIZE));
+    // The next chunk does not wait for the first one, which is still being written.
+    pooledChannel.write(randomBuffer(MIN_CHUNK_SIZE - 1));
+    assertEquals(1, flushes.size());
+    assertEquals(MIN_CHUNK_SIZE - 1, pooledChannel.getLimit());
+
+    flushes.get(0).setException(new IllegalStateException("upload failed"));
+    try {
+      pooledChannel.write(randomBuffer(1));
+      fail("The failure of the first chunk should be rethrown");
+    } catch (IOException e) {
+      assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("upload failed");
+    }
+  }
+
+  @Test
+  public void testWriteWithChunkBufferPoolAndDefaultFlushChunk() throws IOException {
+    ChunkBufferPool pool = ChunkBufferPool.create(2);
+    ByteBuffer written = ByteBuffer.allocate(MIN_CHUNK_SIZE + 1);
+    List<Boolean> lastFlags = new ArrayList<>();
+    BaseWriteChannel<CustomServiceOptions, Serializable> pooledChannel =
+        new PooledWriteChannel(pool) {
+          @Override
+          protected void flushBuffer(int length, boolean last) {
+            assertEquals(written.position(), getPosition());
+            written.put(getBuffer(), 0, length);
+            lastFlags.add(last);
+          }
+        };
+    pooledChannel.setChunkSize(MIN_CHUNK_SIZE);
+
+    ByteBuffer content = randomBuffer(MIN_CHUNK_SIZE + 1);
+    pooledChannel.write(content.duplicate());
+    pooledChannel.close();
+
+    written.flip();
+    assertEquals(content, written);
+    assertThat(lastFlags).containsExactly(false, true).inOrder();
+  }
+
+  @Test
+  public void testCloseReleasesChunksWhenWriteFailed() throws IOException {
+    ChunkBufferPool pool = ChunkBufferPool.create(2);
+    SettableApiFuture<Void> flush = SettableApiFuture.create();
+    BaseWriteChannel<CustomServiceOptions, Serializable> pooledChannel =
+        new PooledWriteChannel(pool) {
+          @Override
+          protected ApiFuture<Void> flushChunk(ByteBuffer chunk, boolean last) {
+            return flush;
+          }
+        };
+    pooledChannel.setChunkSize(MIN_CHUNK_SIZE);
+    pooledChannel.write(randomBuffer(MIN_CHUNK_SIZE));
+    pooledChannel.write(ByteBuffer.wrap(CONTENT));
+
+    flush.setException(new IllegalStateException("upload failed"));
+    try {
+      pooledChannel.close();
+      fail("The failure of the first chunk should be rethrown");
+    } catch (IOException e) {
+      assertThat(e).hasCauseThat().hasMessageThat().isEqualTo("upload failed");
+    }
+    assertFalse(pooledChannel.isOpen());
+
+    // Both chunks went back to the pool.
+    pool.acquire(MIN_CHUNK_SIZE);
+    pool.acquire(MIN_CHUNK_SIZE);
+    assertEquals(2, pool.getAllocatedBufferCount());
+  }
+
+  @Test
+  public void testCaptureWithChunkBufferPool() throws IOException {
+    SettableApiFuture<Void> flush = SettableApiFuture.create();
+    BaseWriteChannel<CustomServiceOptions, Serializable> pooledChannel =
+        new PooledWriteChannel(ChunkBufferPool.create(2)) {
+          @Override
+          protected ApiFuture<Void> flushChunk(ByteBuffer chunk, boolean last) {
+            return flush;
+          }
+        };
+    pooledChannel.setChunkSize(MIN_CHUNK_SIZE);
+    pooledChannel.write(randomBuffer(MIN_CHUNK_SIZE));
+    pooledChannel.write(ByteBuffer.wrap(CONTENT));
+    flush.set(null);
+
+    BaseWriteChannel.BaseState<?, ?> state =
+        (BaseWriteChannel.BaseState<?, ?>) pooledChannel.capture();
+    assertEquals(MIN_CHUNK_SIZE, state.position);
+    assertArrayEquals(CONTENT, state.buffer);
+
+    BaseWriteChannel<CustomServiceOptions, Serializable> restoredChannel =
+        new PooledWriteChannel(ChunkBufferPool.create(2));
+    restoredChannel.restore(state);
+    assertEquals(MIN_CHUNK_SIZE, restoredChannel.getPosition());
+    assertEquals(CONTENT.length, restoredChannel.getLimit());
+  }
+
+  private static class PooledWriteChannel
+      extends BaseWriteChannel<CustomServiceOptions, Serializable> {
+    PooledWriteChannel(ChunkBufferPool pool) {
+      super(null, ENTITY, UPLOAD_ID, pool);
+    }
+
+    @Override
+    protected void flushBuffer(int length, boolean last) {}
+
+    @Override
+    protected BaseState.Builder<CustomServiceOptions, Serializable> stateBuilder() {
+      return new BaseState.Builder<CustomServiceOptions, Serializable>(null, ENTITY, UPLOAD_ID) {
+        @Override
+        public RestorableState<WriteChannel> build() {
+          return new BaseState<CustomServiceOptions, Serializable>(this) {
+            @Override
+            public WriteChannel restore() {
+              return null;
+            }
+          };
+        }
+      };
+    }
+  }
+
   private static ByteBuffer randomBuffer(int size) {
     byte[] byteArray = new byte[size];
     RANDOM.nextBytes(byteArray);
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class ChunkBufferPoolTest {
+
+  @Test
+  public void testReleasedBuffersAreReused() {
+    ChunkBufferPool pool = ChunkBufferPool.create(1);
+    ByteBuffer buffer = pool.acquire(16);
+    buffer.put((byte) 1);
+    pool.release(buffer);
+
+    ByteBuffer reused = pool.acquire(16);
+    assertThat(reused).isSameInstanceAs(buffer);
+    assertThat(reused.position()).isEqualTo(0);
+    assertThat(reused.remaining()).isEqualTo(16);
+    assertThat(pool.getAllocatedBufferCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testBuffersAreReusedBySize() {
+    ChunkBufferPool pool = ChunkBufferPool.create(1);
+    pool.release(pool.acquire(16));
+
+    assertThat(pool.acquire(32).capacity()).isEqualTo(32);
+    assertThat(pool.getAllocatedBufferCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testPoolIsBounded() {
+    ChunkBufferPool pool = ChunkBufferPool.create(1);
+    ByteBuffer first = pool.acquire(16);
+    ByteBuffer second = pool.acquire(16);
+    pool.release(first);
+    pool.release(second);
+
+    assertThat(pool.acquire(16)).isSameInstanceAs(first);
+    assertThat(pool.acquire(16)).isNotSameInstanceAs(second);
+  }
+
+  @Test
+  public void testDirectBuffers() {
+    ChunkBufferPool pool = ChunkBufferPool.createDirect(1);
+    assertThat(pool.isDirect()).isTrue();
+    assertThat(pool.acquire(16).isDirect()).isTrue();
+  }
+}
@@ -29,7 +29,7 @@ import com.google.api.gax.rpc.BidiStreamingCallable;
 import com.google.api.gax.rpc.ClientContext;
 import com.google.api.gax.rpc.ClientStreamingCallable;
 import com.google.api.gax.rpc.OperationCallable;
-import com.google.api.gax.rpc.RequestParamsBuilder;
+import com.google.api.gax.rpc.RoutingHeaderParamsExtractor;
 import com.google.api.gax.rpc.ServerStreamingCallable;
 import com.google.api.gax.rpc.UnaryCallable;
 import com.google.api.pathtemplate.PathTemplate;
@@ -204,6 +204,17 @@ public class GrpcEchoStub extends EchoStub {
   private static final PathTemplate ECHO_6_PATH_TEMPLATE = PathTemplate.create("{baz=**}");
   private static final PathTemplate ECHO_7_PATH_TEMPLATE =
       PathTemplate.create("{qux=projects/*}/**");
+  private static final RoutingHeaderParamsExtractor<EchoRequest> ECHO_PARAMS_EXTRACTOR =
+      RoutingHeaderParamsExtractor.<EchoRequest>newBuilder()
+          .add(request -> request.getHeader(), "header", ECHO_0_PATH_TEMPLATE)
+          .add(request -> request.getHeader(), "routing_id", ECHO_1_PATH_TEMPLATE)
+          .add(request -> request.getHeader(), "table_name", ECHO_2_PATH_TEMPLATE)
+          .add(request -> request.getHeader(), "super_id", ECHO_3_PATH_TEMPLATE)
+          .add(request -> request.getHeader(), "table_name", ECHO_4_PATH_TEMPLATE)
+          .add(request -> request.getHeader(), "instance_id", ECHO_5_PATH_TEMPLATE)
+          .add(request -> request.getOtherHeader(), "baz", ECHO_6_PATH_TEMPLATE)
+          .add(request -> request.getOtherHeader(), "qux", ECHO_7_PATH_TEMPLATE)
+          .build();
 
   public static final GrpcEchoStub create(EchoStubSettings settings) throws IOException {
     return new GrpcEchoStub(settings, ClientContext.create(settings));
@@ -242,19 +253,7 @@ public class GrpcEchoStub extends EchoStub {
     GrpcCallSettings<EchoRequest, EchoResponse> echoTransportSettings =
         GrpcCallSettings.<EchoRequest, EchoResponse>newBuilder()
             .setMethodDescriptor(echoMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getHeader(), "header", ECHO_0_PATH_TEMPLATE);
-                  builder.add(request.getHeader(), "routing_id", ECHO_1_PATH_TEMPLATE);
-                  builder.add(request.getHeader(), "table_name", ECHO_2_PATH_TEMPLATE);
-                  builder.add(request.getHeader(), "super_id", ECHO_3_PATH_TEMPLATE);
-                  builder.add(request.getHeader(), "table_name", ECHO_4_PATH_TEMPLATE);
-                  builder.add(request.getHeader(), "instance_id", ECHO_5_PATH_TEMPLATE);
-                  builder.add(request.getOtherHeader(), "baz", ECHO_6_PATH_TEMPLATE);
-                  builder.add(request.getOtherHeader(), "qux", ECHO_7_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(ECHO_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<ExpandRequest, EchoResponse> expandTransportSettings =
         GrpcCallSettings.<ExpandRequest, EchoResponse>newBuilder()
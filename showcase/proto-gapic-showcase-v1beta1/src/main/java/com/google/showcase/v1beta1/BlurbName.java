@@ -41,6 +41,7 @@ public class BlurbName implements ResourceName {
   private static final PathTemplate ROOM_LEGACY_ROOM_BLURB =
       PathTemplate.createWithoutUrlEncoding("rooms/{room}/blurbs/legacy/{legacy_room}.{blurb}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private PathTemplate pathTemplate;
   private String fixedValue;
   private final String user;
@@ -282,7 +283,10 @@ public class BlurbName implements ResourceName {
 
   @Override
   public String toString() {
-    return fixedValue != null ? fixedValue : pathTemplate.instantiate(getFieldValuesMap());
+    if (stringValue == null) {
+      stringValue = fixedValue != null ? fixedValue : pathTemplate.instantiate(getFieldValuesMap());
+    }
+    return stringValue;
   }
 
   @Override
@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ public class ProfileName implements ResourceName {
   private static final PathTemplate USER =
       PathTemplate.createWithoutUrlEncoding("users/{user}/profile/blurbs");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String user;
 
   @Deprecated
@@ -67,6 +69,12 @@ public class ProfileName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      ProfileName name = scanUserName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         USER.validatedMatch(
             formattedString, "ProfileName.parse: formattedString not in valid format");
@@ -94,7 +102,20 @@ public class ProfileName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return USER.matches(formattedString);
+    return scanUserName(formattedString) != null || USER.matches(formattedString);
+  }
+
+  private static ProfileName scanUserName(String formattedString) {
+    if (!formattedString.startsWith("users/")) {
+      return null;
+    }
+    int userEnd = formattedString.indexOf("/", 6);
+    if (userEnd == -1
+        || !formattedString.startsWith("/profile/blurbs", userEnd)
+        || userEnd + 15 != formattedString.length()) {
+      return null;
+    }
+    return of(formattedString.substring(6, userEnd));
   }
 
   @Override
@@ -119,7 +140,10 @@ public class ProfileName implements ResourceName {
 
   @Override
   public String toString() {
-    return USER.instantiate("user", user);
+    if (stringValue == null) {
+      stringValue = USER.instantiate("user", user);
+    }
+    return stringValue;
   }
 
   @Override
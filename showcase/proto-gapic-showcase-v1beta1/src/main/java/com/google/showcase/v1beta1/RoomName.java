@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ import javax.annotation.Generated;
 public class RoomName implements ResourceName {
   private static final PathTemplate ROOM = PathTemplate.createWithoutUrlEncoding("rooms/{room}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String room;
 
   @Deprecated
@@ -66,6 +68,12 @@ public class RoomName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      RoomName name = scanRoomName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         ROOM.validatedMatch(formattedString, "RoomName.parse: formattedString not in valid format");
     return of(matchMap.get("room"));
@@ -92,7 +100,17 @@ public class RoomName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return ROOM.matches(formattedString);
+    return scanRoomName(formattedString) != null || ROOM.matches(formattedString);
+  }
+
+  private static RoomName scanRoomName(String formattedString) {
+    if (!formattedString.startsWith("rooms/")) {
+      return null;
+    }
+    if (formattedString.indexOf("/", 6) != -1) {
+      return null;
+    }
+    return of(formattedString.substring(6));
   }
 
   @Override
@@ -117,7 +135,10 @@ public class RoomName implements ResourceName {
 
   @Override
   public String toString() {
-    return ROOM.instantiate("room", room);
+    if (stringValue == null) {
+      stringValue = ROOM.instantiate("room", room);
+    }
+    return stringValue;
   }
 
   @Override
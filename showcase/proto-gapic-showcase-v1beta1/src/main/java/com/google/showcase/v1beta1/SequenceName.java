@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ public class SequenceName implements ResourceName {
   private static final PathTemplate SEQUENCE =
       PathTemplate.createWithoutUrlEncoding("sequences/{sequence}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String sequence;
 
   @Deprecated
@@ -67,6 +69,12 @@ public class SequenceName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      SequenceName name = scanSequenceName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         SEQUENCE.validatedMatch(
             formattedString, "SequenceName.parse: formattedString not in valid format");
@@ -94,7 +102,17 @@ public class SequenceName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return SEQUENCE.matches(formattedString);
+    return scanSequenceName(formattedString) != null || SEQUENCE.matches(formattedString);
+  }
+
+  private static SequenceName scanSequenceName(String formattedString) {
+    if (!formattedString.startsWith("sequences/")) {
+      return null;
+    }
+    if (formattedString.indexOf("/", 10) != -1) {
+      return null;
+    }
+    return of(formattedString.substring(10));
   }
 
   @Override
@@ -119,7 +137,10 @@ public class SequenceName implements ResourceName {
 
   @Override
   public String toString() {
-    return SEQUENCE.instantiate("sequence", sequence);
+    if (stringValue == null) {
+      stringValue = SEQUENCE.instantiate("sequence", sequence);
+    }
+    return stringValue;
   }
 
   @Override
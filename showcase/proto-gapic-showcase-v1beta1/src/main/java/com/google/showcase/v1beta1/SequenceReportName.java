@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ public class SequenceReportName implements ResourceName {
   private static final PathTemplate SEQUENCE =
       PathTemplate.createWithoutUrlEncoding("sequences/{sequence}/sequenceReport");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String sequence;
 
   @Deprecated
@@ -67,6 +69,12 @@ public class SequenceReportName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      SequenceReportName name = scanSequenceName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         SEQUENCE.validatedMatch(
             formattedString, "SequenceReportName.parse: formattedString not in valid format");
@@ -94,7 +102,20 @@ public class SequenceReportName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return SEQUENCE.matches(formattedString);
+    return scanSequenceName(formattedString) != null || SEQUENCE.matches(formattedString);
+  }
+
+  private static SequenceReportName scanSequenceName(String formattedString) {
+    if (!formattedString.startsWith("sequences/")) {
+      return null;
+    }
+    int sequenceEnd = formattedString.indexOf("/", 10);
+    if (sequenceEnd == -1
+        || !formattedString.startsWith("/sequenceReport", sequenceEnd)
+        || sequenceEnd + 15 != formattedString.length()) {
+      return null;
+    }
+    return of(formattedString.substring(10, sequenceEnd));
   }
 
   @Override
@@ -119,7 +140,10 @@ public class SequenceReportName implements ResourceName {
 
   @Override
   public String toString() {
-    return SEQUENCE.instantiate("sequence", sequence);
+    if (stringValue == null) {
+      stringValue = SEQUENCE.instantiate("sequence", sequence);
+    }
+    return stringValue;
   }
 
   @Override
@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ public class SessionName implements ResourceName {
   private static final PathTemplate SESSION =
       PathTemplate.createWithoutUrlEncoding("sessions/{session}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String session;
 
   @Deprecated
@@ -67,6 +69,12 @@ public class SessionName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      SessionName name = scanSessionName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         SESSION.validatedMatch(
             formattedString, "SessionName.parse: formattedString not in valid format");
@@ -94,7 +102,17 @@ public class SessionName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return SESSION.matches(formattedString);
+    return scanSessionName(formattedString) != null || SESSION.matches(formattedString);
+  }
+
+  private static SessionName scanSessionName(String formattedString) {
+    if (!formattedString.startsWith("sessions/")) {
+      return null;
+    }
+    if (formattedString.indexOf("/", 9) != -1) {
+      return null;
+    }
+    return of(formattedString.substring(9));
   }
 
   @Override
@@ -119,7 +137,10 @@ public class SessionName implements ResourceName {
 
   @Override
   public String toString() {
-    return SESSION.instantiate("session", session);
+    if (stringValue == null) {
+      stringValue = SESSION.instantiate("session", session);
+    }
+    return stringValue;
   }
 
   @Override
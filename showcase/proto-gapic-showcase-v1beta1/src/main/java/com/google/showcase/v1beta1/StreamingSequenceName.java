@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ public class StreamingSequenceName implements ResourceName {
   private static final PathTemplate STREAMING_SEQUENCE =
       PathTemplate.createWithoutUrlEncoding("streamingSequences/{streaming_sequence}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String streamingSequence;
 
   @Deprecated
@@ -67,6 +69,12 @@ public class StreamingSequenceName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      StreamingSequenceName name = scanStreamingSequenceName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         STREAMING_SEQUENCE.validatedMatch(
             formattedString, "StreamingSequenceName.parse: formattedString not in valid format");
@@ -94,7 +102,18 @@ public class StreamingSequenceName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return STREAMING_SEQUENCE.matches(formattedString);
+    return scanStreamingSequenceName(formattedString) != null
+        || STREAMING_SEQUENCE.matches(formattedString);
+  }
+
+  private static StreamingSequenceName scanStreamingSequenceName(String formattedString) {
+    if (!formattedString.startsWith("streamingSequences/")) {
+      return null;
+    }
+    if (formattedString.indexOf("/", 19) != -1) {
+      return null;
+    }
+    return of(formattedString.substring(19));
   }
 
   @Override
@@ -119,7 +138,10 @@ public class StreamingSequenceName implements ResourceName {
 
   @Override
   public String toString() {
-    return STREAMING_SEQUENCE.instantiate("streaming_sequence", streamingSequence);
+    if (stringValue == null) {
+      stringValue = STREAMING_SEQUENCE.instantiate("streaming_sequence", streamingSequence);
+    }
+    return stringValue;
   }
 
   @Override
@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -33,6 +34,7 @@ public class StreamingSequenceReportName implements ResourceName {
       PathTemplate.createWithoutUrlEncoding(
           "streamingSequences/{streaming_sequence}/streamingSequenceReport");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String streamingSequence;
 
   @Deprecated
@@ -68,6 +70,12 @@ public class StreamingSequenceReportName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      StreamingSequenceReportName name = scanStreamingSequenceName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         STREAMING_SEQUENCE.validatedMatch(
             formattedString,
@@ -96,7 +104,21 @@ public class StreamingSequenceReportName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return STREAMING_SEQUENCE.matches(formattedString);
+    return scanStreamingSequenceName(formattedString) != null
+        || STREAMING_SEQUENCE.matches(formattedString);
+  }
+
+  private static StreamingSequenceReportName scanStreamingSequenceName(String formattedString) {
+    if (!formattedString.startsWith("streamingSequences/")) {
+      return null;
+    }
+    int streamingSequenceEnd = formattedString.indexOf("/", 19);
+    if (streamingSequenceEnd == -1
+        || !formattedString.startsWith("/streamingSequenceReport", streamingSequenceEnd)
+        || streamingSequenceEnd + 24 != formattedString.length()) {
+      return null;
+    }
+    return of(formattedString.substring(19, streamingSequenceEnd));
   }
 
   @Override
@@ -121,7 +143,10 @@ public class StreamingSequenceReportName implements ResourceName {
 
   @Override
   public String toString() {
-    return STREAMING_SEQUENCE.instantiate("streaming_sequence", streamingSequence);
+    if (stringValue == null) {
+      stringValue = STREAMING_SEQUENCE.instantiate("streaming_sequence", streamingSequence);
+    }
+    return stringValue;
   }
 
   @Override
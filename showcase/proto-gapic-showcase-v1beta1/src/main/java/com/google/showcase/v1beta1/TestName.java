@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ public class TestName implements ResourceName {
   private static final PathTemplate SESSION_TEST =
       PathTemplate.createWithoutUrlEncoding("sessions/{session}/tests/{test}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String session;
   private final String test;
 
@@ -74,6 +76,12 @@ public class TestName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      TestName name = scanSessionTestName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         SESSION_TEST.validatedMatch(
             formattedString, "TestName.parse: formattedString not in valid format");
@@ -101,7 +109,21 @@ public class TestName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return SESSION_TEST.matches(formattedString);
+    return scanSessionTestName(formattedString) != null || SESSION_TEST.matches(formattedString);
+  }
+
+  private static TestName scanSessionTestName(String formattedString) {
+    if (!formattedString.startsWith("sessions/")) {
+      return null;
+    }
+    int sessionEnd = formattedString.indexOf("/", 9);
+    if (sessionEnd == -1 || !formattedString.startsWith("/tests/", sessionEnd)) {
+      return null;
+    }
+    if (formattedString.indexOf("/", sessionEnd + 7) != -1) {
+      return null;
+    }
+    return of(formattedString.substring(9, sessionEnd), formattedString.substring(sessionEnd + 7));
   }
 
   @Override
@@ -129,7 +151,10 @@ public class TestName implements ResourceName {
 
   @Override
   public String toString() {
-    return SESSION_TEST.instantiate("session", session, "test", test);
+    if (stringValue == null) {
+      stringValue = SESSION_TEST.instantiate("session", session, "test", test);
+    }
+    return stringValue;
   }
 
   @Override
@@ -18,6 +18,7 @@ package com.google.showcase.v1beta1;
 
 import com.google.api.pathtemplate.PathTemplate;
 import com.google.api.resourcenames.ResourceName;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ import javax.annotation.Generated;
 public class UserName implements ResourceName {
   private static final PathTemplate USER = PathTemplate.createWithoutUrlEncoding("users/{user}");
   private volatile Map<String, String> fieldValuesMap;
+  private volatile String stringValue;
   private final String user;
 
   @Deprecated
@@ -66,6 +68,12 @@ public class UserName implements ResourceName {
     if (formattedString.isEmpty()) {
       return null;
     }
+    if (CharMatcher.whitespace().matchesNoneOf(formattedString)) {
+      UserName name = scanUserName(formattedString);
+      if (name != null) {
+        return name;
+      }
+    }
     Map<String, String> matchMap =
         USER.validatedMatch(formattedString, "UserName.parse: formattedString not in valid format");
     return of(matchMap.get("user"));
@@ -92,7 +100,17 @@ public class UserName implements ResourceName {
   }
 
   public static boolean isParsableFrom(String formattedString) {
-    return USER.matches(formattedString);
+    return scanUserName(formattedString) != null || USER.matches(formattedString);
+  }
+
+  private static UserName scanUserName(String formattedString) {
+    if (!formattedString.startsWith("users/")) {
+      return null;
+    }
+    if (formattedString.indexOf("/", 6) != -1) {
+      return null;
+    }
+    return of(formattedString.substring(6));
   }
 
   @Override
@@ -117,7 +135,10 @@ public class UserName implements ResourceName {
 
   @Override
   public String toString() {
-    return USER.instantiate("user", user);
+    if (stringValue == null) {
+      stringValue = USER.instantiate("user", user);
+    }
+    return stringValue;
   }
 
   @Override
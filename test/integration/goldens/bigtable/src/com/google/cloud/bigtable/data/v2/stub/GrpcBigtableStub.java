@@ -21,7 +21,7 @@ import com.google.api.gax.core.BackgroundResourceAggregation;
 import com.google.api.gax.grpc.GrpcCallSettings;
 import com.google.api.gax.grpc.GrpcStubCallableFactory;
 import com.google.api.gax.rpc.ClientContext;
-import com.google.api.gax.rpc.RequestParamsBuilder;
+import com.google.api.gax.rpc.RoutingHeaderParamsExtractor;
 import com.google.api.gax.rpc.ServerStreamingCallable;
 import com.google.api.gax.rpc.UnaryCallable;
 import com.google.api.pathtemplate.PathTemplate;
@@ -43,7 +43,6 @@ import com.google.longrunning.stub.GrpcOperationsStub;
 import io.grpc.MethodDescriptor;
 import io.grpc.protobuf.ProtoUtils;
 import java.io.IOException;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Generated;
 
@@ -144,30 +143,91 @@ public class GrpcBigtableStub extends BigtableStub {
       PathTemplate.create("{table_name=projects/*/instances/*/tables/*}");
   private static final PathTemplate READ_ROWS_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<ReadRowsRequest> READ_ROWS_PARAMS_EXTRACTOR =
+      RoutingHeaderParamsExtractor.<ReadRowsRequest>newBuilder()
+          .add(request -> request.getTableName(), "table_name", READ_ROWS_0_PATH_TEMPLATE)
+          .add(request -> request.getAppProfileId(), "app_profile_id", READ_ROWS_1_PATH_TEMPLATE)
+          .build();
   private static final PathTemplate SAMPLE_ROW_KEYS_0_PATH_TEMPLATE =
       PathTemplate.create("{table_name=projects/*/instances/*/tables/*}");
   private static final PathTemplate SAMPLE_ROW_KEYS_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<SampleRowKeysRequest>
+      SAMPLE_ROW_KEYS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<SampleRowKeysRequest>newBuilder()
+              .add(request -> request.getTableName(), "table_name", SAMPLE_ROW_KEYS_0_PATH_TEMPLATE)
+              .add(
+                  request -> request.getAppProfileId(),
+                  "app_profile_id",
+                  SAMPLE_ROW_KEYS_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate MUTATE_ROW_0_PATH_TEMPLATE =
       PathTemplate.create("{table_name=projects/*/instances/*/tables/*}");
   private static final PathTemplate MUTATE_ROW_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<MutateRowRequest> MUTATE_ROW_PARAMS_EXTRACTOR =
+      RoutingHeaderParamsExtractor.<MutateRowRequest>newBuilder()
+          .add(request -> request.getTableName(), "table_name", MUTATE_ROW_0_PATH_TEMPLATE)
+          .add(request -> request.getAppProfileId(), "app_profile_id", MUTATE_ROW_1_PATH_TEMPLATE)
+          .build();
   private static final PathTemplate MUTATE_ROWS_0_PATH_TEMPLATE =
       PathTemplate.create("{table_name=projects/*/instances/*/tables/*}");
   private static final PathTemplate MUTATE_ROWS_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<MutateRowsRequest>
+      MUTATE_ROWS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<MutateRowsRequest>newBuilder()
+              .add(request -> request.getTableName(), "table_name", MUTATE_ROWS_0_PATH_TEMPLATE)
+              .add(
+                  request -> request.getAppProfileId(),
+                  "app_profile_id",
+                  MUTATE_ROWS_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate CHECK_AND_MUTATE_ROW_0_PATH_TEMPLATE =
       PathTemplate.create("{table_name=projects/*/instances/*/tables/*}");
   private static final PathTemplate CHECK_AND_MUTATE_ROW_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<CheckAndMutateRowRequest>
+      CHECK_AND_MUTATE_ROW_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<CheckAndMutateRowRequest>newBuilder()
+              .add(
+                  request -> request.getTableName(),
+                  "table_name",
+                  CHECK_AND_MUTATE_ROW_0_PATH_TEMPLATE)
+              .add(
+                  request -> request.getAppProfileId(),
+                  "app_profile_id",
+                  CHECK_AND_MUTATE_ROW_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate PING_AND_WARM_0_PATH_TEMPLATE =
       PathTemplate.create("{name=projects/*/instances/*}");
   private static final PathTemplate PING_AND_WARM_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<PingAndWarmRequest>
+      PING_AND_WARM_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<PingAndWarmRequest>newBuilder()
+              .add(request -> request.getName(), "name", PING_AND_WARM_0_PATH_TEMPLATE)
+              .add(
+                  request -> request.getAppProfileId(),
+                  "app_profile_id",
+                  PING_AND_WARM_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate READ_MODIFY_WRITE_ROW_0_PATH_TEMPLATE =
       PathTemplate.create("{table_name=projects/*/instances/*/tables/*}");
   private static final PathTemplate READ_MODIFY_WRITE_ROW_1_PATH_TEMPLATE =
       PathTemplate.create("{app_profile_id=**}");
+  private static final RoutingHeaderParamsExtractor<ReadModifyWriteRowRequest>
+      READ_MODIFY_WRITE_ROW_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ReadModifyWriteRowRequest>newBuilder()
+              .add(
+                  request -> request.getTableName(),
+                  "table_name",
+                  READ_MODIFY_WRITE_ROW_0_PATH_TEMPLATE)
+              .add(
+                  request -> request.getAppProfileId(),
+                  "app_profile_id",
+                  READ_MODIFY_WRITE_ROW_1_PATH_TEMPLATE)
+              .build();
 
   public static final GrpcBigtableStub create(BigtableStubSettings settings) throws IOException {
     return new GrpcBigtableStub(settings, ClientContext.create(settings));
@@ -207,99 +267,39 @@ public class GrpcBigtableStub extends BigtableStub {
     GrpcCallSettings<ReadRowsRequest, ReadRowsResponse> readRowsTransportSettings =
         GrpcCallSettings.<ReadRowsRequest, ReadRowsResponse>newBuilder()
             .setMethodDescriptor(readRowsMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getTableName(), "table_name", READ_ROWS_0_PATH_TEMPLATE);
-                  builder.add(
-                      request.getAppProfileId(), "app_profile_id", READ_ROWS_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(READ_ROWS_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<SampleRowKeysRequest, SampleRowKeysResponse> sampleRowKeysTransportSettings =
         GrpcCallSettings.<SampleRowKeysRequest, SampleRowKeysResponse>newBuilder()
             .setMethodDescriptor(sampleRowKeysMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(
-                      request.getTableName(), "table_name", SAMPLE_ROW_KEYS_0_PATH_TEMPLATE);
-                  builder.add(
-                      request.getAppProfileId(), "app_profile_id", SAMPLE_ROW_KEYS_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(SAMPLE_ROW_KEYS_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<MutateRowRequest, MutateRowResponse> mutateRowTransportSettings =
         GrpcCallSettings.<MutateRowRequest, MutateRowResponse>newBuilder()
             .setMethodDescriptor(mutateRowMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getTableName(), "table_name", MUTATE_ROW_0_PATH_TEMPLATE);
-                  builder.add(
-                      request.getAppProfileId(), "app_profile_id", MUTATE_ROW_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(MUTATE_ROW_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<MutateRowsRequest, MutateRowsResponse> mutateRowsTransportSettings =
         GrpcCallSettings.<MutateRowsRequest, MutateRowsResponse>newBuilder()
             .setMethodDescriptor(mutateRowsMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getTableName(), "table_name", MUTATE_ROWS_0_PATH_TEMPLATE);
-                  builder.add(
-                      request.getAppProfileId(), "app_profile_id", MUTATE_ROWS_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(MUTATE_ROWS_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<CheckAndMutateRowRequest, CheckAndMutateRowResponse>
         checkAndMutateRowTransportSettings =
             GrpcCallSettings.<CheckAndMutateRowRequest, CheckAndMutateRowResponse>newBuilder()
                 .setMethodDescriptor(checkAndMutateRowMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getTableName(),
-                          "table_name",
-                          CHECK_AND_MUTATE_ROW_0_PATH_TEMPLATE);
-                      builder.add(
-                          request.getAppProfileId(),
-                          "app_profile_id",
-                          CHECK_AND_MUTATE_ROW_1_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(CHECK_AND_MUTATE_ROW_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<PingAndWarmRequest, PingAndWarmResponse> pingAndWarmTransportSettings =
         GrpcCallSettings.<PingAndWarmRequest, PingAndWarmResponse>newBuilder()
             .setMethodDescriptor(pingAndWarmMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getName(), "name", PING_AND_WARM_0_PATH_TEMPLATE);
-                  builder.add(
-                      request.getAppProfileId(), "app_profile_id", PING_AND_WARM_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(PING_AND_WARM_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<ReadModifyWriteRowRequest, ReadModifyWriteRowResponse>
         readModifyWriteRowTransportSettings =
             GrpcCallSettings.<ReadModifyWriteRowRequest, ReadModifyWriteRowResponse>newBuilder()
                 .setMethodDescriptor(readModifyWriteRowMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getTableName(),
-                          "table_name",
-                          READ_MODIFY_WRITE_ROW_0_PATH_TEMPLATE);
-                      builder.add(
-                          request.getAppProfileId(),
-                          "app_profile_id",
-                          READ_MODIFY_WRITE_ROW_1_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(READ_MODIFY_WRITE_ROW_PARAMS_EXTRACTOR)
                 .build();
 
     this.readRowsCallable =
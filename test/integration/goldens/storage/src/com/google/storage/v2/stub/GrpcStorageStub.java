@@ -27,7 +27,7 @@ import com.google.api.gax.grpc.GrpcCallSettings;
 import com.google.api.gax.grpc.GrpcStubCallableFactory;
 import com.google.api.gax.rpc.ClientContext;
 import com.google.api.gax.rpc.ClientStreamingCallable;
-import com.google.api.gax.rpc.RequestParamsBuilder;
+import com.google.api.gax.rpc.RoutingHeaderParamsExtractor;
 import com.google.api.gax.rpc.ServerStreamingCallable;
 import com.google.api.gax.rpc.UnaryCallable;
 import com.google.api.pathtemplate.PathTemplate;
@@ -84,7 +84,6 @@ import com.google.storage.v2.WriteObjectResponse;
 import io.grpc.MethodDescriptor;
 import io.grpc.protobuf.ProtoUtils;
 import java.io.IOException;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Generated;
 
@@ -432,68 +431,268 @@ public class GrpcStorageStub extends StorageStub {
 
   private static final PathTemplate DELETE_BUCKET_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<DeleteBucketRequest>
+      DELETE_BUCKET_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<DeleteBucketRequest>newBuilder()
+              .add(request -> request.getName(), "bucket", DELETE_BUCKET_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate GET_BUCKET_0_PATH_TEMPLATE = PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<GetBucketRequest> GET_BUCKET_PARAMS_EXTRACTOR =
+      RoutingHeaderParamsExtractor.<GetBucketRequest>newBuilder()
+          .add(request -> request.getName(), "bucket", GET_BUCKET_0_PATH_TEMPLATE)
+          .build();
   private static final PathTemplate CREATE_BUCKET_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<CreateBucketRequest>
+      CREATE_BUCKET_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<CreateBucketRequest>newBuilder()
+              .add(request -> request.getParent(), "project", CREATE_BUCKET_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate LIST_BUCKETS_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<ListBucketsRequest>
+      LIST_BUCKETS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ListBucketsRequest>newBuilder()
+              .add(request -> request.getParent(), "project", LIST_BUCKETS_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate LOCK_BUCKET_RETENTION_POLICY_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<LockBucketRetentionPolicyRequest>
+      LOCK_BUCKET_RETENTION_POLICY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<LockBucketRetentionPolicyRequest>newBuilder()
+              .add(
+                  request -> request.getBucket(),
+                  "bucket",
+                  LOCK_BUCKET_RETENTION_POLICY_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate GET_IAM_POLICY_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
   private static final PathTemplate GET_IAM_POLICY_1_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/objects/**");
+  private static final RoutingHeaderParamsExtractor<GetIamPolicyRequest>
+      GET_IAM_POLICY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<GetIamPolicyRequest>newBuilder()
+              .add(request -> request.getResource(), "bucket", GET_IAM_POLICY_0_PATH_TEMPLATE)
+              .add(request -> request.getResource(), "bucket", GET_IAM_POLICY_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate SET_IAM_POLICY_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
   private static final PathTemplate SET_IAM_POLICY_1_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/objects/**");
+  private static final RoutingHeaderParamsExtractor<SetIamPolicyRequest>
+      SET_IAM_POLICY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<SetIamPolicyRequest>newBuilder()
+              .add(request -> request.getResource(), "bucket", SET_IAM_POLICY_0_PATH_TEMPLATE)
+              .add(request -> request.getResource(), "bucket", SET_IAM_POLICY_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate TEST_IAM_PERMISSIONS_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
   private static final PathTemplate TEST_IAM_PERMISSIONS_1_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/objects/**");
+  private static final RoutingHeaderParamsExtractor<TestIamPermissionsRequest>
+      TEST_IAM_PERMISSIONS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<TestIamPermissionsRequest>newBuilder()
+              .add(request -> request.getResource(), "bucket", TEST_IAM_PERMISSIONS_0_PATH_TEMPLATE)
+              .add(request -> request.getResource(), "bucket", TEST_IAM_PERMISSIONS_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate UPDATE_BUCKET_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<UpdateBucketRequest>
+      UPDATE_BUCKET_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<UpdateBucketRequest>newBuilder()
+              .add(
+                  request -> {
+                    if (request.getBucket() != null) {
+                      return request.getBucket().getName();
+                    }
+                    return null;
+                  },
+                  "bucket",
+                  UPDATE_BUCKET_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate DELETE_NOTIFICATION_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/**");
+  private static final RoutingHeaderParamsExtractor<DeleteNotificationRequest>
+      DELETE_NOTIFICATION_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<DeleteNotificationRequest>newBuilder()
+              .add(request -> request.getName(), "bucket", DELETE_NOTIFICATION_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate GET_NOTIFICATION_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/**");
+  private static final RoutingHeaderParamsExtractor<GetNotificationRequest>
+      GET_NOTIFICATION_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<GetNotificationRequest>newBuilder()
+              .add(request -> request.getName(), "bucket", GET_NOTIFICATION_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate CREATE_NOTIFICATION_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<CreateNotificationRequest>
+      CREATE_NOTIFICATION_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<CreateNotificationRequest>newBuilder()
+              .add(request -> request.getParent(), "bucket", CREATE_NOTIFICATION_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate LIST_NOTIFICATIONS_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<ListNotificationsRequest>
+      LIST_NOTIFICATIONS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ListNotificationsRequest>newBuilder()
+              .add(request -> request.getParent(), "bucket", LIST_NOTIFICATIONS_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate COMPOSE_OBJECT_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<ComposeObjectRequest>
+      COMPOSE_OBJECT_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ComposeObjectRequest>newBuilder()
+              .add(
+                  request -> {
+                    if (request.getDestination() != null) {
+                      return request.getDestination().getBucket();
+                    }
+                    return null;
+                  },
+                  "bucket",
+                  COMPOSE_OBJECT_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate DELETE_OBJECT_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<DeleteObjectRequest>
+      DELETE_OBJECT_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<DeleteObjectRequest>newBuilder()
+              .add(request -> request.getBucket(), "bucket", DELETE_OBJECT_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate CANCEL_RESUMABLE_WRITE_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/**");
+  private static final RoutingHeaderParamsExtractor<CancelResumableWriteRequest>
+      CANCEL_RESUMABLE_WRITE_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<CancelResumableWriteRequest>newBuilder()
+              .add(
+                  request -> request.getUploadId(),
+                  "bucket",
+                  CANCEL_RESUMABLE_WRITE_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate GET_OBJECT_0_PATH_TEMPLATE = PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<GetObjectRequest> GET_OBJECT_PARAMS_EXTRACTOR =
+      RoutingHeaderParamsExtractor.<GetObjectRequest>newBuilder()
+          .add(request -> request.getBucket(), "bucket", GET_OBJECT_0_PATH_TEMPLATE)
+          .build();
   private static final PathTemplate READ_OBJECT_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<ReadObjectRequest>
+      READ_OBJECT_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ReadObjectRequest>newBuilder()
+              .add(request -> request.getBucket(), "bucket", READ_OBJECT_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate UPDATE_OBJECT_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<UpdateObjectRequest>
+      UPDATE_OBJECT_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<UpdateObjectRequest>newBuilder()
+              .add(
+                  request -> {
+                    if (request.getObject() != null) {
+                      return request.getObject().getBucket();
+                    }
+                    return null;
+                  },
+                  "bucket",
+                  UPDATE_OBJECT_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate LIST_OBJECTS_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<ListObjectsRequest>
+      LIST_OBJECTS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ListObjectsRequest>newBuilder()
+              .add(request -> request.getParent(), "bucket", LIST_OBJECTS_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate REWRITE_OBJECT_0_PATH_TEMPLATE =
       PathTemplate.create("{source_bucket=**}");
   private static final PathTemplate REWRITE_OBJECT_1_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<RewriteObjectRequest>
+      REWRITE_OBJECT_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<RewriteObjectRequest>newBuilder()
+              .add(
+                  request -> request.getSourceBucket(),
+                  "source_bucket",
+                  REWRITE_OBJECT_0_PATH_TEMPLATE)
+              .add(
+                  request -> request.getDestinationBucket(),
+                  "bucket",
+                  REWRITE_OBJECT_1_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate START_RESUMABLE_WRITE_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=**}");
+  private static final RoutingHeaderParamsExtractor<StartResumableWriteRequest>
+      START_RESUMABLE_WRITE_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<StartResumableWriteRequest>newBuilder()
+              .add(
+                  request -> {
+                    if (request.getWriteObjectSpec() != null
+                        && request.getWriteObjectSpec().getResource() != null) {
+                      return request.getWriteObjectSpec().getResource().getBucket();
+                    }
+                    return null;
+                  },
+                  "bucket",
+                  START_RESUMABLE_WRITE_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate QUERY_WRITE_STATUS_0_PATH_TEMPLATE =
       PathTemplate.create("{bucket=projects/*/buckets/*}/**");
+  private static final RoutingHeaderParamsExtractor<QueryWriteStatusRequest>
+      QUERY_WRITE_STATUS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<QueryWriteStatusRequest>newBuilder()
+              .add(request -> request.getUploadId(), "bucket", QUERY_WRITE_STATUS_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate GET_SERVICE_ACCOUNT_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<GetServiceAccountRequest>
+      GET_SERVICE_ACCOUNT_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<GetServiceAccountRequest>newBuilder()
+              .add(request -> request.getProject(), "project", GET_SERVICE_ACCOUNT_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate CREATE_HMAC_KEY_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<CreateHmacKeyRequest>
+      CREATE_HMAC_KEY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<CreateHmacKeyRequest>newBuilder()
+              .add(request -> request.getProject(), "project", CREATE_HMAC_KEY_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate DELETE_HMAC_KEY_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<DeleteHmacKeyRequest>
+      DELETE_HMAC_KEY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<DeleteHmacKeyRequest>newBuilder()
+              .add(request -> request.getProject(), "project", DELETE_HMAC_KEY_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate GET_HMAC_KEY_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<GetHmacKeyRequest>
+      GET_HMAC_KEY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<GetHmacKeyRequest>newBuilder()
+              .add(request -> request.getProject(), "project", GET_HMAC_KEY_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate LIST_HMAC_KEYS_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<ListHmacKeysRequest>
+      LIST_HMAC_KEYS_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<ListHmacKeysRequest>newBuilder()
+              .add(request -> request.getProject(), "project", LIST_HMAC_KEYS_0_PATH_TEMPLATE)
+              .build();
   private static final PathTemplate UPDATE_HMAC_KEY_0_PATH_TEMPLATE =
       PathTemplate.create("{project=**}");
+  private static final RoutingHeaderParamsExtractor<UpdateHmacKeyRequest>
+      UPDATE_HMAC_KEY_PARAMS_EXTRACTOR =
+          RoutingHeaderParamsExtractor.<UpdateHmacKeyRequest>newBuilder()
+              .add(
+                  request -> {
+                    if (request.getHmacKey() != null) {
+                      return request.getHmacKey().getProject();
+                    }
+                    return null;
+                  },
+                  "project",
+                  UPDATE_HMAC_KEY_0_PATH_TEMPLATE)
+              .build();
 
   public static final GrpcStorageStub create(StorageStubSettings settings) throws IOException {
     return new GrpcStorageStub(settings, ClientContext.create(settings));
@@ -533,217 +732,101 @@ public class GrpcStorageStub extends StorageStub {
     GrpcCallSettings<DeleteBucketRequest, Empty> deleteBucketTransportSettings =
         GrpcCallSettings.<DeleteBucketRequest, Empty>newBuilder()
             .setMethodDescriptor(deleteBucketMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getName(), "bucket", DELETE_BUCKET_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(DELETE_BUCKET_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<GetBucketRequest, Bucket> getBucketTransportSettings =
         GrpcCallSettings.<GetBucketRequest, Bucket>newBuilder()
             .setMethodDescriptor(getBucketMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getName(), "bucket", GET_BUCKET_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(GET_BUCKET_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<CreateBucketRequest, Bucket> createBucketTransportSettings =
         GrpcCallSettings.<CreateBucketRequest, Bucket>newBuilder()
             .setMethodDescriptor(createBucketMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getParent(), "project", CREATE_BUCKET_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(CREATE_BUCKET_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<ListBucketsRequest, ListBucketsResponse> listBucketsTransportSettings =
         GrpcCallSettings.<ListBucketsRequest, ListBucketsResponse>newBuilder()
             .setMethodDescriptor(listBucketsMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getParent(), "project", LIST_BUCKETS_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(LIST_BUCKETS_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<LockBucketRetentionPolicyRequest, Bucket>
         lockBucketRetentionPolicyTransportSettings =
             GrpcCallSettings.<LockBucketRetentionPolicyRequest, Bucket>newBuilder()
                 .setMethodDescriptor(lockBucketRetentionPolicyMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getBucket(),
-                          "bucket",
-                          LOCK_BUCKET_RETENTION_POLICY_0_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(LOCK_BUCKET_RETENTION_POLICY_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<GetIamPolicyRequest, Policy> getIamPolicyTransportSettings =
         GrpcCallSettings.<GetIamPolicyRequest, Policy>newBuilder()
             .setMethodDescriptor(getIamPolicyMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getResource(), "bucket", GET_IAM_POLICY_0_PATH_TEMPLATE);
-                  builder.add(request.getResource(), "bucket", GET_IAM_POLICY_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(GET_IAM_POLICY_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<SetIamPolicyRequest, Policy> setIamPolicyTransportSettings =
         GrpcCallSettings.<SetIamPolicyRequest, Policy>newBuilder()
             .setMethodDescriptor(setIamPolicyMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getResource(), "bucket", SET_IAM_POLICY_0_PATH_TEMPLATE);
-                  builder.add(request.getResource(), "bucket", SET_IAM_POLICY_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(SET_IAM_POLICY_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<TestIamPermissionsRequest, TestIamPermissionsResponse>
         testIamPermissionsTransportSettings =
             GrpcCallSettings.<TestIamPermissionsRequest, TestIamPermissionsResponse>newBuilder()
                 .setMethodDescriptor(testIamPermissionsMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getResource(), "bucket", TEST_IAM_PERMISSIONS_0_PATH_TEMPLATE);
-                      builder.add(
-                          request.getResource(), "bucket", TEST_IAM_PERMISSIONS_1_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(TEST_IAM_PERMISSIONS_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<UpdateBucketRequest, Bucket> updateBucketTransportSettings =
         GrpcCallSettings.<UpdateBucketRequest, Bucket>newBuilder()
             .setMethodDescriptor(updateBucketMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  if (request.getBucket() != null) {
-                    builder.add(
-                        request.getBucket().getName(), "bucket", UPDATE_BUCKET_0_PATH_TEMPLATE);
-                  }
-                  return builder.build();
-                })
+            .setParamsExtractor(UPDATE_BUCKET_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<DeleteNotificationRequest, Empty> deleteNotificationTransportSettings =
         GrpcCallSettings.<DeleteNotificationRequest, Empty>newBuilder()
             .setMethodDescriptor(deleteNotificationMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getName(), "bucket", DELETE_NOTIFICATION_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(DELETE_NOTIFICATION_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<GetNotificationRequest, Notification> getNotificationTransportSettings =
         GrpcCallSettings.<GetNotificationRequest, Notification>newBuilder()
             .setMethodDescriptor(getNotificationMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getName(), "bucket", GET_NOTIFICATION_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(GET_NOTIFICATION_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<CreateNotificationRequest, Notification> createNotificationTransportSettings =
         GrpcCallSettings.<CreateNotificationRequest, Notification>newBuilder()
             .setMethodDescriptor(createNotificationMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getParent(), "bucket", CREATE_NOTIFICATION_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(CREATE_NOTIFICATION_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<ListNotificationsRequest, ListNotificationsResponse>
         listNotificationsTransportSettings =
             GrpcCallSettings.<ListNotificationsRequest, ListNotificationsResponse>newBuilder()
                 .setMethodDescriptor(listNotificationsMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getParent(), "bucket", LIST_NOTIFICATIONS_0_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(LIST_NOTIFICATIONS_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<ComposeObjectRequest, Object> composeObjectTransportSettings =
         GrpcCallSettings.<ComposeObjectRequest, Object>newBuilder()
             .setMethodDescriptor(composeObjectMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  if (request.getDestination() != null) {
-                    builder.add(
-                        request.getDestination().getBucket(),
-                        "bucket",
-                        COMPOSE_OBJECT_0_PATH_TEMPLATE);
-                  }
-                  return builder.build();
-                })
+            .setParamsExtractor(COMPOSE_OBJECT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<DeleteObjectRequest, Empty> deleteObjectTransportSettings =
         GrpcCallSettings.<DeleteObjectRequest, Empty>newBuilder()
             .setMethodDescriptor(deleteObjectMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getBucket(), "bucket", DELETE_OBJECT_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(DELETE_OBJECT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<CancelResumableWriteRequest, CancelResumableWriteResponse>
         cancelResumableWriteTransportSettings =
             GrpcCallSettings.<CancelResumableWriteRequest, CancelResumableWriteResponse>newBuilder()
                 .setMethodDescriptor(cancelResumableWriteMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getUploadId(), "bucket", CANCEL_RESUMABLE_WRITE_0_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(CANCEL_RESUMABLE_WRITE_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<GetObjectRequest, Object> getObjectTransportSettings =
         GrpcCallSettings.<GetObjectRequest, Object>newBuilder()
             .setMethodDescriptor(getObjectMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getBucket(), "bucket", GET_OBJECT_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(GET_OBJECT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<ReadObjectRequest, ReadObjectResponse> readObjectTransportSettings =
         GrpcCallSettings.<ReadObjectRequest, ReadObjectResponse>newBuilder()
             .setMethodDescriptor(readObjectMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getBucket(), "bucket", READ_OBJECT_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(READ_OBJECT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<UpdateObjectRequest, Object> updateObjectTransportSettings =
         GrpcCallSettings.<UpdateObjectRequest, Object>newBuilder()
             .setMethodDescriptor(updateObjectMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  if (request.getObject() != null) {
-                    builder.add(
-                        request.getObject().getBucket(), "bucket", UPDATE_OBJECT_0_PATH_TEMPLATE);
-                  }
-                  return builder.build();
-                })
+            .setParamsExtractor(UPDATE_OBJECT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<WriteObjectRequest, WriteObjectResponse> writeObjectTransportSettings =
         GrpcCallSettings.<WriteObjectRequest, WriteObjectResponse>newBuilder()
@@ -752,119 +835,54 @@ public class GrpcStorageStub extends StorageStub {
     GrpcCallSettings<ListObjectsRequest, ListObjectsResponse> listObjectsTransportSettings =
         GrpcCallSettings.<ListObjectsRequest, ListObjectsResponse>newBuilder()
             .setMethodDescriptor(listObjectsMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getParent(), "bucket", LIST_OBJECTS_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(LIST_OBJECTS_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<RewriteObjectRequest, RewriteResponse> rewriteObjectTransportSettings =
         GrpcCallSettings.<RewriteObjectRequest, RewriteResponse>newBuilder()
             .setMethodDescriptor(rewriteObjectMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(
-                      request.getSourceBucket(), "source_bucket", REWRITE_OBJECT_0_PATH_TEMPLATE);
-                  builder.add(
-                      request.getDestinationBucket(), "bucket", REWRITE_OBJECT_1_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(REWRITE_OBJECT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<StartResumableWriteRequest, StartResumableWriteResponse>
         startResumableWriteTransportSettings =
             GrpcCallSettings.<StartResumableWriteRequest, StartResumableWriteResponse>newBuilder()
                 .setMethodDescriptor(startResumableWriteMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      if (request.getWriteObjectSpec() != null
-                          && request.getWriteObjectSpec().getResource() != null) {
-                        builder.add(
-                            request.getWriteObjectSpec().getResource().getBucket(),
-                            "bucket",
-                            START_RESUMABLE_WRITE_0_PATH_TEMPLATE);
-                      }
-                      return builder.build();
-                    })
+                .setParamsExtractor(START_RESUMABLE_WRITE_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<QueryWriteStatusRequest, QueryWriteStatusResponse>
         queryWriteStatusTransportSettings =
             GrpcCallSettings.<QueryWriteStatusRequest, QueryWriteStatusResponse>newBuilder()
                 .setMethodDescriptor(queryWriteStatusMethodDescriptor)
-                .setParamsExtractor(
-                    request -> {
-                      RequestParamsBuilder builder = RequestParamsBuilder.create();
-                      builder.add(
-                          request.getUploadId(), "bucket", QUERY_WRITE_STATUS_0_PATH_TEMPLATE);
-                      return builder.build();
-                    })
+                .setParamsExtractor(QUERY_WRITE_STATUS_PARAMS_EXTRACTOR)
                 .build();
     GrpcCallSettings<GetServiceAccountRequest, ServiceAccount> getServiceAccountTransportSettings =
         GrpcCallSettings.<GetServiceAccountRequest, ServiceAccount>newBuilder()
             .setMethodDescriptor(getServiceAccountMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getProject(), "project", GET_SERVICE_ACCOUNT_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(GET_SERVICE_ACCOUNT_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<CreateHmacKeyRequest, CreateHmacKeyResponse> createHmacKeyTransportSettings =
         GrpcCallSettings.<CreateHmacKeyRequest, CreateHmacKeyResponse>newBuilder()
             .setMethodDescriptor(createHmacKeyMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getProject(), "project", CREATE_HMAC_KEY_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(CREATE_HMAC_KEY_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<DeleteHmacKeyRequest, Empty> deleteHmacKeyTransportSettings =
         GrpcCallSettings.<DeleteHmacKeyRequest, Empty>newBuilder()
             .setMethodDescriptor(deleteHmacKeyMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getProject(), "project", DELETE_HMAC_KEY_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(DELETE_HMAC_KEY_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<GetHmacKeyRequest, HmacKeyMetadata> getHmacKeyTransportSettings =
         GrpcCallSettings.<GetHmacKeyRequest, HmacKeyMetadata>newBuilder()
             .setMethodDescriptor(getHmacKeyMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getProject(), "project", GET_HMAC_KEY_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(GET_HMAC_KEY_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<ListHmacKeysRequest, ListHmacKeysResponse> listHmacKeysTransportSettings =
         GrpcCallSettings.<ListHmacKeysRequest, ListHmacKeysResponse>newBuilder()
             .setMethodDescriptor(listHmacKeysMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  builder.add(request.getProject(), "project", LIST_HMAC_KEYS_0_PATH_TEMPLATE);
-                  return builder.build();
-                })
+            .setParamsExtractor(LIST_HMAC_KEYS_PARAMS_EXTRACTOR)
             .build();
     GrpcCallSettings<UpdateHmacKeyRequest, HmacKeyMetadata> updateHmacKeyTransportSettings =
         GrpcCallSettings.<UpdateHmacKeyRequest, HmacKeyMetadata>newBuilder()
             .setMethodDescriptor(updateHmacKeyMethodDescriptor)
-            .setParamsExtractor(
-                request -> {
-                  RequestParamsBuilder builder = RequestParamsBuilder.create();
-                  if (request.getHmacKey() != null) {
-                    builder.add(
-                        request.getHmacKey().getProject(),
-                        "project",
-                        UPDATE_HMAC_KEY_0_PATH_TEMPLATE);
-                  }
-                  return builder.build();
-                })
+            .setParamsExtractor(UPDATE_HMAC_KEY_PARAMS_EXTRACTOR)
             .build();
 
     this.deleteBucketCallable =